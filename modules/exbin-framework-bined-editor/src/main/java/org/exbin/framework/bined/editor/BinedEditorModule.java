@@ -37,6 +37,8 @@ import org.exbin.framework.bined.BinEdFileHandler;
 import org.exbin.framework.bined.BinEdFileManager;
 import org.exbin.framework.bined.BinedModule;
 import org.exbin.framework.bined.FileHandlingMode;
+import org.exbin.framework.bined.FileHandlingModePolicy;
+import org.exbin.framework.bined.UndoDataStorage;
 import org.exbin.framework.menu.api.MenuManagement;
 import org.exbin.framework.bined.editor.action.EditSelectionAction;
 import org.exbin.framework.bined.editor.action.ReloadFileAction;
@@ -108,6 +110,22 @@ public class BinedEditorModule implements Module {
                 }
             }
 
+            @Override
+            public void setFileHandlingModePolicy(boolean automatic, int memoryModeSizeLimit, int memoryModeHeapRatio, int directModeSizeThreshold) {
+                FileHandlingModePolicy policy = binedModule.getFileManager().getFileHandlingModePolicy();
+                policy.setAutomatic(automatic);
+                policy.setMemoryModeSizeLimit(memoryModeSizeLimit);
+                policy.setMemoryModeHeapRatio(memoryModeHeapRatio);
+                policy.setDirectModeSizeThreshold(directModeSizeThreshold);
+            }
+
+            @Override
+            public void setUndoDataStorageLimits(int spillThreshold, int storageLimit) {
+                UndoDataStorage undoDataStorage = binedModule.getFileManager().getUndoDataStorage();
+                undoDataStorage.setSpillThreshold(spillThreshold * 1024L * 1024L);
+                undoDataStorage.setStorageLimit(storageLimit * 1024L * 1024L);
+            }
+
             @Override
             public void setEnterKeyHandlingMode(EnterKeyHandlingMode enterKeyHandlingMode) {
                 Optional<FileHandler> activeFile = editorProvider.getActiveFile();
@@ -26,6 +26,7 @@ import org.exbin.framework.action.api.ActionModuleApi;
 import org.exbin.framework.action.api.ActionContextChangeManager;
 import org.exbin.framework.action.api.DialogParentComponent;
 import org.exbin.framework.bined.BinEdFileHandler;
+import org.exbin.framework.bined.BinedModule;
 import org.exbin.framework.bined.editor.gui.BinEdFilePropertiesPanel;
 import org.exbin.framework.window.api.gui.CloseControlPanel;
 import org.exbin.framework.file.api.FileHandler;
@@ -75,6 +76,8 @@ public class PropertiesAction extends AbstractAction {
         WindowModuleApi windowModule = App.getModule(WindowModuleApi.class);
         BinEdFilePropertiesPanel propertiesPanel = new BinEdFilePropertiesPanel();
         propertiesPanel.setFileHandler((BinEdFileHandler) fileHandler);
+        BinedModule binedModule = App.getModule(BinedModule.class);
+        propertiesPanel.setMemoryUsage(binedModule.getFileManager().getMemoryBudget().getMemoryUsage((BinEdFileHandler) fileHandler));
         CloseControlPanel controlPanel = new CloseControlPanel();
         final WindowHandler dialog = windowModule.createDialog(propertiesPanel, controlPanel);
         windowModule.addHeaderPanel(dialog.getWindow(), propertiesPanel.getClass(), propertiesPanel.getResourceBundle());
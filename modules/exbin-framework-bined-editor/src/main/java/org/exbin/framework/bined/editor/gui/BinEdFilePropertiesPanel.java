@@ -20,16 +20,12 @@ import java.util.Optional;
 import java.util.ResourceBundle;
 import javax.annotation.Nonnull;
 import javax.annotation.ParametersAreNonnullByDefault;
-import javax.swing.DefaultListModel;
 import org.exbin.auxiliary.binary_data.BinaryData;
-import org.exbin.auxiliary.binary_data.delta.DataSegment;
 import org.exbin.auxiliary.binary_data.delta.DeltaDocument;
-import org.exbin.auxiliary.binary_data.delta.MemorySegment;
-import org.exbin.auxiliary.binary_data.delta.SourceSegment;
-import org.exbin.auxiliary.binary_data.delta.list.DefaultDoublyLinkedList;
 import org.exbin.bined.swing.section.SectCodeArea;
 import org.exbin.framework.App;
 import org.exbin.framework.bined.BinEdFileHandler;
+import org.exbin.framework.bined.BinEdMemoryBudget;
 import org.exbin.framework.language.api.LanguageModuleApi;
 import org.exbin.framework.utils.TestApplication;
 import org.exbin.framework.utils.UtilsModule;
@@ -44,9 +40,16 @@ import org.exbin.framework.utils.WindowUtils;
 public class BinEdFilePropertiesPanel extends javax.swing.JPanel {
 
     private final java.util.ResourceBundle resourceBundle = App.getModule(LanguageModuleApi.class).getBundle(BinEdFilePropertiesPanel.class);
+    private final DocumentStructureListModel structureModel = new DocumentStructureListModel();
 
     public BinEdFilePropertiesPanel() {
         initComponents();
+        init();
+    }
+
+    private void init() {
+        // Fixed cell size avoids measuring of all rows
+        structureList.setPrototypeCellValue("MEMORY: 0000000000000000, 0000000000000000");
     }
 
     @Nonnull
@@ -67,7 +70,10 @@ public class BinEdFilePropertiesPanel extends javax.swing.JPanel {
         fileNameTextField = new javax.swing.JTextField();
         fileSizeLabel = new javax.swing.JLabel();
         fileSizeTextField = new javax.swing.JTextField();
+        memoryUsageLabel = new javax.swing.JLabel();
+        memoryUsageTextField = new javax.swing.JTextField();
         structurePanel = new javax.swing.JPanel();
+        structureStatsLabel = new javax.swing.JLabel();
         structureScrollPane = new javax.swing.JScrollPane();
         structureList = new javax.swing.JList<>();
 
@@ -79,9 +85,13 @@ public class BinEdFilePropertiesPanel extends javax.swing.JPanel {
 
         fileSizeTextField.setEditable(false);
 
+        memoryUsageLabel.setText(resourceBundle.getString("memoryUsageLabel.text")); // NOI18N
+
+        memoryUsageTextField.setEditable(false);
+
         structurePanel.setBorder(javax.swing.BorderFactory.createTitledBorder(resourceBundle.getString("structurePanel.border.title"))); // NOI18N
 
-        structureList.setModel(new DefaultListModel<String>());
+        structureList.setModel(structureModel);
         structureScrollPane.setViewportView(structureList);
 
         javax.swing.GroupLayout structurePanelLayout = new javax.swing.GroupLayout(structurePanel);
@@ -90,12 +100,16 @@ public class BinEdFilePropertiesPanel extends javax.swing.JPanel {
             structurePanelLayout.createParallelGroup(javax.swing.GroupLayout.Alignment.LEADING)
             .addGroup(structurePanelLayout.createSequentialGroup()
                 .addContainerGap()
-                .addComponent(structureScrollPane)
+                .addGroup(structurePanelLayout.createParallelGroup(javax.swing.GroupLayout.Alignment.LEADING)
+                    .addComponent(structureScrollPane)
+                    .addComponent(structureStatsLabel, javax.swing.GroupLayout.DEFAULT_SIZE, javax.swing.GroupLayout.DEFAULT_SIZE, Short.MAX_VALUE))
                 .addContainerGap())
         );
         structurePanelLayout.setVerticalGroup(
             structurePanelLayout.createParallelGroup(javax.swing.GroupLayout.Alignment.LEADING)
             .addGroup(structurePanelLayout.createSequentialGroup()
+                .addComponent(structureStatsLabel)
+                .addPreferredGap(javax.swing.LayoutStyle.ComponentPlacement.RELATED)
                 .addComponent(structureScrollPane, javax.swing.GroupLayout.DEFAULT_SIZE, 160, Short.MAX_VALUE)
                 .addContainerGap())
         );
@@ -117,6 +131,10 @@ public class BinEdFilePropertiesPanel extends javax.swing.JPanel {
                             .addGroup(javax.swing.GroupLayout.Alignment.LEADING, layout.createSequentialGroup()
                                 .addComponent(fileSizeLabel)
                                 .addGap(0, 350, Short.MAX_VALUE))
+                            .addComponent(memoryUsageTextField, javax.swing.GroupLayout.Alignment.LEADING)
+                            .addGroup(javax.swing.GroupLayout.Alignment.LEADING, layout.createSequentialGroup()
+                                .addComponent(memoryUsageLabel)
+                                .addGap(0, 0, Short.MAX_VALUE))
                             .addComponent(fileNameTextField, javax.swing.GroupLayout.Alignment.LEADING))
                         .addContainerGap())))
         );
@@ -132,6 +150,10 @@ public class BinEdFilePropertiesPanel extends javax.swing.JPanel {
                 .addPreferredGap(javax.swing.LayoutStyle.ComponentPlacement.RELATED)
                 .addComponent(fileSizeTextField, javax.swing.GroupLayout.PREFERRED_SIZE, javax.swing.GroupLayout.DEFAULT_SIZE, javax.swing.GroupLayout.PREFERRED_SIZE)
                 .addPreferredGap(javax.swing.LayoutStyle.ComponentPlacement.RELATED)
+                .addComponent(memoryUsageLabel)
+                .addPreferredGap(javax.swing.LayoutStyle.ComponentPlacement.RELATED)
+                .addComponent(memoryUsageTextField, javax.swing.GroupLayout.PREFERRED_SIZE, javax.swing.GroupLayout.DEFAULT_SIZE, javax.swing.GroupLayout.PREFERRED_SIZE)
+                .addPreferredGap(javax.swing.LayoutStyle.ComponentPlacement.RELATED)
                 .addComponent(structurePanel, javax.swing.GroupLayout.DEFAULT_SIZE, javax.swing.GroupLayout.DEFAULT_SIZE, Short.MAX_VALUE)
                 .addContainerGap())
         );
@@ -155,9 +177,12 @@ public class BinEdFilePropertiesPanel extends javax.swing.JPanel {
     private javax.swing.JTextField fileNameTextField;
     private javax.swing.JLabel fileSizeLabel;
     private javax.swing.JTextField fileSizeTextField;
+    private javax.swing.JLabel memoryUsageLabel;
+    private javax.swing.JTextField memoryUsageTextField;
     private javax.swing.JList<String> structureList;
     private javax.swing.JPanel structurePanel;
     private javax.swing.JScrollPane structureScrollPane;
+    private javax.swing.JLabel structureStatsLabel;
     // End of variables declaration//GEN-END:variables
 
     public void setFileHandler(BinEdFileHandler fileHandler) {
@@ -168,17 +193,41 @@ public class BinEdFilePropertiesPanel extends javax.swing.JPanel {
 
         BinaryData contentData = codeArea.getContentData();
         if (contentData instanceof DeltaDocument) {
-            DefaultDoublyLinkedList<DataSegment> segments = ((DeltaDocument) contentData).getSegments();
-            DataSegment segment = segments.first();
-            DefaultListModel<String> listModel = (DefaultListModel<String>) structureList.getModel();
-            while (segment != null) {
-                if (segment instanceof SourceSegment) {
-                    listModel.addElement("FILE: " + ((SourceSegment) segment).getStartPosition() + ", " + ((SourceSegment) segment).getLength());
-                } else {
-                    listModel.addElement("MEMORY: " + ((MemorySegment) segment).getStartPosition() + ", " + ((MemorySegment) segment).getLength());
-                }
-                segment = segment.getNext();
-            }
+            structureStatsLabel.setText(resourceBundle.getString("structureStats.computing"));
+            structureModel.scan(fileHandler, (DeltaDocument) contentData, this::updateStructureStatistics);
+        }
+    }
+
+    private void updateStructureStatistics(DocumentStructureListModel.Statistics statistics) {
+        String statisticsText = String.format(resourceBundle.getString("structureStats.format"), statistics.getSegmentsCount(), statistics.getFileBytes(), statistics.getMemoryBytes(), statistics.getFragmentationRatio() * 100);
+        if (statistics.isFinished()) {
+            statisticsText += String.format(resourceBundle.getString("structureStats.compactableFormat"), statistics.getCompactableRatio() * 100);
+        } else {
+            statisticsText += " " + resourceBundle.getString("structureStats.computing");
+        }
+        structureStatsLabel.setText(statisticsText);
+    }
+
+    @Override
+    public void removeNotify() {
+        super.removeNotify();
+        structureModel.cancel();
+    }
+
+    public void setMemoryUsage(BinEdMemoryBudget.MemoryUsage memoryUsage) {
+        memoryUsageTextField.setText(String.format(resourceBundle.getString("memoryUsage.format"),
+                formatMemorySize(memoryUsage.getTotal()),
+                formatMemorySize(memoryUsage.getUsage(BinEdMemoryBudget.MemoryCategory.CONTENT)),
+                formatMemorySize(memoryUsage.getUsage(BinEdMemoryBudget.MemoryCategory.UNDO)),
+                formatMemorySize(memoryUsage.getUsage(BinEdMemoryBudget.MemoryCategory.SEARCH))));
+    }
+
+    @Nonnull
+    private static String formatMemorySize(long size) {
+        if (size >= 1024 * 1024) {
+            return String.format("%.1f MB", size / (1024d * 1024d));
         }
+
+        return String.format("%d kB", (size + 1023) / 1024);
     }
 }
@@ -0,0 +1,271 @@
+/*
+ * Copyright (C) ExBin Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.exbin.framework.bined.editor.gui;
+
+import java.util.Arrays;
+import javax.annotation.Nonnull;
+import javax.annotation.ParametersAreNonnullByDefault;
+import javax.swing.AbstractListModel;
+import javax.swing.SwingUtilities;
+import org.exbin.auxiliary.binary_data.delta.DataSegment;
+import org.exbin.auxiliary.binary_data.delta.DeltaDocument;
+import org.exbin.auxiliary.binary_data.delta.MemorySegment;
+import org.exbin.auxiliary.binary_data.delta.SourceSegment;
+import org.exbin.framework.bined.BinEdFileHandler;
+
+/**
+ * List model of segments of delta document.
+ *
+ * Segments are scanned in background thread into compact arrays together with
+ * aggregate statistics and list rows are formatted only when requested.
+ * Idle compaction of the document is paused during scanning.
+ *
+ * @author ExBin Project (https://exbin.org)
+ */
+@ParametersAreNonnullByDefault
+public class DocumentStructureListModel extends AbstractListModel<String> {
+
+    private static final int INITIAL_CAPACITY = 1024;
+    private static final long PUBLISH_INTERVAL = 250;
+
+    private long[] startPositions = new long[INITIAL_CAPACITY];
+    private long[] lengths = new long[INITIAL_CAPACITY];
+    private boolean[] memorySegments = new boolean[INITIAL_CAPACITY];
+    private int scannedCount = 0;
+    private int publishedCount = 0;
+    private long fileBytes = 0;
+    private long memoryBytes = 0;
+    private int discontinuities = 0;
+    private double compactableRatio = 0;
+    private ScanThread scanThread = null;
+
+    public DocumentStructureListModel() {
+    }
+
+    /**
+     * Starts scanning of segments of given document.
+     *
+     * @param fileHandler file handler of the document
+     * @param document delta document
+     * @param statisticsListener listener notified on event dispatch thread
+     */
+    public void scan(BinEdFileHandler fileHandler, DeltaDocument document, StatisticsListener statisticsListener) {
+        cancel();
+        int previousCount = publishedCount;
+        synchronized (this) {
+            scannedCount = 0;
+            publishedCount = 0;
+            fileBytes = 0;
+            memoryBytes = 0;
+            discontinuities = 0;
+            compactableRatio = 0;
+        }
+        if (previousCount > 0) {
+            fireIntervalRemoved(this, 0, previousCount - 1);
+        }
+
+        scanThread = new ScanThread(fileHandler, document, statisticsListener);
+        scanThread.start();
+    }
+
+    public void cancel() {
+        if (scanThread != null) {
+            scanThread.interrupt();
+            scanThread = null;
+        }
+    }
+
+    @Override
+    public int getSize() {
+        return publishedCount;
+    }
+
+    @Nonnull
+    @Override
+    public synchronized String getElementAt(int index) {
+        return (memorySegments[index] ? "MEMORY: " : "FILE: ") + startPositions[index] + ", " + lengths[index];
+    }
+
+    private synchronized void addSegment(long startPosition, long length, boolean memorySegment) {
+        if (scannedCount == startPositions.length) {
+            int capacity = startPositions.length * 2;
+            startPositions = Arrays.copyOf(startPositions, capacity);
+            lengths = Arrays.copyOf(lengths, capacity);
+            memorySegments = Arrays.copyOf(memorySegments, capacity);
+        }
+
+        if (scannedCount > 0) {
+            // Reading continues from the same source without seeking
+            int previous = scannedCount - 1;
+            if (memorySegments[previous] != memorySegment || startPositions[previous] + lengths[previous] != startPosition) {
+                discontinuities++;
+            }
+        }
+
+        startPositions[scannedCount] = startPosition;
+        lengths[scannedCount] = length;
+        memorySegments[scannedCount] = memorySegment;
+        scannedCount++;
+        if (memorySegment) {
+            memoryBytes += length;
+        } else {
+            fileBytes += length;
+        }
+    }
+
+    private void publish(ScanThread thread, StatisticsListener statisticsListener, boolean finished) {
+        if (thread != scanThread) {
+            return;
+        }
+
+        Statistics statistics;
+        int newCount;
+        synchronized (this) {
+            newCount = scannedCount;
+            statistics = new Statistics(scannedCount, fileBytes, memoryBytes, scannedCount > 1 ? (double) discontinuities / (scannedCount - 1) : 0, compactableRatio, finished);
+        }
+        if (newCount > publishedCount) {
+            int previousCount = publishedCount;
+            publishedCount = newCount;
+            fireIntervalAdded(this, previousCount, newCount - 1);
+        }
+        if (finished) {
+            scanThread = null;
+        }
+        statisticsListener.statisticsChanged(statistics);
+    }
+
+    /**
+     * Thread scanning document segments.
+     */
+    private class ScanThread extends Thread {
+
+        private final BinEdFileHandler fileHandler;
+        private final DeltaDocument document;
+        private final StatisticsListener statisticsListener;
+
+        public ScanThread(BinEdFileHandler fileHandler, DeltaDocument document, StatisticsListener statisticsListener) {
+            super("DocumentStructureThread");
+            this.fileHandler = fileHandler;
+            this.document = document;
+            this.statisticsListener = statisticsListener;
+            setDaemon(true);
+        }
+
+        @Override
+        public void run() {
+            fileHandler.startReading();
+            try {
+                scanSegments();
+            } finally {
+                fileHandler.finishReading();
+            }
+        }
+
+        private void scanSegments() {
+            long lastPublishTime = System.currentTimeMillis();
+            DataSegment segment = document.getSegments().first();
+            while (segment != null) {
+                if (isInterrupted()) {
+                    return;
+                }
+
+                if (segment instanceof SourceSegment) {
+                    addSegment(((SourceSegment) segment).getStartPosition(), segment.getLength(), false);
+                } else {
+                    addSegment(((MemorySegment) segment).getStartPosition(), segment.getLength(), true);
+                }
+                segment = segment.getNext();
+
+                long currentTime = System.currentTimeMillis();
+                if (currentTime - lastPublishTime >= PUBLISH_INTERVAL) {
+                    lastPublishTime = currentTime;
+                    SwingUtilities.invokeLater(() -> publish(this, statisticsListener, false));
+                }
+            }
+
+            BinEdDocumentCompactor.Fragmentation fragmentation = BinEdDocumentCompactor.measureFragmentation(document);
+            synchronized (DocumentStructureListModel.this) {
+                compactableRatio = fragmentation.getLevel();
+            }
+            SwingUtilities.invokeLater(() -> publish(this, statisticsListener, true));
+        }
+    }
+
+    /**
+     * Aggregate statistics of document segments.
+     */
+    public static class Statistics {
+
+        private final int segmentsCount;
+        private final long fileBytes;
+        private final long memoryBytes;
+        private final double fragmentationRatio;
+        private final double compactableRatio;
+        private final boolean finished;
+
+        public Statistics(int segmentsCount, long fileBytes, long memoryBytes, double fragmentationRatio, double compactableRatio, boolean finished) {
+            this.segmentsCount = segmentsCount;
+            this.fileBytes = fileBytes;
+            this.memoryBytes = memoryBytes;
+            this.fragmentationRatio = fragmentationRatio;
+            this.compactableRatio = compactableRatio;
+            this.finished = finished;
+        }
+
+        public int getSegmentsCount() {
+            return segmentsCount;
+        }
+
+        public long getFileBytes() {
+            return fileBytes;
+        }
+
+        public long getMemoryBytes() {
+            return memoryBytes;
+        }
+
+        /**
+         * Returns ratio of segment boundaries at which reading of data cannot
+         * continue sequentially from the same source.
+         *
+         * @return fragmentation ratio in range 0 to 1
+         */
+        public double getFragmentationRatio() {
+            return fragmentationRatio;
+        }
+
+        /**
+         * Returns ratio of segments which would be removed by idle compaction.
+         *
+         * Available only when scanning is finished.
+         *
+         * @return compactable ratio in range 0 to 1
+         */
+        public double getCompactableRatio() {
+            return compactableRatio;
+        }
+
+        public boolean isFinished() {
+            return finished;
+        }
+    }
+
+    public interface StatisticsListener {
+
+        void statisticsChanged(Statistics statistics);
+    }
+}
@@ -22,6 +22,8 @@ import javax.annotation.ParametersAreNonnullByDefault;
 import org.exbin.bined.basic.EnterKeyHandlingMode;
 import org.exbin.bined.basic.TabKeyHandlingMode;
 import org.exbin.framework.bined.FileHandlingMode;
+import org.exbin.framework.bined.FileHandlingModePolicy;
+import org.exbin.framework.bined.UndoDataStorage;
 import org.exbin.framework.options.api.OptionsData;
 import org.exbin.framework.preferences.api.OptionsStorage;
 
@@ -34,9 +36,20 @@ import org.exbin.framework.preferences.api.OptionsStorage;
 public class BinaryEditorOptions implements OptionsData {
 
     public static final String KEY_FILE_HANDLING_MODE = "fileHandlingMode";
+    public static final String KEY_AUTOMATIC_FILE_HANDLING_MODE = "automaticFileHandlingMode";
+    public static final String KEY_MEMORY_MODE_SIZE_LIMIT = "memoryModeSizeLimit";
+    public static final String KEY_MEMORY_MODE_HEAP_RATIO = "memoryModeHeapRatio";
+    public static final String KEY_DIRECT_MODE_SIZE_THRESHOLD = "directModeSizeThreshold";
+    public static final String KEY_UNDO_SPILL_THRESHOLD = "undoSpillThreshold";
+    public static final String KEY_UNDO_STORAGE_LIMIT = "undoStorageLimit";
     public static final String KEY_ENTER_KEY_HANDLING_MODE = "enterKeyHandlingMode";
     public static final String KEY_TAB_KEY_HANDLING_MODE = "tabKeyHandlingMode";
 
+    private static final long MEBIBYTE = 1024 * 1024;
+
+    public static final int DEFAULT_UNDO_SPILL_THRESHOLD = (int) (UndoDataStorage.DEFAULT_SPILL_THRESHOLD / MEBIBYTE);
+    public static final int DEFAULT_UNDO_STORAGE_LIMIT = (int) (UndoDataStorage.DEFAULT_STORAGE_LIMIT / MEBIBYTE);
+
     private final OptionsStorage storage;
 
     public BinaryEditorOptions(OptionsStorage optionsStorage) {
@@ -58,6 +71,54 @@ public class BinaryEditorOptions implements OptionsData {
         storage.put(KEY_FILE_HANDLING_MODE, fileHandlingMode.name());
     }
 
+    public boolean isAutomaticFileHandlingMode() {
+        return storage.getBoolean(KEY_AUTOMATIC_FILE_HANDLING_MODE, false);
+    }
+
+    public void setAutomaticFileHandlingMode(boolean automaticFileHandlingMode) {
+        storage.putBoolean(KEY_AUTOMATIC_FILE_HANDLING_MODE, automaticFileHandlingMode);
+    }
+
+    public int getMemoryModeSizeLimit() {
+        return storage.getInt(KEY_MEMORY_MODE_SIZE_LIMIT, FileHandlingModePolicy.DEFAULT_MEMORY_MODE_SIZE_LIMIT);
+    }
+
+    public void setMemoryModeSizeLimit(int memoryModeSizeLimit) {
+        storage.putInt(KEY_MEMORY_MODE_SIZE_LIMIT, memoryModeSizeLimit);
+    }
+
+    public int getMemoryModeHeapRatio() {
+        return storage.getInt(KEY_MEMORY_MODE_HEAP_RATIO, FileHandlingModePolicy.DEFAULT_MEMORY_MODE_HEAP_RATIO);
+    }
+
+    public void setMemoryModeHeapRatio(int memoryModeHeapRatio) {
+        storage.putInt(KEY_MEMORY_MODE_HEAP_RATIO, memoryModeHeapRatio);
+    }
+
+    public int getDirectModeSizeThreshold() {
+        return storage.getInt(KEY_DIRECT_MODE_SIZE_THRESHOLD, FileHandlingModePolicy.DEFAULT_DIRECT_MODE_SIZE_THRESHOLD);
+    }
+
+    public void setDirectModeSizeThreshold(int directModeSizeThreshold) {
+        storage.putInt(KEY_DIRECT_MODE_SIZE_THRESHOLD, directModeSizeThreshold);
+    }
+
+    public int getUndoSpillThreshold() {
+        return storage.getInt(KEY_UNDO_SPILL_THRESHOLD, DEFAULT_UNDO_SPILL_THRESHOLD);
+    }
+
+    public void setUndoSpillThreshold(int undoSpillThreshold) {
+        storage.putInt(KEY_UNDO_SPILL_THRESHOLD, undoSpillThreshold);
+    }
+
+    public int getUndoStorageLimit() {
+        return storage.getInt(KEY_UNDO_STORAGE_LIMIT, DEFAULT_UNDO_STORAGE_LIMIT);
+    }
+
+    public void setUndoStorageLimit(int undoStorageLimit) {
+        storage.putInt(KEY_UNDO_STORAGE_LIMIT, undoStorageLimit);
+    }
+
     @Nonnull
     public EnterKeyHandlingMode getEnterKeyHandlingMode() {
         EnterKeyHandlingMode defaultValue = EnterKeyHandlingMode.PLATFORM_SPECIFIC;
@@ -91,6 +152,12 @@ public class BinaryEditorOptions implements OptionsData {
         BinaryEditorOptions with = (BinaryEditorOptions) options;
         with.setEnterKeyHandlingMode(getEnterKeyHandlingMode());
         with.setFileHandlingMode(getFileHandlingMode());
+        with.setAutomaticFileHandlingMode(isAutomaticFileHandlingMode());
+        with.setMemoryModeSizeLimit(getMemoryModeSizeLimit());
+        with.setMemoryModeHeapRatio(getMemoryModeHeapRatio());
+        with.setDirectModeSizeThreshold(getDirectModeSizeThreshold());
+        with.setUndoSpillThreshold(getUndoSpillThreshold());
+        with.setUndoStorageLimit(getUndoStorageLimit());
         with.setTabKeyHandlingMode(getTabKeyHandlingMode());
     }
 }
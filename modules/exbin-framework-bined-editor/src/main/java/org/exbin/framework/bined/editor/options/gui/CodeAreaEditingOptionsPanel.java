@@ -73,6 +73,12 @@ public class CodeAreaEditingOptionsPanel extends javax.swing.JPanel implements O
     public void saveToOptions(BinaryEditorOptions options) {
         // Skip direct file handling mode
         options.setFileHandlingMode(FileHandlingMode.values()[fileHandlingModeComboBox.getSelectedIndex() + 1]);
+        options.setAutomaticFileHandlingMode(automaticFileHandlingModeCheckBox.isSelected());
+        options.setMemoryModeSizeLimit((int) memoryModeSizeLimitSpinner.getValue());
+        options.setMemoryModeHeapRatio((int) memoryModeHeapRatioSpinner.getValue());
+        options.setDirectModeSizeThreshold((int) directModeSizeThresholdSpinner.getValue());
+        options.setUndoSpillThreshold((int) undoSpillThresholdSpinner.getValue());
+        options.setUndoStorageLimit((int) undoStorageLimitSpinner.getValue());
         options.setEnterKeyHandlingMode(EnterKeyHandlingMode.values()[enterKeyHandlingModeComboBox.getSelectedIndex()]);
         options.setTabKeyHandlingMode(TabKeyHandlingMode.values()[tabKeyHandlingModeComboBox.getSelectedIndex()]);
     }
@@ -81,6 +87,13 @@ public class CodeAreaEditingOptionsPanel extends javax.swing.JPanel implements O
     public void loadFromOptions(BinaryEditorOptions options) {
         // Skip direct file handling mode
         fileHandlingModeComboBox.setSelectedIndex(options.getFileHandlingMode().ordinal() - 1);
+        automaticFileHandlingModeCheckBox.setSelected(options.isAutomaticFileHandlingMode());
+        memoryModeSizeLimitSpinner.setValue(options.getMemoryModeSizeLimit());
+        memoryModeHeapRatioSpinner.setValue(options.getMemoryModeHeapRatio());
+        directModeSizeThresholdSpinner.setValue(options.getDirectModeSizeThreshold());
+        updateAutomaticFileHandlingModeState();
+        undoSpillThresholdSpinner.setValue(options.getUndoSpillThreshold());
+        undoStorageLimitSpinner.setValue(options.getUndoStorageLimit());
         enterKeyHandlingModeComboBox.setSelectedIndex(options.getEnterKeyHandlingMode().ordinal());
         tabKeyHandlingModeComboBox.setSelectedIndex(options.getTabKeyHandlingMode().ordinal());
     }
@@ -96,6 +109,17 @@ public class CodeAreaEditingOptionsPanel extends javax.swing.JPanel implements O
 
         fileHandlingModeLabel = new javax.swing.JLabel();
         fileHandlingModeComboBox = new javax.swing.JComboBox<>();
+        automaticFileHandlingModeCheckBox = new javax.swing.JCheckBox();
+        memoryModeSizeLimitLabel = new javax.swing.JLabel();
+        memoryModeSizeLimitSpinner = new javax.swing.JSpinner();
+        memoryModeHeapRatioLabel = new javax.swing.JLabel();
+        memoryModeHeapRatioSpinner = new javax.swing.JSpinner();
+        directModeSizeThresholdLabel = new javax.swing.JLabel();
+        directModeSizeThresholdSpinner = new javax.swing.JSpinner();
+        undoSpillThresholdLabel = new javax.swing.JLabel();
+        undoSpillThresholdSpinner = new javax.swing.JSpinner();
+        undoStorageLimitLabel = new javax.swing.JLabel();
+        undoStorageLimitSpinner = new javax.swing.JSpinner();
         enterKeyHandlingModeLabel = new javax.swing.JLabel();
         enterKeyHandlingModeComboBox = new javax.swing.JComboBox<>();
         tabKeyHandlingModeLabel = new javax.swing.JLabel();
@@ -103,6 +127,39 @@ public class CodeAreaEditingOptionsPanel extends javax.swing.JPanel implements O
 
         fileHandlingModeLabel.setText(resourceBundle.getString("fileHandlingModeLabel.text")); // NOI18N
 
+        automaticFileHandlingModeCheckBox.setText(resourceBundle.getString("automaticFileHandlingModeCheckBox.text")); // NOI18N
+        automaticFileHandlingModeCheckBox.addItemListener(new java.awt.event.ItemListener() {
+            public void itemStateChanged(java.awt.event.ItemEvent evt) {
+                automaticFileHandlingModeCheckBoxItemStateChanged(evt);
+            }
+        });
+
+        memoryModeSizeLimitLabel.setText(resourceBundle.getString("memoryModeSizeLimitLabel.text")); // NOI18N
+        memoryModeSizeLimitLabel.setEnabled(false);
+
+        memoryModeSizeLimitSpinner.setModel(new javax.swing.SpinnerNumberModel(64, 0, null, 1));
+        memoryModeSizeLimitSpinner.setEnabled(false);
+
+        memoryModeHeapRatioLabel.setText(resourceBundle.getString("memoryModeHeapRatioLabel.text")); // NOI18N
+        memoryModeHeapRatioLabel.setEnabled(false);
+
+        memoryModeHeapRatioSpinner.setModel(new javax.swing.SpinnerNumberModel(50, 1, 100, 1));
+        memoryModeHeapRatioSpinner.setEnabled(false);
+
+        directModeSizeThresholdLabel.setText(resourceBundle.getString("directModeSizeThresholdLabel.text")); // NOI18N
+        directModeSizeThresholdLabel.setEnabled(false);
+
+        directModeSizeThresholdSpinner.setModel(new javax.swing.SpinnerNumberModel(0, 0, null, 1));
+        directModeSizeThresholdSpinner.setEnabled(false);
+
+        undoSpillThresholdLabel.setText(resourceBundle.getString("undoSpillThresholdLabel.text")); // NOI18N
+
+        undoSpillThresholdSpinner.setModel(new javax.swing.SpinnerNumberModel(16, 0, null, 1));
+
+        undoStorageLimitLabel.setText(resourceBundle.getString("undoStorageLimitLabel.text")); // NOI18N
+
+        undoStorageLimitSpinner.setModel(new javax.swing.SpinnerNumberModel(4096, 0, null, 1));
+
         enterKeyHandlingModeLabel.setText(resourceBundle.getString("enterKeyHandlingModeLabel.text")); // NOI18N
 
         tabKeyHandlingModeLabel.setText(resourceBundle.getString("tabKeyHandlingModeLabel.text")); // NOI18N
@@ -115,11 +172,22 @@ public class CodeAreaEditingOptionsPanel extends javax.swing.JPanel implements O
                 .addContainerGap()
                 .addGroup(layout.createParallelGroup(javax.swing.GroupLayout.Alignment.LEADING)
                     .addComponent(fileHandlingModeComboBox, 0, javax.swing.GroupLayout.DEFAULT_SIZE, Short.MAX_VALUE)
+                    .addComponent(automaticFileHandlingModeCheckBox, javax.swing.GroupLayout.DEFAULT_SIZE, javax.swing.GroupLayout.DEFAULT_SIZE, Short.MAX_VALUE)
+                    .addComponent(memoryModeSizeLimitSpinner)
+                    .addComponent(memoryModeHeapRatioSpinner)
+                    .addComponent(directModeSizeThresholdSpinner)
+                    .addComponent(undoSpillThresholdSpinner)
+                    .addComponent(undoStorageLimitSpinner)
                     .addComponent(enterKeyHandlingModeComboBox, 0, javax.swing.GroupLayout.DEFAULT_SIZE, Short.MAX_VALUE)
                     .addComponent(tabKeyHandlingModeComboBox, 0, javax.swing.GroupLayout.DEFAULT_SIZE, Short.MAX_VALUE)
                     .addGroup(layout.createSequentialGroup()
                         .addGroup(layout.createParallelGroup(javax.swing.GroupLayout.Alignment.LEADING)
                             .addComponent(fileHandlingModeLabel)
+                            .addComponent(memoryModeSizeLimitLabel)
+                            .addComponent(memoryModeHeapRatioLabel)
+                            .addComponent(directModeSizeThresholdLabel)
+                            .addComponent(undoSpillThresholdLabel)
+                            .addComponent(undoStorageLimitLabel)
                             .addComponent(enterKeyHandlingModeLabel)
                             .addComponent(tabKeyHandlingModeLabel))
                         .addGap(0, 0, Short.MAX_VALUE)))
@@ -133,6 +201,28 @@ public class CodeAreaEditingOptionsPanel extends javax.swing.JPanel implements O
                 .addPreferredGap(javax.swing.LayoutStyle.ComponentPlacement.RELATED)
                 .addComponent(fileHandlingModeComboBox, javax.swing.GroupLayout.PREFERRED_SIZE, javax.swing.GroupLayout.DEFAULT_SIZE, javax.swing.GroupLayout.PREFERRED_SIZE)
                 .addPreferredGap(javax.swing.LayoutStyle.ComponentPlacement.RELATED)
+                .addComponent(automaticFileHandlingModeCheckBox)
+                .addPreferredGap(javax.swing.LayoutStyle.ComponentPlacement.RELATED)
+                .addComponent(memoryModeSizeLimitLabel)
+                .addPreferredGap(javax.swing.LayoutStyle.ComponentPlacement.RELATED)
+                .addComponent(memoryModeSizeLimitSpinner, javax.swing.GroupLayout.PREFERRED_SIZE, javax.swing.GroupLayout.DEFAULT_SIZE, javax.swing.GroupLayout.PREFERRED_SIZE)
+                .addPreferredGap(javax.swing.LayoutStyle.ComponentPlacement.RELATED)
+                .addComponent(memoryModeHeapRatioLabel)
+                .addPreferredGap(javax.swing.LayoutStyle.ComponentPlacement.RELATED)
+                .addComponent(memoryModeHeapRatioSpinner, javax.swing.GroupLayout.PREFERRED_SIZE, javax.swing.GroupLayout.DEFAULT_SIZE, javax.swing.GroupLayout.PREFERRED_SIZE)
+                .addPreferredGap(javax.swing.LayoutStyle.ComponentPlacement.RELATED)
+                .addComponent(directModeSizeThresholdLabel)
+                .addPreferredGap(javax.swing.LayoutStyle.ComponentPlacement.RELATED)
+                .addComponent(directModeSizeThresholdSpinner, javax.swing.GroupLayout.PREFERRED_SIZE, javax.swing.GroupLayout.DEFAULT_SIZE, javax.swing.GroupLayout.PREFERRED_SIZE)
+                .addPreferredGap(javax.swing.LayoutStyle.ComponentPlacement.RELATED)
+                .addComponent(undoSpillThresholdLabel)
+                .addPreferredGap(javax.swing.LayoutStyle.ComponentPlacement.RELATED)
+                .addComponent(undoSpillThresholdSpinner, javax.swing.GroupLayout.PREFERRED_SIZE, javax.swing.GroupLayout.DEFAULT_SIZE, javax.swing.GroupLayout.PREFERRED_SIZE)
+                .addPreferredGap(javax.swing.LayoutStyle.ComponentPlacement.RELATED)
+                .addComponent(undoStorageLimitLabel)
+                .addPreferredGap(javax.swing.LayoutStyle.ComponentPlacement.RELATED)
+                .addComponent(undoStorageLimitSpinner, javax.swing.GroupLayout.PREFERRED_SIZE, javax.swing.GroupLayout.DEFAULT_SIZE, javax.swing.GroupLayout.PREFERRED_SIZE)
+                .addPreferredGap(javax.swing.LayoutStyle.ComponentPlacement.RELATED)
                 .addComponent(enterKeyHandlingModeLabel)
                 .addPreferredGap(javax.swing.LayoutStyle.ComponentPlacement.RELATED)
                 .addComponent(enterKeyHandlingModeComboBox, javax.swing.GroupLayout.PREFERRED_SIZE, javax.swing.GroupLayout.DEFAULT_SIZE, javax.swing.GroupLayout.PREFERRED_SIZE)
@@ -144,6 +234,20 @@ public class CodeAreaEditingOptionsPanel extends javax.swing.JPanel implements O
         );
     }// </editor-fold>//GEN-END:initComponents
 
+    private void automaticFileHandlingModeCheckBoxItemStateChanged(java.awt.event.ItemEvent evt) {//GEN-FIRST:event_automaticFileHandlingModeCheckBoxItemStateChanged
+        updateAutomaticFileHandlingModeState();
+    }//GEN-LAST:event_automaticFileHandlingModeCheckBoxItemStateChanged
+
+    private void updateAutomaticFileHandlingModeState() {
+        boolean automatic = automaticFileHandlingModeCheckBox.isSelected();
+        memoryModeSizeLimitLabel.setEnabled(automatic);
+        memoryModeSizeLimitSpinner.setEnabled(automatic);
+        memoryModeHeapRatioLabel.setEnabled(automatic);
+        memoryModeHeapRatioSpinner.setEnabled(automatic);
+        directModeSizeThresholdLabel.setEnabled(automatic);
+        directModeSizeThresholdSpinner.setEnabled(automatic);
+    }
+
     /**
      * Test method for this panel.
      *
@@ -158,12 +262,23 @@ public class CodeAreaEditingOptionsPanel extends javax.swing.JPanel implements O
     }
 
     // Variables declaration - do not modify//GEN-BEGIN:variables
+    private javax.swing.JCheckBox automaticFileHandlingModeCheckBox;
+    private javax.swing.JLabel directModeSizeThresholdLabel;
+    private javax.swing.JSpinner directModeSizeThresholdSpinner;
     private javax.swing.JComboBox<String> enterKeyHandlingModeComboBox;
     private javax.swing.JLabel enterKeyHandlingModeLabel;
     private javax.swing.JComboBox<String> fileHandlingModeComboBox;
     private javax.swing.JLabel fileHandlingModeLabel;
+    private javax.swing.JLabel memoryModeHeapRatioLabel;
+    private javax.swing.JSpinner memoryModeHeapRatioSpinner;
+    private javax.swing.JLabel memoryModeSizeLimitLabel;
+    private javax.swing.JSpinner memoryModeSizeLimitSpinner;
     private javax.swing.JComboBox<String> tabKeyHandlingModeComboBox;
     private javax.swing.JLabel tabKeyHandlingModeLabel;
+    private javax.swing.JLabel undoSpillThresholdLabel;
+    private javax.swing.JSpinner undoSpillThresholdSpinner;
+    private javax.swing.JLabel undoStorageLimitLabel;
+    private javax.swing.JSpinner undoStorageLimitSpinner;
     // End of variables declaration//GEN-END:variables
 
     @Override
@@ -109,6 +109,8 @@ public class CodeAreaEditingOptionsPage implements DefaultOptionsPage<BinaryEdit
     public void applyPreferencesChanges(BinaryEditorOptions options) {
         // TODO: This causes multiple reloads / warnings about modified files
         // editorOptionsService.setFileHandlingMode(options.getFileHandlingMode());
+        editorOptionsService.setFileHandlingModePolicy(options.isAutomaticFileHandlingMode(), options.getMemoryModeSizeLimit(), options.getMemoryModeHeapRatio(), options.getDirectModeSizeThreshold());
+        editorOptionsService.setUndoDataStorageLimits(options.getUndoSpillThreshold(), options.getUndoStorageLimit());
         editorOptionsService.setEnterKeyHandlingMode(options.getEnterKeyHandlingMode());
         editorOptionsService.setTabKeyHandlingMode(options.getTabKeyHandlingMode());
     }
@@ -30,6 +30,10 @@ public interface EditorOptionsService {
 
     void setFileHandlingMode(FileHandlingMode fileHandlingMode);
 
+    void setFileHandlingModePolicy(boolean automatic, int memoryModeSizeLimit, int memoryModeHeapRatio, int directModeSizeThreshold);
+
+    void setUndoDataStorageLimits(int spillThreshold, int storageLimit);
+
     void setEnterKeyHandlingMode(EnterKeyHandlingMode enterKeyHandlingMode);
 
     void setTabKeyHandlingMode(TabKeyHandlingMode tabKeyHandlingMode);
@@ -41,6 +41,7 @@ import org.exbin.framework.action.manager.ActionManagerModule;
 import org.exbin.framework.addon.manager.api.AddonManagerModuleApi;
 import org.exbin.framework.addon.update.api.AddonUpdateModuleApi;
 import org.exbin.framework.bined.BinedModule;
+import org.exbin.framework.bined.BinaryEditorProvider;
 import org.exbin.framework.bined.BinaryMultiEditorProvider;
 import org.exbin.framework.bined.FileHandlingMode;
 import org.exbin.framework.bined.editor.BinedEditorModule;
@@ -131,6 +132,7 @@ public class BinedLauncherModule implements LauncherModule {
             if (demoMode) {
                 // Don't use delta mode
                 preferences.put(BinaryEditorOptions.KEY_FILE_HANDLING_MODE, FileHandlingMode.MEMORY.name());
+                preferences.putBoolean(BinaryEditorOptions.KEY_AUTOMATIC_FILE_HANDLING_MODE, false);
             }
 
             LanguageModuleApi languageModule = App.getModule(LanguageModuleApi.class);
@@ -296,13 +298,16 @@ public class BinedLauncherModule implements LauncherModule {
                     // Save frame position
                     frameModule.saveFramePosition();
 
-                    // Save session files if in multi-file mode
+                    // Save session files if in multi-file mode and release file handlers
                     EditorProvider currentProvider = binedModule.getEditorProvider();
                     if (currentProvider instanceof BinaryMultiEditorProvider) {
                         BinaryMultiEditorProvider multiProvider = (BinaryMultiEditorProvider) currentProvider;
                         List<URI> openFiles = multiProvider.getOpenFileUris();
                         StartupOptions startupOptions = new StartupOptions(preferences);
                         startupOptions.setLastSessionFiles(openFiles);
+                        multiProvider.dispose();
+                    } else if (currentProvider instanceof BinaryEditorProvider) {
+                        ((BinaryEditorProvider) currentProvider).dispose();
                     }
 
                     return true;
@@ -0,0 +1,160 @@
+/*
+ * Copyright (C) ExBin Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.exbin.framework.bined.operation;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import javax.annotation.Nullable;
+import javax.annotation.ParametersAreNonnullByDefault;
+import org.exbin.auxiliary.binary_data.BinaryData;
+
+/**
+ * Input stream reading range of binary data in chunks.
+ *
+ * @author ExBin Project (https://exbin.org)
+ */
+@ParametersAreNonnullByDefault
+public class BinaryDataInputStream extends InputStream {
+
+    public static final int DEFAULT_BUFFER_SIZE = 64 * 1024;
+
+    private final BinaryData data;
+    private final long startPosition;
+    private final long endPosition;
+    private final byte[] buffer;
+    private final ProgressListener progressListener;
+    private long position;
+    private int bufferOffset = 0;
+    private int bufferLength = 0;
+
+    public BinaryDataInputStream(BinaryData data, long position, long length) {
+        this(data, position, length, DEFAULT_BUFFER_SIZE, null);
+    }
+
+    /**
+     * Creates input stream for given range of data.
+     *
+     * @param data source data
+     * @param position start position
+     * @param length length of range
+     * @param bufferSize size of read chunks
+     * @param progressListener listener notified after each read chunk
+     */
+    public BinaryDataInputStream(BinaryData data, long position, long length, int bufferSize, @Nullable ProgressListener progressListener) {
+        this.data = data;
+        this.startPosition = position;
+        this.position = position;
+        this.endPosition = position + length;
+        this.progressListener = progressListener;
+        buffer = new byte[(int) Math.max(1, Math.min(bufferSize, length))];
+    }
+
+    @Override
+    public int read() throws IOException {
+        if (bufferOffset == bufferLength && !fillBuffer()) {
+            return -1;
+        }
+
+        return buffer[bufferOffset++] & 0xFF;
+    }
+
+    @Override
+    public int read(byte[] target, int offset, int length) throws IOException {
+        if (length == 0) {
+            return 0;
+        }
+
+        if (bufferOffset < bufferLength) {
+            int count = Math.min(length, bufferLength - bufferOffset);
+            System.arraycopy(buffer, bufferOffset, target, offset, count);
+            bufferOffset += count;
+            return count;
+        }
+
+        if (position == endPosition) {
+            return -1;
+        }
+
+        if (length >= buffer.length) {
+            // Large reads bypass buffer
+            int count = (int) Math.min(length, endPosition - position);
+            data.copyToArray(position, target, offset, count);
+            position += count;
+            notifyProgress();
+            return count;
+        }
+
+        fillBuffer();
+        return read(target, offset, length);
+    }
+
+    @Override
+    public long skip(long count) throws IOException {
+        long skipped = Math.min(Math.max(count, 0), bufferLength - bufferOffset + endPosition - position);
+        long bufferSkipped = Math.min(skipped, bufferLength - bufferOffset);
+        bufferOffset += (int) bufferSkipped;
+        position += skipped - bufferSkipped;
+        return skipped;
+    }
+
+    @Override
+    public int available() throws IOException {
+        return (int) Math.min(Integer.MAX_VALUE, bufferLength - bufferOffset + endPosition - position);
+    }
+
+    /**
+     * Returns length of data read from source data.
+     *
+     * @return length in bytes
+     */
+    public long getProcessedLength() {
+        return position - startPosition;
+    }
+
+    private boolean fillBuffer() throws IOException {
+        if (position == endPosition) {
+            return false;
+        }
+
+        bufferLength = (int) Math.min(buffer.length, endPosition - position);
+        data.copyToArray(position, buffer, 0, bufferLength);
+        bufferOffset = 0;
+        position += bufferLength;
+        notifyProgress();
+        return true;
+    }
+
+    private void notifyProgress() throws InterruptedIOException {
+        if (progressListener != null) {
+            progressListener.progressChanged(position - startPosition);
+        }
+    }
+
+    /**
+     * Listener for progress of reading.
+     */
+    public interface ProgressListener {
+
+        /**
+         * Reports length of data read so far.
+         *
+         * @param processedLength processed length
+         * @throws InterruptedIOException to cancel processing
+         */
+        void progressChanged(long processedLength) throws InterruptedIOException;
+    }
+}
@@ -0,0 +1,110 @@
+/*
+ * Copyright (C) ExBin Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.exbin.framework.bined.operation;
+
+import java.io.OutputStream;
+import javax.annotation.ParametersAreNonnullByDefault;
+import org.exbin.auxiliary.binary_data.EditableBinaryData;
+
+/**
+ * Output stream inserting written data into binary data in page-sized chunks.
+ *
+ * @author ExBin Project (https://exbin.org)
+ */
+@ParametersAreNonnullByDefault
+public class BinaryDataOutputStream extends OutputStream {
+
+    public static final int DEFAULT_PAGE_SIZE = 64 * 1024;
+
+    private final EditableBinaryData targetData;
+    private final long startPosition;
+    private final byte[] page;
+    private long position;
+    private int pageLength = 0;
+
+    public BinaryDataOutputStream(EditableBinaryData targetData, long position) {
+        this(targetData, position, DEFAULT_PAGE_SIZE);
+    }
+
+    /**
+     * Creates output stream inserting data at given position.
+     *
+     * @param targetData target data
+     * @param position insertion position
+     * @param pageSize size of inserted chunks
+     */
+    public BinaryDataOutputStream(EditableBinaryData targetData, long position, int pageSize) {
+        this.targetData = targetData;
+        this.startPosition = position;
+        this.position = position;
+        page = new byte[pageSize];
+    }
+
+    @Override
+    public void write(int value) {
+        if (pageLength == page.length) {
+            flush();
+        }
+        page[pageLength++] = (byte) value;
+    }
+
+    @Override
+    public void write(byte[] data, int offset, int length) {
+        while (length > 0) {
+            if (pageLength == 0 && length >= page.length) {
+                // Full pages are inserted directly
+                int count = length - length % page.length;
+                targetData.insert(position, data, offset, count);
+                position += count;
+                offset += count;
+                length -= count;
+                continue;
+            }
+
+            int count = Math.min(length, page.length - pageLength);
+            System.arraycopy(data, offset, page, pageLength, count);
+            pageLength += count;
+            offset += count;
+            length -= count;
+            if (pageLength == page.length) {
+                flush();
+            }
+        }
+    }
+
+    @Override
+    public void flush() {
+        if (pageLength > 0) {
+            targetData.insert(position, page, 0, pageLength);
+            position += pageLength;
+            pageLength = 0;
+        }
+    }
+
+    @Override
+    public void close() {
+        flush();
+    }
+
+    /**
+     * Returns length of data written so far including data not yet flushed.
+     *
+     * @return length in bytes
+     */
+    public long getWrittenLength() {
+        return position - startPosition + pageLength;
+    }
+}
@@ -16,6 +16,7 @@
 package org.exbin.framework.bined.operation;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 import java.util.ResourceBundle;
 import javax.annotation.Nonnull;
@@ -28,6 +29,7 @@ import org.exbin.framework.Module;
 import org.exbin.framework.ModuleUtils;
 import org.exbin.framework.action.api.ActionConsts;
 import org.exbin.framework.bined.BinedModule;
+import org.exbin.framework.bined.UndoDataStorage;
 import org.exbin.framework.bined.action.ClipboardCodeActions;
 import org.exbin.framework.bined.operation.action.InsertDataAction;
 import org.exbin.framework.bined.operation.action.ConvertDataAction;
@@ -42,6 +44,7 @@ import org.exbin.framework.bined.operation.api.InsertDataMethod;
 import org.exbin.framework.bined.operation.api.PasteFromDataMethod;
 import org.exbin.framework.bined.operation.method.Base64DataMethod;
 import org.exbin.framework.bined.operation.method.BitSwappingDataMethod;
+import org.exbin.framework.bined.operation.method.CompressionCodec;
 import org.exbin.framework.bined.operation.method.CompressionDataMethod;
 import org.exbin.framework.bined.operation.method.DateTimeConversionMethod;
 import org.exbin.framework.contribution.api.GroupSequenceContributionRule;
@@ -64,6 +67,7 @@ public class BinedOperationModule implements Module {
     private final List<ConvertDataMethod> convertDataMethods = new ArrayList<>();
     private final List<CopyAsDataMethod> copyAsDataMethods = new ArrayList<>();
     private final List<PasteFromDataMethod> pasteFromDataMethods = new ArrayList<>();
+    private final List<CompressionCodec> compressionCodecs = new ArrayList<>(Arrays.asList(CompressionDataMethod.CompressionAlgorithm.values()));
 
     public BinedOperationModule() {
     }
@@ -79,7 +83,7 @@ public class BinedOperationModule implements Module {
         addConvertDataMethod(base64DataMethod);
         DateTimeConversionMethod dateTimeConversionMethod = new DateTimeConversionMethod();
         addConvertDataMethod(dateTimeConversionMethod);
-        CompressionDataMethod compressionDataMethod = new CompressionDataMethod();
+        CompressionDataMethod compressionDataMethod = new CompressionDataMethod(compressionCodecs);
         addConvertDataMethod(compressionDataMethod);
     }
 
@@ -217,6 +221,27 @@ public class BinedOperationModule implements Module {
         pasteFromDataMethods.add(pasteFromDataMethod);
     }
 
+    /**
+     * Adds codec available in compression conversion method.
+     *
+     * @param compressionCodec compression codec
+     */
+    public void addCompressionCodec(CompressionCodec compressionCodec) {
+        compressionCodecs.add(compressionCodec);
+    }
+
+    /**
+     * Returns storage of data kept for undo operations shared by all
+     * documents.
+     *
+     * @return undo data storage
+     */
+    @Nonnull
+    public UndoDataStorage getUndoDataStorage() {
+        BinedModule binedModule = App.getModule(BinedModule.class);
+        return binedModule.getFileManager().getUndoDataStorage();
+    }
+
     @Nonnull
     public List<InsertDataMethod> getInsertDataMethods() {
         return insertDataMethods;
@@ -237,6 +262,11 @@ public class BinedOperationModule implements Module {
         return pasteFromDataMethods;
     }
 
+    @Nonnull
+    public List<CompressionCodec> getCompressionCodecs() {
+        return compressionCodecs;
+    }
+
     @Nonnull
     public ResourceBundle getResourceBundle() {
         if (resourceBundle == null) {
@@ -35,4 +35,10 @@ public interface ConversionDataProvider {
      * @param targetPosition target position
      */
     void provideData(EditableBinaryData binaryData, long position, long length, long targetPosition);
+
+    /**
+     * Releases resources held by provider.
+     */
+    default void dispose() {
+    }
 }
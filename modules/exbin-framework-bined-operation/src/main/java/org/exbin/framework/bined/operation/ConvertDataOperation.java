@@ -21,6 +21,8 @@ import org.exbin.auxiliary.binary_data.EditableBinaryData;
 import org.exbin.bined.operation.swing.BasicBinaryDataOperationType;
 import org.exbin.bined.operation.swing.RemoveDataOperation;
 import org.exbin.bined.operation.BinaryDataUndoableOperation;
+import org.exbin.framework.App;
+import org.exbin.framework.bined.UndoDataStorage;
 
 /**
  * Operation to convert selection or all data into provided data.
@@ -42,6 +44,18 @@ public class ConvertDataOperation implements BinaryDataUndoableOperation {
         this.conversionDataProvider = conversionDataProvider;
     }
 
+    public long getStartPosition() {
+        return startPosition;
+    }
+
+    public long getLength() {
+        return length;
+    }
+
+    public long getConvertedDataLength() {
+        return convertedDataLength;
+    }
+
     @Nonnull
     @Override
     public BasicBinaryDataOperationType getType() {
@@ -62,13 +76,13 @@ public class ConvertDataOperation implements BinaryDataUndoableOperation {
     private BinaryDataUndoableOperation execute(EditableBinaryData contentData, boolean withUndo) {
         BinaryDataUndoableOperation undoOperation = null;
 
-        BinaryDataUndoableOperation originalDataUndoOperation = null;
-
         if (withUndo) {
-            originalDataUndoOperation = new org.exbin.bined.operation.swing.InsertDataOperation(startPosition, 0, contentData.copy(startPosition, length));
+            UndoDataStorage undoDataStorage = App.getModule(BinedOperationModule.class).getUndoDataStorage();
+            UndoDataStorage.StoredData originalData = undoDataStorage.store(contentData, startPosition, length);
             undoOperation = new CompoundBinaryDataOperation();
-            ((CompoundBinaryDataOperation) undoOperation).addOperation(new RemoveDataOperation(startPosition, 0, convertedDataLength));
-            ((CompoundBinaryDataOperation) undoOperation).addOperation(originalDataUndoOperation);
+            // Original data are inserted first so that undo fails without change if they were discarded
+            ((CompoundBinaryDataOperation) undoOperation).addOperation(new RestoreDataOperation(startPosition, originalData, true));
+            ((CompoundBinaryDataOperation) undoOperation).addOperation(new RemoveDataOperation(startPosition + length, 0, convertedDataLength));
         }
 
         conversionDataProvider.provideData(contentData, startPosition, length, startPosition + length);
@@ -78,5 +92,6 @@ public class ConvertDataOperation implements BinaryDataUndoableOperation {
 
     @Override
     public void dispose() {
+        conversionDataProvider.dispose();
     }
 }
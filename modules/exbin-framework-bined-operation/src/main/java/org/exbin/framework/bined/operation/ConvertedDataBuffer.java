@@ -0,0 +1,189 @@
+/*
+ * Copyright (C) ExBin Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.exbin.framework.bined.operation;
+
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import javax.annotation.ParametersAreNonnullByDefault;
+import org.exbin.auxiliary.binary_data.EditableBinaryData;
+import org.exbin.auxiliary.binary_data.array.paged.ByteArrayPagedData;
+
+/**
+ * Buffer for converted data which are inserted into document later.
+ *
+ * Data are kept in heap up to spill threshold, larger data are written to
+ * temporary file, so that converted data are held in memory only once, when
+ * they are inserted into the document. Data are kept until disposed, so that
+ * they can be inserted again on redo.
+ *
+ * @author ExBin Project (https://exbin.org)
+ */
+@ParametersAreNonnullByDefault
+public class ConvertedDataBuffer extends OutputStream implements ConversionDataProvider {
+
+    public static final long DEFAULT_SPILL_THRESHOLD = 16 * 1024 * 1024;
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final long spillThreshold;
+    private ByteArrayPagedData heapData = new ByteArrayPagedData();
+    private File file = null;
+    private OutputStream fileOutput = null;
+    private long length = 0;
+
+    public ConvertedDataBuffer() {
+        this(DEFAULT_SPILL_THRESHOLD);
+    }
+
+    public ConvertedDataBuffer(long spillThreshold) {
+        this.spillThreshold = spillThreshold;
+    }
+
+    /**
+     * Returns length of written data.
+     *
+     * @return length in bytes
+     */
+    public long getLength() {
+        return length;
+    }
+
+    /**
+     * Returns true if data were written to temporary file.
+     *
+     * @return true if spilled
+     */
+    public boolean isSpilled() {
+        return file != null;
+    }
+
+    @Override
+    public void write(int value) throws IOException {
+        write(new byte[]{(byte) value}, 0, 1);
+    }
+
+    @Override
+    public void write(byte[] data, int offset, int count) throws IOException {
+        if (file == null && length + count > spillThreshold) {
+            spill();
+        }
+
+        if (file == null) {
+            heapData.insert(length, data, offset, count);
+        } else {
+            fileOutput.write(data, offset, count);
+        }
+        length += count;
+    }
+
+    @Override
+    public void flush() throws IOException {
+        if (fileOutput != null) {
+            fileOutput.flush();
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (fileOutput != null) {
+            fileOutput.close();
+            fileOutput = null;
+        }
+    }
+
+    /**
+     * Discards all written data.
+     */
+    public void reset() {
+        dispose();
+        heapData = new ByteArrayPagedData();
+        length = 0;
+    }
+
+    @Override
+    public void provideData(EditableBinaryData binaryData, long position, long sourceLength, long targetPosition) {
+        if (file == null) {
+            binaryData.insert(targetPosition, heapData);
+            return;
+        }
+
+        try {
+            close();
+            BinaryDataOutputStream output = new BinaryDataOutputStream(binaryData, targetPosition);
+            try (InputStream input = new FileInputStream(file)) {
+                byte[] buffer = new byte[BUFFER_SIZE];
+                int count;
+                while ((count = input.read(buffer)) > 0) {
+                    output.write(buffer, 0, count);
+                }
+            }
+            output.flush();
+        } catch (IOException ex) {
+            throw new IllegalStateException("Unable to read converted data", ex);
+        }
+    }
+
+    @Override
+    public void dispose() {
+        if (heapData != null) {
+            heapData.dispose();
+            heapData = null;
+        }
+        if (file != null) {
+            try {
+                close();
+            } catch (IOException ex) {
+                Logger.getLogger(ConvertedDataBuffer.class.getName()).log(Level.WARNING, null, ex);
+            }
+            if (!file.delete()) {
+                file.deleteOnExit();
+            }
+            file = null;
+        }
+    }
+
+    private void spill() throws IOException {
+        File spillFile = File.createTempFile("bined-convert", ".tmp");
+        spillFile.deleteOnExit();
+        OutputStream output = new BufferedOutputStream(new FileOutputStream(spillFile), BUFFER_SIZE);
+        try {
+            byte[] buffer = new byte[BUFFER_SIZE];
+            long offset = 0;
+            while (offset < length) {
+                int count = (int) Math.min(length - offset, buffer.length);
+                heapData.copyToArray(offset, buffer, 0, count);
+                output.write(buffer, 0, count);
+                offset += count;
+            }
+        } catch (IOException ex) {
+            output.close();
+            spillFile.delete();
+            throw ex;
+        }
+
+        file = spillFile;
+        fileOutput = output;
+        heapData.dispose();
+        heapData = null;
+    }
+}
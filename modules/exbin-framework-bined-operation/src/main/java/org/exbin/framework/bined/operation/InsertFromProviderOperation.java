@@ -40,6 +40,14 @@ public class InsertFromProviderOperation implements BinaryDataUndoableOperation
         this.dataOperationDataProvider = dataOperationDataProvider;
     }
 
+    public long getPosition() {
+        return position;
+    }
+
+    public long getLength() {
+        return length;
+    }
+
     @Nonnull
     @Override
     public BasicBinaryDataOperationType getType() {
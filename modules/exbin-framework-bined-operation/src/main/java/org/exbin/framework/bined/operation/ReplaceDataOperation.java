@@ -18,12 +18,11 @@ package org.exbin.framework.bined.operation;
 import javax.annotation.Nonnull;
 import javax.annotation.ParametersAreNonnullByDefault;
 import org.exbin.auxiliary.binary_data.EditableBinaryData;
-import org.exbin.auxiliary.binary_data.array.paged.ByteArrayPagedData;
-import org.exbin.auxiliary.binary_data.paged.PagedData;
 import org.exbin.bined.operation.swing.BasicBinaryDataOperationType;
-import org.exbin.bined.operation.swing.ModifyDataOperation;
 import org.exbin.bined.operation.swing.RemoveDataOperation;
 import org.exbin.bined.operation.BinaryDataUndoableOperation;
+import org.exbin.framework.App;
+import org.exbin.framework.bined.UndoDataStorage;
 
 /**
  * Replace data operation.
@@ -43,6 +42,14 @@ public class ReplaceDataOperation implements BinaryDataUndoableOperation {
         this.dataOperationDataProvider = dataOperationDataProvider;
     }
 
+    public long getPosition() {
+        return position;
+    }
+
+    public long getLength() {
+        return length;
+    }
+
     @Nonnull
     @Override
     public BasicBinaryDataOperationType getType() {
@@ -76,20 +83,18 @@ public class ReplaceDataOperation implements BinaryDataUndoableOperation {
         } else if (position + length > dataSize) {
             long diff = position + length - dataSize;
             if (withUndo) {
-                // TODO use copy directly once delta is fixed
-                PagedData origData = new ByteArrayPagedData();
-                origData.insert(0, contentData.copy(position, length - diff));
+                UndoDataStorage undoDataStorage = App.getModule(BinedOperationModule.class).getUndoDataStorage();
+                UndoDataStorage.StoredData origData = undoDataStorage.store(contentData, position, length - diff);
                 undoOperation = new CompoundBinaryDataOperation();
-                ((CompoundBinaryDataOperation) undoOperation).addOperation(new ModifyDataOperation(position, origData));
+                ((CompoundBinaryDataOperation) undoOperation).addOperation(new RestoreDataOperation(position, origData, false));
                 ((CompoundBinaryDataOperation) undoOperation).addOperation(new RemoveDataOperation(dataSize, 0, diff));
             }
 
             contentData.insertUninitialized(dataSize, diff);
         } else if (withUndo) {
-            // TODO use copy directly once delta is fixed
-            PagedData origData = new ByteArrayPagedData();
-            origData.insert(0, contentData.copy(position, length));
-            undoOperation = new ModifyDataOperation(position, origData);
+            UndoDataStorage undoDataStorage = App.getModule(BinedOperationModule.class).getUndoDataStorage();
+            UndoDataStorage.StoredData origData = undoDataStorage.store(contentData, position, length);
+            undoOperation = new RestoreDataOperation(position, origData, false);
         }
 
         dataOperationDataProvider.provideData(contentData, position);
@@ -0,0 +1,112 @@
+/*
+ * Copyright (C) ExBin Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.exbin.framework.bined.operation;
+
+import javax.annotation.Nonnull;
+import javax.annotation.ParametersAreNonnullByDefault;
+import org.exbin.auxiliary.binary_data.EditableBinaryData;
+import org.exbin.bined.operation.swing.BasicBinaryDataOperationType;
+import org.exbin.bined.operation.swing.RemoveDataOperation;
+import org.exbin.bined.operation.BinaryDataUndoableOperation;
+import org.exbin.framework.bined.UndoDataStorage;
+
+/**
+ * Operation to restore data kept in undo data storage.
+ *
+ * @author ExBin Project (https://exbin.org)
+ */
+@ParametersAreNonnullByDefault
+public class RestoreDataOperation implements BinaryDataUndoableOperation {
+
+    protected final long position;
+    protected final UndoDataStorage.StoredData storedData;
+    protected final boolean insert;
+
+    /**
+     * Creates restore operation.
+     *
+     * @param position target position
+     * @param storedData stored data
+     * @param insert true to insert data, false to replace existing data
+     */
+    public RestoreDataOperation(long position, UndoDataStorage.StoredData storedData, boolean insert) {
+        this.position = position;
+        this.storedData = storedData;
+        this.insert = insert;
+    }
+
+    @Nonnull
+    @Override
+    public BasicBinaryDataOperationType getType() {
+        return insert ? BasicBinaryDataOperationType.INSERT_DATA : BasicBinaryDataOperationType.MODIFY_DATA;
+    }
+
+    @Override
+    public void execute(EditableBinaryData contentData) {
+        storedData.restore(contentData, position, insert);
+    }
+
+    @Nonnull
+    @Override
+    public BinaryDataUndoableOperation executeWithUndo(EditableBinaryData contentData) {
+        long length = storedData.getLength();
+        if (insert) {
+            execute(contentData);
+            return new RemoveDataOperation(position, 0, length);
+        }
+
+        UndoDataStorage.StoredData originalData = storedData.getStorage().store(contentData, position, length);
+        execute(contentData);
+        return new RestoreDataOperation(position, originalData, false);
+    }
+
+    /**
+     * Returns true if stored data are still available.
+     *
+     * @return true if data can be restored
+     */
+    public boolean isRestorable() {
+        return storedData.isAvailable();
+    }
+
+    /**
+     * Returns true if given undo operation doesn't depend on discarded stored
+     * data.
+     *
+     * @param undoOperation undo operation
+     * @return true if operation can be executed
+     */
+    public static boolean isRestorable(BinaryDataUndoableOperation undoOperation) {
+        if (undoOperation instanceof RestoreDataOperation) {
+            return ((RestoreDataOperation) undoOperation).isRestorable();
+        }
+
+        if (undoOperation instanceof CompoundBinaryDataOperation) {
+            for (BinaryDataUndoableOperation operation : ((CompoundBinaryDataOperation) undoOperation).getOperations()) {
+                if (!isRestorable(operation)) {
+                    return false;
+                }
+            }
+        }
+
+        return true;
+    }
+
+    @Override
+    public void dispose() {
+        storedData.dispose();
+    }
+}
@@ -22,6 +22,7 @@ import java.awt.datatransfer.DataFlavor;
 import java.awt.event.ActionEvent;
 import java.util.Optional;
 import java.util.ResourceBundle;
+import java.util.concurrent.CancellationException;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 import javax.annotation.ParametersAreNonnullByDefault;
@@ -133,44 +134,53 @@ public class ConvertDataAction extends AbstractAction {
                     Component activeComponent = dataOperationPanel.getActiveComponent().get();
                     ConvertDataMethod activeMethod = (ConvertDataMethod) optionalActiveMethod.get();
 
-                    switch (actionType) {
-                        case CONVERT: {
-                            CodeAreaCommand command = activeMethod.createConvertCommand(activeComponent, codeArea);
+                    try {
+                        switch (actionType) {
+                            case CONVERT: {
+                                if (!codeArea.isEditable()) {
+                                    break;
+                                }
 
-                            CodeAreaCommandHandler commandHandler = codeArea.getCommandHandler();
-                            if (commandHandler instanceof CodeAreaOperationCommandHandler) {
-                                ((CodeAreaOperationCommandHandler) commandHandler).getUndoRedo().execute(command);
-                            } else {
-                                command.execute();
-                            }
-                            break;
-                        }
-                        case CONVERT_TO_NEW_FILE: {
-                            BinaryData outputData = activeMethod.performDirectConvert(activeComponent, codeArea);
+                                CodeAreaCommand command = activeMethod.createConvertCommand(activeComponent, codeArea);
 
-                            if (editorProvider != null) {
-                                editorProvider.newFile();
-                                Optional<FileHandler> activeFile = editorProvider.getActiveFile();
-                                if (activeFile.isPresent()) {
-                                    BinEdFileHandler fileHandler = (BinEdFileHandler) activeFile.get();
-                                    fileHandler.getCodeArea().setContentData(outputData);
+                                CodeAreaCommandHandler commandHandler = codeArea.getCommandHandler();
+                                if (commandHandler instanceof CodeAreaOperationCommandHandler) {
+                                    ((CodeAreaOperationCommandHandler) commandHandler).getUndoRedo().execute(command);
+                                } else {
+                                    command.execute();
                                 }
+                                break;
                             }
-                            break;
-                        }
-                        case CONVERT_TO_CLIPBOARD: {
-                            try {
+                            case CONVERT_TO_NEW_FILE: {
                                 BinaryData outputData = activeMethod.performDirectConvert(activeComponent, codeArea);
-                                DataFlavor binedDataFlavor = new DataFlavor(CodeAreaUtils.BINED_CLIPBOARD_MIME_FULL);
-                                DataFlavor binaryDataFlavor = new DataFlavor(CodeAreaUtils.MIME_CLIPBOARD_BINARY);
-                                Clipboard clipboard = CodeAreaSwingUtils.getClipboard();
-                                CodeAreaSwingUtils.BinaryDataClipboardData binaryData = new CodeAreaSwingUtils.BinaryDataClipboardData(outputData, binedDataFlavor, binaryDataFlavor, null);
-                                clipboard.setContents(binaryData, binaryData);
-                            } catch (ClassNotFoundException ex) {
-                                Logger.getLogger(ConvertDataAction.class.getName()).log(Level.SEVERE, null, ex);
+
+                                if (editorProvider != null) {
+                                    editorProvider.newFile();
+                                    Optional<FileHandler> activeFile = editorProvider.getActiveFile();
+                                    if (activeFile.isPresent()) {
+                                        BinEdFileHandler fileHandler = (BinEdFileHandler) activeFile.get();
+                                        fileHandler.getCodeArea().setContentData(outputData);
+                                    }
+                                }
+                                break;
+                            }
+                            case CONVERT_TO_CLIPBOARD: {
+                                try {
+                                    BinaryData outputData = activeMethod.performDirectConvert(activeComponent, codeArea);
+                                    DataFlavor binedDataFlavor = new DataFlavor(CodeAreaUtils.BINED_CLIPBOARD_MIME_FULL);
+                                    DataFlavor binaryDataFlavor = new DataFlavor(CodeAreaUtils.MIME_CLIPBOARD_BINARY);
+                                    Clipboard clipboard = CodeAreaSwingUtils.getClipboard();
+                                    CodeAreaSwingUtils.BinaryDataClipboardData binaryData = new CodeAreaSwingUtils.BinaryDataClipboardData(outputData, binedDataFlavor, binaryDataFlavor, null);
+                                    clipboard.setContents(binaryData, binaryData);
+                                } catch (ClassNotFoundException ex) {
+                                    Logger.getLogger(ConvertDataAction.class.getName()).log(Level.SEVERE, null, ex);
+                                }
+                                break;
                             }
-                            break;
                         }
+                    } catch (CancellationException ex) {
+                        // Conversion was cancelled, dialog stays open
+                        return;
                     }
                 }
                 lastMethod = (ConvertDataMethod) optionalActiveMethod.orElse(null);
@@ -120,7 +120,7 @@ public class InsertDataAction extends AbstractAction {
         controlPanel.setController((DefaultControlController.ControlActionType actionType) -> {
             if (actionType == DefaultControlController.ControlActionType.OK) {
                 Optional<DataOperationMethod> optionalActiveMethod = dataOperationPanel.getActiveMethod();
-                if (optionalActiveMethod.isPresent()) {
+                if (optionalActiveMethod.isPresent() && codeArea.isEditable()) {
                     Component activeComponent = dataOperationPanel.getActiveComponent().get();
                     InsertDataMethod activeMethod = (InsertDataMethod) optionalActiveMethod.get();
                     long dataPosition = ((CaretCapable) codeArea).getDataPosition();
@@ -36,6 +36,8 @@ public interface ConvertDataMethod extends DataOperationMethod {
      * @param component visual component
      * @param codeArea code area
      * @return generated command
+     * @throws java.util.concurrent.CancellationException if conversion
+     * performed in advance was cancelled by user
      */
     @Nonnull
     CodeAreaCommand createConvertCommand(Component component, CodeAreaCore codeArea);
@@ -46,6 +48,8 @@ public interface ConvertDataMethod extends DataOperationMethod {
      * @param component visual component
      * @param codeArea code area
      * @return binary data
+     * @throws java.util.concurrent.CancellationException if conversion was
+     * cancelled by user
      */
     @Nonnull
     BinaryData performDirectConvert(Component component, CodeAreaCore codeArea);
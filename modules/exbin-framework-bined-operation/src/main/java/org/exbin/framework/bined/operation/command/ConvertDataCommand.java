@@ -23,7 +23,11 @@ import org.exbin.bined.operation.BinaryDataUndoableOperation;
 import org.exbin.bined.operation.swing.command.CodeAreaCommand;
 import org.exbin.bined.operation.swing.command.CodeAreaCommandType;
 import org.exbin.bined.swing.CodeAreaCore;
+import org.exbin.framework.bined.ChangedDataRange;
+import org.exbin.framework.bined.DiscardableUndoCommand;
+import org.exbin.framework.bined.SourceIndependentCommand;
 import org.exbin.framework.bined.operation.ConvertDataOperation;
+import org.exbin.framework.bined.operation.RestoreDataOperation;
 
 /**
  * Convert data command.
@@ -31,7 +35,7 @@ import org.exbin.framework.bined.operation.ConvertDataOperation;
  * @author ExBin Project (https://exbin.org)
  */
 @ParametersAreNonnullByDefault
-public class ConvertDataCommand extends CodeAreaCommand {
+public class ConvertDataCommand extends CodeAreaCommand implements SourceIndependentCommand, DiscardableUndoCommand {
 
     protected final ConvertDataOperation operation;
     protected BinaryDataUndoableOperation undoOperation;
@@ -51,20 +55,34 @@ public class ConvertDataCommand extends CodeAreaCommand {
     public void performExecute() {
         undoOperation = operation.executeWithUndo((EditableBinaryData) codeArea.getContentData());
         ((ScrollingCapable) codeArea).revealCursor();
-        codeArea.notifyDataChanged();
+        ChangedDataRange.notifyDataChanged(codeArea, getChangedRange());
     }
 
     @Override
     public void performUndo() {
         undoOperation.execute((EditableBinaryData) codeArea.getContentData());
         undoOperation.dispose();
+        undoOperation = null;
         ((ScrollingCapable) codeArea).revealCursor();
-        codeArea.notifyDataChanged();
+        ChangedDataRange.notifyDataChanged(codeArea, getChangedRange().reverse());
+    }
+
+    @Nonnull
+    private ChangedDataRange getChangedRange() {
+        return new ChangedDataRange(operation.getStartPosition(), operation.getLength(), operation.getConvertedDataLength());
+    }
+
+    @Override
+    public boolean isUndoAvailable() {
+        return undoOperation == null || RestoreDataOperation.isRestorable(undoOperation);
     }
 
     @Override
     public void dispose() {
         super.dispose();
         operation.dispose();
+        if (undoOperation != null) {
+            undoOperation.dispose();
+        }
     }
 }
@@ -22,6 +22,8 @@ import org.exbin.bined.operation.BinaryDataUndoableOperation;
 import org.exbin.bined.operation.swing.command.CodeAreaCommand;
 import org.exbin.bined.operation.swing.command.CodeAreaCommandType;
 import org.exbin.bined.swing.CodeAreaCore;
+import org.exbin.framework.bined.ChangedDataRange;
+import org.exbin.framework.bined.SourceIndependentCommand;
 import org.exbin.framework.bined.operation.InsertFromProviderOperation;
 
 /**
@@ -30,7 +32,7 @@ import org.exbin.framework.bined.operation.InsertFromProviderOperation;
  * @author ExBin Project (https://exbin.org)
  */
 @ParametersAreNonnullByDefault
-public class InsertFromProviderCommand extends CodeAreaCommand {
+public class InsertFromProviderCommand extends CodeAreaCommand implements SourceIndependentCommand {
     
     protected final InsertFromProviderOperation operation;
     protected BinaryDataUndoableOperation undoOperation;
@@ -49,12 +51,14 @@ public class InsertFromProviderCommand extends CodeAreaCommand {
     @Override
     public void performExecute() {
         undoOperation = (BinaryDataUndoableOperation) operation.executeWithUndo((EditableBinaryData) codeArea.getContentData());
+        ChangedDataRange.notifyDataChanged(codeArea, new ChangedDataRange(operation.getPosition(), 0, operation.getLength()));
     }
 
     @Override
     public void performUndo() {
         undoOperation.execute((EditableBinaryData) codeArea.getContentData());
         undoOperation.dispose();
+        ChangedDataRange.notifyDataChanged(codeArea, new ChangedDataRange(operation.getPosition(), operation.getLength(), 0));
     }
 
     @Override
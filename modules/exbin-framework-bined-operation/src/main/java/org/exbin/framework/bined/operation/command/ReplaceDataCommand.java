@@ -23,7 +23,11 @@ import org.exbin.bined.operation.BinaryDataUndoableOperation;
 import org.exbin.bined.operation.swing.command.CodeAreaCommand;
 import org.exbin.bined.operation.swing.command.CodeAreaCommandType;
 import org.exbin.bined.swing.CodeAreaCore;
+import org.exbin.framework.bined.ChangedDataRange;
+import org.exbin.framework.bined.DiscardableUndoCommand;
+import org.exbin.framework.bined.SourceIndependentCommand;
 import org.exbin.framework.bined.operation.ReplaceDataOperation;
+import org.exbin.framework.bined.operation.RestoreDataOperation;
 
 /**
  * Replace data command.
@@ -31,10 +35,11 @@ import org.exbin.framework.bined.operation.ReplaceDataOperation;
  * @author ExBin Project (https://exbin.org)
  */
 @ParametersAreNonnullByDefault
-public class ReplaceDataCommand extends CodeAreaCommand {
+public class ReplaceDataCommand extends CodeAreaCommand implements SourceIndependentCommand, DiscardableUndoCommand {
     
     protected final ReplaceDataOperation operation;
     protected BinaryDataUndoableOperation undoOperation;
+    protected ChangedDataRange changedRange;
 
     public ReplaceDataCommand(CodeAreaCore codeArea, ReplaceDataOperation operation) {
         super(codeArea);
@@ -49,21 +54,36 @@ public class ReplaceDataCommand extends CodeAreaCommand {
 
     @Override
     public void performExecute() {
-        undoOperation = operation.executeWithUndo((EditableBinaryData) codeArea.getContentData());
+        EditableBinaryData contentData = (EditableBinaryData) codeArea.getContentData();
+        long dataSize = contentData.getDataSize();
+        undoOperation = operation.executeWithUndo(contentData);
+        // Data are extended when replaced range exceeds data end
+        long length = operation.getLength();
+        changedRange = new ChangedDataRange(operation.getPosition(), length - (contentData.getDataSize() - dataSize), length);
         ((ScrollingCapable) codeArea).revealCursor();
-        codeArea.notifyDataChanged();
+        ChangedDataRange.notifyDataChanged(codeArea, changedRange);
     }
 
     @Override
     public void performUndo() {
         undoOperation.execute((EditableBinaryData) codeArea.getContentData());
         undoOperation.dispose();
+        undoOperation = null;
+        ChangedDataRange.notifyDataChanged(codeArea, changedRange.reverse());
+    }
+
+    @Override
+    public boolean isUndoAvailable() {
+        return undoOperation == null || RestoreDataOperation.isRestorable(undoOperation);
     }
 
     @Override
     public void dispose() {
         super.dispose();
         operation.dispose();
+        if (undoOperation != null) {
+            undoOperation.dispose();
+        }
     }
     
 }
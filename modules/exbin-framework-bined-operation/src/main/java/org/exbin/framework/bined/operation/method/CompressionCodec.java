@@ -0,0 +1,89 @@
+/*
+ * Copyright (C) ExBin Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.exbin.framework.bined.operation.method;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import javax.annotation.Nonnull;
+import javax.annotation.ParametersAreNonnullByDefault;
+
+/**
+ * Codec of compression algorithm used by compression conversion method.
+ *
+ * Codecs requiring additional libraries are provided by plugins.
+ *
+ * @author ExBin Project (https://exbin.org)
+ */
+@ParametersAreNonnullByDefault
+public interface CompressionCodec {
+
+    /**
+     * Maximum length of header passed to detection of compressed data.
+     */
+    int DETECTION_HEADER_SIZE = 6;
+
+    /**
+     * Returns name of the algorithm.
+     *
+     * @return name
+     */
+    @Nonnull
+    String getName();
+
+    int getMinLevel();
+
+    int getMaxLevel();
+
+    int getDefaultLevel();
+
+    /**
+     * Returns true if compression can use multiple threads.
+     *
+     * @return true if multithreaded
+     */
+    boolean isMultithreaded();
+
+    /**
+     * Returns true if given header of data is magic header of data
+     * compressed by this codec.
+     *
+     * @param header first bytes of data, up to {@link #DETECTION_HEADER_SIZE}
+     * bytes
+     * @return true if data are recognized
+     */
+    boolean isDetected(byte[] header);
+
+    /**
+     * Compresses data.
+     *
+     * @param input input data
+     * @param output output for compressed data
+     * @param level compression level
+     * @param threads number of threads for multithreaded codecs
+     * @throws IOException on compression error
+     */
+    void compress(InputStream input, OutputStream output, int level, int threads) throws IOException;
+
+    /**
+     * Decompresses data.
+     *
+     * @param input compressed data
+     * @param output output for decompressed data
+     * @throws IOException on decompression error
+     */
+    void decompress(InputStream input, OutputStream output) throws IOException;
+}
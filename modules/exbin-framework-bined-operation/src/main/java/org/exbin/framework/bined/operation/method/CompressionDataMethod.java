@@ -16,9 +16,14 @@
 package org.exbin.framework.bined.operation.method;
 
 import java.awt.Component;
-import java.io.ByteArrayInputStream;
-import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ForkJoinPool;
 import java.util.zip.Deflater;
 import java.util.zip.DeflaterOutputStream;
 import java.util.zip.GZIPInputStream;
@@ -33,19 +38,22 @@ import javax.annotation.Nullable;
 import javax.annotation.ParametersAreNonnullByDefault;
 import javax.swing.SwingUtilities;
 import org.exbin.auxiliary.binary_data.BinaryData;
-import org.exbin.auxiliary.binary_data.array.ByteArrayEditableData;
 import org.exbin.auxiliary.binary_data.EditableBinaryData;
-import org.exbin.bined.CodeAreaUtils;
+import org.exbin.auxiliary.binary_data.array.paged.ByteArrayPagedData;
 import org.exbin.bined.SelectionRange;
 import org.exbin.bined.capability.SelectionCapable;
 import org.exbin.bined.operation.swing.command.CodeAreaCommand;
 import org.exbin.bined.swing.CodeAreaCore;
 import org.exbin.framework.App;
+import org.exbin.framework.bined.BinEdFileOperation;
 import org.exbin.framework.bined.operation.api.ConvertDataMethod;
 import org.exbin.framework.language.api.LanguageModuleApi;
 import org.exbin.framework.bined.operation.api.PreviewDataHandler;
 import org.exbin.framework.bined.operation.method.gui.CompressionDataPanel;
-import org.exbin.framework.bined.operation.ConversionDataProvider;
+import org.exbin.framework.bined.BackgroundConversion;
+import org.exbin.framework.bined.operation.BinaryDataInputStream;
+import org.exbin.framework.bined.operation.BinaryDataOutputStream;
+import org.exbin.framework.bined.operation.ConvertedDataBuffer;
 import org.exbin.framework.bined.operation.command.ConvertDataCommand;
 import org.exbin.framework.bined.operation.ConvertDataOperation;
 
@@ -55,11 +63,27 @@ import org.exbin.framework.bined.operation.ConvertDataOperation;
 @ParametersAreNonnullByDefault
 public class CompressionDataMethod implements ConvertDataMethod {
 
+    private static final int BUFFER_SIZE = 64 * 1024;
+
     private java.util.ResourceBundle resourceBundle = App.getModule(LanguageModuleApi.class).getBundle(CompressionDataPanel.class);
 
+    private final List<CompressionCodec> compressionCodecs;
     private PreviewDataHandler previewDataHandler;
     private long previewLengthLimit = 0;
 
+    public CompressionDataMethod() {
+        this(Arrays.asList(CompressionAlgorithm.values()));
+    }
+
+    /**
+     * Creates compression method.
+     *
+     * @param compressionCodecs available codecs, list can be extended later
+     */
+    public CompressionDataMethod(List<CompressionCodec> compressionCodecs) {
+        this.compressionCodecs = compressionCodecs;
+    }
+
     @Nonnull
     @Override
     public String getName() {
@@ -70,6 +94,7 @@ public class CompressionDataMethod implements ConvertDataMethod {
     @Override
     public Component createComponent() {
         CompressionDataPanel component = new CompressionDataPanel();
+        component.setCompressionCodecs(compressionCodecs);
         return component;
     }
 
@@ -83,8 +108,10 @@ public class CompressionDataMethod implements ConvertDataMethod {
     public CodeAreaCommand createConvertCommand(Component component, CodeAreaCore codeArea) {
         CompressionDataPanel panel = (CompressionDataPanel) component;
         OperationType operationType = panel.getOperationType();
-        CompressionAlgorithm algorithm = panel.getAlgorithm();
+        CompressionCodec algorithm = panel.getAlgorithm();
         boolean autoDetect = panel.isAutoDetect();
+        int level = panel.getLevel();
+        int threads = panel.getThreads();
 
         long position;
         long length;
@@ -97,11 +124,18 @@ public class CompressionDataMethod implements ConvertDataMethod {
             length = selection.getLength();
         }
 
-        ConversionDataProvider conversionDataProvider = (EditableBinaryData binaryData, long sourcePosition, long sourceLength, long targetPosition) -> {
-            convertData(binaryData, sourcePosition, sourceLength, operationType, algorithm, autoDetect, binaryData, targetPosition);
-        };
+        // Data are converted in background first, so that length of converted data is known
+        BinaryData sourceData = codeArea.getContentData();
+        ConvertedDataBuffer convertedData = new ConvertedDataBuffer();
+        boolean finished = BackgroundConversion.perform(codeArea, sourceData, length, (BinEdFileOperation operation) -> {
+            return convertData(sourceData, position, length, operationType, algorithm, autoDetect, level, threads, convertedData, operation::setProcessed);
+        });
+        if (!finished) {
+            convertedData.dispose();
+            throw new CancellationException("Conversion cancelled");
+        }
 
-        return new ConvertDataCommand(codeArea, new ConvertDataOperation(position, length, length, conversionDataProvider));
+        return new ConvertDataCommand(codeArea, new ConvertDataOperation(position, length, convertedData.getLength(), convertedData));
     }
 
     @Nonnull
@@ -109,8 +143,10 @@ public class CompressionDataMethod implements ConvertDataMethod {
     public BinaryData performDirectConvert(Component component, CodeAreaCore codeArea) {
         CompressionDataPanel panel = (CompressionDataPanel) component;
         OperationType operationType = panel.getOperationType();
-        CompressionAlgorithm algorithm = panel.getAlgorithm();
+        CompressionCodec algorithm = panel.getAlgorithm();
         boolean autoDetect = panel.isAutoDetect();
+        int level = panel.getLevel();
+        int threads = panel.getThreads();
 
         long position;
         long length;
@@ -123,9 +159,21 @@ public class CompressionDataMethod implements ConvertDataMethod {
             length = selection.getLength();
         }
 
-        EditableBinaryData binaryData = new ByteArrayEditableData();
-        convertData(codeArea.getContentData(), position, length, operationType, algorithm, autoDetect, binaryData, 0);
-        return binaryData;
+        return convertInBackground(codeArea, position, length, operationType, algorithm, autoDetect, level, threads);
+    }
+
+    @Nonnull
+    private EditableBinaryData convertInBackground(CodeAreaCore codeArea, long position, long length, OperationType operationType, CompressionCodec algorithm, boolean autoDetect, int level, int threads) {
+        BinaryData sourceData = codeArea.getContentData();
+        EditableBinaryData convertedData = new ByteArrayPagedData();
+        boolean finished = BackgroundConversion.perform(codeArea, sourceData, length, (BinEdFileOperation operation) -> {
+            return convertData(sourceData, position, length, operationType, algorithm, autoDetect, level, threads, convertedData, 0, operation::setProcessed);
+        });
+        if (!finished) {
+            convertedData.dispose();
+            throw new CancellationException("Conversion cancelled");
+        }
+        return convertedData;
     }
 
     /**
@@ -142,127 +190,145 @@ public class CompressionDataMethod implements ConvertDataMethod {
      * @throws IllegalStateException on conversion error
      */
     public void convertData(BinaryData sourceBinaryData, long position, long length, OperationType operationType,
-            CompressionAlgorithm algorithm, boolean autoDetect, EditableBinaryData targetBinaryData,
+            CompressionCodec algorithm, boolean autoDetect, EditableBinaryData targetBinaryData,
             long targetPosition) throws IllegalStateException {
+        convertData(sourceBinaryData, position, length, operationType, algorithm, autoDetect, algorithm.getDefaultLevel(), 1, targetBinaryData, targetPosition, null);
+    }
 
-        byte[] sourceData = new byte[(int) length];
-        sourceBinaryData.copyToArray(position, sourceData, 0, (int) length);
+    /**
+     * Compresses or decompresses binary data.
+     *
+     * Data are streamed in chunks from source data and output is inserted to
+     * target data in page-sized chunks, so that memory used by conversion does
+     * not depend on the length of data.
+     *
+     * @param sourceBinaryData source binary data
+     * @param position starting position
+     * @param length data length
+     * @param operationType compress or decompress
+     * @param algorithm compression algorithm
+     * @param autoDetect auto-detect compression type for decompression
+     * @param level compression level within range of the algorithm
+     * @param threads number of threads used for compression if supported by
+     * the algorithm
+     * @param targetBinaryData target binary data
+     * @param targetPosition target position
+     * @param progressListener listener for progress of reading source data
+     * @return true if converted, false if cancelled by progress listener
+     * @throws IllegalStateException on conversion error
+     */
+    public boolean convertData(BinaryData sourceBinaryData, long position, long length, OperationType operationType,
+            CompressionCodec algorithm, boolean autoDetect, int level, int threads, EditableBinaryData targetBinaryData,
+            long targetPosition, @Nullable BinaryDataInputStream.ProgressListener progressListener) throws IllegalStateException {
 
+        BinaryDataOutputStream output = new BinaryDataOutputStream(targetBinaryData, targetPosition);
         try {
-            byte[] output;
-            if (operationType == OperationType.COMPRESS) {
-                output = compress(sourceData, algorithm);
-            } else {
-                // Auto-detect compression type if enabled
-                CompressionAlgorithm detectedAlgorithm = algorithm;
-                if (autoDetect) {
-                    CompressionAlgorithm detected = detectCompressionType(sourceData);
-                    if (detected != null) {
-                        detectedAlgorithm = detected;
-                    }
-                }
-                output = decompress(sourceData, detectedAlgorithm);
-            }
-            targetBinaryData.insert(targetPosition, output);
-
+            convertData(sourceBinaryData, position, length, operationType, algorithm, autoDetect, level, threads, output, progressListener);
+            output.flush();
+        } catch (InterruptedIOException ex) {
+            output.flush();
+            targetBinaryData.remove(targetPosition, output.getWrittenLength());
+            return false;
         } catch (Exception ex) {
-            // Handle errors gracefully
-            String errorMsg = "Error: " + ex.getMessage();
-            byte[] output = errorMsg.getBytes(java.nio.charset.StandardCharsets.UTF_8);
-            targetBinaryData.insert(targetPosition, output);
+            // Partial output is replaced by error message
+            output.flush();
+            targetBinaryData.remove(targetPosition, output.getWrittenLength());
+            targetBinaryData.insert(targetPosition, getErrorOutput(ex));
         }
+        return true;
     }
 
     /**
-     * Compresses data using specified algorithm.
+     * Compresses or decompresses binary data into buffer.
      *
-     * @param data input data
+     * @param sourceBinaryData source binary data
+     * @param position starting position
+     * @param length data length
+     * @param operationType compress or decompress
      * @param algorithm compression algorithm
-     * @return compressed data
-     * @throws IOException on compression error
+     * @param autoDetect auto-detect compression type for decompression
+     * @param level compression level within range of the algorithm
+     * @param threads number of threads used for compression if supported by
+     * the algorithm
+     * @param targetBuffer target buffer
+     * @param progressListener listener for progress of reading source data
+     * @return true if converted, false if cancelled by progress listener
+     * @throws IllegalStateException on conversion error
      */
-    private byte[] compress(byte[] data, CompressionAlgorithm algorithm) throws IOException {
-        ByteArrayOutputStream baos = new ByteArrayOutputStream();
-
-        switch (algorithm) {
-            case GZIP: {
-                try (GZIPOutputStream gzip = new GZIPOutputStream(baos)) {
-                    gzip.write(data);
-                }
-                break;
+    public boolean convertData(BinaryData sourceBinaryData, long position, long length, OperationType operationType,
+            CompressionCodec algorithm, boolean autoDetect, int level, int threads, ConvertedDataBuffer targetBuffer,
+            @Nullable BinaryDataInputStream.ProgressListener progressListener) throws IllegalStateException {
+        try {
+            try {
+                convertData(sourceBinaryData, position, length, operationType, algorithm, autoDetect, level, threads, (OutputStream) targetBuffer, progressListener);
+            } catch (InterruptedIOException ex) {
+                targetBuffer.reset();
+                return false;
+            } catch (Exception ex) {
+                // Partial output is replaced by error message
+                targetBuffer.reset();
+                targetBuffer.write(getErrorOutput(ex));
             }
-            case ZIP: {
-                try (ZipOutputStream zip = new ZipOutputStream(baos)) {
-                    zip.putNextEntry(new ZipEntry("data"));
-                    zip.write(data);
-                    zip.closeEntry();
+            targetBuffer.close();
+        } catch (IOException ex) {
+            throw new IllegalStateException("Unable to store converted data", ex);
+        }
+        return true;
+    }
+
+    private void convertData(BinaryData sourceBinaryData, long position, long length, OperationType operationType,
+            CompressionCodec algorithm, boolean autoDetect, int level, int threads, OutputStream output,
+            @Nullable BinaryDataInputStream.ProgressListener progressListener) throws Exception {
+        try (InputStream input = new BinaryDataInputStream(sourceBinaryData, position, length, BUFFER_SIZE, progressListener)) {
+            if (operationType == OperationType.COMPRESS) {
+                if (threads > 1 && (algorithm == CompressionAlgorithm.GZIP || algorithm == CompressionAlgorithm.DEFLATE)) {
+                    ParallelDeflateCompressor.Format format = algorithm == CompressionAlgorithm.GZIP ? ParallelDeflateCompressor.Format.GZIP : ParallelDeflateCompressor.Format.ZLIB;
+                    ForkJoinPool pool = new ForkJoinPool(threads);
+                    try {
+                        ParallelDeflateCompressor compressor = new ParallelDeflateCompressor(pool);
+                        compressor.setLevel(level);
+                        compressor.compress(input, output, format);
+                    } finally {
+                        pool.shutdown();
+                    }
+                } else {
+                    algorithm.compress(input, output, level, threads);
                 }
-                break;
-            }
-            case DEFLATE: {
-                try (DeflaterOutputStream deflate = new DeflaterOutputStream(baos, new Deflater())) {
-                    deflate.write(data);
+            } else {
+                // Auto-detect compression type if enabled
+                CompressionCodec detectedAlgorithm = algorithm;
+                if (autoDetect) {
+                    byte[] header = new byte[(int) Math.min(length, CompressionCodec.DETECTION_HEADER_SIZE)];
+                    sourceBinaryData.copyToArray(position, header, 0, header.length);
+                    CompressionCodec detected = detectCompressionType(header);
+                    if (detected != null) {
+                        detectedAlgorithm = detected;
+                    }
                 }
-                break;
+                detectedAlgorithm.decompress(input, output);
             }
-            default:
-                throw CodeAreaUtils.getInvalidTypeException(algorithm);
         }
+    }
 
-        return baos.toByteArray();
+    @Nonnull
+    private static byte[] getErrorOutput(Exception ex) {
+        String errorMsg = "Error: " + ex.getMessage();
+        return errorMsg.getBytes(java.nio.charset.StandardCharsets.UTF_8);
     }
 
     /**
-     * Decompresses data using specified algorithm.
+     * Transfers all remaining data from input to output.
      *
-     * @param data compressed data
-     * @param algorithm compression algorithm
-     * @return decompressed data
-     * @throws IOException on decompression error
+     * @param input input stream
+     * @param output output stream
+     * @throws IOException on input/output error
      */
-    private byte[] decompress(byte[] data, CompressionAlgorithm algorithm) throws IOException {
-        ByteArrayInputStream bais = new ByteArrayInputStream(data);
-        ByteArrayOutputStream baos = new ByteArrayOutputStream();
-
-        switch (algorithm) {
-            case GZIP: {
-                try (GZIPInputStream gzip = new GZIPInputStream(bais)) {
-                    byte[] buffer = new byte[4096];
-                    int len;
-                    while ((len = gzip.read(buffer)) > 0) {
-                        baos.write(buffer, 0, len);
-                    }
-                }
-                break;
-            }
-            case ZIP: {
-                try (ZipInputStream zip = new ZipInputStream(bais)) {
-                    ZipEntry entry = zip.getNextEntry();
-                    if (entry != null) {
-                        byte[] buffer = new byte[4096];
-                        int len;
-                        while ((len = zip.read(buffer)) > 0) {
-                            baos.write(buffer, 0, len);
-                        }
-                    }
-                }
-                break;
-            }
-            case DEFLATE: {
-                try (InflaterInputStream inflate = new InflaterInputStream(bais, new Inflater())) {
-                    byte[] buffer = new byte[4096];
-                    int len;
-                    while ((len = inflate.read(buffer)) > 0) {
-                        baos.write(buffer, 0, len);
-                    }
-                }
-                break;
-            }
-            default:
-                throw CodeAreaUtils.getInvalidTypeException(algorithm);
+    public static void transfer(InputStream input, OutputStream output) throws IOException {
+        byte[] buffer = new byte[BUFFER_SIZE];
+        int length;
+        while ((length = input.read(buffer)) > 0) {
+            output.write(buffer, 0, length);
         }
-
-        return baos.toByteArray();
     }
 
     /**
@@ -272,19 +338,15 @@ public class CompressionDataMethod implements ConvertDataMethod {
      * @return detected compression algorithm, or null if unknown
      */
     @Nullable
-    private CompressionAlgorithm detectCompressionType(byte[] data) {
+    private CompressionCodec detectCompressionType(byte[] data) {
         if (data.length < 2) {
             return null;
         }
 
-        // GZIP magic bytes: 0x1F 0x8B
-        if (data[0] == 0x1F && data[1] == (byte) 0x8B) {
-            return CompressionAlgorithm.GZIP;
-        }
-
-        // ZIP magic bytes: 0x50 0x4B (PK)
-        if (data.length >= 4 && data[0] == 0x50 && data[1] == 0x4B) {
-            return CompressionAlgorithm.ZIP;
+        for (CompressionCodec codec : compressionCodecs) {
+            if (codec.isDetected(data)) {
+                return codec;
+            }
         }
 
         // DEFLATE doesn't have reliable magic bytes, return default
@@ -305,10 +367,12 @@ public class CompressionDataMethod implements ConvertDataMethod {
     private void fillPreviewData(CompressionDataPanel panel, CodeAreaCore codeArea) {
         SwingUtilities.invokeLater(() -> {
             OperationType operationType = panel.getOperationType();
-            CompressionAlgorithm algorithm = panel.getAlgorithm();
+            CompressionCodec algorithm = panel.getAlgorithm();
             boolean autoDetect = panel.isAutoDetect();
+            int level = panel.getLevel();
+            int threads = panel.getThreads();
 
-            EditableBinaryData previewBinaryData = new ByteArrayEditableData();
+            EditableBinaryData previewBinaryData = new ByteArrayPagedData();
             previewBinaryData.clear();
             long position;
             long length;
@@ -324,7 +388,7 @@ public class CompressionDataMethod implements ConvertDataMethod {
             // Limit preview data size to avoid performance issues
             length = Math.min(length, 1024 * 1024); // Max 1MB for preview
 
-            convertData(codeArea.getContentData(), position, length, operationType, algorithm, autoDetect, previewBinaryData, 0);
+            convertData(codeArea.getContentData(), position, length, operationType, algorithm, autoDetect, level, threads, previewBinaryData, 0, null);
 
             // Update statistics in panel
             long originalSize = length;
@@ -348,11 +412,121 @@ public class CompressionDataMethod implements ConvertDataMethod {
     }
 
     /**
-     * Compression algorithm enumeration.
+     * Compression algorithms supported by standard library.
      */
-    public enum CompressionAlgorithm {
-        GZIP,
-        ZIP,
-        DEFLATE
+    public enum CompressionAlgorithm implements CompressionCodec {
+        GZIP("GZIP", true) {
+            @Override
+            public boolean isDetected(byte[] header) {
+                // GZIP magic bytes: 0x1F 0x8B
+                return header.length >= 2 && header[0] == 0x1F && header[1] == (byte) 0x8B;
+            }
+
+            @Override
+            public void compress(InputStream input, OutputStream output, int level, int threads) throws IOException {
+                try (GZIPOutputStream gzip = new GZIPOutputStream(output, BUFFER_SIZE) {
+                    {
+                        def.setLevel(level);
+                    }
+                }) {
+                    transfer(input, gzip);
+                }
+            }
+
+            @Override
+            public void decompress(InputStream input, OutputStream output) throws IOException {
+                try (GZIPInputStream gzip = new GZIPInputStream(input, BUFFER_SIZE)) {
+                    transfer(gzip, output);
+                }
+            }
+        },
+        ZIP("ZIP", false) {
+            @Override
+            public boolean isDetected(byte[] header) {
+                // ZIP magic bytes: 0x50 0x4B (PK)
+                return header.length >= 4 && header[0] == 0x50 && header[1] == 0x4B;
+            }
+
+            @Override
+            public void compress(InputStream input, OutputStream output, int level, int threads) throws IOException {
+                try (ZipOutputStream zip = new ZipOutputStream(output)) {
+                    zip.setLevel(level);
+                    zip.putNextEntry(new ZipEntry("data"));
+                    transfer(input, zip);
+                    zip.closeEntry();
+                }
+            }
+
+            @Override
+            public void decompress(InputStream input, OutputStream output) throws IOException {
+                try (ZipInputStream zip = new ZipInputStream(input)) {
+                    ZipEntry entry = zip.getNextEntry();
+                    if (entry != null) {
+                        transfer(zip, output);
+                    }
+                }
+            }
+        },
+        DEFLATE("DEFLATE", true) {
+            @Override
+            public boolean isDetected(byte[] header) {
+                // Raw DEFLATE is used as fallback only
+                return false;
+            }
+
+            @Override
+            public void compress(InputStream input, OutputStream output, int level, int threads) throws IOException {
+                Deflater deflater = new Deflater(level);
+                try (DeflaterOutputStream deflate = new DeflaterOutputStream(output, deflater, BUFFER_SIZE)) {
+                    transfer(input, deflate);
+                } finally {
+                    deflater.end();
+                }
+            }
+
+            @Override
+            public void decompress(InputStream input, OutputStream output) throws IOException {
+                Inflater inflater = new Inflater();
+                try (InflaterInputStream inflate = new InflaterInputStream(input, inflater, BUFFER_SIZE)) {
+                    transfer(inflate, output);
+                } finally {
+                    inflater.end();
+                }
+            }
+        };
+
+        private final String name;
+        private final boolean multithreaded;
+
+        private CompressionAlgorithm(String name, boolean multithreaded) {
+            this.name = name;
+            this.multithreaded = multithreaded;
+        }
+
+        @Nonnull
+        @Override
+        public String getName() {
+            return name;
+        }
+
+        @Override
+        public int getMinLevel() {
+            return Deflater.NO_COMPRESSION;
+        }
+
+        @Override
+        public int getMaxLevel() {
+            return Deflater.BEST_COMPRESSION;
+        }
+
+        @Override
+        public int getDefaultLevel() {
+            return 6;
+        }
+
+        @Override
+        public boolean isMultithreaded() {
+            return multithreaded;
+        }
     }
 }
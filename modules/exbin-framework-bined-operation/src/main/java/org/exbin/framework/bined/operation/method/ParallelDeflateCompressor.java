@@ -0,0 +1,368 @@
+/*
+ * Copyright (C) ExBin Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.exbin.framework.bined.operation.method;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.zip.Adler32;
+import java.util.zip.CRC32;
+import java.util.zip.Checksum;
+import java.util.zip.Deflater;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import javax.annotation.ParametersAreNonnullByDefault;
+
+/**
+ * Compressor producing deflate stream from blocks compressed in parallel.
+ *
+ * Input is split into blocks which are read by calling thread and compressed
+ * concurrently on fork-join pool. Each block is primed with the tail of the
+ * preceding block as dictionary and all blocks except the last one are ended
+ * by sync flush, so that their concatenation forms single standard deflate
+ * stream. Checksums of blocks are computed in parallel as well and combined
+ * into checksum of whole data for gzip or zlib trailer.
+ *
+ * @author ExBin Project (https://exbin.org)
+ */
+@ParametersAreNonnullByDefault
+public class ParallelDeflateCompressor {
+
+    public static final int DEFAULT_BLOCK_SIZE = 1024 * 1024;
+
+    private static final int DICTIONARY_SIZE = 32 * 1024;
+    private static final byte[] GZIP_HEADER = {0x1f, (byte) 0x8b, Deflater.DEFLATED, 0, 0, 0, 0, 0, 0, 0};
+    private static final byte[] ZLIB_HEADER = {0x78, (byte) 0x9c};
+    private static final long CRC32_POLYNOMIAL = 0xedb88320L;
+    private static final long ADLER32_BASE = 65521;
+
+    private final ForkJoinPool pool;
+    private final int maxPendingBlocks;
+    private int blockSize = DEFAULT_BLOCK_SIZE;
+    private int level = Deflater.DEFAULT_COMPRESSION;
+
+    public ParallelDeflateCompressor() {
+        this(ForkJoinPool.commonPool());
+    }
+
+    public ParallelDeflateCompressor(ForkJoinPool pool) {
+        this.pool = pool;
+        maxPendingBlocks = pool.getParallelism() * 2;
+    }
+
+    public int getBlockSize() {
+        return blockSize;
+    }
+
+    public void setBlockSize(int blockSize) {
+        this.blockSize = blockSize;
+    }
+
+    public int getLevel() {
+        return level;
+    }
+
+    public void setLevel(int level) {
+        this.level = level;
+    }
+
+    /**
+     * Compresses input into given output.
+     *
+     * @param input input data
+     * @param output output for compressed data
+     * @param format output format
+     * @throws IOException on input/output error
+     */
+    public void compress(InputStream input, OutputStream output, Format format) throws IOException {
+        output.write(format == Format.GZIP ? GZIP_HEADER : ZLIB_HEADER);
+
+        Deque<BlockTask> pendingTasks = new ArrayDeque<>();
+        long checksum = format == Format.GZIP ? 0 : 1;
+        long totalLength = 0;
+        try {
+            byte[] dictionary = null;
+            byte[] nextBlock = new byte[blockSize];
+            int nextLength = readFully(input, nextBlock);
+            boolean inputFinished = false;
+            while (true) {
+                while (!inputFinished && pendingTasks.size() < maxPendingBlocks) {
+                    byte[] block = nextBlock;
+                    int length = nextLength;
+                    nextBlock = new byte[blockSize];
+                    nextLength = readFully(input, nextBlock);
+                    inputFinished = nextLength == 0;
+
+                    BlockTask task = new BlockTask(block, length, dictionary, inputFinished, level, format);
+                    pool.execute(task);
+                    pendingTasks.add(task);
+                    dictionary = createDictionary(dictionary, block, length);
+                }
+
+                BlockTask task = pendingTasks.poll();
+                if (task == null) {
+                    break;
+                }
+
+                BlockResult result = task.join();
+                output.write(result.data, 0, result.length);
+                checksum = format == Format.GZIP
+                        ? crc32Combine(checksum, result.checksum, task.length)
+                        : adler32Combine(checksum, result.checksum, task.length);
+                totalLength += task.length;
+            }
+        } finally {
+            for (BlockTask pendingTask : pendingTasks) {
+                pendingTask.cancel(false);
+            }
+        }
+
+        if (format == Format.GZIP) {
+            writeIntLittleEndian(output, checksum);
+            writeIntLittleEndian(output, totalLength);
+        } else {
+            output.write((int) (checksum >> 24));
+            output.write((int) (checksum >> 16));
+            output.write((int) (checksum >> 8));
+            output.write((int) checksum);
+        }
+        output.flush();
+    }
+
+    private static int readFully(InputStream input, byte[] buffer) throws IOException {
+        int length = 0;
+        while (length < buffer.length) {
+            int count = input.read(buffer, length, buffer.length - length);
+            if (count < 0) {
+                break;
+            }
+            length += count;
+        }
+        return length;
+    }
+
+    @Nullable
+    private static byte[] createDictionary(@Nullable byte[] previousDictionary, byte[] block, int length) {
+        if (length >= DICTIONARY_SIZE) {
+            return Arrays.copyOfRange(block, length - DICTIONARY_SIZE, length);
+        }
+
+        // Short block is appended to the tail of previous dictionary
+        int previousLength = previousDictionary == null ? 0 : Math.min(previousDictionary.length, DICTIONARY_SIZE - length);
+        if (previousLength + length == 0) {
+            return null;
+        }
+        byte[] dictionary = new byte[previousLength + length];
+        if (previousLength > 0) {
+            System.arraycopy(previousDictionary, previousDictionary.length - previousLength, dictionary, 0, previousLength);
+        }
+        System.arraycopy(block, 0, dictionary, previousLength, length);
+        return dictionary;
+    }
+
+    private static void writeIntLittleEndian(OutputStream output, long value) throws IOException {
+        output.write((int) value);
+        output.write((int) (value >> 8));
+        output.write((int) (value >> 16));
+        output.write((int) (value >> 24));
+    }
+
+    /**
+     * Combines CRC-32 checksums of two consecutive data.
+     *
+     * @param crc1 checksum of first data
+     * @param crc2 checksum of second data
+     * @param length2 length of second data
+     * @return checksum of concatenated data
+     */
+    public static long crc32Combine(long crc1, long crc2, long length2) {
+        if (length2 <= 0) {
+            return crc1;
+        }
+
+        long[] even = new long[32];
+        long[] odd = new long[32];
+        odd[0] = CRC32_POLYNOMIAL;
+        long row = 1;
+        for (int n = 1; n < 32; n++) {
+            odd[n] = row;
+            row <<= 1;
+        }
+        gf2MatrixSquare(even, odd);
+        gf2MatrixSquare(odd, even);
+
+        // Apply length2 zero bytes to crc1 using operator squaring
+        do {
+            gf2MatrixSquare(even, odd);
+            if ((length2 & 1) != 0) {
+                crc1 = gf2MatrixTimes(even, crc1);
+            }
+            length2 >>= 1;
+            if (length2 == 0) {
+                break;
+            }
+
+            gf2MatrixSquare(odd, even);
+            if ((length2 & 1) != 0) {
+                crc1 = gf2MatrixTimes(odd, crc1);
+            }
+            length2 >>= 1;
+        } while (length2 != 0);
+
+        return crc1 ^ crc2;
+    }
+
+    /**
+     * Combines Adler-32 checksums of two consecutive data.
+     *
+     * @param adler1 checksum of first data
+     * @param adler2 checksum of second data
+     * @param length2 length of second data
+     * @return checksum of concatenated data
+     */
+    public static long adler32Combine(long adler1, long adler2, long length2) {
+        long remainder = length2 % ADLER32_BASE;
+        long sum1 = adler1 & 0xffff;
+        long sum2 = (remainder * sum1) % ADLER32_BASE;
+        sum1 += (adler2 & 0xffff) + ADLER32_BASE - 1;
+        sum2 += ((adler1 >> 16) & 0xffff) + ((adler2 >> 16) & 0xffff) + ADLER32_BASE - remainder;
+        if (sum1 >= ADLER32_BASE) {
+            sum1 -= ADLER32_BASE;
+        }
+        if (sum1 >= ADLER32_BASE) {
+            sum1 -= ADLER32_BASE;
+        }
+        if (sum2 >= ADLER32_BASE << 1) {
+            sum2 -= ADLER32_BASE << 1;
+        }
+        if (sum2 >= ADLER32_BASE) {
+            sum2 -= ADLER32_BASE;
+        }
+        return sum1 | (sum2 << 16);
+    }
+
+    private static long gf2MatrixTimes(long[] matrix, long vector) {
+        long sum = 0;
+        int index = 0;
+        while (vector != 0) {
+            if ((vector & 1) != 0) {
+                sum ^= matrix[index];
+            }
+            vector >>>= 1;
+            index++;
+        }
+        return sum;
+    }
+
+    private static void gf2MatrixSquare(long[] square, long[] matrix) {
+        for (int n = 0; n < 32; n++) {
+            square[n] = gf2MatrixTimes(matrix, matrix[n]);
+        }
+    }
+
+    public enum Format {
+        /**
+         * Gzip member with CRC-32 trailer.
+         */
+        GZIP,
+        /**
+         * Zlib stream with Adler-32 trailer.
+         */
+        ZLIB
+    }
+
+    private static class BlockResult {
+
+        private final byte[] data;
+        private final int length;
+        private final long checksum;
+
+        public BlockResult(byte[] data, int length, long checksum) {
+            this.data = data;
+            this.length = length;
+            this.checksum = checksum;
+        }
+    }
+
+    /**
+     * Task for compression of single block of data.
+     */
+    @ParametersAreNonnullByDefault
+    private static class BlockTask extends RecursiveTask<BlockResult> {
+
+        private final byte[] block;
+        private final int length;
+        private final byte[] dictionary;
+        private final boolean last;
+        private final int level;
+        private final Format format;
+
+        public BlockTask(byte[] block, int length, @Nullable byte[] dictionary, boolean last, int level, Format format) {
+            this.block = block;
+            this.length = length;
+            this.dictionary = dictionary;
+            this.last = last;
+            this.level = level;
+            this.format = format;
+        }
+
+        @Nonnull
+        @Override
+        protected BlockResult compute() {
+            Checksum checksum = format == Format.GZIP ? new CRC32() : new Adler32();
+            checksum.update(block, 0, length);
+
+            Deflater deflater = new Deflater(level, true);
+            try {
+                if (dictionary != null) {
+                    deflater.setDictionary(dictionary);
+                }
+                deflater.setInput(block, 0, length);
+                byte[] output = new byte[Math.max(length + length / 8 + 64, 1024)];
+                int outputLength = 0;
+                if (last) {
+                    deflater.finish();
+                    while (!deflater.finished()) {
+                        if (outputLength == output.length) {
+                            output = Arrays.copyOf(output, output.length * 2);
+                        }
+                        outputLength += deflater.deflate(output, outputLength, output.length - outputLength);
+                    }
+                } else {
+                    // Sync flush aligns block to byte boundary without ending the stream
+                    while (true) {
+                        if (outputLength == output.length) {
+                            output = Arrays.copyOf(output, output.length * 2);
+                        }
+                        int count = deflater.deflate(output, outputLength, output.length - outputLength, Deflater.SYNC_FLUSH);
+                        outputLength += count;
+                        if (outputLength < output.length) {
+                            break;
+                        }
+                    }
+                }
+                return new BlockResult(output, outputLength, checksum.getValue());
+            } finally {
+                deflater.end();
+            }
+        }
+    }
+}
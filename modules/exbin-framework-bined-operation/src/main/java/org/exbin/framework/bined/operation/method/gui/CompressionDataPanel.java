@@ -15,10 +15,14 @@
  */
 package org.exbin.framework.bined.operation.method.gui;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
 import java.util.ResourceBundle;
 import javax.annotation.Nonnull;
 import javax.annotation.ParametersAreNonnullByDefault;
 import org.exbin.framework.App;
+import org.exbin.framework.bined.operation.method.CompressionCodec;
 import org.exbin.framework.bined.operation.method.CompressionDataMethod;
 import org.exbin.framework.language.api.LanguageModuleApi;
 
@@ -28,6 +32,7 @@ public class CompressionDataPanel extends javax.swing.JPanel {
 
     private final java.util.ResourceBundle resourceBundle = App.getModule(LanguageModuleApi.class).getBundle(CompressionDataPanel.class);
 
+    private final List<CompressionCodec> compressionCodecs = new ArrayList<>(Arrays.asList(CompressionDataMethod.CompressionAlgorithm.values()));
     private ConfigChangeListener configChangeListener = null;
 
     public CompressionDataPanel() {
@@ -40,6 +45,8 @@ public class CompressionDataPanel extends javax.swing.JPanel {
         compressRadioButton.setSelected(true);
         algorithmComboBox.setSelectedIndex(0); // GZIP
         autoDetectCheckBox.setSelected(true);
+        threadsSpinner.setModel(new javax.swing.SpinnerNumberModel(1, 1, Runtime.getRuntime().availableProcessors(), 1));
+        updateAlgorithmOptions();
         updateStatistics(0, 0);
     }
 
@@ -64,6 +71,10 @@ public class CompressionDataPanel extends javax.swing.JPanel {
         decompressRadioButton = new javax.swing.JRadioButton();
         algorithmLabel = new javax.swing.JLabel();
         algorithmComboBox = new javax.swing.JComboBox<>();
+        levelLabel = new javax.swing.JLabel();
+        levelSpinner = new javax.swing.JSpinner();
+        threadsLabel = new javax.swing.JLabel();
+        threadsSpinner = new javax.swing.JSpinner();
         autoDetectCheckBox = new javax.swing.JCheckBox();
         statisticsPanel = new javax.swing.JPanel();
         originalSizeLabel = new javax.swing.JLabel();
@@ -109,6 +120,24 @@ public class CompressionDataPanel extends javax.swing.JPanel {
             }
         });
 
+        levelLabel.setText(resourceBundle.getString("levelLabel.text")); // NOI18N
+
+        levelSpinner.setModel(new javax.swing.SpinnerNumberModel(6, 0, 9, 1));
+        levelSpinner.addChangeListener(new javax.swing.event.ChangeListener() {
+            public void stateChanged(javax.swing.event.ChangeEvent evt) {
+                levelSpinnerStateChanged(evt);
+            }
+        });
+
+        threadsLabel.setText(resourceBundle.getString("threadsLabel.text")); // NOI18N
+
+        threadsSpinner.setModel(new javax.swing.SpinnerNumberModel(1, 1, 256, 1));
+        threadsSpinner.addChangeListener(new javax.swing.event.ChangeListener() {
+            public void stateChanged(javax.swing.event.ChangeEvent evt) {
+                threadsSpinnerStateChanged(evt);
+            }
+        });
+
         autoDetectCheckBox.setSelected(true);
         autoDetectCheckBox.setText(resourceBundle.getString("autoDetectCheckBox.text")); // NOI18N
         autoDetectCheckBox.addItemListener(new java.awt.event.ItemListener() {
@@ -128,10 +157,14 @@ public class CompressionDataPanel extends javax.swing.JPanel {
                     .addGroup(operationPanelLayout.createSequentialGroup()
                         .addGroup(operationPanelLayout.createParallelGroup(javax.swing.GroupLayout.Alignment.LEADING)
                             .addComponent(operationLabel)
-                            .addComponent(algorithmLabel))
+                            .addComponent(algorithmLabel)
+                            .addComponent(levelLabel)
+                            .addComponent(threadsLabel))
                         .addPreferredGap(javax.swing.LayoutStyle.ComponentPlacement.RELATED)
                         .addGroup(operationPanelLayout.createParallelGroup(javax.swing.GroupLayout.Alignment.LEADING)
                             .addComponent(algorithmComboBox, javax.swing.GroupLayout.PREFERRED_SIZE, 200, javax.swing.GroupLayout.PREFERRED_SIZE)
+                            .addComponent(levelSpinner, javax.swing.GroupLayout.PREFERRED_SIZE, 80, javax.swing.GroupLayout.PREFERRED_SIZE)
+                            .addComponent(threadsSpinner, javax.swing.GroupLayout.PREFERRED_SIZE, 80, javax.swing.GroupLayout.PREFERRED_SIZE)
                             .addGroup(operationPanelLayout.createSequentialGroup()
                                 .addComponent(compressRadioButton)
                                 .addPreferredGap(javax.swing.LayoutStyle.ComponentPlacement.RELATED)
@@ -151,6 +184,14 @@ public class CompressionDataPanel extends javax.swing.JPanel {
                     .addComponent(algorithmLabel)
                     .addComponent(algorithmComboBox, javax.swing.GroupLayout.PREFERRED_SIZE, javax.swing.GroupLayout.DEFAULT_SIZE, javax.swing.GroupLayout.PREFERRED_SIZE))
                 .addPreferredGap(javax.swing.LayoutStyle.ComponentPlacement.RELATED)
+                .addGroup(operationPanelLayout.createParallelGroup(javax.swing.GroupLayout.Alignment.BASELINE)
+                    .addComponent(levelLabel)
+                    .addComponent(levelSpinner, javax.swing.GroupLayout.PREFERRED_SIZE, javax.swing.GroupLayout.DEFAULT_SIZE, javax.swing.GroupLayout.PREFERRED_SIZE))
+                .addPreferredGap(javax.swing.LayoutStyle.ComponentPlacement.RELATED)
+                .addGroup(operationPanelLayout.createParallelGroup(javax.swing.GroupLayout.Alignment.BASELINE)
+                    .addComponent(threadsLabel)
+                    .addComponent(threadsSpinner, javax.swing.GroupLayout.PREFERRED_SIZE, javax.swing.GroupLayout.DEFAULT_SIZE, javax.swing.GroupLayout.PREFERRED_SIZE))
+                .addPreferredGap(javax.swing.LayoutStyle.ComponentPlacement.RELATED)
                 .addComponent(autoDetectCheckBox)
                 .addContainerGap(javax.swing.GroupLayout.DEFAULT_SIZE, Short.MAX_VALUE))
         );
@@ -223,6 +264,7 @@ public class CompressionDataPanel extends javax.swing.JPanel {
 
     private void algorithmComboBoxItemStateChanged(java.awt.event.ItemEvent evt) {//GEN-FIRST:event_algorithmComboBoxItemStateChanged
         if (evt.getStateChange() == java.awt.event.ItemEvent.SELECTED) {
+            updateAlgorithmOptions();
             fireConfigChanged();
         }
     }//GEN-LAST:event_algorithmComboBoxItemStateChanged
@@ -231,6 +273,14 @@ public class CompressionDataPanel extends javax.swing.JPanel {
         fireConfigChanged();
     }//GEN-LAST:event_autoDetectCheckBoxItemStateChanged
 
+    private void levelSpinnerStateChanged(javax.swing.event.ChangeEvent evt) {//GEN-FIRST:event_levelSpinnerStateChanged
+        fireConfigChanged();
+    }//GEN-LAST:event_levelSpinnerStateChanged
+
+    private void threadsSpinnerStateChanged(javax.swing.event.ChangeEvent evt) {//GEN-FIRST:event_threadsSpinnerStateChanged
+        fireConfigChanged();
+    }//GEN-LAST:event_threadsSpinnerStateChanged
+
     // Variables declaration - do not modify//GEN-BEGIN:variables
     private javax.swing.JComboBox<String> algorithmComboBox;
     private javax.swing.JLabel algorithmLabel;
@@ -241,12 +291,16 @@ public class CompressionDataPanel extends javax.swing.JPanel {
     private javax.swing.JLabel compressionRatioLabel;
     private javax.swing.JLabel compressionRatioValueLabel;
     private javax.swing.JRadioButton decompressRadioButton;
+    private javax.swing.JLabel levelLabel;
+    private javax.swing.JSpinner levelSpinner;
     private javax.swing.ButtonGroup operationButtonGroup;
     private javax.swing.JLabel operationLabel;
     private javax.swing.JPanel operationPanel;
     private javax.swing.JLabel originalSizeLabel;
     private javax.swing.JLabel originalSizeValueLabel;
     private javax.swing.JPanel statisticsPanel;
+    private javax.swing.JLabel threadsLabel;
+    private javax.swing.JSpinner threadsSpinner;
     // End of variables declaration//GEN-END:variables
 
     public void initFocus() {
@@ -260,24 +314,58 @@ public class CompressionDataPanel extends javax.swing.JPanel {
                 : CompressionDataMethod.OperationType.DECOMPRESS;
     }
 
+    /**
+     * Sets available compression codecs.
+     *
+     * @param codecs compression codecs
+     */
+    public void setCompressionCodecs(List<CompressionCodec> codecs) {
+        compressionCodecs.clear();
+        compressionCodecs.addAll(codecs);
+        String[] names = new String[codecs.size()];
+        for (int i = 0; i < names.length; i++) {
+            names[i] = codecs.get(i).getName();
+        }
+        algorithmComboBox.setModel(new javax.swing.DefaultComboBoxModel<>(names));
+        algorithmComboBox.setSelectedIndex(names.length > 0 ? 0 : -1);
+        updateAlgorithmOptions();
+    }
+
     @Nonnull
-    public CompressionDataMethod.CompressionAlgorithm getAlgorithm() {
-        switch (algorithmComboBox.getSelectedIndex()) {
-            case 0:
-                return CompressionDataMethod.CompressionAlgorithm.GZIP;
-            case 1:
-                return CompressionDataMethod.CompressionAlgorithm.ZIP;
-            case 2:
-                return CompressionDataMethod.CompressionAlgorithm.DEFLATE;
-            default:
-                return CompressionDataMethod.CompressionAlgorithm.GZIP;
+    public CompressionCodec getAlgorithm() {
+        int selectedIndex = algorithmComboBox.getSelectedIndex();
+        if (selectedIndex < 0 || selectedIndex >= compressionCodecs.size()) {
+            return CompressionDataMethod.CompressionAlgorithm.GZIP;
         }
+
+        return compressionCodecs.get(selectedIndex);
     }
 
     public boolean isAutoDetect() {
         return autoDetectCheckBox.isSelected();
     }
 
+    public int getLevel() {
+        return (Integer) levelSpinner.getValue();
+    }
+
+    /**
+     * Returns number of threads for compression, 1 if algorithm compresses
+     * in single thread only.
+     *
+     * @return number of threads
+     */
+    public int getThreads() {
+        return getAlgorithm().isMultithreaded() ? (Integer) threadsSpinner.getValue() : 1;
+    }
+
+    private void updateAlgorithmOptions() {
+        CompressionCodec algorithm = getAlgorithm();
+        levelSpinner.setModel(new javax.swing.SpinnerNumberModel(algorithm.getDefaultLevel(), algorithm.getMinLevel(), algorithm.getMaxLevel(), 1));
+        levelSpinner.setEnabled(algorithm.getMinLevel() < algorithm.getMaxLevel());
+        threadsSpinner.setEnabled(algorithm.isMultithreaded());
+    }
+
     public void updateStatistics(long originalSize, long compressedSize) {
         originalSizeValueLabel.setText(formatSize(originalSize));
         compressedSizeValueLabel.setText(formatSize(compressedSize));
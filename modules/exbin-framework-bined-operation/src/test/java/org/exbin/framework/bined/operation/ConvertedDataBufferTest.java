@@ -0,0 +1,116 @@
+/*
+ * Copyright (C) ExBin Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.exbin.framework.bined.operation;
+
+import java.io.IOException;
+import javax.annotation.Nonnull;
+import javax.annotation.ParametersAreNonnullByDefault;
+import org.exbin.auxiliary.binary_data.array.ByteArrayEditableData;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Tests for ConvertedDataBuffer class.
+ *
+ * @author ExBin Project (https://exbin.org)
+ */
+@ParametersAreNonnullByDefault
+public class ConvertedDataBufferTest {
+
+    public ConvertedDataBufferTest() {
+    }
+
+    @Test
+    public void testProvideHeapData() throws IOException {
+        byte[] data = createTestData(100);
+        ConvertedDataBuffer buffer = new ConvertedDataBuffer(1000);
+        buffer.write(data, 0, 60);
+        buffer.write(data, 60, 40);
+        buffer.close();
+        Assert.assertFalse(buffer.isSpilled());
+        Assert.assertEquals(100, buffer.getLength());
+
+        ByteArrayEditableData target = new ByteArrayEditableData(new byte[]{1, 2});
+        buffer.provideData(target, 0, 0, 1);
+        Assert.assertArrayEquals(concat(new byte[]{1}, data, new byte[]{2}), toArray(target));
+        buffer.dispose();
+    }
+
+    @Test
+    public void testProvideSpilledData() throws IOException {
+        byte[] data = createTestData(5000);
+        ConvertedDataBuffer buffer = new ConvertedDataBuffer(1000);
+        for (int offset = 0; offset < data.length; offset += 700) {
+            buffer.write(data, offset, Math.min(700, data.length - offset));
+        }
+        buffer.close();
+        Assert.assertTrue(buffer.isSpilled());
+        Assert.assertEquals(5000, buffer.getLength());
+
+        ByteArrayEditableData target = new ByteArrayEditableData(new byte[]{1, 2});
+        buffer.provideData(target, 0, 0, 1);
+        Assert.assertArrayEquals(concat(new byte[]{1}, data, new byte[]{2}), toArray(target));
+
+        // Data are kept for repeated insertion on redo
+        ByteArrayEditableData redoTarget = new ByteArrayEditableData();
+        buffer.provideData(redoTarget, 0, 0, 0);
+        Assert.assertArrayEquals(data, toArray(redoTarget));
+        buffer.dispose();
+    }
+
+    @Test
+    public void testReset() throws IOException {
+        byte[] data = createTestData(2000);
+        ConvertedDataBuffer buffer = new ConvertedDataBuffer(1000);
+        buffer.write(data, 0, data.length);
+        Assert.assertTrue(buffer.isSpilled());
+        buffer.reset();
+        Assert.assertFalse(buffer.isSpilled());
+        Assert.assertEquals(0, buffer.getLength());
+
+        buffer.write(data, 0, 10);
+        buffer.close();
+        ByteArrayEditableData target = new ByteArrayEditableData();
+        buffer.provideData(target, 0, 0, 0);
+        Assert.assertEquals(10, target.getDataSize());
+        buffer.dispose();
+    }
+
+    @Nonnull
+    private static byte[] createTestData(int length) {
+        byte[] data = new byte[length];
+        for (int i = 0; i < length; i++) {
+            data[i] = (byte) (i * 7 + 3);
+        }
+        return data;
+    }
+
+    @Nonnull
+    private static byte[] toArray(ByteArrayEditableData data) {
+        byte[] result = new byte[(int) data.getDataSize()];
+        data.copyToArray(0, result, 0, result.length);
+        return result;
+    }
+
+    @Nonnull
+    private static byte[] concat(byte[] first, byte[] second, byte[] third) {
+        byte[] result = new byte[first.length + second.length + third.length];
+        System.arraycopy(first, 0, result, 0, first.length);
+        System.arraycopy(second, 0, result, first.length, second.length);
+        System.arraycopy(third, 0, result, first.length + second.length, third.length);
+        return result;
+    }
+}
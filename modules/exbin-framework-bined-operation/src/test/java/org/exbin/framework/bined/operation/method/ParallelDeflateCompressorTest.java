@@ -0,0 +1,145 @@
+/*
+ * Copyright (C) ExBin Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.exbin.framework.bined.operation.method;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.zip.Adler32;
+import java.util.zip.CRC32;
+import java.util.zip.Checksum;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.InflaterInputStream;
+import javax.annotation.Nonnull;
+import javax.annotation.ParametersAreNonnullByDefault;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Tests for ParallelDeflateCompressor class.
+ *
+ * @author ExBin Project (https://exbin.org)
+ */
+@ParametersAreNonnullByDefault
+public class ParallelDeflateCompressorTest {
+
+    private static final int[] SPLIT_LENGTHS = {0, 1, 2, 15, 1000, 65520, 65521, 65522, 200000};
+
+    @Test
+    public void testCrc32Combine() {
+        byte[] data = createData(400000);
+        for (int firstLength : SPLIT_LENGTHS) {
+            for (int secondLength : SPLIT_LENGTHS) {
+                long first = computeChecksum(new CRC32(), data, 0, firstLength);
+                long second = computeChecksum(new CRC32(), data, firstLength, secondLength);
+                long expected = computeChecksum(new CRC32(), data, 0, firstLength + secondLength);
+                Assert.assertEquals("Lengths " + firstLength + ", " + secondLength, expected, ParallelDeflateCompressor.crc32Combine(first, second, secondLength));
+            }
+        }
+    }
+
+    @Test
+    public void testAdler32Combine() {
+        byte[] data = createData(400000);
+        for (int firstLength : SPLIT_LENGTHS) {
+            for (int secondLength : SPLIT_LENGTHS) {
+                long first = computeChecksum(new Adler32(), data, 0, firstLength);
+                long second = computeChecksum(new Adler32(), data, firstLength, secondLength);
+                long expected = computeChecksum(new Adler32(), data, 0, firstLength + secondLength);
+                Assert.assertEquals("Lengths " + firstLength + ", " + secondLength, expected, ParallelDeflateCompressor.adler32Combine(first, second, secondLength));
+            }
+        }
+    }
+
+    @Test
+    public void testCombineAllOnes() {
+        byte[] data = new byte[70000];
+        Arrays.fill(data, (byte) 0xff);
+        long first = computeChecksum(new Adler32(), data, 0, 35000);
+        long second = computeChecksum(new Adler32(), data, 35000, 35000);
+        Assert.assertEquals(computeChecksum(new Adler32(), data, 0, data.length), ParallelDeflateCompressor.adler32Combine(first, second, 35000));
+        first = computeChecksum(new CRC32(), data, 0, 35000);
+        second = computeChecksum(new CRC32(), data, 35000, 35000);
+        Assert.assertEquals(computeChecksum(new CRC32(), data, 0, data.length), ParallelDeflateCompressor.crc32Combine(first, second, 35000));
+    }
+
+    @Test
+    public void testGzipRoundTrip() throws IOException {
+        for (int length : new int[]{0, 1, 4095, 4096, 4097, 100000}) {
+            byte[] data = createData(length);
+            byte[] compressed = compress(data, ParallelDeflateCompressor.Format.GZIP);
+            Assert.assertArrayEquals("Length " + length, data, readFully(new GZIPInputStream(new ByteArrayInputStream(compressed))));
+        }
+    }
+
+    @Test
+    public void testZlibRoundTrip() throws IOException {
+        for (int length : new int[]{0, 1, 4095, 4096, 4097, 100000}) {
+            byte[] data = createData(length);
+            byte[] compressed = compress(data, ParallelDeflateCompressor.Format.ZLIB);
+            Assert.assertArrayEquals("Length " + length, data, readFully(new InflaterInputStream(new ByteArrayInputStream(compressed))));
+        }
+    }
+
+    @Nonnull
+    private static byte[] compress(byte[] data, ParallelDeflateCompressor.Format format) throws IOException {
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            ParallelDeflateCompressor compressor = new ParallelDeflateCompressor(pool);
+            compressor.setBlockSize(4096);
+            ByteArrayOutputStream output = new ByteArrayOutputStream();
+            compressor.compress(new ByteArrayInputStream(data), output, format);
+            return output.toByteArray();
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Nonnull
+    private static byte[] readFully(InputStream input) throws IOException {
+        try (InputStream stream = input) {
+            ByteArrayOutputStream output = new ByteArrayOutputStream();
+            byte[] buffer = new byte[8192];
+            int length;
+            while ((length = stream.read(buffer)) > 0) {
+                output.write(buffer, 0, length);
+            }
+            return output.toByteArray();
+        }
+    }
+
+    @Nonnull
+    private static byte[] createData(int length) {
+        // Repeating text mixed with random bytes to exercise back references across blocks
+        byte[] data = new byte[length];
+        Random random = new Random(length);
+        byte[] pattern = "The quick brown fox jumps over the lazy dog. ".getBytes(StandardCharsets.US_ASCII);
+        for (int i = 0; i < length; i++) {
+            data[i] = (i / 64) % 3 == 0 ? (byte) random.nextInt() : pattern[i % pattern.length];
+        }
+        return data;
+    }
+
+    private static long computeChecksum(Checksum checksum, byte[] data, int offset, int length) {
+        checksum.update(data, offset, length);
+        return checksum.getValue();
+    }
+}
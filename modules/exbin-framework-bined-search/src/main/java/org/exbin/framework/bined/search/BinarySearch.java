@@ -19,18 +19,25 @@ import java.awt.Dialog;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.ResourceBundle;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
 import javax.annotation.ParametersAreNonnullByDefault;
 import javax.swing.JPanel;
 import org.exbin.auxiliary.binary_data.array.ByteArrayEditableData;
 import org.exbin.auxiliary.binary_data.EditableBinaryData;
+import org.exbin.bined.CodeAreaUtils;
 import org.exbin.framework.App;
+import org.exbin.framework.bined.ChangedDataRange;
 import org.exbin.framework.bined.handler.CodeAreaPopupMenuHandler;
 import org.exbin.framework.bined.search.gui.BinaryMultilinePanel;
 import org.exbin.framework.bined.search.gui.BinarySearchPanel;
 import org.exbin.framework.bined.search.gui.FindBinaryPanel;
 import org.exbin.framework.bined.search.service.BinarySearchService;
+import org.exbin.framework.bined.search.service.SearchCancellationToken;
 import org.exbin.framework.help.api.HelpLink;
 import org.exbin.framework.help.api.HelpModuleApi;
 import org.exbin.framework.window.api.WindowModuleApi;
@@ -52,9 +59,15 @@ public class BinarySearch {
 
     private final ResourceBundle resourceBundle = App.getModule(LanguageModuleApi.class).getBundle(BinarySearch.class);
     private static final int DEFAULT_DELAY = 500;
+    private static final int UPDATE_DELAY = 50;
 
-    private InvokeSearchThread invokeSearchThread;
-    private SearchThread searchThread;
+    private final ScheduledExecutorService searchExecutor = Executors.newSingleThreadScheduledExecutor((Runnable runnable) -> {
+        Thread thread = new Thread(runnable, "SearchThread");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private ScheduledFuture<?> pendingSearch = null;
+    private SearchCancellationToken cancellationToken = new SearchCancellationToken();
 
     private SearchOperation currentSearchOperation = SearchOperation.FIND;
     private SearchParameters.SearchDirection currentSearchDirection = SearchParameters.SearchDirection.FORWARD;
@@ -106,6 +119,13 @@ public class BinarySearch {
                 updateMatchStatus();
             }
 
+            @Override
+            public void setPatternError(@Nonnull String description) {
+                binarySearchPanel.setInfoLabel(java.text.MessageFormat.format(resourceBundle.getString("searchStatus.patternError"), description));
+                BinarySearch.this.foundMatches = new BinarySearchService.FoundMatches();
+                updateMatchStatus();
+            }
+
             @Override
             public void clearStatus() {
                 binarySearchPanel.setInfoLabel("");
@@ -336,27 +356,45 @@ public class BinarySearch {
         invokeSearch(searchOperation, searchParameters, replaceParameters, 0);
     }
 
+    /**
+     * Schedules search after given delay.
+     *
+     * Previously scheduled search is dropped if not yet started and running
+     * search is cancelled, so that only the last requested search publishes
+     * its matches.
+     */
     private void invokeSearch(SearchOperation searchOperation, SearchParameters searchParameters, @Nullable ReplaceParameters replaceParameters, final int delay) {
-        if (invokeSearchThread != null) {
-            invokeSearchThread.interrupt();
-        }
-        invokeSearchThread = new InvokeSearchThread();
-        invokeSearchThread.delay = delay;
-        currentSearchOperation = searchOperation;
+        cancelSearch();
+        currentSearchOperation = searchOperation == SearchOperation.UPDATE ? SearchOperation.FIND : searchOperation;
         currentSearchParameters.setFromParameters(searchParameters);
         if (replaceParameters != null) {
             currentReplaceParameters.setFromParameters(replaceParameters);
         }
-        invokeSearchThread.start();
+
+        SearchParameters taskSearchParameters = new SearchParameters();
+        taskSearchParameters.setFromParameters(currentSearchParameters);
+        taskSearchParameters.setCondition(new SearchCondition(currentSearchParameters.getCondition()));
+        ReplaceParameters taskReplaceParameters = new ReplaceParameters();
+        taskReplaceParameters.setFromParameters(currentReplaceParameters);
+        taskReplaceParameters.setCondition(new SearchCondition(currentReplaceParameters.getCondition()));
+        cancellationToken = new SearchCancellationToken();
+        pendingSearch = searchExecutor.schedule(new SearchTask(searchOperation, taskSearchParameters, taskReplaceParameters, cancellationToken), delay, TimeUnit.MILLISECONDS);
     }
 
     public void cancelSearch() {
-        if (invokeSearchThread != null) {
-            invokeSearchThread.interrupt();
-        }
-        if (searchThread != null) {
-            searchThread.interrupt();
+        if (pendingSearch != null) {
+            pendingSearch.cancel(false);
+            pendingSearch = null;
         }
+        cancellationToken.cancel();
+    }
+
+    /**
+     * Cancels search and releases search executor.
+     */
+    public void dispose() {
+        cancelSearch();
+        searchExecutor.shutdown();
     }
 
     public void clearSearch() {
@@ -372,54 +410,68 @@ public class BinarySearch {
         return binarySearchPanel;
     }
 
-    public void dataChanged() {
+    /**
+     * Updates search after data change already recorded by search service.
+     *
+     * @param changedRange changed range or null if not known
+     */
+    public void dataChanged(@Nullable ChangedDataRange changedRange) {
+        if (currentSearchOperation == SearchOperation.FIND || currentSearchOperation == SearchOperation.REPLACE || currentSearchOperation == SearchOperation.REPLACE_ALL) {
+            // Replacing is not repeated on change caused by the replace itself and
+            // full search after unknown change is postponed while data keep changing
+            invokeSearch(SearchOperation.UPDATE, changedRange != null ? UPDATE_DELAY : DEFAULT_DELAY);
+            return;
+        }
+
         binarySearchService.clearMatches();
         invokeSearch(currentSearchOperation, DEFAULT_DELAY);
     }
 
-    private class InvokeSearchThread extends Thread {
-
-        private int delay = DEFAULT_DELAY;
-
-        public InvokeSearchThread() {
-            super("InvokeSearchThread");
+    /**
+     * Search operation performed by search executor.
+     */
+    @ParametersAreNonnullByDefault
+    private class SearchTask implements Runnable {
+
+        private final SearchOperation searchOperation;
+        private final SearchParameters searchParameters;
+        private final ReplaceParameters replaceParameters;
+        private final SearchCancellationToken cancellationToken;
+
+        public SearchTask(SearchOperation searchOperation, SearchParameters searchParameters, ReplaceParameters replaceParameters, SearchCancellationToken cancellationToken) {
+            this.searchOperation = searchOperation;
+            this.searchParameters = searchParameters;
+            this.replaceParameters = replaceParameters;
+            this.cancellationToken = cancellationToken;
         }
 
         @Override
         public void run() {
-            try {
-                Thread.sleep(delay);
-                if (searchThread != null) {
-                    searchThread.interrupt();
-                }
-                searchThread = new SearchThread();
-                searchThread.start();
-            } catch (InterruptedException ex) {
-                // don't search
+            if (cancellationToken.isCancelled()) {
+                return;
             }
-        }
-    }
-
-    private class SearchThread extends Thread {
-
-        public SearchThread() {
-            super("SearchThread");
-        }
 
-        @Override
-        public void run() {
-            switch (currentSearchOperation) {
+            switch (searchOperation) {
                 case FIND:
-                    binarySearchService.performFind(currentSearchParameters, searchStatusListener);
+                    binarySearchService.performFind(searchParameters, searchStatusListener, cancellationToken);
+                    break;
+                case UPDATE:
+                    if (!binarySearchService.performUpdate(searchStatusListener, cancellationToken) && !cancellationToken.isCancelled()) {
+                        binarySearchService.clearMatches();
+                        binarySearchService.performFind(searchParameters, searchStatusListener, cancellationToken);
+                    }
                     break;
                 case FIND_AGAIN:
-                    binarySearchService.performFindAgain(searchStatusListener);
+                    binarySearchService.performFindAgain(searchStatusListener, cancellationToken);
                     break;
                 case REPLACE:
-                    binarySearchService.performReplace(currentSearchParameters, currentReplaceParameters);
+                    binarySearchService.performReplace(searchParameters, replaceParameters);
+                    break;
+                case REPLACE_ALL:
+                    binarySearchService.performReplaceAll(searchParameters, replaceParameters, searchStatusListener, cancellationToken);
                     break;
                 default:
-                    throw new UnsupportedOperationException("Not supported yet.");
+                    throw CodeAreaUtils.getInvalidTypeException(searchOperation);
             }
         }
     }
@@ -433,6 +485,7 @@ public class BinarySearch {
         FIND,
         FIND_AGAIN,
         REPLACE,
-        REPLACE_ALL
+        REPLACE_ALL,
+        UPDATE
     }
 }
@@ -16,14 +16,18 @@
 package org.exbin.framework.bined.search;
 
 import java.awt.BorderLayout;
+import javax.annotation.Nonnull;
 import javax.annotation.ParametersAreNonnullByDefault;
 import org.exbin.bined.swing.section.SectCodeArea;
 import org.exbin.framework.App;
+import org.exbin.framework.bined.BinEdMemoryBudget;
 import org.exbin.framework.bined.BinedModule;
+import org.exbin.framework.bined.ChangedDataRange;
 import org.exbin.framework.bined.gui.BinEdComponentPanel;
 import org.exbin.framework.bined.handler.CodeAreaPopupMenuHandler;
 import org.exbin.framework.bined.search.gui.BinarySearchPanel;
 import org.exbin.framework.bined.search.service.BinarySearchService;
+import org.exbin.framework.bined.search.service.SearchCancellationToken;
 import org.exbin.framework.bined.search.service.impl.BinarySearchServiceImpl;
 import org.exbin.framework.preferences.api.OptionsStorage;
 
@@ -33,7 +37,7 @@ import org.exbin.framework.preferences.api.OptionsStorage;
  * @author ExBin Project (https://exbin.org)
  */
 @ParametersAreNonnullByDefault
-public class DefaultBinEdComponentSearch implements BinEdComponentSearch {
+public class DefaultBinEdComponentSearch implements BinEdComponentSearch, BinEdMemoryBudget.MemoryConsumer {
 
     private BinEdComponentPanel componentPanel;
     private final BinarySearch binarySearch = new BinarySearch();
@@ -56,8 +60,15 @@ public class DefaultBinEdComponentSearch implements BinEdComponentSearch {
 
     @Override
     public void onDataChange() {
+        if (ChangedDataRange.isNotificationDeferred(componentPanel.getCodeArea())) {
+            // Change is notified again with its range when edit is finished
+            return;
+        }
+
+        ChangedDataRange changedRange = ChangedDataRange.getNotifiedRange(componentPanel.getCodeArea());
+        binarySearchService.notifyDataChanged(changedRange);
         if (binarySearchPanelVisible) {
-            binarySearch.dataChanged();
+            binarySearch.dataChanged(changedRange);
         }
     }
 
@@ -71,6 +82,29 @@ public class DefaultBinEdComponentSearch implements BinEdComponentSearch {
 
     @Override
     public void onClose() {
+        binarySearch.dispose();
+    }
+
+    @Nonnull
+    @Override
+    public BinEdMemoryBudget.MemoryCategory getCategory() {
+        return BinEdMemoryBudget.MemoryCategory.SEARCH;
+    }
+
+    @Override
+    public long getMemoryUsage() {
+        return binarySearchService.getMemoryUsage();
+    }
+
+    @Override
+    public long releaseMemory() {
+        long released = binarySearchService.releaseSearchIndex();
+        if (!binarySearchPanelVisible) {
+            // Matches are kept while they are shown
+            released += binarySearchService.getMemoryUsage();
+            binarySearchService.clearMatches();
+        }
+        return released;
     }
 
     @Override
@@ -101,13 +135,13 @@ public class DefaultBinEdComponentSearch implements BinEdComponentSearch {
         SearchCondition searchCondition = new SearchCondition();
         searchCondition.setSearchText(text);
         searchParameters.setCondition(searchCondition);
-        binarySearchService.performFind(searchParameters, binarySearch.getSearchStatusListener());
+        binarySearchService.performFind(searchParameters, binarySearch.getSearchStatusListener(), new SearchCancellationToken());
     }
 
     @Override
     public void performFindAgain() {
         if (binarySearchPanelVisible) {
-            binarySearchService.performFindAgain(binarySearch.getSearchStatusListener());
+            binarySearchService.performFindAgain(binarySearch.getSearchStatusListener(), new SearchCancellationToken());
         } else {
             showSearchPanel(BinarySearchPanel.PanelMode.FIND);
         }
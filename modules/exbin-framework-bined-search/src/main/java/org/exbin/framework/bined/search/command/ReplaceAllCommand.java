@@ -0,0 +1,89 @@
+/*
+ * Copyright (C) ExBin Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.exbin.framework.bined.search.command;
+
+import javax.annotation.Nonnull;
+import javax.annotation.ParametersAreNonnullByDefault;
+import org.exbin.auxiliary.binary_data.EditableBinaryData;
+import org.exbin.bined.operation.BinaryDataUndoableOperation;
+import org.exbin.bined.operation.swing.command.CodeAreaCommand;
+import org.exbin.bined.operation.swing.command.CodeAreaCommandType;
+import org.exbin.bined.swing.CodeAreaCore;
+import org.exbin.framework.bined.ChangedDataRange;
+import org.exbin.framework.bined.DiscardableUndoCommand;
+import org.exbin.framework.bined.SourceIndependentCommand;
+import org.exbin.framework.bined.search.operation.ReplaceAllDataOperation;
+import org.exbin.framework.bined.search.operation.RestoreMatchesDataOperation;
+
+/**
+ * Replace all matches command.
+ *
+ * @author ExBin Project (https://exbin.org)
+ */
+@ParametersAreNonnullByDefault
+public class ReplaceAllCommand extends CodeAreaCommand implements SourceIndependentCommand, DiscardableUndoCommand {
+
+    protected final ReplaceAllDataOperation operation;
+    protected BinaryDataUndoableOperation undoOperation;
+
+    public ReplaceAllCommand(CodeAreaCore codeArea, ReplaceAllDataOperation operation) {
+        super(codeArea);
+        this.operation = operation;
+    }
+
+    @Nonnull
+    @Override
+    public CodeAreaCommandType getType() {
+        return CodeAreaCommandType.DATA_MODIFIED;
+    }
+
+    @Override
+    public void performExecute() {
+        undoOperation = operation.executeWithUndo((EditableBinaryData) codeArea.getContentData());
+        notifyDataChanged(false);
+    }
+
+    @Override
+    public void performUndo() {
+        undoOperation.execute((EditableBinaryData) codeArea.getContentData());
+        undoOperation.dispose();
+        undoOperation = null;
+        notifyDataChanged(true);
+    }
+
+    @Override
+    public boolean isUndoAvailable() {
+        return !(undoOperation instanceof RestoreMatchesDataOperation) || ((RestoreMatchesDataOperation) undoOperation).isRestorable();
+    }
+
+    private void notifyDataChanged(boolean undo) {
+        ChangedDataRange changedRange = operation.getChangedRange();
+        if (changedRange == null) {
+            codeArea.notifyDataChanged();
+        } else {
+            ChangedDataRange.notifyDataChanged(codeArea, undo ? changedRange.reverse() : changedRange);
+        }
+    }
+
+    @Override
+    public void dispose() {
+        super.dispose();
+        operation.dispose();
+        if (undoOperation != null) {
+            undoOperation.dispose();
+        }
+    }
+}
@@ -0,0 +1,83 @@
+/*
+ * Copyright (C) ExBin Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.exbin.framework.bined.search.operation;
+
+import javax.annotation.Nonnull;
+import javax.annotation.ParametersAreNonnullByDefault;
+import org.exbin.auxiliary.binary_data.BinaryData;
+import org.exbin.bined.operation.BinaryDataUndoableOperation;
+import org.exbin.framework.App;
+import org.exbin.framework.bined.BinedModule;
+import org.exbin.framework.bined.UndoDataStorage;
+
+/**
+ * Operation replacing all given matches with replacement data.
+ *
+ * Original data of all matches are kept in undo data storage as single block
+ * and undo operation replaces each replacement with its part.
+ *
+ * @author ExBin Project (https://exbin.org)
+ */
+@ParametersAreNonnullByDefault
+public class ReplaceAllDataOperation extends ReplaceMatchesOperation {
+
+    protected final BinaryData replacementData;
+    protected final UndoDataStorage undoDataStorage;
+
+    /**
+     * Creates operation.
+     *
+     * @param matchPositions positions of non-overlapping matches in ascending
+     * order
+     * @param matchLengths lengths of matches
+     * @param replacementData data to replace each match with
+     */
+    public ReplaceAllDataOperation(long[] matchPositions, long[] matchLengths, BinaryData replacementData) {
+        this(matchPositions, matchLengths, replacementData, App.getModule(BinedModule.class).getFileManager().getUndoDataStorage());
+    }
+
+    /**
+     * Creates operation.
+     *
+     * @param matchPositions positions of non-overlapping matches in ascending
+     * order
+     * @param matchLengths lengths of matches
+     * @param replacementData data to replace each match with
+     * @param undoDataStorage storage for original data of matches
+     */
+    public ReplaceAllDataOperation(long[] matchPositions, long[] matchLengths, BinaryData replacementData, UndoDataStorage undoDataStorage) {
+        super(matchPositions, matchLengths);
+        this.replacementData = replacementData;
+        this.undoDataStorage = undoDataStorage;
+    }
+
+    @Override
+    protected long getReplacementLength(int matchIndex) {
+        return replacementData.getDataSize();
+    }
+
+    @Override
+    protected void readReplacement(int matchIndex, long offset, byte[] target, int targetOffset, int length) {
+        replacementData.copyToArray(offset, target, targetOffset, length);
+    }
+
+    @Nonnull
+    @Override
+    protected BinaryDataUndoableOperation createUndoOperation(BinaryData contentData, long[] replacedPositions, long[] replacedLengths, BinaryData originalData) {
+        UndoDataStorage.StoredData storedData = undoDataStorage.store(contentData, originalData, 0, originalData.getDataSize());
+        return new RestoreMatchesDataOperation(replacedPositions, replacedLengths, storedData, matchLengths, replacementData);
+    }
+}
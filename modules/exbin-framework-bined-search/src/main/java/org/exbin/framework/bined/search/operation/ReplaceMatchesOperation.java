@@ -0,0 +1,396 @@
+/*
+ * Copyright (C) ExBin Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.exbin.framework.bined.search.operation;
+
+import java.io.IOException;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import javax.annotation.ParametersAreNonnullByDefault;
+import org.exbin.auxiliary.binary_data.BinaryData;
+import org.exbin.auxiliary.binary_data.EditableBinaryData;
+import org.exbin.auxiliary.binary_data.array.paged.ByteArrayPagedData;
+import org.exbin.bined.operation.BinaryDataUndoableOperation;
+import org.exbin.bined.operation.swing.BasicBinaryDataOperationType;
+import org.exbin.framework.bined.BinEdFileOperation;
+import org.exbin.framework.bined.ChangedDataRange;
+
+/**
+ * Operation replacing multiple matches at once.
+ *
+ * When replacements change length of data, replaced data are built in single
+ * pass by streaming unchanged runs between matches and replacements into new
+ * data, which are then swapped in place of the changed range, so that
+ * document is modified only twice regardless of count of matches. Short
+ * unchanged runs are copied together with replacements into shared memory
+ * blocks, longer runs are inserted as copies which keep their segments.
+ *
+ * When replacements keep length of matches, matches are overwritten in place.
+ *
+ * @author ExBin Project (https://exbin.org)
+ */
+@ParametersAreNonnullByDefault
+public abstract class ReplaceMatchesOperation implements BinaryDataUndoableOperation {
+
+    /**
+     * Unchanged runs shorter than this length are copied, as keeping them as
+     * separate segments costs more than their data.
+     */
+    private static final int MERGED_RUN_LENGTH = 256;
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    protected final long[] matchPositions;
+    protected final long[] matchLengths;
+    private EditableBinaryData preparedData = null;
+    private EditableBinaryData preparedOriginalData = null;
+
+    /**
+     * Creates operation.
+     *
+     * @param matchPositions positions of non-overlapping matches in ascending
+     * order
+     * @param matchLengths lengths of matches
+     */
+    public ReplaceMatchesOperation(long[] matchPositions, long[] matchLengths) {
+        if (matchPositions.length != matchLengths.length) {
+            throw new IllegalArgumentException("Match positions and lengths count differ");
+        }
+
+        this.matchPositions = matchPositions;
+        this.matchLengths = matchLengths;
+    }
+
+    @Nonnull
+    @Override
+    public BasicBinaryDataOperationType getType() {
+        return BasicBinaryDataOperationType.MODIFY_DATA;
+    }
+
+    public int getMatchesCount() {
+        return matchPositions.length;
+    }
+
+    /**
+     * Returns length of range from the start of the first match to the end of
+     * the last match.
+     *
+     * @return length of range
+     */
+    public long getRangeLength() {
+        int matchesCount = matchPositions.length;
+        return matchesCount == 0 ? 0 : matchPositions[matchesCount - 1] + matchLengths[matchesCount - 1] - matchPositions[0];
+    }
+
+    /**
+     * Returns range of data changed by execution of this operation.
+     *
+     * @return changed range or null if there are no matches
+     */
+    @Nullable
+    public ChangedDataRange getChangedRange() {
+        int matchesCount = matchPositions.length;
+        if (matchesCount == 0) {
+            return null;
+        }
+
+        long previousLength = getRangeLength();
+        return new ChangedDataRange(matchPositions[0], previousLength, previousLength + getLengthShift());
+    }
+
+    /**
+     * Returns length of replacement of given match.
+     *
+     * @param matchIndex match index
+     * @return length of replacement
+     */
+    protected abstract long getReplacementLength(int matchIndex);
+
+    /**
+     * Prepares reading of replacements.
+     *
+     * @throws IOException if replacements cannot be read
+     */
+    protected void openReplacements() throws IOException {
+    }
+
+    /**
+     * Copies part of replacement of given match.
+     *
+     * Replacements are read in ascending order of matches.
+     *
+     * @param matchIndex match index
+     * @param offset offset in replacement
+     * @param target target array
+     * @param targetOffset target array offset
+     * @param length length of copied part
+     * @throws IOException if replacement cannot be read
+     */
+    protected abstract void readReplacement(int matchIndex, long offset, byte[] target, int targetOffset, int length) throws IOException;
+
+    /**
+     * Finishes reading of replacements.
+     */
+    protected void closeReplacements() {
+    }
+
+    /**
+     * Creates operation reverting this operation.
+     *
+     * @param contentData document data
+     * @param replacedPositions positions of replacements
+     * @param replacedLengths lengths of replacements
+     * @param originalData original data of all matches in order
+     * @return undo operation
+     */
+    @Nonnull
+    protected abstract BinaryDataUndoableOperation createUndoOperation(BinaryData contentData, long[] replacedPositions, long[] replacedLengths, BinaryData originalData);
+
+    /**
+     * Builds replaced data in advance, so that execution only swaps them in.
+     *
+     * Can be called from worker thread as long as content data are not
+     * modified until execution. Nothing is prepared if replacements keep
+     * length of matches.
+     *
+     * @param contentData content data
+     * @param withUndo true to collect original data for undo
+     * @param progress file operation to report progress to or null
+     * @throws IOException if replacements cannot be read or preparation was
+     * cancelled
+     */
+    public void prepare(BinaryData contentData, boolean withUndo, @Nullable BinEdFileOperation progress) throws IOException {
+        checkMatches(contentData.getDataSize());
+        disposePrepared();
+        if (isLengthPreserved()) {
+            return;
+        }
+
+        int matchesCount = matchPositions.length;
+        long rangeStart = matchPositions[0];
+        EditableBinaryData originalData = withUndo ? new ByteArrayPagedData() : null;
+        DataBuilder builder = new DataBuilder(contentData, (EditableBinaryData) contentData.copy(rangeStart, 0));
+        boolean finished = false;
+        openReplacements();
+        try {
+            long position = rangeStart;
+            for (int i = 0; i < matchesCount; i++) {
+                builder.appendSource(position, matchPositions[i] - position);
+                builder.appendReplacement(i, getReplacementLength(i));
+                if (originalData != null) {
+                    originalData.insert(originalData.getDataSize(), contentData, matchPositions[i], matchLengths[i]);
+                }
+                position = matchPositions[i] + matchLengths[i];
+                if (progress != null) {
+                    progress.setProcessed(position - rangeStart);
+                }
+            }
+            builder.flush();
+            finished = true;
+        } finally {
+            closeReplacements();
+            if (!finished) {
+                builder.target.dispose();
+                if (originalData != null) {
+                    originalData.dispose();
+                }
+            }
+        }
+
+        preparedData = builder.target;
+        preparedOriginalData = originalData;
+    }
+
+    @Override
+    public void execute(EditableBinaryData contentData) {
+        execute(contentData, false);
+    }
+
+    @Nonnull
+    @Override
+    public BinaryDataUndoableOperation executeWithUndo(EditableBinaryData contentData) {
+        return execute(contentData, true);
+    }
+
+    @Nullable
+    private BinaryDataUndoableOperation execute(EditableBinaryData contentData, boolean withUndo) {
+        EditableBinaryData originalData;
+        try {
+            if (isLengthPreserved()) {
+                checkMatches(contentData.getDataSize());
+                originalData = withUndo ? new ByteArrayPagedData() : null;
+                replaceInPlace(contentData, originalData);
+            } else {
+                if (preparedData == null || (withUndo && preparedOriginalData == null)) {
+                    prepare(contentData, withUndo, null);
+                }
+                long rangeStart = matchPositions[0];
+                contentData.remove(rangeStart, getRangeLength());
+                contentData.insert(rangeStart, preparedData);
+                preparedData.dispose();
+                preparedData = null;
+                originalData = preparedOriginalData;
+                preparedOriginalData = null;
+            }
+        } catch (IOException ex) {
+            throw new IllegalStateException("Unable to replace matches", ex);
+        }
+
+        if (originalData == null) {
+            return null;
+        }
+
+        int matchesCount = matchPositions.length;
+        long[] replacedPositions = new long[matchesCount];
+        long[] replacedLengths = new long[matchesCount];
+        long shift = 0;
+        for (int i = 0; i < matchesCount; i++) {
+            replacedPositions[i] = matchPositions[i] + shift;
+            replacedLengths[i] = getReplacementLength(i);
+            shift += replacedLengths[i] - matchLengths[i];
+        }
+        try {
+            return createUndoOperation(contentData, replacedPositions, replacedLengths, originalData);
+        } finally {
+            originalData.dispose();
+        }
+    }
+
+    private void replaceInPlace(EditableBinaryData contentData, @Nullable EditableBinaryData originalData) throws IOException {
+        int matchesCount = matchPositions.length;
+        byte[] buffer = new byte[(int) Math.min(BUFFER_SIZE, Math.max(getRangeLength(), 1))];
+        openReplacements();
+        try {
+            for (int i = 0; i < matchesCount; i++) {
+                if (originalData != null) {
+                    originalData.insert(originalData.getDataSize(), contentData, matchPositions[i], matchLengths[i]);
+                }
+                long offset = 0;
+                while (offset < matchLengths[i]) {
+                    int blockLength = (int) Math.min(matchLengths[i] - offset, buffer.length);
+                    readReplacement(i, offset, buffer, 0, blockLength);
+                    contentData.replace(matchPositions[i] + offset, buffer, 0, blockLength);
+                    offset += blockLength;
+                }
+            }
+        } finally {
+            closeReplacements();
+        }
+    }
+
+    private boolean isLengthPreserved() {
+        for (int i = 0; i < matchPositions.length; i++) {
+            if (getReplacementLength(i) != matchLengths[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private long getLengthShift() {
+        long shift = 0;
+        for (int i = 0; i < matchPositions.length; i++) {
+            shift += getReplacementLength(i) - matchLengths[i];
+        }
+        return shift;
+    }
+
+    private void checkMatches(long dataSize) {
+        long lastMatchEnd = 0;
+        for (int i = 0; i < matchPositions.length; i++) {
+            if (matchPositions[i] < lastMatchEnd) {
+                throw new IllegalStateException("Matches are overlapping or not in ascending order");
+            }
+            lastMatchEnd = matchPositions[i] + matchLengths[i];
+        }
+        if (lastMatchEnd > dataSize) {
+            throw new IllegalStateException("Unable to replace data outside of document");
+        }
+    }
+
+    private void disposePrepared() {
+        if (preparedData != null) {
+            preparedData.dispose();
+            preparedData = null;
+        }
+        if (preparedOriginalData != null) {
+            preparedOriginalData.dispose();
+            preparedOriginalData = null;
+        }
+    }
+
+    @Override
+    public void dispose() {
+        disposePrepared();
+    }
+
+    /**
+     * Builder appending data to the end of target data.
+     */
+    @ParametersAreNonnullByDefault
+    private class DataBuilder {
+
+        private final BinaryData sourceData;
+        private final EditableBinaryData target;
+        private final byte[] buffer = new byte[BUFFER_SIZE];
+        private int bufferLength = 0;
+
+        public DataBuilder(BinaryData sourceData, EditableBinaryData target) {
+            this.sourceData = sourceData;
+            this.target = target;
+        }
+
+        public void appendSource(long position, long length) {
+            if (length < MERGED_RUN_LENGTH) {
+                while (length > 0) {
+                    int blockLength = reserveBlock(length);
+                    sourceData.copyToArray(position, buffer, bufferLength, blockLength);
+                    bufferLength += blockLength;
+                    position += blockLength;
+                    length -= blockLength;
+                }
+                return;
+            }
+
+            flush();
+            BinaryData run = sourceData.copy(position, length);
+            target.insert(target.getDataSize(), run);
+            run.dispose();
+        }
+
+        public void appendReplacement(int matchIndex, long length) throws IOException {
+            long offset = 0;
+            while (offset < length) {
+                int blockLength = reserveBlock(length - offset);
+                readReplacement(matchIndex, offset, buffer, bufferLength, blockLength);
+                bufferLength += blockLength;
+                offset += blockLength;
+            }
+        }
+
+        public void flush() {
+            if (bufferLength > 0) {
+                target.insert(target.getDataSize(), buffer, 0, bufferLength);
+                bufferLength = 0;
+            }
+        }
+
+        private int reserveBlock(long length) {
+            if (bufferLength == buffer.length) {
+                flush();
+            }
+            return (int) Math.min(length, buffer.length - bufferLength);
+        }
+    }
+}
@@ -0,0 +1,103 @@
+/*
+ * Copyright (C) ExBin Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.exbin.framework.bined.search.operation;
+
+import java.io.DataInputStream;
+import java.io.IOException;
+import javax.annotation.Nonnull;
+import javax.annotation.ParametersAreNonnullByDefault;
+import org.exbin.auxiliary.binary_data.BinaryData;
+import org.exbin.bined.operation.BinaryDataUndoableOperation;
+import org.exbin.framework.bined.UndoDataStorage;
+
+/**
+ * Operation restoring original data of matches replaced by replace all
+ * operation.
+ *
+ * @author ExBin Project (https://exbin.org)
+ */
+@ParametersAreNonnullByDefault
+public class RestoreMatchesDataOperation extends ReplaceMatchesOperation {
+
+    protected final UndoDataStorage.StoredData storedData;
+    protected final long[] originalLengths;
+    protected final BinaryData replacementData;
+    private DataInputStream input = null;
+
+    /**
+     * Creates operation.
+     *
+     * @param replacedPositions positions of replacements
+     * @param replacedLengths lengths of replacements
+     * @param storedData original data of all matches in order
+     * @param originalLengths lengths of original matches
+     * @param replacementData data matches were replaced with
+     */
+    public RestoreMatchesDataOperation(long[] replacedPositions, long[] replacedLengths, UndoDataStorage.StoredData storedData, long[] originalLengths, BinaryData replacementData) {
+        super(replacedPositions, replacedLengths);
+        this.storedData = storedData;
+        this.originalLengths = originalLengths;
+        this.replacementData = replacementData;
+    }
+
+    /**
+     * Returns true if original data are still available.
+     *
+     * @return true if data can be restored
+     */
+    public boolean isRestorable() {
+        return storedData.isAvailable();
+    }
+
+    @Override
+    protected long getReplacementLength(int matchIndex) {
+        return originalLengths[matchIndex];
+    }
+
+    @Override
+    protected void openReplacements() throws IOException {
+        input = new DataInputStream(storedData.openInputStream());
+    }
+
+    @Override
+    protected void readReplacement(int matchIndex, long offset, byte[] target, int targetOffset, int length) throws IOException {
+        input.readFully(target, targetOffset, length);
+    }
+
+    @Override
+    protected void closeReplacements() {
+        if (input != null) {
+            try {
+                input.close();
+            } catch (IOException ex) {
+                // Stream of stored data only releases its file
+            }
+            input = null;
+        }
+    }
+
+    @Nonnull
+    @Override
+    protected BinaryDataUndoableOperation createUndoOperation(BinaryData contentData, long[] replacedPositions, long[] replacedLengths, BinaryData originalData) {
+        return new ReplaceAllDataOperation(replacedPositions, replacedLengths, replacementData, storedData.getStorage());
+    }
+
+    @Override
+    public void dispose() {
+        super.dispose();
+        storedData.dispose();
+    }
+}
@@ -16,7 +16,9 @@
 package org.exbin.framework.bined.search.service;
 
 import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
 import javax.annotation.ParametersAreNonnullByDefault;
+import org.exbin.framework.bined.ChangedDataRange;
 import org.exbin.framework.bined.search.ReplaceParameters;
 import org.exbin.framework.bined.search.SearchParameters;
 
@@ -28,19 +30,99 @@ import org.exbin.framework.bined.search.SearchParameters;
 @ParametersAreNonnullByDefault
 public interface BinarySearchService {
 
-    void performFind(SearchParameters dialogSearchParameters, SearchStatusListener searchStatusListener);
+    /**
+     * Performs search.
+     *
+     * @param dialogSearchParameters search parameters
+     * @param searchStatusListener search status listener
+     * @param cancellationToken token checked for cancellation while searching
+     */
+    void performFind(SearchParameters dialogSearchParameters, SearchStatusListener searchStatusListener, SearchCancellationToken cancellationToken);
 
     void setMatchIndex(int matchIndex);
 
-    void performFindAgain(SearchStatusListener searchStatusListener);
+    void performFindAgain(SearchStatusListener searchStatusListener, SearchCancellationToken cancellationToken);
+
+    /**
+     * Records change of data for update of matches of the last search.
+     *
+     * @param changedRange range reported by command or null if not known
+     */
+    void notifyDataChanged(@Nullable ChangedDataRange changedRange);
+
+    /**
+     * Updates matches of the last search after recorded data changes by
+     * searching only modified range and shifting matches after it.
+     *
+     * @param searchStatusListener search status listener
+     * @param cancellationToken token checked for cancellation while searching
+     * @return false if modified range is not known and full search is needed
+     */
+    boolean performUpdate(SearchStatusListener searchStatusListener, SearchCancellationToken cancellationToken);
 
     void performReplace(SearchParameters searchParameters, ReplaceParameters replaceParameters);
 
+    /**
+     * Replaces all matches in the whole document as single undoable command.
+     *
+     * @param searchParameters search parameters
+     * @param replaceParameters replace parameters
+     * @param searchStatusListener search status listener
+     * @param cancellationToken token checked for cancellation while searching
+     */
+    void performReplaceAll(SearchParameters searchParameters, ReplaceParameters replaceParameters, SearchStatusListener searchStatusListener, SearchCancellationToken cancellationToken);
+
     @Nonnull
     SearchParameters getLastSearchParameters();
 
     void clearMatches();
 
+    /**
+     * Returns true if search is performed in parallel on all available
+     * processors.
+     *
+     * @return true if parallel search is enabled
+     */
+    boolean isParallelSearch();
+
+    /**
+     * Sets whether search is performed in parallel on all available
+     * processors.
+     *
+     * @param parallelSearch true for parallel search
+     */
+    void setParallelSearch(boolean parallelSearch);
+
+    /**
+     * Returns true if n-gram index of large files is used to skip blocks
+     * which cannot contain match.
+     *
+     * @return true if indexed search is enabled
+     */
+    boolean isIndexedSearch();
+
+    /**
+     * Sets whether n-gram index of large files is built in background and
+     * used to skip blocks which cannot contain match.
+     *
+     * @param indexedSearch true for indexed search
+     */
+    void setIndexedSearch(boolean indexedSearch);
+
+    /**
+     * Returns heap memory held by found matches and loaded search index.
+     *
+     * @return memory usage in bytes
+     */
+    long getMemoryUsage();
+
+    /**
+     * Releases loaded search index, which is loaded again on next search.
+     *
+     * @return count of released bytes
+     */
+    long releaseSearchIndex();
+
     @ParametersAreNonnullByDefault
     public interface SearchStatusListener {
 
@@ -51,6 +133,13 @@ public interface BinarySearchService {
         void clearStatus();
 
         void setCancelled();
+
+        /**
+         * Reports search condition which cannot be searched for.
+         *
+         * @param description description of the error
+         */
+        void setPatternError(String description);
     }
 
     public static class FoundMatches {
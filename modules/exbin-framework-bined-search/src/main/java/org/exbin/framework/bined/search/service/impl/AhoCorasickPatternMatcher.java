@@ -0,0 +1,167 @@
+/*
+ * Copyright (C) ExBin Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.exbin.framework.bined.search.service.impl;
+
+import java.util.Arrays;
+import java.util.List;
+import javax.annotation.ParametersAreNonnullByDefault;
+
+/**
+ * Aho-Corasick matcher for multiple byte patterns.
+ *
+ * Automaton is compiled to dense transition table so that each byte of data
+ * is processed with single table lookup.
+ *
+ * @author ExBin Project (https://exbin.org)
+ */
+@ParametersAreNonnullByDefault
+public class AhoCorasickPatternMatcher implements PatternMatcher {
+
+    private static final int ALPHABET_SIZE = 256;
+    private static final int NO_STATE = -1;
+
+    private final int[] patternLengths;
+    private final int minPatternLength;
+    private final int maxPatternLength;
+    private final int[] transitions;
+    private final int[] outputPatterns;
+    private final int[] outputLinks;
+
+    public AhoCorasickPatternMatcher(List<byte[]> patterns) {
+        if (patterns.isEmpty()) {
+            throw new IllegalArgumentException("No pattern to search");
+        }
+
+        int patternsCount = patterns.size();
+        patternLengths = new int[patternsCount];
+        int minLength = Integer.MAX_VALUE;
+        int maxLength = 0;
+        int maxStates = 1;
+        for (int i = 0; i < patternsCount; i++) {
+            int length = patterns.get(i).length;
+            if (length == 0) {
+                throw new IllegalArgumentException("Empty pattern");
+            }
+            patternLengths[i] = length;
+            minLength = Math.min(minLength, length);
+            maxLength = Math.max(maxLength, length);
+            maxStates += length;
+        }
+        minPatternLength = minLength;
+        maxPatternLength = maxLength;
+
+        int[] trie = new int[maxStates * ALPHABET_SIZE];
+        Arrays.fill(trie, NO_STATE);
+        int[] outputs = new int[maxStates];
+        Arrays.fill(outputs, NO_STATE);
+        int statesCount = 1;
+        for (int i = 0; i < patternsCount; i++) {
+            int state = 0;
+            for (byte value : patterns.get(i)) {
+                int index = state * ALPHABET_SIZE + (value & 0xff);
+                if (trie[index] == NO_STATE) {
+                    trie[index] = statesCount++;
+                }
+                state = trie[index];
+            }
+            if (outputs[state] == NO_STATE) {
+                outputs[state] = i;
+            }
+        }
+
+        transitions = Arrays.copyOf(trie, statesCount * ALPHABET_SIZE);
+        outputPatterns = Arrays.copyOf(outputs, statesCount);
+        outputLinks = new int[statesCount];
+        Arrays.fill(outputLinks, NO_STATE);
+
+        // Breadth-first pass converts trie to automaton using failure links
+        int[] failures = new int[statesCount];
+        int[] queue = new int[statesCount];
+        int queueHead = 0;
+        int queueTail = 0;
+        for (int value = 0; value < ALPHABET_SIZE; value++) {
+            int child = transitions[value];
+            if (child == NO_STATE) {
+                transitions[value] = 0;
+            } else {
+                failures[child] = 0;
+                queue[queueTail++] = child;
+            }
+        }
+
+        while (queueHead < queueTail) {
+            int state = queue[queueHead++];
+            int failureBase = failures[state] * ALPHABET_SIZE;
+            int stateBase = state * ALPHABET_SIZE;
+            for (int value = 0; value < ALPHABET_SIZE; value++) {
+                int child = transitions[stateBase + value];
+                if (child == NO_STATE) {
+                    transitions[stateBase + value] = transitions[failureBase + value];
+                } else {
+                    int failure = transitions[failureBase + value];
+                    failures[child] = failure;
+                    outputLinks[child] = outputPatterns[failure] != NO_STATE ? failure : outputLinks[failure];
+                    queue[queueTail++] = child;
+                }
+            }
+        }
+    }
+
+    @Override
+    public int getPatternsCount() {
+        return patternLengths.length;
+    }
+
+    @Override
+    public int getPatternLength(int patternIndex) {
+        return patternLengths[patternIndex];
+    }
+
+    @Override
+    public int getMinPatternLength() {
+        return minPatternLength;
+    }
+
+    @Override
+    public int getMaxPatternLength() {
+        return maxPatternLength;
+    }
+
+    @Override
+    public boolean isOrdered() {
+        return minPatternLength == maxPatternLength;
+    }
+
+    @Override
+    public boolean findMatches(byte[] buffer, int length, int startsLimit, MatchCollector collector) {
+        int scanLimit = Math.min(length, startsLimit + maxPatternLength - 1);
+        int state = 0;
+        for (int offset = 0; offset < scanLimit; offset++) {
+            state = transitions[state * ALPHABET_SIZE + (buffer[offset] & 0xff)];
+            int outputState = outputPatterns[state] != NO_STATE ? state : outputLinks[state];
+            while (outputState != NO_STATE) {
+                int patternIndex = outputPatterns[outputState];
+                int start = offset - patternLengths[patternIndex] + 1;
+                if (start < startsLimit && !collector.matchFound(start, patternIndex)) {
+                    return false;
+                }
+                outputState = outputLinks[outputState];
+            }
+        }
+
+        return true;
+    }
+}
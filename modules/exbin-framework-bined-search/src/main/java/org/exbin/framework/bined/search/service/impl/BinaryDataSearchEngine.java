@@ -0,0 +1,274 @@
+/*
+ * Copyright (C) ExBin Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.exbin.framework.bined.search.service.impl;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import javax.annotation.Nonnull;
+import javax.annotation.ParametersAreNonnullByDefault;
+import org.exbin.auxiliary.binary_data.BinaryData;
+
+/**
+ * Search engine processing binary data in large blocks.
+ *
+ * Data are copied to buffer block by block, each block extended by maximal
+ * pattern length - 1 bytes so that matches crossing block boundary are found
+ * too. Match is always reported for the block in which it starts.
+ *
+ * @author ExBin Project (https://exbin.org)
+ */
+@ParametersAreNonnullByDefault
+public class BinaryDataSearchEngine {
+
+    public static final int DEFAULT_BLOCK_SIZE = 1024 * 1024;
+
+    private final PatternMatcher matcher;
+    private final int blockSize;
+
+    public BinaryDataSearchEngine(PatternMatcher matcher) {
+        this(matcher, DEFAULT_BLOCK_SIZE);
+    }
+
+    public BinaryDataSearchEngine(PatternMatcher matcher, int blockSize) {
+        if (blockSize <= 0) {
+            throw new IllegalArgumentException("Block size must be positive");
+        }
+
+        this.matcher = matcher;
+        this.blockSize = blockSize;
+    }
+
+    /**
+     * Creates matcher suitable for given patterns.
+     *
+     * @param patterns patterns
+     * @return pattern matcher
+     */
+    @Nonnull
+    public static PatternMatcher createMatcher(List<byte[]> patterns) {
+        if (patterns.size() == 1) {
+            return new HorspoolPatternMatcher(patterns.get(0));
+        }
+
+        return new AhoCorasickPatternMatcher(patterns);
+    }
+
+    @Nonnull
+    public static PatternMatcher createMatcher(byte[] pattern) {
+        return createMatcher(Collections.singletonList(pattern));
+    }
+
+    @Nonnull
+    public PatternMatcher getMatcher() {
+        return matcher;
+    }
+
+    public int getBlockSize() {
+        return blockSize;
+    }
+
+    /**
+     * Searches for matches starting in given range in ascending order.
+     *
+     * @param data data to search in
+     * @param rangeStart first allowed match start position
+     * @param rangeEnd end of allowed match start positions (exclusive)
+     * @param listener search listener
+     * @return true if whole range was processed, false if stopped by listener
+     */
+    public boolean searchForward(BinaryData data, long rangeStart, long rangeEnd, SearchListener listener) {
+        long dataSize = data.getDataSize();
+        rangeEnd = Math.min(rangeEnd, dataSize - matcher.getMinPatternLength() + 1);
+        if (rangeStart < 0) {
+            rangeStart = 0;
+        }
+        if (rangeStart >= rangeEnd) {
+            return true;
+        }
+
+        byte[] buffer = new byte[blockSize + matcher.getMaxPatternLength() - 1];
+        BlockMatches blockMatches = new BlockMatches();
+        long blockStart = rangeStart;
+        while (blockStart < rangeEnd) {
+            int ownLength = (int) Math.min(blockSize, rangeEnd - blockStart);
+            if (!searchBlock(data, dataSize, blockStart, ownLength, buffer, blockMatches, listener, true)) {
+                return false;
+            }
+
+            blockStart += ownLength;
+            if (!listener.blockProcessed(blockStart)) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    /**
+     * Searches for matches starting in given range in descending order.
+     *
+     * @param data data to search in
+     * @param rangeStart first allowed match start position
+     * @param rangeEnd end of allowed match start positions (exclusive)
+     * @param listener search listener
+     * @return true if whole range was processed, false if stopped by listener
+     */
+    public boolean searchBackward(BinaryData data, long rangeStart, long rangeEnd, SearchListener listener) {
+        long dataSize = data.getDataSize();
+        rangeEnd = Math.min(rangeEnd, dataSize - matcher.getMinPatternLength() + 1);
+        if (rangeStart < 0) {
+            rangeStart = 0;
+        }
+        if (rangeStart >= rangeEnd) {
+            return true;
+        }
+
+        byte[] buffer = new byte[blockSize + matcher.getMaxPatternLength() - 1];
+        BlockMatches blockMatches = new BlockMatches();
+        long blockEnd = rangeEnd;
+        while (blockEnd > rangeStart) {
+            int ownLength = (int) Math.min(blockSize, blockEnd - rangeStart);
+            long blockStart = blockEnd - ownLength;
+            if (!searchBlock(data, dataSize, blockStart, ownLength, buffer, blockMatches, listener, false)) {
+                return false;
+            }
+
+            blockEnd = blockStart;
+            if (!listener.blockProcessed(blockStart)) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    private boolean searchBlock(BinaryData data, long dataSize, long blockStart, int ownLength, byte[] buffer, BlockMatches blockMatches, SearchListener listener, boolean forward) {
+        int readLength = (int) Math.min(ownLength + matcher.getMaxPatternLength() - 1, dataSize - blockStart);
+        data.copyToArray(blockStart, buffer, 0, readLength);
+
+        if (forward && matcher.isOrdered()) {
+            return matcher.findMatches(buffer, readLength, ownLength, (offset, patternIndex) -> listener.matchFound(blockStart + offset, patternIndex));
+        }
+
+        blockMatches.collect(matcher, buffer, readLength, ownLength);
+        return blockMatches.deliver(blockStart, forward, listener);
+    }
+
+    /**
+     * Listener for search engine.
+     */
+    public interface SearchListener {
+
+        /**
+         * Reports found match.
+         *
+         * @param position match position
+         * @param patternIndex index of matched pattern
+         * @return true to continue search
+         */
+        boolean matchFound(long position, int patternIndex);
+
+        /**
+         * Reports processing of block of data.
+         *
+         * @param position position up to which the data were processed
+         * @return true to continue search
+         */
+        boolean blockProcessed(long position);
+    }
+
+    /**
+     * Matches found in single block packed as offset and pattern index pairs.
+     */
+    static class BlockMatches implements PatternMatcher.MatchCollector {
+
+        private static final int INITIAL_CAPACITY = 64;
+
+        private long[] matches = new long[INITIAL_CAPACITY];
+        private int size = 0;
+
+        @Override
+        public boolean matchFound(int offset, int patternIndex) {
+            if (size == matches.length) {
+                matches = Arrays.copyOf(matches, matches.length * 2);
+            }
+            matches[size++] = ((long) offset << 32) | patternIndex;
+            return true;
+        }
+
+        /**
+         * Collects all matches in given buffer ordered by offset.
+         *
+         * @param matcher pattern matcher
+         * @param buffer data buffer
+         * @param length length of valid data in buffer
+         * @param startsLimit limit for match start offsets
+         */
+        public void collect(PatternMatcher matcher, byte[] buffer, int length, int startsLimit) {
+            size = 0;
+            matcher.findMatches(buffer, length, startsLimit, this);
+            if (!matcher.isOrdered()) {
+                sort();
+            }
+        }
+
+        /**
+         * Passes collected matches to listener.
+         *
+         * @param blockStart position of the block
+         * @param forward true for ascending order
+         * @param listener search listener
+         * @return false if stopped by listener
+         */
+        public boolean deliver(long blockStart, boolean forward, SearchListener listener) {
+            for (int i = 0; i < size; i++) {
+                int index = forward ? i : size - 1 - i;
+                if (!listener.matchFound(blockStart + getOffset(index), getPatternIndex(index))) {
+                    return false;
+                }
+            }
+
+            return true;
+        }
+
+        public int size() {
+            return size;
+        }
+
+        public int getOffset(int index) {
+            return (int) (matches[index] >> 32);
+        }
+
+        public int getPatternIndex(int index) {
+            return (int) matches[index];
+        }
+
+        /**
+         * Sorts matches by offset and keeps only single match for each offset.
+         */
+        private void sort() {
+            Arrays.sort(matches, 0, size);
+            int targetIndex = 0;
+            for (int i = 0; i < size; i++) {
+                if (targetIndex == 0 || getOffset(targetIndex - 1) != getOffset(i)) {
+                    matches[targetIndex++] = matches[i];
+                }
+            }
+            size = targetIndex;
+        }
+    }
+}
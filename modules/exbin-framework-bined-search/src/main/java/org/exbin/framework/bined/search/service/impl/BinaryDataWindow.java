@@ -0,0 +1,92 @@
+/*
+ * Copyright (C) ExBin Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.exbin.framework.bined.search.service.impl;
+
+import javax.annotation.ParametersAreNonnullByDefault;
+import org.exbin.auxiliary.binary_data.BinaryData;
+
+/**
+ * Window buffer for sequential byte access to binary data.
+ *
+ * Data are copied to buffer in blocks, so that single byte access doesn't go
+ * through binary data implementation for each byte.
+ *
+ * @author ExBin Project (https://exbin.org)
+ */
+@ParametersAreNonnullByDefault
+public class BinaryDataWindow {
+
+    public static final int DEFAULT_WINDOW_SIZE = 1024 * 1024;
+    private static final int BACKWARD_MARGIN = 4096;
+
+    private final BinaryData data;
+    private final long dataSize;
+    private final boolean forward;
+    private final byte[] buffer;
+    private long windowStart = 0;
+    private int windowLength = 0;
+
+    /**
+     * Creates window buffer.
+     *
+     * @param data binary data
+     * @param forward true if data are accessed mostly in ascending order
+     */
+    public BinaryDataWindow(BinaryData data, boolean forward) {
+        this(data, forward, DEFAULT_WINDOW_SIZE);
+    }
+
+    public BinaryDataWindow(BinaryData data, boolean forward, int windowSize) {
+        this.data = data;
+        this.forward = forward;
+        dataSize = data.getDataSize();
+        buffer = new byte[(int) Math.min(windowSize, Math.max(dataSize, 1))];
+    }
+
+    public long getDataSize() {
+        return dataSize;
+    }
+
+    /**
+     * Returns unsigned byte value at given position.
+     *
+     * @param position position
+     * @return byte value in range 0 - 255 or -1 if position is out of data
+     */
+    public int getByte(long position) {
+        if (position < 0 || position >= dataSize) {
+            return -1;
+        }
+
+        if (position < windowStart || position >= windowStart + windowLength) {
+            loadWindow(position);
+        }
+
+        return buffer[(int) (position - windowStart)] & 0xff;
+    }
+
+    private void loadWindow(long position) {
+        if (forward) {
+            windowStart = position;
+        } else {
+            // Keep small margin after position for anchored matching
+            long windowEnd = Math.min(position + Math.min(BACKWARD_MARGIN, buffer.length / 2) + 1, dataSize);
+            windowStart = Math.max(windowEnd - buffer.length, 0);
+        }
+        windowLength = (int) Math.min(buffer.length, dataSize - windowStart);
+        data.copyToArray(windowStart, buffer, 0, windowLength);
+    }
+}
@@ -15,32 +15,41 @@
  */
 package org.exbin.framework.bined.search.service.impl;
 
+import java.awt.Color;
 import java.nio.charset.Charset;
-import java.nio.charset.CharsetEncoder;
-import java.io.InputStream;
-import java.io.IOException;
-import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
 import java.util.Objects;
-import java.util.regex.Pattern;
-import java.util.Scanner;
-import java.util.regex.MatchResult;
-import java.util.regex.Matcher;
+import java.util.Optional;
+import java.util.regex.PatternSyntaxException;
 import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
 import javax.annotation.ParametersAreNonnullByDefault;
+import javax.swing.SwingUtilities;
 import org.exbin.bined.swing.section.SectCodeArea;
+import org.exbin.framework.App;
+import org.exbin.framework.bined.BackgroundConversion;
+import org.exbin.framework.bined.BinEdCodeAreaAssessor;
+import org.exbin.framework.bined.BinEdFileHandler;
+import org.exbin.framework.bined.BinedModule;
+import org.exbin.framework.bined.ChangedDataRange;
 import org.exbin.framework.bined.search.ReplaceParameters;
 import org.exbin.framework.bined.search.SearchCondition;
 import org.exbin.framework.bined.search.SearchParameters;
+import org.exbin.framework.bined.search.command.ReplaceAllCommand;
+import org.exbin.framework.bined.search.operation.ReplaceAllDataOperation;
 import org.exbin.framework.bined.search.service.BinarySearchService;
+import org.exbin.framework.bined.search.service.SearchCancellationToken;
 import org.exbin.auxiliary.binary_data.BinaryData;
-import org.exbin.auxiliary.binary_data.BinaryDataInputStream;
-import org.exbin.auxiliary.binary_data.EditableBinaryData;
-import org.exbin.bined.CharsetStreamTranslator;
+import org.exbin.auxiliary.binary_data.array.ByteArrayEditableData;
+import org.exbin.bined.CodeAreaSection;
 import org.exbin.bined.CodeAreaUtils;
 import org.exbin.bined.highlight.swing.SearchCodeAreaColorAssessor;
-import org.exbin.bined.highlight.swing.SearchMatch;
+import org.exbin.bined.operation.swing.CodeAreaOperationCommandHandler;
+import org.exbin.bined.swing.CodeAreaColorAssessor;
+import org.exbin.bined.swing.CodeAreaCommandHandler;
+import org.exbin.bined.swing.CodeAreaPaintState;
 import org.exbin.bined.swing.CodeAreaSwingUtils;
 import org.exbin.bined.swing.capability.ColorAssessorPainterCapable;
 
@@ -52,21 +61,54 @@ import org.exbin.bined.swing.capability.ColorAssessorPainterCapable;
 @ParametersAreNonnullByDefault
 public class BinarySearchServiceImpl implements BinarySearchService {
 
-    private static final int MAX_MATCHES_COUNT = 100;
+    private static final long PARALLEL_SEARCH_THRESHOLD = 8L * BinaryDataSearchEngine.DEFAULT_BLOCK_SIZE;
+    private static final int MATCHES_WINDOW_SIZE = 4096;
+    private static final int MATCHES_WINDOW_MARGIN = 256;
+    private static final int MAX_TEXT_VARIANTS = 256;
+    private static final long PUBLISH_INTERVAL = 250;
+    private static final long BACKGROUND_REPLACE_THRESHOLD = 4 * 1024 * 1024;
     private final SectCodeArea codeArea;
     private final SearchParameters lastSearchParameters = new SearchParameters();
+    private boolean parallelSearch = Runtime.getRuntime().availableProcessors() > 1;
+    private boolean indexedSearch = true;
+    private final SearchIndexManager searchIndexManager = new SearchIndexManager();
+    private PatternMatcher lastMatcher = null;
+    private long searchedRangeStart = 0;
+    private long searchedRangeEnd = Long.MAX_VALUE;
+    private ChangedDataRange pendingChange = null;
+    private boolean matchesOutdated = false;
+    private int dataChangeCount = 0;
+    private CompactSearchMatches foundMatches = new CompactSearchMatches();
+    private int currentMatchIndex = -1;
+    private int matchesWindowStart = 0;
+    private int matchesWindowEnd = 0;
+    private volatile long windowCoverageStart = 0;
+    private volatile long windowCoverageEnd = Long.MAX_VALUE;
 
     public BinarySearchServiceImpl(SectCodeArea codeArea) {
         this.codeArea = codeArea;
+        BinEdCodeAreaAssessor codeAreaAssessor = CodeAreaSwingUtils.findColorAssessor((ColorAssessorPainterCapable) codeArea.getPainter(), BinEdCodeAreaAssessor.class);
+        if (codeAreaAssessor != null) {
+            codeAreaAssessor.addPriorityColorModifier(new VisibleRangeTracker());
+        }
     }
 
     @Override
-    public void performFind(SearchParameters searchParameters, SearchStatusListener searchStatusListener) {
-        SearchCodeAreaColorAssessor searchAssessor = CodeAreaSwingUtils.findColorAssessor((ColorAssessorPainterCapable) codeArea.getPainter(), SearchCodeAreaColorAssessor.class);
+    public void performFind(SearchParameters searchParameters, SearchStatusListener searchStatusListener, SearchCancellationToken cancellationToken) {
+        Optional<BinEdFileHandler> fileHandler = findFileHandler();
+        fileHandler.ifPresent(BinEdFileHandler::startReading);
+        try {
+            find(searchParameters, searchStatusListener, cancellationToken);
+        } finally {
+            fileHandler.ifPresent(BinEdFileHandler::finishReading);
+        }
+    }
+
+    private void find(SearchParameters searchParameters, SearchStatusListener searchStatusListener, SearchCancellationToken cancellationToken) {
         SearchCondition condition = searchParameters.getCondition();
         searchStatusListener.clearStatus();
         if (condition.isEmpty()) {
-            searchAssessor.clearMatches();
+            clearMatches();
             codeArea.repaint();
             return;
         }
@@ -92,7 +134,8 @@ public class BinarySearchServiceImpl implements BinarySearchService {
                             break;
                         }
                         case REGEX: {
-                            throw new UnsupportedOperationException("Not supported yet.");
+                            searchDataSize = 1;
+                            break;
                         }
                         case BINARY: {
                             searchDataSize = condition.getBinaryData().getDataSize();
@@ -112,13 +155,13 @@ public class BinarySearchServiceImpl implements BinarySearchService {
 
         switch (condition.getSearchMode()) {
             case TEXT:
-                searchForText(searchParameters, searchStatusListener);
+                searchForText(searchParameters, searchStatusListener, cancellationToken);
                 break;
             case REGEX:
-                searchRegEx(searchParameters, searchStatusListener);
+                searchRegEx(searchParameters, searchStatusListener, cancellationToken);
                 break;
             case BINARY:
-                searchForBinaryData(searchParameters, searchStatusListener);
+                searchForBinaryData(searchParameters, searchStatusListener, cancellationToken);
                 break;
             default:
                 throw CodeAreaUtils.getInvalidTypeException(condition.getSearchMode());
@@ -128,8 +171,7 @@ public class BinarySearchServiceImpl implements BinarySearchService {
     /**
      * Performs search by binary data.
      */
-    private void searchForBinaryData(SearchParameters searchParameters, SearchStatusListener searchStatusListener) {
-        SearchCodeAreaColorAssessor searchAssessor = CodeAreaSwingUtils.findColorAssessor((ColorAssessorPainterCapable) codeArea.getPainter(), SearchCodeAreaColorAssessor.class);
+    private void searchForBinaryData(SearchParameters searchParameters, SearchStatusListener searchStatusListener, SearchCancellationToken cancellationToken) {
         SearchCondition condition = searchParameters.getCondition();
         long position = searchParameters.getStartPosition();
 
@@ -137,290 +179,289 @@ public class BinarySearchServiceImpl implements BinarySearchService {
         if (searchData == null) {
             throw new IllegalStateException("Missing data to search");
         }
-        long searchDataSize = searchData.getDataSize();
+        byte[] pattern = new byte[(int) searchData.getDataSize()];
+        searchData.copyToArray(0, pattern, 0, pattern.length);
         BinaryData data = codeArea.getContentData();
 
-        List<SearchMatch> foundMatches = new ArrayList<>();
-
-        long dataSize = data.getDataSize();
-        int lastProgressState = -1;
-        while (position >= 0 && position <= dataSize - searchDataSize) {
-            if (Thread.interrupted()) {
-                searchStatusListener.setCancelled();
-                return;
-            }
+        BinaryDataSearchEngine searchEngine = new BinaryDataSearchEngine(BinaryDataSearchEngine.createMatcher(pattern));
+        MatchesCollector matchesCollector = new MatchesCollector(searchEngine.getMatcher(), searchParameters, data.getDataSize(), searchStatusListener, cancellationToken);
+        runSearchEngine(searchEngine, Collections.singletonList(pattern), data, position, searchParameters.getSearchDirection(), matchesCollector);
+        finishSearch(matchesCollector);
+    }
 
-            int matchLength = 0;
-            while (matchLength < searchDataSize) {
-                if (Thread.interrupted()) {
-                    searchStatusListener.setCancelled();
-                    return;
-                }
+    /**
+     * Runs search engine from given position in given direction, in parallel
+     * if enabled and data are large enough, and only in candidate ranges if
+     * search index is available.
+     */
+    private void runSearchEngine(BinaryDataSearchEngine searchEngine, List<byte[]> patterns, BinaryData data, long position, SearchParameters.SearchDirection direction, BinaryDataSearchEngine.SearchListener listener) {
+        boolean backward = direction == SearchParameters.SearchDirection.BACKWARD;
+        long rangeStart = backward ? 0 : position;
+        long rangeEnd = backward ? position + 1 : data.getDataSize();
+        List<long[]> candidateRanges = indexedSearch ? searchIndexManager.computeCandidateRanges(data, patterns) : null;
+        if (candidateRanges == null) {
+            runSearchEngine(searchEngine, data, rangeStart, rangeEnd, backward, listener);
+            return;
+        }
 
-                if (data.getByte(position + matchLength) != searchData.getByte(matchLength)) {
-                    break;
-                }
-                matchLength++;
+        for (int i = 0; i < candidateRanges.size(); i++) {
+            long[] candidateRange = candidateRanges.get(backward ? candidateRanges.size() - 1 - i : i);
+            long candidateStart = Math.max(rangeStart, candidateRange[0]);
+            long candidateEnd = Math.min(rangeEnd, candidateRange[1]);
+            if (candidateStart < candidateEnd && !runSearchEngine(searchEngine, data, candidateStart, candidateEnd, backward, listener)) {
+                return;
             }
+        }
+    }
 
-            if (matchLength == searchDataSize) {
-                SearchMatch match = new SearchMatch();
-                match.setPosition(position);
-                match.setLength(searchDataSize);
-                if (searchParameters.getSearchDirection() == SearchParameters.SearchDirection.BACKWARD) {
-                    foundMatches.add(0, match);
-                } else {
-                    foundMatches.add(match);
-                }
-
-                if (foundMatches.size() == MAX_MATCHES_COUNT || searchParameters.getMatchMode() == SearchParameters.MatchMode.SINGLE) {
-                    break;
-                }
-            }
+    private boolean runSearchEngine(BinaryDataSearchEngine searchEngine, BinaryData data, long rangeStart, long rangeEnd, boolean backward, BinaryDataSearchEngine.SearchListener listener) {
+        if (parallelSearch && rangeEnd - rangeStart > PARALLEL_SEARCH_THRESHOLD) {
+            ParallelSearchEngine parallelSearchEngine = new ParallelSearchEngine(searchEngine);
+            return backward
+                    ? parallelSearchEngine.searchBackward(data, rangeStart, rangeEnd, listener)
+                    : parallelSearchEngine.searchForward(data, rangeStart, rangeEnd, listener);
+        }
 
-            int progressState;
-            switch (searchParameters.getSearchDirection()) {
-                case FORWARD: {
-                    position++;
-                    progressState = (int) (dataSize > Integer.MAX_VALUE ? position / (dataSize / 1000) : (position * 1000) / dataSize);
-                    break;
-                }
-                case BACKWARD: {
-                    position--;
-                    progressState = (int) (dataSize > Integer.MAX_VALUE ? (dataSize - position) / (dataSize / 1000) : ((dataSize - position) * 1000) / dataSize);
-                    break;
-                }
-                default:
-                    throw CodeAreaUtils.getInvalidTypeException(searchParameters.getSearchDirection());
-            }
+        return backward
+                ? searchEngine.searchBackward(data, rangeStart, rangeEnd, listener)
+                : searchEngine.searchForward(data, rangeStart, rangeEnd, listener);
+    }
 
-            if (progressState != lastProgressState) {
-                lastProgressState = progressState;
-                searchStatusListener.setProgress(progressState);
-            }
+    /**
+     * Publishes final matches or reports cancellation.
+     */
+    private void finishSearch(MatchesCollector matchesCollector) {
+        if (matchesCollector.isCancelled() || matchesCollector.cancellationToken.isCancelled()) {
+            // Matches of cancelled search must not replace matches of newer search
+            restoreReplacedMatches(matchesCollector);
+            matchesCollector.searchStatusListener.setCancelled();
+            return;
         }
 
-        if (Thread.interrupted()) {
-            searchStatusListener.setCancelled();
-            return;
+        lastSearchParameters.setFromParameters(matchesCollector.searchParameters);
+        synchronized (this) {
+            lastMatcher = matchesCollector.matcher;
+            setSearchedRange(matchesCollector.searchParameters, matchesCollector.matches);
+            pendingChange = null;
+            // Data changed while searching cannot be applied to found matches
+            matchesOutdated = matchesCollector.dataChangeCount != dataChangeCount;
         }
+        publishMatches(matchesCollector);
+    }
 
-        searchAssessor.setMatches(foundMatches);
-        if (!foundMatches.isEmpty()) {
-            if (searchParameters.getSearchDirection() == SearchParameters.SearchDirection.BACKWARD) {
-                searchAssessor.setCurrentMatchIndex(foundMatches.size() - 1);
+    /**
+     * Records range of positions examined by search for start of match.
+     */
+    private void setSearchedRange(SearchParameters searchParameters, CompactSearchMatches matches) {
+        boolean backward = searchParameters.getSearchDirection() == SearchParameters.SearchDirection.BACKWARD;
+        boolean fromCursor = searchParameters.isSearchFromCursor();
+        long startPosition = searchParameters.getStartPosition();
+        searchedRangeStart = backward || !fromCursor ? 0 : startPosition;
+        searchedRangeEnd = !backward || !fromCursor ? Long.MAX_VALUE : startPosition + 1;
+        if (searchParameters.getMatchMode() == SearchParameters.MatchMode.SINGLE && !matches.isEmpty()) {
+            // Search stopped on the first found match
+            long matchPosition = matches.getPosition(0);
+            if (backward) {
+                searchedRangeStart = matchPosition;
             } else {
-                searchAssessor.setCurrentMatchIndex(0);
+                searchedRangeEnd = matchPosition + 1;
             }
-            SearchMatch firstMatch = Objects.requireNonNull(searchAssessor.getCurrentMatch());
-            codeArea.revealPosition(firstMatch.getPosition(), 0, codeArea.getActiveSection());
         }
-        lastSearchParameters.setFromParameters(searchParameters);
-        searchStatusListener.setStatus(new FoundMatches(foundMatches.size(), foundMatches.isEmpty() ? -1 : searchAssessor.getCurrentMatchIndex()), searchParameters.getMatchMode());
-        codeArea.repaint();
     }
 
     /**
-     * Performs search by text/characters.
+     * Publishes partial matches of running search unless it was cancelled.
+     *
+     * Matches shown before the first publication are remembered, so that they
+     * can be restored if search is cancelled later.
      */
-    private void searchForText(SearchParameters searchParameters, SearchStatusListener searchStatusListener) {
-        SearchCodeAreaColorAssessor searchAssessor = CodeAreaSwingUtils.findColorAssessor((ColorAssessorPainterCapable) codeArea.getPainter(), SearchCodeAreaColorAssessor.class);
-        SearchCondition condition = searchParameters.getCondition();
-
-        long position = searchParameters.getStartPosition();
-        String findText;
-        if (searchParameters.isMatchCase()) {
-            findText = condition.getSearchText();
-        } else {
-            findText = condition.getSearchText().toLowerCase();
+    private synchronized void publishPartialMatches(MatchesCollector matchesCollector) {
+        if (matchesCollector.cancellationToken.isCancelled()) {
+            return;
         }
-        long searchDataSize = findText.length();
-        BinaryData data = codeArea.getContentData();
-
-        List<SearchMatch> foundMatches = new ArrayList<>();
-
-        Charset charset = codeArea.getCharset();
-        int maxBytesPerChar;
-        try {
-            CharsetEncoder encoder = charset.newEncoder();
-            maxBytesPerChar = (int) encoder.maxBytesPerChar();
-        } catch (UnsupportedOperationException ex) {
-            maxBytesPerChar = CharsetStreamTranslator.DEFAULT_MAX_BYTES_PER_CHAR;
-        }
-        byte[] charData = new byte[maxBytesPerChar];
-        long dataSize = data.getDataSize();
-        long lastPosition = position;
-        int lastProgressState = -1;
-        while (position >= 0 && position <= dataSize - searchDataSize) {
-            int matchCharLength = 0;
-            int matchLength = 0;
-            while (matchCharLength < searchDataSize) {
-                if (Thread.interrupted()) {
-                    searchStatusListener.setCancelled();
-                    return;
-                }
 
-                long searchPosition = position + matchLength;
-                int bytesToUse = maxBytesPerChar;
-                if (searchPosition + bytesToUse > dataSize) {
-                    bytesToUse = (int) (dataSize - searchPosition);
-                }
-
-                if (searchPosition == lastPosition + 1) {
-                    System.arraycopy(charData, 1, charData, 0, maxBytesPerChar - 1);
-                    charData[bytesToUse - 1] = data.getByte(searchPosition + bytesToUse - 1);
-                } else if (searchPosition == lastPosition - 1) {
-                    System.arraycopy(charData, 0, charData, 1, maxBytesPerChar - 1);
-                    charData[0] = data.getByte(searchPosition);
-                } else {
-                    data.copyToArray(searchPosition, charData, 0, bytesToUse);
-                }
-                if (bytesToUse < maxBytesPerChar) {
-                    Arrays.fill(charData, bytesToUse, maxBytesPerChar, (byte) 0);
-                }
-                lastPosition = searchPosition;
-                char singleChar = new String(charData, charset).charAt(0);
+        if (foundMatches != matchesCollector.matches) {
+            matchesCollector.replacedMatches = foundMatches;
+            matchesCollector.replacedMatchIndex = currentMatchIndex;
+        }
+        publishMatches(matchesCollector);
+    }
 
-                if (searchParameters.isMatchCase()) {
-                    if (singleChar != findText.charAt(matchCharLength)) {
-                        break;
-                    }
-                } else if (Character.toLowerCase(singleChar) != findText.charAt(matchCharLength)) {
-                    break;
-                }
-                int characterLength = String.valueOf(singleChar).getBytes(charset).length;
-                matchCharLength++;
-                matchLength += characterLength;
-            }
+    /**
+     * Restores matches replaced by partial matches of cancelled search.
+     */
+    private synchronized void restoreReplacedMatches(MatchesCollector matchesCollector) {
+        CompactSearchMatches replacedMatches = matchesCollector.replacedMatches;
+        if (replacedMatches == null || foundMatches != matchesCollector.matches) {
+            // Partial matches were not published or were already replaced
+            return;
+        }
 
-            if (matchCharLength == findText.length()) {
-                SearchMatch match = new SearchMatch();
-                match.setPosition(position);
-                match.setLength(matchLength);
-                if (searchParameters.getSearchDirection() == SearchParameters.SearchDirection.BACKWARD) {
-                    foundMatches.add(0, match);
-                } else {
-                    foundMatches.add(match);
-                }
+        foundMatches = replacedMatches;
+        currentMatchIndex = matchesCollector.replacedMatchIndex;
+        setMatchesWindow(Math.max(currentMatchIndex, 0));
+        codeArea.repaint();
+    }
 
-                if (foundMatches.size() == MAX_MATCHES_COUNT || searchParameters.getMatchMode() == SearchParameters.MatchMode.SINGLE) {
-                    break;
-                }
-            }
+    /**
+     * Publishes matches found so far to code area and reports search status.
+     */
+    private synchronized void publishMatches(MatchesCollector matchesCollector) {
+        CompactSearchMatches matches = matchesCollector.matches;
+        int matchesCount = matches.size();
+        int matchIndex = -1;
+        if (matchesCount > 0) {
+            matchIndex = matchesCollector.searchParameters.getSearchDirection() == SearchParameters.SearchDirection.BACKWARD ? matchesCount - 1 : 0;
+        }
+        boolean revealMatch = matchIndex >= 0 && (foundMatches != matches || currentMatchIndex == -1);
+        foundMatches = matches;
+        currentMatchIndex = matchIndex;
+        setMatchesWindow(Math.max(matchIndex, 0));
+        if (revealMatch) {
+            codeArea.revealPosition(matches.getPosition(matchIndex), 0, codeArea.getActiveSection());
+        }
+        matchesCollector.searchStatusListener.setStatus(new FoundMatches(matchesCount, matchIndex), matchesCollector.searchParameters.getMatchMode());
+        codeArea.repaint();
+    }
 
-            int progressState;
-            switch (searchParameters.getSearchDirection()) {
-                case FORWARD: {
-                    position++;
-                    progressState = (int) (dataSize > Integer.MAX_VALUE ? position / (dataSize / 1000) : (position * 1000) / dataSize);
-                    break;
-                }
-                case BACKWARD: {
-                    position--;
-                    progressState = (int) (dataSize > Integer.MAX_VALUE ? (dataSize - position) / (dataSize / 1000) : ((dataSize - position) * 1000) / dataSize);
-                    break;
-                }
-                default:
-                    throw CodeAreaUtils.getInvalidTypeException(searchParameters.getSearchDirection());
-            }
+    /**
+     * Materializes window of matches around given match index for painting.
+     */
+    private void setMatchesWindow(int focusIndex) {
+        setMatchesWindowStart(focusIndex - MATCHES_WINDOW_SIZE / 2);
+    }
 
-            if (progressState != lastProgressState) {
-                lastProgressState = progressState;
-                searchStatusListener.setProgress(progressState);
-            }
+    private void setMatchesWindowStart(int windowStart) {
+        SearchCodeAreaColorAssessor searchAssessor = CodeAreaSwingUtils.findColorAssessor((ColorAssessorPainterCapable) codeArea.getPainter(), SearchCodeAreaColorAssessor.class);
+        int matchesCount = foundMatches.size();
+        matchesWindowStart = Math.max(0, Math.min(windowStart, matchesCount - MATCHES_WINDOW_SIZE));
+        matchesWindowEnd = Math.min(matchesCount, matchesWindowStart + MATCHES_WINDOW_SIZE);
+        windowCoverageStart = matchesWindowStart == 0 ? 0 : foundMatches.getPosition(matchesWindowStart);
+        windowCoverageEnd = matchesWindowEnd == matchesCount ? Long.MAX_VALUE : foundMatches.getPosition(matchesWindowEnd - 1);
+        searchAssessor.setMatches(foundMatches.getMatches(matchesWindowStart, matchesWindowEnd));
+        if (currentMatchIndex >= matchesWindowStart && currentMatchIndex < matchesWindowEnd) {
+            searchAssessor.setCurrentMatchIndex(currentMatchIndex - matchesWindowStart);
         }
+    }
 
-        if (Thread.interrupted()) {
-            searchStatusListener.setCancelled();
+    /**
+     * Moves window of materialized matches to start shortly before given
+     * visible position.
+     */
+    private synchronized void updateMatchesWindow(long visiblePosition) {
+        int matchesCount = foundMatches.size();
+        if (matchesCount <= MATCHES_WINDOW_SIZE) {
             return;
         }
 
-        searchAssessor.setMatches(foundMatches);
-        if (!foundMatches.isEmpty()) {
-            if (searchParameters.getSearchDirection() == SearchParameters.SearchDirection.BACKWARD) {
-                searchAssessor.setCurrentMatchIndex(foundMatches.size() - 1);
-            } else {
-                searchAssessor.setCurrentMatchIndex(0);
-            }
-            SearchMatch firstMatch = searchAssessor.getCurrentMatch();
-            codeArea.revealPosition(firstMatch.getPosition(), 0, codeArea.getActiveSection());
+        int windowStart = Math.max(0, Math.min(foundMatches.findIndex(visiblePosition) - MATCHES_WINDOW_MARGIN, matchesCount - MATCHES_WINDOW_SIZE));
+        if (windowStart != matchesWindowStart) {
+            setMatchesWindowStart(windowStart);
+            codeArea.repaint();
         }
-        lastSearchParameters.setFromParameters(searchParameters);
-        searchStatusListener.setStatus(new FoundMatches(foundMatches.size(), foundMatches.isEmpty() ? -1 : searchAssessor.getCurrentMatchIndex()), searchParameters.getMatchMode());
-        codeArea.repaint();
     }
 
-    public void searchRegEx(SearchParameters searchParameters, SearchStatusListener searchStatusListener) {
-        // TODO: Rework to support multibyte encodings
-        SearchCodeAreaColorAssessor searchAssessor = CodeAreaSwingUtils.findColorAssessor((ColorAssessorPainterCapable) codeArea.getPainter(), SearchCodeAreaColorAssessor.class);
+    /**
+     * Performs search by text/characters.
+     */
+    private void searchForText(SearchParameters searchParameters, SearchStatusListener searchStatusListener, SearchCancellationToken cancellationToken) {
         SearchCondition condition = searchParameters.getCondition();
-        int flags = searchParameters.isMatchCase() ? 0 : Pattern.CASE_INSENSITIVE;
-        Pattern textPattern = Pattern.compile(condition.getSearchText(), flags | Pattern.DOTALL);
+        String findText = condition.getSearchText();
         long position = searchParameters.getStartPosition();
-
-        List<SearchMatch> foundMatches = new ArrayList<>();
+        BinaryData data = codeArea.getContentData();
         Charset charset = codeArea.getCharset();
-        BinaryData contentData = codeArea.getContentData();
-        try (InputStream stream = new BinaryDataInputStream(codeArea.getContentData(), position, contentData.getDataSize() - position); Scanner scanner = new Scanner(stream, charset.name())) {
-            while (scanner.findWithinHorizon(textPattern, 0) != null) {
-                if (Thread.interrupted()) {
-                    searchStatusListener.setCancelled();
-                    return;
-                }
-
-                MatchResult matchResult = scanner.match();
-                int matchPosition = matchResult.start();
-                int matchLength = (int) (matchResult.end() - matchPosition);
-                SearchMatch match = new SearchMatch();
-                match.setPosition(matchPosition);
-                match.setLength(matchLength);
-                if (searchParameters.getSearchDirection() == SearchParameters.SearchDirection.BACKWARD) {
-                    foundMatches.add(0, match);
-                } else {
-                    foundMatches.add(match);
-                }
 
-                if (foundMatches.size() == MAX_MATCHES_COUNT || searchParameters.getMatchMode() == SearchParameters.MatchMode.SINGLE) {
-                    break;
-                }
+        if (findText.isEmpty() || TextPatternEncoder.isStatefulEncoding(findText, charset)) {
+            MatchesCollector matchesCollector = new MatchesCollector(null, searchParameters, data.getDataSize(), searchStatusListener, cancellationToken);
+            CharsetTextMatcher textMatcher = new CharsetTextMatcher(findText, charset, searchParameters.isMatchCase());
+            if (searchParameters.getSearchDirection() == SearchParameters.SearchDirection.BACKWARD) {
+                textMatcher.searchBackward(data, position, matchesCollector);
+            } else {
+                textMatcher.searchForward(data, position, matchesCollector);
             }
-        } catch (IOException ex) {
-            // ignore
+            finishSearch(matchesCollector);
+            return;
         }
 
-        if (Thread.interrupted()) {
-            searchStatusListener.setCancelled();
+        List<byte[]> patterns = TextPatternEncoder.encodeVariants(findText, charset, searchParameters.isMatchCase(), MAX_TEXT_VARIANTS);
+        if (patterns == null) {
+            // Too many case variants, match characters as alternatives instead
+            MatchesCollector matchesCollector = new MatchesCollector(null, searchParameters, data.getDataSize(), searchStatusListener, cancellationToken);
+            runRegexMatcher(ByteRegexCompiler.compileLiteral(findText, charset, searchParameters.isMatchCase()), data, position, searchParameters.getSearchDirection(), matchesCollector);
+            finishSearch(matchesCollector);
             return;
         }
 
-        searchAssessor.setMatches(foundMatches);
-        if (!foundMatches.isEmpty()) {
-            if (searchParameters.getSearchDirection() == SearchParameters.SearchDirection.BACKWARD) {
-                searchAssessor.setCurrentMatchIndex(foundMatches.size() - 1);
-            } else {
-                searchAssessor.setCurrentMatchIndex(0);
+        BinaryDataSearchEngine searchEngine = new BinaryDataSearchEngine(BinaryDataSearchEngine.createMatcher(patterns));
+        MatchesCollector matchesCollector = new MatchesCollector(searchEngine.getMatcher(), searchParameters, data.getDataSize(), searchStatusListener, cancellationToken);
+        runSearchEngine(searchEngine, patterns, data, position, searchParameters.getSearchDirection(), matchesCollector);
+        finishSearch(matchesCollector);
+    }
+
+    public void searchRegEx(SearchParameters searchParameters, SearchStatusListener searchStatusListener, SearchCancellationToken cancellationToken) {
+        SearchCondition condition = searchParameters.getCondition();
+        long position = searchParameters.getStartPosition();
+        BinaryData contentData = codeArea.getContentData();
+        MatchesCollector matchesCollector = new MatchesCollector(null, searchParameters, contentData.getDataSize(), searchStatusListener, cancellationToken);
+        ByteRegexProgram program;
+        try {
+            program = ByteRegexCompiler.compile(condition.getSearchText(), codeArea.getCharset(), searchParameters.isMatchCase());
+        } catch (PatternSyntaxException ex) {
+            // Invalid expression must not be reported as no matches
+            clearMatches();
+            codeArea.repaint();
+            searchStatusListener.setPatternError(ex.getDescription());
+            return;
+        }
+
+        runRegexMatcher(program, contentData, position, searchParameters.getSearchDirection(), matchesCollector);
+        finishSearch(matchesCollector);
+    }
+
+    /**
+     * Runs regular expression program from given position in given direction.
+     */
+    private void runRegexMatcher(ByteRegexProgram program, BinaryData data, long position, SearchParameters.SearchDirection direction, ByteRegexMatcher.SearchListener listener) {
+        ByteRegexMatcher regexMatcher = new ByteRegexMatcher(program);
+        switch (direction) {
+            case FORWARD: {
+                regexMatcher.searchForward(data, position, listener);
+                break;
             }
-            SearchMatch firstMatch = searchAssessor.getCurrentMatch();
-            codeArea.revealPosition(firstMatch.getPosition(), 0, codeArea.getActiveSection());
+            case BACKWARD: {
+                regexMatcher.searchBackward(data, position, listener);
+                break;
+            }
+            default:
+                throw CodeAreaUtils.getInvalidTypeException(direction);
         }
-        lastSearchParameters.setFromParameters(searchParameters);
-        searchStatusListener.setStatus(new FoundMatches(foundMatches.size(), foundMatches.isEmpty() ? -1 : searchAssessor.getCurrentMatchIndex()), searchParameters.getMatchMode());
-        codeArea.repaint();
     }
 
     @Override
-    public void setMatchIndex(int matchIndex) {
-        SearchCodeAreaColorAssessor searchAssessor = CodeAreaSwingUtils.findColorAssessor((ColorAssessorPainterCapable) codeArea.getPainter(), SearchCodeAreaColorAssessor.class);
-        searchAssessor.setCurrentMatchIndex(matchIndex);
-        SearchMatch currentMatch = searchAssessor.getCurrentMatch();
-        codeArea.revealPosition(currentMatch.getPosition(), 0, codeArea.getActiveSection());
+    public synchronized void setMatchIndex(int matchIndex) {
+        currentMatchIndex = matchIndex;
+        if (matchIndex >= matchesWindowStart && matchIndex < matchesWindowEnd) {
+            SearchCodeAreaColorAssessor searchAssessor = CodeAreaSwingUtils.findColorAssessor((ColorAssessorPainterCapable) codeArea.getPainter(), SearchCodeAreaColorAssessor.class);
+            searchAssessor.setCurrentMatchIndex(matchIndex - matchesWindowStart);
+        } else {
+            setMatchesWindow(matchIndex);
+        }
+        codeArea.revealPosition(foundMatches.getPosition(matchIndex), 0, codeArea.getActiveSection());
         codeArea.repaint();
     }
 
     @Override
-    public void performFindAgain(SearchStatusListener searchStatusListener) {
-        SearchCodeAreaColorAssessor searchAssessor = CodeAreaSwingUtils.findColorAssessor((ColorAssessorPainterCapable) codeArea.getPainter(), SearchCodeAreaColorAssessor.class);
-        List<SearchMatch> foundMatches = searchAssessor.getMatches();
+    public void performFindAgain(SearchStatusListener searchStatusListener, SearchCancellationToken cancellationToken) {
+        Optional<BinEdFileHandler> fileHandler = findFileHandler();
+        fileHandler.ifPresent(BinEdFileHandler::startReading);
+        try {
+            findAgain(searchStatusListener, cancellationToken);
+        } finally {
+            fileHandler.ifPresent(BinEdFileHandler::finishReading);
+        }
+    }
+
+    private void findAgain(SearchStatusListener searchStatusListener, SearchCancellationToken cancellationToken) {
         int matchesCount = foundMatches.size();
         if (matchesCount <= 0) {
             return;
@@ -429,33 +470,31 @@ public class BinarySearchServiceImpl implements BinarySearchService {
         switch (lastSearchParameters.getMatchMode()) {
             case MULTIPLE:
                 if (matchesCount > 1) {
-                    int currentMatchIndex = searchAssessor.getCurrentMatchIndex();
                     setMatchIndex(currentMatchIndex < matchesCount - 1 ? currentMatchIndex + 1 : 0);
-                    searchStatusListener.setStatus(new FoundMatches(foundMatches.size(), searchAssessor.getCurrentMatchIndex()), lastSearchParameters.getMatchMode());
+                    searchStatusListener.setStatus(new FoundMatches(matchesCount, currentMatchIndex), lastSearchParameters.getMatchMode());
                 }
 
                 break;
             case SINGLE:
                 switch (lastSearchParameters.getSearchDirection()) {
                     case FORWARD:
-                        lastSearchParameters.setStartPosition(foundMatches.get(0).getPosition() + 1);
+                        lastSearchParameters.setStartPosition(foundMatches.getPosition(0) + 1);
                         break;
                     case BACKWARD:
-                        SearchMatch match = foundMatches.get(0);
-                        lastSearchParameters.setStartPosition(match.getPosition() - 1);
+                        lastSearchParameters.setStartPosition(foundMatches.getPosition(0) - 1);
                         break;
                 }
 
                 SearchCondition condition = lastSearchParameters.getCondition();
                 switch (condition.getSearchMode()) {
                     case TEXT:
-                        searchForText(lastSearchParameters, searchStatusListener);
+                        searchForText(lastSearchParameters, searchStatusListener, cancellationToken);
                         break;
                     case REGEX:
-                        searchRegEx(lastSearchParameters, searchStatusListener);
+                        searchRegEx(lastSearchParameters, searchStatusListener, cancellationToken);
                         break;
                     case BINARY:
-                        searchForBinaryData(lastSearchParameters, searchStatusListener);
+                        searchForBinaryData(lastSearchParameters, searchStatusListener, cancellationToken);
                         break;
                     default:
                         throw CodeAreaUtils.getInvalidTypeException(condition.getSearchMode());
@@ -465,21 +504,229 @@ public class BinarySearchServiceImpl implements BinarySearchService {
     }
 
     @Override
-    public void performReplace(SearchParameters searchParameters, ReplaceParameters replaceParameters) {
+    public synchronized void notifyDataChanged(@Nullable ChangedDataRange changedRange) {
+        dataChangeCount++;
+        if (changedRange == null) {
+            matchesOutdated = true;
+            pendingChange = null;
+        } else if (!matchesOutdated) {
+            pendingChange = pendingChange == null ? changedRange : pendingChange.merge(changedRange);
+        }
+    }
+
+    @Override
+    public boolean performUpdate(SearchStatusListener searchStatusListener, SearchCancellationToken cancellationToken) {
+        Optional<BinEdFileHandler> fileHandler = findFileHandler();
+        fileHandler.ifPresent(BinEdFileHandler::startReading);
+        try {
+            return update(searchStatusListener, cancellationToken);
+        } finally {
+            fileHandler.ifPresent(BinEdFileHandler::finishReading);
+        }
+    }
+
+    private synchronized boolean update(SearchStatusListener searchStatusListener, SearchCancellationToken cancellationToken) {
+        ChangedDataRange change = pendingChange;
+        pendingChange = null;
+        if (lastMatcher == null || matchesOutdated) {
+            return false;
+        }
+        if (change == null) {
+            return true;
+        }
+
+        long changeStart = change.getPosition();
+        long previousChangeEnd = changeStart + change.getPreviousLength();
+        long shift = change.getShift();
+        SearchRangeUpdate rangeUpdate = SearchRangeUpdate.compute(change, searchedRangeStart, searchedRangeEnd, lastMatcher.getMaxPatternLength());
+        long affectedStart = rangeUpdate.getAffectedStart();
+        long rescanStart = rangeUpdate.getRescanStart();
+        long rescanEnd = rangeUpdate.getRescanEnd();
+
+        CompactSearchMatches updatedMatches = new CompactSearchMatches();
+        int matchesCount = foundMatches.size();
+        int index = 0;
+        while (index < matchesCount && foundMatches.getPosition(index) < affectedStart) {
+            updatedMatches.add(foundMatches.getPosition(index), foundMatches.getLength(index));
+            index++;
+        }
+        int keptCount = index;
+        while (index < matchesCount && foundMatches.getPosition(index) < previousChangeEnd) {
+            index++;
+        }
+
+        if (lastSearchParameters.getMatchMode() == SearchParameters.MatchMode.SINGLE && (index > keptCount || rescanStart < rescanEnd)) {
+            // Single match has to be searched again from search start
+            return false;
+        }
+
+        if (rescanStart < rescanEnd) {
+            BinaryData data = codeArea.getContentData();
+            BinaryDataSearchEngine searchEngine = new BinaryDataSearchEngine(lastMatcher);
+            boolean completed = searchEngine.searchForward(data, rescanStart, rescanEnd, new BinaryDataSearchEngine.SearchListener() {
+                @Override
+                public boolean matchFound(long position, int patternIndex) {
+                    updatedMatches.add(position, searchEngine.getMatcher().getPatternLength(patternIndex));
+                    return true;
+                }
+
+                @Override
+                public boolean blockProcessed(long position) {
+                    return !cancellationToken.isCancelled();
+                }
+            });
+            if (!completed) {
+                matchesOutdated = true;
+                return false;
+            }
+        }
+
+        // Matches after change are shifted
+        while (index < matchesCount) {
+            updatedMatches.add(foundMatches.getPosition(index) + shift, foundMatches.getLength(index));
+            index++;
+        }
+
+        int matchIndex = -1;
+        if (!updatedMatches.isEmpty()) {
+            long currentPosition = currentMatchIndex >= 0 && currentMatchIndex < matchesCount ? foundMatches.getPosition(currentMatchIndex) : 0;
+            if (currentPosition >= previousChangeEnd) {
+                currentPosition += shift;
+            } else if (currentPosition > changeStart) {
+                currentPosition = changeStart;
+            }
+            matchIndex = Math.min(updatedMatches.findIndex(currentPosition), updatedMatches.size() - 1);
+        }
+
+        searchedRangeStart = rangeUpdate.getSearchedRangeStart();
+        searchedRangeEnd = rangeUpdate.getSearchedRangeEnd();
+        foundMatches = updatedMatches;
+        currentMatchIndex = matchIndex;
+        setMatchesWindow(Math.max(matchIndex, 0));
+        searchStatusListener.setStatus(new FoundMatches(updatedMatches.size(), matchIndex), lastSearchParameters.getMatchMode());
+        codeArea.repaint();
+        return true;
+    }
+
+    @Override
+    public synchronized void performReplace(SearchParameters searchParameters, ReplaceParameters replaceParameters) {
+        if (currentMatchIndex >= 0) {
+            long matchPosition = foundMatches.getPosition(currentMatchIndex);
+            long matchLength = foundMatches.getLength(currentMatchIndex);
+            // Matches are updated on data change caused by the command
+            executeReplaceCommand(new ReplaceAllDataOperation(new long[]{matchPosition}, new long[]{matchLength}, getReplacementData(replaceParameters)));
+        }
+    }
+
+    @Override
+    public void performReplaceAll(SearchParameters searchParameters, ReplaceParameters replaceParameters, SearchStatusListener searchStatusListener, SearchCancellationToken cancellationToken) {
+        Optional<BinEdFileHandler> fileHandler = findFileHandler();
+        fileHandler.ifPresent(BinEdFileHandler::startReading);
+        try {
+            replaceAll(searchParameters, replaceParameters, searchStatusListener, cancellationToken);
+        } finally {
+            fileHandler.ifPresent(BinEdFileHandler::finishReading);
+        }
+    }
+
+    private void replaceAll(SearchParameters searchParameters, ReplaceParameters replaceParameters, SearchStatusListener searchStatusListener, SearchCancellationToken cancellationToken) {
+        SearchParameters allMatchesParameters = new SearchParameters();
+        allMatchesParameters.setFromParameters(searchParameters);
+        allMatchesParameters.setSearchDirection(SearchParameters.SearchDirection.FORWARD);
+        allMatchesParameters.setSearchFromCursor(false);
+        allMatchesParameters.setMatchMode(SearchParameters.MatchMode.MULTIPLE);
+        performFind(allMatchesParameters, searchStatusListener, cancellationToken);
+        if (cancellationToken.isCancelled()) {
+            return;
+        }
+
+        ReplaceAllDataOperation operation;
+        synchronized (this) {
+            CompactSearchMatches matches = foundMatches;
+            int matchesCount = matches.size();
+            if (matchesCount == 0) {
+                return;
+            }
+
+            // Skip matches overlapping previous match
+            long[] matchPositions = new long[matchesCount];
+            long[] matchLengths = new long[matchesCount];
+            int replacedCount = 0;
+            long lastMatchEnd = 0;
+            for (int i = 0; i < matchesCount; i++) {
+                long matchPosition = matches.getPosition(i);
+                if (matchPosition >= lastMatchEnd) {
+                    matchPositions[replacedCount] = matchPosition;
+                    matchLengths[replacedCount] = matches.getLength(i);
+                    lastMatchEnd = matchPosition + matchLengths[replacedCount];
+                    replacedCount++;
+                }
+            }
+
+            operation = new ReplaceAllDataOperation(Arrays.copyOf(matchPositions, replacedCount), Arrays.copyOf(matchLengths, replacedCount), getReplacementData(replaceParameters));
+            clearMatches();
+        }
+
+        executeReplaceCommand(operation);
+        searchStatusListener.clearStatus();
+    }
+
+    @Nonnull
+    private BinaryData getReplacementData(ReplaceParameters replaceParameters) {
         SearchCondition replaceCondition = replaceParameters.getCondition();
-        SearchCodeAreaColorAssessor searchAssessor = CodeAreaSwingUtils.findColorAssessor((ColorAssessorPainterCapable) codeArea.getPainter(), SearchCodeAreaColorAssessor.class);
-        SearchMatch currentMatch = searchAssessor.getCurrentMatch();
-        if (currentMatch != null) {
-            EditableBinaryData editableData = ((EditableBinaryData) codeArea.getContentData());
-            editableData.remove(currentMatch.getPosition(), currentMatch.getLength());
-            if (replaceCondition.getSearchMode() == SearchCondition.SearchMode.BINARY) {
-                editableData.insert(currentMatch.getPosition(), replaceCondition.getBinaryData());
+        if (replaceCondition.getSearchMode() == SearchCondition.SearchMode.BINARY) {
+            BinaryData replacementData = replaceCondition.getBinaryData();
+            return replacementData == null ? new ByteArrayEditableData() : replacementData;
+        }
+
+        return new ByteArrayEditableData(ByteRegexCompiler.encodeText(replaceCondition.getSearchText(), codeArea.getCharset()));
+    }
+
+    /**
+     * Executes replace command using undo handler if available.
+     *
+     * Replaced data of large range are prepared in background with progress
+     * dialog before command is executed. Command is dropped if document is
+     * not editable, such as during file operation.
+     */
+    private void executeReplaceCommand(ReplaceAllDataOperation operation) {
+        SwingUtilities.invokeLater(() -> {
+            if (!codeArea.isEditable()) {
+                operation.dispose();
+                return;
+            }
+
+            if (operation.getRangeLength() >= BACKGROUND_REPLACE_THRESHOLD) {
+                BinaryData contentData = codeArea.getContentData();
+                boolean finished = BackgroundConversion.perform(codeArea, contentData, operation.getRangeLength(), (fileOperation) -> {
+                    operation.prepare(contentData, true, fileOperation);
+                    return true;
+                });
+                if (!finished) {
+                    operation.dispose();
+                    return;
+                }
+            }
+
+            ReplaceAllCommand command = new ReplaceAllCommand(codeArea, operation);
+            CodeAreaCommandHandler commandHandler = codeArea.getCommandHandler();
+            if (commandHandler instanceof CodeAreaOperationCommandHandler) {
+                ((CodeAreaOperationCommandHandler) commandHandler).getUndoRedo().execute(command);
             } else {
-                editableData.insert(currentMatch.getPosition(), replaceCondition.getSearchText().getBytes(codeArea.getCharset()));
+                command.execute();
             }
-            searchAssessor.getMatches().remove(currentMatch);
-            codeArea.repaint();
-        }
+        });
+    }
+
+    /**
+     * Returns file handler of searched document to register background
+     * reader, so that document is not compacted during search.
+     *
+     * @return file handler or empty if code area is not editor of any document
+     */
+    @Nonnull
+    private Optional<BinEdFileHandler> findFileHandler() {
+        return App.getModule(BinedModule.class).getFileManager().findFileHandler(codeArea.getContentData());
     }
 
     @Nonnull
@@ -489,8 +736,191 @@ public class BinarySearchServiceImpl implements BinarySearchService {
     }
 
     @Override
-    public void clearMatches() {
+    public synchronized void clearMatches() {
         SearchCodeAreaColorAssessor searchAssessor = CodeAreaSwingUtils.findColorAssessor((ColorAssessorPainterCapable) codeArea.getPainter(), SearchCodeAreaColorAssessor.class);
         searchAssessor.clearMatches();
+        foundMatches = new CompactSearchMatches();
+        currentMatchIndex = -1;
+        matchesWindowStart = 0;
+        matchesWindowEnd = 0;
+        windowCoverageStart = 0;
+        windowCoverageEnd = Long.MAX_VALUE;
+        lastMatcher = null;
+        pendingChange = null;
+        matchesOutdated = false;
+    }
+
+    @Override
+    public boolean isParallelSearch() {
+        return parallelSearch;
+    }
+
+    @Override
+    public void setParallelSearch(boolean parallelSearch) {
+        this.parallelSearch = parallelSearch;
+    }
+
+    @Override
+    public boolean isIndexedSearch() {
+        return indexedSearch;
+    }
+
+    @Override
+    public void setIndexedSearch(boolean indexedSearch) {
+        this.indexedSearch = indexedSearch;
+        if (!indexedSearch) {
+            searchIndexManager.dispose();
+        }
+    }
+
+    @Override
+    public synchronized long getMemoryUsage() {
+        return foundMatches.getMemoryUsage() + searchIndexManager.getMemoryUsage();
+    }
+
+    @Override
+    public long releaseSearchIndex() {
+        long released = searchIndexManager.getMemoryUsage();
+        searchIndexManager.dispose();
+        return released;
+    }
+
+    /**
+     * Color modifier tracking data positions painted in visible area.
+     *
+     * Doesn't change any colors, only requests move of window of materialized
+     * matches when painted position lies outside of range covered by it.
+     */
+    @ParametersAreNonnullByDefault
+    private class VisibleRangeTracker implements CodeAreaColorAssessor {
+
+        private long firstPaintedPosition = -1;
+        private boolean updateRequested = false;
+
+        @Override
+        public void startPaint(CodeAreaPaintState codeAreaPaintState) {
+            firstPaintedPosition = -1;
+            updateRequested = false;
+        }
+
+        @Nullable
+        @Override
+        public Color getPositionBackgroundColor(long rowDataPosition, int byteOnRow, int charOnRow, CodeAreaSection section, boolean inSelection) {
+            long dataPosition = rowDataPosition + byteOnRow;
+            if (firstPaintedPosition == -1) {
+                firstPaintedPosition = dataPosition;
+            }
+
+            if (!updateRequested && (dataPosition < windowCoverageStart || dataPosition > windowCoverageEnd)) {
+                updateRequested = true;
+                long visiblePosition = firstPaintedPosition;
+                SwingUtilities.invokeLater(() -> updateMatchesWindow(visiblePosition));
+            }
+            return null;
+        }
+
+        @Nullable
+        @Override
+        public Color getPositionTextColor(long rowDataPosition, int byteOnRow, int charOnRow, CodeAreaSection section, boolean inSelection) {
+            return null;
+        }
+
+        @Nonnull
+        @Override
+        public Optional<CodeAreaColorAssessor> getParentColorAssessor() {
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * Collector of matches reported by search.
+     *
+     * Matches are stored compactly and published to code area periodically
+     * while search is still running.
+     */
+    @ParametersAreNonnullByDefault
+    private class MatchesCollector implements BinaryDataSearchEngine.SearchListener, ByteRegexMatcher.SearchListener {
+
+        private final PatternMatcher matcher;
+        private final SearchParameters searchParameters;
+        private final SearchStatusListener searchStatusListener;
+        private final SearchCancellationToken cancellationToken;
+        private final long dataSize;
+        private final CompactSearchMatches matches;
+        private final int dataChangeCount;
+        private int lastProgressState = -1;
+        private long lastPublishTime = System.currentTimeMillis();
+        private boolean cancelled = false;
+        private CompactSearchMatches replacedMatches = null;
+        private int replacedMatchIndex = -1;
+
+        public MatchesCollector(@Nullable PatternMatcher matcher, SearchParameters searchParameters, long dataSize, SearchStatusListener searchStatusListener, SearchCancellationToken cancellationToken) {
+            this.matcher = matcher;
+            this.searchParameters = searchParameters;
+            this.dataSize = dataSize;
+            this.searchStatusListener = searchStatusListener;
+            this.cancellationToken = cancellationToken;
+            matches = new CompactSearchMatches(searchParameters.getSearchDirection() == SearchParameters.SearchDirection.BACKWARD);
+            synchronized (BinarySearchServiceImpl.this) {
+                dataChangeCount = BinarySearchServiceImpl.this.dataChangeCount;
+            }
+        }
+
+        @Override
+        public boolean matchFound(long position, int patternIndex) {
+            return addMatch(position, Objects.requireNonNull(matcher).getPatternLength(patternIndex));
+        }
+
+        @Override
+        public boolean matchFound(long position, long length) {
+            return addMatch(position, length);
+        }
+
+        @Override
+        public boolean blockProcessed(long position) {
+            if (cancellationToken.isCancelled()) {
+                cancelled = true;
+                return false;
+            }
+
+            reportProgress(position);
+            return true;
+        }
+
+        /**
+         * Adds found match.
+         *
+         * @param position match position
+         * @param length match length
+         * @return true if search should continue
+         */
+        public boolean addMatch(long position, long length) {
+            matches.add(position, length);
+            return searchParameters.getMatchMode() != SearchParameters.MatchMode.SINGLE;
+        }
+
+        /**
+         * Reports search progress and publishes partial matches.
+         *
+         * @param position position up to which the data were processed
+         */
+        public void reportProgress(long position) {
+            long processed = searchParameters.getSearchDirection() == SearchParameters.SearchDirection.BACKWARD ? dataSize - position : position;
+            int progressState = (int) (dataSize > Integer.MAX_VALUE ? processed / (dataSize / 1000) : (processed * 1000) / dataSize);
+            if (progressState != lastProgressState) {
+                lastProgressState = progressState;
+                searchStatusListener.setProgress(progressState);
+
+                long currentTime = System.currentTimeMillis();
+                if (currentTime - lastPublishTime >= PUBLISH_INTERVAL) {
+                    lastPublishTime = currentTime;
+                    publishPartialMatches(this);
+                }
+            }
+        }
+
+        public boolean isCancelled() {
+            return cancelled;
+        }
     }
 }
@@ -0,0 +1,732 @@
+/*
+ * Copyright (C) ExBin Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.exbin.framework.bined.search.service.impl;
+
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.regex.PatternSyntaxException;
+import javax.annotation.Nonnull;
+import javax.annotation.ParametersAreNonnullByDefault;
+
+/**
+ * Compiler of regular expressions matching bytes.
+ *
+ * Supports alternation, groups, greedy and lazy quantifiers, byte classes like
+ * [\x00-\x1f], predefined ASCII classes, any byte (.), start and end of data
+ * anchors and literal characters which are encoded using given charset.
+ * Back references and look-around are not supported.
+ *
+ * @author ExBin Project (https://exbin.org)
+ */
+@ParametersAreNonnullByDefault
+public class ByteRegexCompiler {
+
+    private static final int MAX_PROGRAM_LENGTH = 1000000;
+    private static final int UNLIMITED = -1;
+
+    private final String regex;
+    private final Charset charset;
+    private final boolean matchCase;
+    private int index = 0;
+
+    private final ProgramBuilder builder = new ProgramBuilder();
+
+    private ByteRegexCompiler(String regex, Charset charset, boolean matchCase) {
+        this.regex = regex;
+        this.charset = charset;
+        this.matchCase = matchCase;
+    }
+
+    /**
+     * Compiles regular expression to program.
+     *
+     * @param regex regular expression
+     * @param charset charset used to encode literal characters
+     * @param matchCase false for ASCII case insensitive matching
+     * @return compiled program
+     * @throws PatternSyntaxException if expression is invalid or unsupported
+     */
+    @Nonnull
+    public static ByteRegexProgram compile(String regex, Charset charset, boolean matchCase) {
+        ByteRegexCompiler compiler = new ByteRegexCompiler(regex, charset, matchCase);
+        Node node = compiler.parseAlternation();
+        if (compiler.index < regex.length()) {
+            throw compiler.syntaxError("Unmatched closing ')'");
+        }
+
+        node.emit(compiler.builder);
+        compiler.builder.add(ByteRegexProgram.OP_MATCH, 0, 0);
+        return compiler.builder.build();
+    }
+
+    /**
+     * Compiles literal text to program.
+     *
+     * @param text literal text
+     * @param charset charset used to encode characters
+     * @param matchCase false for case insensitive matching
+     * @return compiled program
+     * @throws PatternSyntaxException if text is not encodable
+     */
+    @Nonnull
+    public static ByteRegexProgram compileLiteral(String text, Charset charset, boolean matchCase) {
+        ByteRegexCompiler compiler = new ByteRegexCompiler(text, charset, matchCase);
+        List<Node> nodes = new ArrayList<>();
+        while (compiler.index < text.length()) {
+            int codePoint = text.codePointAt(compiler.index);
+            nodes.add(compiler.createLiteralNode(codePoint));
+            compiler.index += Character.charCount(codePoint);
+        }
+
+        new ConcatenationNode(nodes).emit(compiler.builder);
+        compiler.builder.add(ByteRegexProgram.OP_MATCH, 0, 0);
+        return compiler.builder.build();
+    }
+
+    /**
+     * Encodes text using charset without byte order mark.
+     *
+     * @param text text
+     * @param charset charset
+     * @return encoded bytes
+     */
+    @Nonnull
+    public static byte[] encodeText(String text, Charset charset) {
+        byte[] encoded = text.getBytes(charset);
+        if (encoded.length >= 2 && !text.startsWith("\uFEFF")) {
+            if ((encoded[0] == (byte) 0xfe && encoded[1] == (byte) 0xff) || (encoded[0] == (byte) 0xff && encoded[1] == (byte) 0xfe)) {
+                return Arrays.copyOfRange(encoded, 2, encoded.length);
+            }
+        }
+        return encoded;
+    }
+
+    @Nonnull
+    private Node parseAlternation() {
+        List<Node> alternatives = new ArrayList<>();
+        alternatives.add(parseConcatenation());
+        while (index < regex.length() && regex.charAt(index) == '|') {
+            index++;
+            alternatives.add(parseConcatenation());
+        }
+        return alternatives.size() == 1 ? alternatives.get(0) : new AlternationNode(alternatives);
+    }
+
+    @Nonnull
+    private Node parseConcatenation() {
+        List<Node> nodes = new ArrayList<>();
+        while (index < regex.length()) {
+            char character = regex.charAt(index);
+            if (character == '|' || character == ')') {
+                break;
+            }
+            nodes.add(parseRepetition());
+        }
+        return new ConcatenationNode(nodes);
+    }
+
+    @Nonnull
+    private Node parseRepetition() {
+        Node node = parseAtom();
+        while (index < regex.length()) {
+            char character = regex.charAt(index);
+            int min;
+            int max;
+            if (character == '*') {
+                min = 0;
+                max = UNLIMITED;
+                index++;
+            } else if (character == '+') {
+                min = 1;
+                max = UNLIMITED;
+                index++;
+            } else if (character == '?') {
+                min = 0;
+                max = 1;
+                index++;
+            } else if (character == '{') {
+                index++;
+                min = parseNumber();
+                max = min;
+                if (index < regex.length() && regex.charAt(index) == ',') {
+                    index++;
+                    max = index < regex.length() && regex.charAt(index) == '}' ? UNLIMITED : parseNumber();
+                }
+                if (index >= regex.length() || regex.charAt(index) != '}') {
+                    throw syntaxError("Unclosed counted closure");
+                }
+                index++;
+                if (max != UNLIMITED && max < min) {
+                    throw syntaxError("Illegal repetition range");
+                }
+            } else {
+                break;
+            }
+
+            boolean greedy = true;
+            if (index < regex.length()) {
+                if (regex.charAt(index) == '?') {
+                    greedy = false;
+                    index++;
+                } else if (regex.charAt(index) == '+') {
+                    throw syntaxError("Possessive quantifiers are not supported");
+                }
+            }
+            node = new RepetitionNode(node, min, max, greedy);
+        }
+        return node;
+    }
+
+    private int parseNumber() {
+        int start = index;
+        while (index < regex.length() && Character.isDigit(regex.charAt(index))) {
+            index++;
+        }
+        if (start == index || index - start > 6) {
+            throw syntaxError("Invalid repetition count");
+        }
+        return Integer.parseInt(regex.substring(start, index));
+    }
+
+    @Nonnull
+    private Node parseAtom() {
+        char character = regex.charAt(index);
+        switch (character) {
+            case '(': {
+                index++;
+                if (index < regex.length() && regex.charAt(index) == '?') {
+                    if (index + 1 < regex.length() && regex.charAt(index + 1) == ':') {
+                        index += 2;
+                    } else {
+                        throw syntaxError("Unsupported group type");
+                    }
+                }
+                Node node = parseAlternation();
+                if (index >= regex.length() || regex.charAt(index) != ')') {
+                    throw syntaxError("Unclosed group");
+                }
+                index++;
+                return node;
+            }
+            case '[': {
+                index++;
+                return new ByteSetNode(parseByteClass());
+            }
+            case '.': {
+                index++;
+                long[] byteSet = new long[4];
+                Arrays.fill(byteSet, -1L);
+                return new ByteSetNode(byteSet);
+            }
+            case '^': {
+                index++;
+                return new AssertionNode(ByteRegexProgram.OP_ASSERT_START);
+            }
+            case '$': {
+                index++;
+                return new AssertionNode(ByteRegexProgram.OP_ASSERT_END);
+            }
+            case '*':
+            case '+':
+            case '?':
+            case '{': {
+                throw syntaxError("Dangling meta character '" + character + "'");
+            }
+            case '\\': {
+                index++;
+                return parseEscape();
+            }
+            default: {
+                int codePoint = regex.codePointAt(index);
+                index += Character.charCount(codePoint);
+                return createLiteralNode(codePoint);
+            }
+        }
+    }
+
+    @Nonnull
+    private Node parseEscape() {
+        if (index >= regex.length()) {
+            throw syntaxError("Unexpected end of expression");
+        }
+
+        char character = regex.charAt(index);
+        long[] predefinedSet = parsePredefinedSet(character);
+        if (predefinedSet != null) {
+            index++;
+            return new ByteSetNode(predefinedSet);
+        }
+
+        if (character == 'u') {
+            index++;
+            return createLiteralNode(parseHexValue(4));
+        }
+
+        int value = parseEscapedByte();
+        if (value >= 0) {
+            return new ByteSetNode(singleByteSet(value));
+        }
+
+        index++;
+        return createLiteralNode(character);
+    }
+
+    /**
+     * Parses escape sequence representing single byte value.
+     *
+     * @return byte value or -1 if escape sequence is not byte value
+     */
+    private int parseEscapedByte() {
+        char character = regex.charAt(index);
+        switch (character) {
+            case 'x': {
+                index++;
+                return parseHexValue(2);
+            }
+            case '0': {
+                index++;
+                int value = 0;
+                int digits = 0;
+                while (digits < 3 && index < regex.length() && regex.charAt(index) >= '0' && regex.charAt(index) <= '7' && value * 8 + (regex.charAt(index) - '0') <= 0xff) {
+                    value = value * 8 + (regex.charAt(index) - '0');
+                    index++;
+                    digits++;
+                }
+                return value;
+            }
+            case 't': {
+                index++;
+                return '\t';
+            }
+            case 'n': {
+                index++;
+                return '\n';
+            }
+            case 'r': {
+                index++;
+                return '\r';
+            }
+            case 'f': {
+                index++;
+                return '\f';
+            }
+            case 'a': {
+                index++;
+                return 0x07;
+            }
+            case 'e': {
+                index++;
+                return 0x1b;
+            }
+            default: {
+                if (Character.isLetterOrDigit(character)) {
+                    throw syntaxError("Unsupported escape sequence");
+                }
+                return -1;
+            }
+        }
+    }
+
+    private int parseHexValue(int digits) {
+        if (index + digits > regex.length()) {
+            throw syntaxError("Illegal hexadecimal escape sequence");
+        }
+
+        int value = 0;
+        for (int i = 0; i < digits; i++) {
+            int digit = Character.digit(regex.charAt(index++), 16);
+            if (digit < 0) {
+                throw syntaxError("Illegal hexadecimal escape sequence");
+            }
+            value = value * 16 + digit;
+        }
+        return value;
+    }
+
+    @Nonnull
+    private long[] parseByteClass() {
+        long[] byteSet = new long[4];
+        boolean negated = false;
+        if (index < regex.length() && regex.charAt(index) == '^') {
+            negated = true;
+            index++;
+        }
+
+        boolean first = true;
+        while (true) {
+            if (index >= regex.length()) {
+                throw syntaxError("Unclosed character class");
+            }
+            char character = regex.charAt(index);
+            if (character == ']' && !first) {
+                index++;
+                break;
+            }
+            first = false;
+            if (character == '[') {
+                throw syntaxError("Nested character classes are not supported");
+            }
+
+            boolean escaped = character == '\\';
+            if (escaped) {
+                index++;
+                if (index >= regex.length()) {
+                    throw syntaxError("Unexpected end of expression");
+                }
+                long[] predefinedSet = parsePredefinedSet(regex.charAt(index));
+                if (predefinedSet != null) {
+                    index++;
+                    for (int i = 0; i < byteSet.length; i++) {
+                        byteSet[i] |= predefinedSet[i];
+                    }
+                    continue;
+                }
+            }
+
+            int rangeStart = parseClassByte(escaped);
+            int rangeEnd = rangeStart;
+            if (index + 1 < regex.length() && regex.charAt(index) == '-' && regex.charAt(index + 1) != ']') {
+                index++;
+                boolean rangeEndEscaped = regex.charAt(index) == '\\';
+                if (rangeEndEscaped) {
+                    index++;
+                    if (index >= regex.length()) {
+                        throw syntaxError("Unexpected end of expression");
+                    }
+                }
+                rangeEnd = parseClassByte(rangeEndEscaped);
+                if (rangeEnd < rangeStart) {
+                    throw syntaxError("Illegal character range");
+                }
+            }
+
+            for (int value = rangeStart; value <= rangeEnd; value++) {
+                addByte(byteSet, value);
+                if (!matchCase && value < 0x80 && Character.isLetter(value)) {
+                    addByte(byteSet, Character.toLowerCase(value));
+                    addByte(byteSet, Character.toUpperCase(value));
+                }
+            }
+        }
+
+        if (negated) {
+            for (int i = 0; i < byteSet.length; i++) {
+                byteSet[i] = ~byteSet[i];
+            }
+        }
+        return byteSet;
+    }
+
+    /**
+     * Parses single byte value in character class.
+     *
+     * @param escaped true if escape character was already consumed
+     */
+    private int parseClassByte(boolean escaped) {
+        if (escaped) {
+            int value = parseEscapedByte();
+            if (value >= 0) {
+                return value;
+            }
+        }
+
+        int codePoint = regex.codePointAt(index);
+        index += Character.charCount(codePoint);
+        if (codePoint < 0x80) {
+            return codePoint;
+        }
+
+        byte[] encoded = encodeText(new String(Character.toChars(codePoint)), charset);
+        if (encoded.length != 1) {
+            throw syntaxError("Character in class is not single byte in charset " + charset.name());
+        }
+        return encoded[0] & 0xff;
+    }
+
+    private long[] parsePredefinedSet(char character) {
+        long[] byteSet;
+        switch (character) {
+            case 'd':
+            case 'D': {
+                byteSet = new long[4];
+                for (int value = '0'; value <= '9'; value++) {
+                    addByte(byteSet, value);
+                }
+                break;
+            }
+            case 'w':
+            case 'W': {
+                byteSet = new long[4];
+                for (int value = 0; value < 0x80; value++) {
+                    if (Character.isLetterOrDigit(value) || value == '_') {
+                        addByte(byteSet, value);
+                    }
+                }
+                break;
+            }
+            case 's':
+            case 'S': {
+                byteSet = new long[4];
+                for (char value : new char[]{' ', '\t', '\n', 0x0b, '\f', '\r'}) {
+                    addByte(byteSet, value);
+                }
+                break;
+            }
+            default:
+                return null;
+        }
+
+        if (Character.isUpperCase(character)) {
+            for (int i = 0; i < byteSet.length; i++) {
+                byteSet[i] = ~byteSet[i];
+            }
+        }
+        return byteSet;
+    }
+
+    @Nonnull
+    private Node createLiteralNode(int codePoint) {
+        Set<String> variants = new LinkedHashSet<>();
+        variants.add(new String(Character.toChars(codePoint)));
+        if (!matchCase) {
+            variants.add(new String(Character.toChars(Character.toLowerCase(codePoint))));
+            variants.add(new String(Character.toChars(Character.toUpperCase(codePoint))));
+        }
+
+        List<byte[]> encodedVariants = new ArrayList<>();
+        boolean singleBytes = true;
+        for (String variant : variants) {
+            byte[] encoded = encodeText(variant, charset);
+            if (encoded.length == 0) {
+                throw syntaxError("Character is not encodable in charset " + charset.name());
+            }
+            singleBytes &= encoded.length == 1;
+            encodedVariants.add(encoded);
+        }
+
+        if (singleBytes) {
+            long[] byteSet = new long[4];
+            for (byte[] encoded : encodedVariants) {
+                addByte(byteSet, encoded[0] & 0xff);
+            }
+            return new ByteSetNode(byteSet);
+        }
+
+        List<Node> alternatives = new ArrayList<>();
+        for (byte[] encoded : encodedVariants) {
+            List<Node> nodes = new ArrayList<>();
+            for (byte value : encoded) {
+                nodes.add(new ByteSetNode(singleByteSet(value & 0xff)));
+            }
+            alternatives.add(new ConcatenationNode(nodes));
+        }
+        return alternatives.size() == 1 ? alternatives.get(0) : new AlternationNode(alternatives);
+    }
+
+    @Nonnull
+    private static long[] singleByteSet(int value) {
+        long[] byteSet = new long[4];
+        addByte(byteSet, value);
+        return byteSet;
+    }
+
+    private static void addByte(long[] byteSet, int value) {
+        byteSet[value >> 6] |= 1L << value;
+    }
+
+    @Nonnull
+    private PatternSyntaxException syntaxError(String description) {
+        return new PatternSyntaxException(description, regex, index);
+    }
+
+    /**
+     * Builder of program instructions.
+     */
+    private static class ProgramBuilder {
+
+        private int[] opcodes = new int[16];
+        private int[] firstArguments = new int[16];
+        private int[] secondArguments = new int[16];
+        private int length = 0;
+        private final List<long[]> byteSets = new ArrayList<>();
+
+        public int add(int opcode, int firstArgument, int secondArgument) {
+            if (length == MAX_PROGRAM_LENGTH) {
+                throw new PatternSyntaxException("Expression is too large", "", -1);
+            }
+            if (length == opcodes.length) {
+                opcodes = Arrays.copyOf(opcodes, length * 2);
+                firstArguments = Arrays.copyOf(firstArguments, length * 2);
+                secondArguments = Arrays.copyOf(secondArguments, length * 2);
+            }
+            opcodes[length] = opcode;
+            firstArguments[length] = firstArgument;
+            secondArguments[length] = secondArgument;
+            return length++;
+        }
+
+        public int addByteSet(long[] byteSet) {
+            byteSets.add(byteSet);
+            return byteSets.size() - 1;
+        }
+
+        public void setFirstArgument(int pc, int value) {
+            firstArguments[pc] = value;
+        }
+
+        public void setSecondArgument(int pc, int value) {
+            secondArguments[pc] = value;
+        }
+
+        public int getLength() {
+            return length;
+        }
+
+        @Nonnull
+        public ByteRegexProgram build() {
+            return new ByteRegexProgram(Arrays.copyOf(opcodes, length), Arrays.copyOf(firstArguments, length), Arrays.copyOf(secondArguments, length), byteSets.toArray(new long[0][]));
+        }
+    }
+
+    /**
+     * Node of parsed expression.
+     */
+    private interface Node {
+
+        void emit(ProgramBuilder builder);
+    }
+
+    private static class ByteSetNode implements Node {
+
+        private final long[] byteSet;
+
+        public ByteSetNode(long[] byteSet) {
+            this.byteSet = byteSet;
+        }
+
+        @Override
+        public void emit(ProgramBuilder builder) {
+            builder.add(ByteRegexProgram.OP_BYTE_SET, builder.addByteSet(byteSet), 0);
+        }
+    }
+
+    private static class AssertionNode implements Node {
+
+        private final int opcode;
+
+        public AssertionNode(int opcode) {
+            this.opcode = opcode;
+        }
+
+        @Override
+        public void emit(ProgramBuilder builder) {
+            builder.add(opcode, 0, 0);
+        }
+    }
+
+    private static class ConcatenationNode implements Node {
+
+        private final List<Node> nodes;
+
+        public ConcatenationNode(List<Node> nodes) {
+            this.nodes = nodes;
+        }
+
+        @Override
+        public void emit(ProgramBuilder builder) {
+            for (Node node : nodes) {
+                node.emit(builder);
+            }
+        }
+    }
+
+    private static class AlternationNode implements Node {
+
+        private final List<Node> alternatives;
+
+        public AlternationNode(List<Node> alternatives) {
+            this.alternatives = alternatives;
+        }
+
+        @Override
+        public void emit(ProgramBuilder builder) {
+            List<Integer> jumps = new ArrayList<>();
+            for (int i = 0; i < alternatives.size() - 1; i++) {
+                int split = builder.add(ByteRegexProgram.OP_SPLIT, 0, 0);
+                builder.setFirstArgument(split, builder.getLength());
+                alternatives.get(i).emit(builder);
+                jumps.add(builder.add(ByteRegexProgram.OP_JUMP, 0, 0));
+                builder.setSecondArgument(split, builder.getLength());
+            }
+            alternatives.get(alternatives.size() - 1).emit(builder);
+            for (int jump : jumps) {
+                builder.setFirstArgument(jump, builder.getLength());
+            }
+        }
+    }
+
+    private static class RepetitionNode implements Node {
+
+        private final Node node;
+        private final int min;
+        private final int max;
+        private final boolean greedy;
+
+        public RepetitionNode(Node node, int min, int max, boolean greedy) {
+            this.node = node;
+            this.min = min;
+            this.max = max;
+            this.greedy = greedy;
+        }
+
+        @Override
+        public void emit(ProgramBuilder builder) {
+            for (int i = 0; i < min; i++) {
+                node.emit(builder);
+            }
+
+            if (max == UNLIMITED) {
+                int split = builder.add(ByteRegexProgram.OP_SPLIT, 0, 0);
+                int body = builder.getLength();
+                node.emit(builder);
+                builder.add(ByteRegexProgram.OP_JUMP, split, 0);
+                setSplitTargets(builder, split, body, builder.getLength());
+                return;
+            }
+
+            List<Integer> splits = new ArrayList<>();
+            for (int i = min; i < max; i++) {
+                int split = builder.add(ByteRegexProgram.OP_SPLIT, 0, 0);
+                splits.add(split);
+                setSplitTargets(builder, split, builder.getLength(), 0);
+                node.emit(builder);
+            }
+            int exit = builder.getLength();
+            for (int split : splits) {
+                setSplitTargets(builder, split, split + 1, exit);
+            }
+        }
+
+        private void setSplitTargets(ProgramBuilder builder, int split, int body, int exit) {
+            builder.setFirstArgument(split, greedy ? body : exit);
+            builder.setSecondArgument(split, greedy ? exit : body);
+        }
+    }
+}
@@ -0,0 +1,347 @@
+/*
+ * Copyright (C) ExBin Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.exbin.framework.bined.search.service.impl;
+
+import javax.annotation.ParametersAreNonnullByDefault;
+import org.exbin.auxiliary.binary_data.BinaryData;
+
+/**
+ * Virtual machine executing byte regular expression program directly over
+ * binary data.
+ *
+ * Program is simulated using Pike VM with threads ordered by priority, which
+ * gives leftmost-first matches equal to backtracking engines, in linear time
+ * per position. Data are accessed through window buffer, so that data are
+ * never decoded or copied as a whole.
+ *
+ * @author ExBin Project (https://exbin.org)
+ */
+@ParametersAreNonnullByDefault
+public class ByteRegexMatcher {
+
+    private static final int PROGRESS_INTERVAL_MASK = 0xffff;
+    private static final long NO_MATCH = -1;
+
+    private final ByteRegexProgram program;
+    private ThreadList currentThreads;
+    private ThreadList nextThreads;
+    private final int[] stack;
+    private final long[] stackStarts;
+    private long matchStart;
+    private long matchEnd;
+
+    public ByteRegexMatcher(ByteRegexProgram program) {
+        this.program = program;
+        int programLength = program.getLength();
+        currentThreads = new ThreadList(programLength);
+        nextThreads = new ThreadList(programLength);
+        stack = new int[programLength * 2 + 1];
+        stackStarts = new long[programLength * 2 + 1];
+    }
+
+    /**
+     * Searches for non-overlapping matches in ascending order.
+     *
+     * @param data data to search in
+     * @param startPosition position to start search at
+     * @param listener search listener
+     * @return true if search reached end of data, false if stopped by listener
+     */
+    public boolean searchForward(BinaryData data, long startPosition, SearchListener listener) {
+        return search(data, startPosition, Long.MAX_VALUE, listener);
+    }
+
+    /**
+     * Searches for matches starting at or before given position in descending
+     * order.
+     *
+     * Matches are collected by forward search from the start of data and
+     * reported in reverse order, so that search stays linear for any
+     * expression and finds the same non-overlapping matches as forward
+     * search.
+     *
+     * @param data data to search in
+     * @param startPosition position of the last allowed match start
+     * @param listener search listener
+     * @return true if search reached start of data, false if stopped by
+     * listener
+     */
+    public boolean searchBackward(BinaryData data, long startPosition, SearchListener listener) {
+        final long dataSize = data.getDataSize();
+        final CompactSearchMatches matches = new CompactSearchMatches();
+        boolean completed = search(data, 0, startPosition, new SearchListener() {
+            @Override
+            public boolean matchFound(long position, long length) {
+                matches.add(position, length);
+                return true;
+            }
+
+            @Override
+            public boolean blockProcessed(long position) {
+                // Data are searched forward, progress is reported as for backward search
+                return listener.blockProcessed(dataSize - Math.min(position, dataSize));
+            }
+        });
+        if (!completed) {
+            return false;
+        }
+
+        for (int i = matches.size() - 1; i >= 0; i--) {
+            if (!listener.matchFound(matches.getPosition(i), matches.getLength(i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Searches for non-overlapping matches in ascending order.
+     *
+     * @param data data to search in
+     * @param startPosition position to start search at
+     * @param lastStartPosition position of the last allowed match start
+     * @param listener search listener
+     * @return true if search reached end of range, false if stopped by
+     * listener
+     */
+    private boolean search(BinaryData data, long startPosition, long lastStartPosition, SearchListener listener) {
+        BinaryDataWindow window = new BinaryDataWindow(data, true);
+        long dataSize = data.getDataSize();
+        long position = Math.max(startPosition, 0);
+        long lastReportedPosition = position;
+        while (position <= dataSize && position <= lastStartPosition) {
+            if (!execute(window, position, lastStartPosition, listener)) {
+                return false;
+            }
+
+            if (matchStart == NO_MATCH) {
+                return true;
+            }
+
+            if (matchEnd > matchStart) {
+                if (!listener.matchFound(matchStart, matchEnd - matchStart)) {
+                    return false;
+                }
+                position = matchEnd;
+            } else {
+                position = matchStart + 1;
+            }
+
+            if (position - lastReportedPosition > PROGRESS_INTERVAL_MASK) {
+                lastReportedPosition = position;
+                if (!listener.blockProcessed(position)) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Executes program from given position and stores leftmost-first match.
+     *
+     * @param window data window
+     * @param startPosition start position
+     * @param lastStartPosition position of the last allowed match start
+     * @param listener listener for progress reporting
+     * @return false if stopped by listener
+     */
+    private boolean execute(BinaryDataWindow window, long startPosition, long lastStartPosition, SearchListener listener) {
+        long dataSize = window.getDataSize();
+        matchStart = NO_MATCH;
+        matchEnd = NO_MATCH;
+        currentThreads.clear();
+        long position = startPosition;
+        while (true) {
+            if (matchStart == NO_MATCH && position <= lastStartPosition) {
+                if (currentThreads.isEmpty()) {
+                    // Skip positions which cannot start match
+                    while (position < dataSize && position < lastStartPosition && !program.isFirstByte(window.getByte(position))) {
+                        position++;
+                        if ((position & PROGRESS_INTERVAL_MASK) == 0 && !listener.blockProcessed(position)) {
+                            return false;
+                        }
+                    }
+                }
+                addThread(currentThreads, 0, position, position, dataSize);
+            }
+
+            if (currentThreads.isEmpty()) {
+                return true;
+            }
+
+            int value = position < dataSize ? window.getByte(position) : -1;
+            nextThreads.clear();
+            for (int i = 0; i < currentThreads.size(); i++) {
+                int pc = currentThreads.getPc(i);
+                long threadStart = currentThreads.getStart(i);
+                if (program.getOpcode(pc) == ByteRegexProgram.OP_MATCH) {
+                    matchStart = threadStart;
+                    matchEnd = position;
+                    // Threads with lower priority are discarded
+                    break;
+                }
+
+                if (value >= 0 && program.isInByteSet(program.getFirstArgument(pc), value)) {
+                    addThread(nextThreads, pc + 1, threadStart, position + 1, dataSize);
+                }
+            }
+
+            if (value < 0) {
+                return true;
+            }
+
+            ThreadList swappedThreads = currentThreads;
+            currentThreads = nextThreads;
+            nextThreads = swappedThreads;
+            position++;
+            if ((position & PROGRESS_INTERVAL_MASK) == 0 && !listener.blockProcessed(position)) {
+                return false;
+            }
+        }
+    }
+
+    /**
+     * Adds thread following jumps, splits and assertions in priority order.
+     */
+    private void addThread(ThreadList threads, int initialPc, long threadStart, long position, long dataSize) {
+        int stackSize = 0;
+        stack[stackSize] = initialPc;
+        stackStarts[stackSize] = threadStart;
+        stackSize++;
+        while (stackSize > 0) {
+            stackSize--;
+            int pc = stack[stackSize];
+            long start = stackStarts[stackSize];
+            if (threads.contains(pc)) {
+                continue;
+            }
+            threads.mark(pc);
+            switch (program.getOpcode(pc)) {
+                case ByteRegexProgram.OP_JUMP: {
+                    stack[stackSize] = program.getFirstArgument(pc);
+                    stackStarts[stackSize] = start;
+                    stackSize++;
+                    break;
+                }
+                case ByteRegexProgram.OP_SPLIT: {
+                    stack[stackSize] = program.getSecondArgument(pc);
+                    stackStarts[stackSize] = start;
+                    stackSize++;
+                    stack[stackSize] = program.getFirstArgument(pc);
+                    stackStarts[stackSize] = start;
+                    stackSize++;
+                    break;
+                }
+                case ByteRegexProgram.OP_ASSERT_START: {
+                    if (position == 0) {
+                        stack[stackSize] = pc + 1;
+                        stackStarts[stackSize] = start;
+                        stackSize++;
+                    }
+                    break;
+                }
+                case ByteRegexProgram.OP_ASSERT_END: {
+                    if (position == dataSize) {
+                        stack[stackSize] = pc + 1;
+                        stackStarts[stackSize] = start;
+                        stackSize++;
+                    }
+                    break;
+                }
+                default: {
+                    threads.add(pc, start);
+                }
+            }
+        }
+    }
+
+    /**
+     * Listener for regular expression search.
+     */
+    public interface SearchListener {
+
+        /**
+         * Reports found match.
+         *
+         * @param position match position
+         * @param length match length
+         * @return true to continue search
+         */
+        boolean matchFound(long position, long length);
+
+        /**
+         * Reports processing of data.
+         *
+         * @param position position up to which the data were processed
+         * @return true to continue search
+         */
+        boolean blockProcessed(long position);
+    }
+
+    /**
+     * Ordered list of threads with sparse set of visited instructions.
+     */
+    private static class ThreadList {
+
+        private final int[] pcs;
+        private final long[] starts;
+        private final int[] marks;
+        private int size = 0;
+        private int generation = 1;
+
+        public ThreadList(int programLength) {
+            pcs = new int[programLength];
+            starts = new long[programLength];
+            marks = new int[programLength];
+        }
+
+        public boolean contains(int pc) {
+            return marks[pc] == generation;
+        }
+
+        public void mark(int pc) {
+            marks[pc] = generation;
+        }
+
+        public void add(int pc, long start) {
+            pcs[size] = pc;
+            starts[size] = start;
+            size++;
+        }
+
+        public int size() {
+            return size;
+        }
+
+        public boolean isEmpty() {
+            return size == 0;
+        }
+
+        public int getPc(int index) {
+            return pcs[index];
+        }
+
+        public long getStart(int index) {
+            return starts[index];
+        }
+
+        public void clear() {
+            size = 0;
+            generation++;
+        }
+    }
+}
@@ -0,0 +1,137 @@
+/*
+ * Copyright (C) ExBin Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.exbin.framework.bined.search.service.impl;
+
+import java.util.Arrays;
+import javax.annotation.ParametersAreNonnullByDefault;
+
+/**
+ * Compiled byte regular expression program for virtual machine.
+ *
+ * @author ExBin Project (https://exbin.org)
+ */
+@ParametersAreNonnullByDefault
+public class ByteRegexProgram {
+
+    /**
+     * Matches single byte from set, argument is set index.
+     */
+    public static final int OP_BYTE_SET = 0;
+    /**
+     * Forks execution, first argument has priority.
+     */
+    public static final int OP_SPLIT = 1;
+    /**
+     * Jumps to first argument.
+     */
+    public static final int OP_JUMP = 2;
+    /**
+     * Succeeds only at start of data.
+     */
+    public static final int OP_ASSERT_START = 3;
+    /**
+     * Succeeds only at end of data.
+     */
+    public static final int OP_ASSERT_END = 4;
+    /**
+     * Reports match.
+     */
+    public static final int OP_MATCH = 5;
+
+    private final int[] opcodes;
+    private final int[] firstArguments;
+    private final int[] secondArguments;
+    private final long[][] byteSets;
+    private final long[] firstByteSet;
+
+    ByteRegexProgram(int[] opcodes, int[] firstArguments, int[] secondArguments, long[][] byteSets) {
+        this.opcodes = opcodes;
+        this.firstArguments = firstArguments;
+        this.secondArguments = secondArguments;
+        this.byteSets = byteSets;
+        firstByteSet = computeFirstByteSet();
+    }
+
+    public int getLength() {
+        return opcodes.length;
+    }
+
+    public int getOpcode(int pc) {
+        return opcodes[pc];
+    }
+
+    public int getFirstArgument(int pc) {
+        return firstArguments[pc];
+    }
+
+    public int getSecondArgument(int pc) {
+        return secondArguments[pc];
+    }
+
+    public boolean isInByteSet(int setIndex, int value) {
+        return (byteSets[setIndex][value >> 6] & (1L << value)) != 0;
+    }
+
+    /**
+     * Returns true if match can start with given byte.
+     *
+     * All bytes are allowed when match can be empty or starts with assertion.
+     *
+     * @param value byte value
+     * @return true if match can start with given byte
+     */
+    public boolean isFirstByte(int value) {
+        return (firstByteSet[value >> 6] & (1L << value)) != 0;
+    }
+
+    private long[] computeFirstByteSet() {
+        long[] result = new long[4];
+        boolean[] visited = new boolean[opcodes.length];
+        int[] stack = new int[opcodes.length * 2 + 1];
+        int stackSize = 0;
+        stack[stackSize++] = 0;
+        while (stackSize > 0) {
+            int pc = stack[--stackSize];
+            if (visited[pc]) {
+                continue;
+            }
+            visited[pc] = true;
+            switch (opcodes[pc]) {
+                case OP_BYTE_SET: {
+                    long[] byteSet = byteSets[firstArguments[pc]];
+                    for (int i = 0; i < result.length; i++) {
+                        result[i] |= byteSet[i];
+                    }
+                    break;
+                }
+                case OP_SPLIT: {
+                    stack[stackSize++] = firstArguments[pc];
+                    stack[stackSize++] = secondArguments[pc];
+                    break;
+                }
+                case OP_JUMP: {
+                    stack[stackSize++] = firstArguments[pc];
+                    break;
+                }
+                default: {
+                    Arrays.fill(result, -1L);
+                    return result;
+                }
+            }
+        }
+        return result;
+    }
+}
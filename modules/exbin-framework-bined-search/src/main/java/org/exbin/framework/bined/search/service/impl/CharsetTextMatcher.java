@@ -0,0 +1,194 @@
+/*
+ * Copyright (C) ExBin Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.exbin.framework.bined.search.service.impl;
+
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import javax.annotation.ParametersAreNonnullByDefault;
+import org.exbin.auxiliary.binary_data.BinaryData;
+
+/**
+ * Text matcher decoding data incrementally using charset decoder.
+ *
+ * Used for stateful encodings, where text cannot be searched as fixed byte
+ * patterns. Data are always decoded from the start to keep decoder state
+ * valid, using reused byte and character buffers.
+ *
+ * @author ExBin Project (https://exbin.org)
+ */
+@ParametersAreNonnullByDefault
+public class CharsetTextMatcher {
+
+    private static final int BUFFER_SIZE = 65536;
+
+    private final Charset charset;
+    private final char[] text;
+    private final boolean matchCase;
+
+    public CharsetTextMatcher(String text, Charset charset, boolean matchCase) {
+        this.charset = charset;
+        this.matchCase = matchCase;
+        this.text = new char[text.length()];
+        for (int i = 0; i < text.length(); i++) {
+            this.text[i] = foldCase(text.charAt(i));
+        }
+    }
+
+    /**
+     * Searches for non-overlapping matches in ascending order.
+     *
+     * @param data data to search in
+     * @param startPosition first allowed match start position
+     * @param listener search listener
+     * @return true if search reached end of data, false if stopped by listener
+     */
+    public boolean searchForward(BinaryData data, long startPosition, ByteRegexMatcher.SearchListener listener) {
+        return decode(data, startPosition, Long.MAX_VALUE, listener);
+    }
+
+    /**
+     * Searches for non-overlapping matches starting at or before given
+     * position in descending order.
+     *
+     * @param data data to search in
+     * @param startPosition last allowed match start position
+     * @param listener search listener
+     * @return true if search reached start of data, false if stopped by
+     * listener
+     */
+    public boolean searchBackward(BinaryData data, long startPosition, ByteRegexMatcher.SearchListener listener) {
+        final long dataSize = data.getDataSize();
+        final CompactSearchMatches matches = new CompactSearchMatches();
+        boolean completed = decode(data, 0, startPosition, new ByteRegexMatcher.SearchListener() {
+            @Override
+            public boolean matchFound(long position, long length) {
+                matches.add(position, length);
+                return true;
+            }
+
+            @Override
+            public boolean blockProcessed(long position) {
+                // Data are decoded forward, progress is reported as for backward search
+                return listener.blockProcessed(dataSize - Math.min(position, dataSize));
+            }
+        });
+        if (!completed) {
+            return false;
+        }
+
+        for (int i = matches.size() - 1; i >= 0; i--) {
+            if (!listener.matchFound(matches.getPosition(i), matches.getLength(i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private boolean decode(BinaryData data, long rangeStart, long rangeEnd, ByteRegexMatcher.SearchListener listener) {
+        if (text.length == 0) {
+            return true;
+        }
+
+        CharsetDecoder decoder = charset.newDecoder()
+                .onMalformedInput(CodingErrorAction.REPLACE)
+                .onUnmappableCharacter(CodingErrorAction.REPLACE);
+        long dataSize = data.getDataSize();
+        byte[] inputData = new byte[BUFFER_SIZE];
+        ByteBuffer input = ByteBuffer.wrap(inputData);
+        input.limit(0);
+        CharBuffer output = CharBuffer.allocate(2);
+        char[] recentChars = new char[text.length];
+        long[] recentStarts = new long[text.length];
+        int recentCount = 0;
+        int recentOffset = 0;
+        long bufferStart = 0;
+        boolean endOfInput = false;
+        while (true) {
+            long charStart = bufferStart + input.position();
+            if (charStart > rangeEnd && recentCount == 0) {
+                return true;
+            }
+
+            output.clear();
+            output.limit(1);
+            CoderResult result = decoder.decode(input, output, endOfInput);
+            if (output.position() == 0 && result.isOverflow()) {
+                // Surrogate pair requires two characters
+                output.limit(2);
+                result = decoder.decode(input, output, endOfInput);
+            }
+
+            if (output.position() == 0) {
+                if (endOfInput) {
+                    return true;
+                }
+
+                if (result.isUnderflow()) {
+                    bufferStart += input.position();
+                    input.compact();
+                    int length = (int) Math.min(input.remaining(), dataSize - (bufferStart + input.position()));
+                    data.copyToArray(bufferStart + input.position(), inputData, input.position(), length);
+                    input.position(input.position() + length);
+                    input.flip();
+                    endOfInput = bufferStart + input.limit() == dataSize;
+                    if (!listener.blockProcessed(bufferStart)) {
+                        return false;
+                    }
+                }
+                continue;
+            }
+
+            long charEnd = bufferStart + input.position();
+            for (int i = 0; i < output.position(); i++) {
+                int recentIndex = (recentOffset + recentCount) % text.length;
+                if (recentCount == text.length) {
+                    recentOffset = (recentOffset + 1) % text.length;
+                } else {
+                    recentCount++;
+                }
+                recentChars[recentIndex] = foldCase(output.get(i));
+                recentStarts[recentIndex] = charStart;
+
+                long matchStart = recentStarts[recentOffset];
+                if (recentCount == text.length && matchStart >= rangeStart && matchStart <= rangeEnd && isRecentMatch(recentChars, recentOffset)) {
+                    if (!listener.matchFound(matchStart, charEnd - matchStart)) {
+                        return false;
+                    }
+                    recentCount = 0;
+                } else if (matchStart > rangeEnd) {
+                    return true;
+                }
+            }
+        }
+    }
+
+    private boolean isRecentMatch(char[] recentChars, int recentOffset) {
+        for (int i = 0; i < text.length; i++) {
+            if (recentChars[(recentOffset + i) % text.length] != text[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private char foldCase(char character) {
+        return matchCase ? character : Character.toLowerCase(Character.toUpperCase(character));
+    }
+}
@@ -0,0 +1,167 @@
+/*
+ * Copyright (C) ExBin Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.exbin.framework.bined.search.service.impl;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import javax.annotation.Nonnull;
+import javax.annotation.ParametersAreNonnullByDefault;
+import org.exbin.bined.highlight.swing.SearchMatch;
+
+/**
+ * Compact storage of search matches.
+ *
+ * Matches are stored as primitive positions and lengths in chunks, so that
+ * millions of matches can be kept without per match object overhead. Matches
+ * are accessed by index in ascending order of positions. If matches are added
+ * in descending order, storage has to be created as reversed. The first chunk
+ * starts small and grows, so that searches with few matches don't allocate
+ * whole chunk.
+ *
+ * @author ExBin Project (https://exbin.org)
+ */
+@ParametersAreNonnullByDefault
+public class CompactSearchMatches {
+
+    private static final int CHUNK_SHIFT = 16;
+    private static final int CHUNK_SIZE = 1 << CHUNK_SHIFT;
+    private static final int CHUNK_MASK = CHUNK_SIZE - 1;
+    private static final int INITIAL_CAPACITY = 64;
+
+    private final boolean reversed;
+    private long[][] positions = new long[0][];
+    private int[][] lengths = new int[0][];
+    private int size = 0;
+
+    public CompactSearchMatches() {
+        this(false);
+    }
+
+    /**
+     * Creates matches storage.
+     *
+     * @param reversed true if matches are added in descending order
+     */
+    public CompactSearchMatches(boolean reversed) {
+        this.reversed = reversed;
+    }
+
+    /**
+     * Adds match to the end of the storage, or to the beginning when reversed.
+     *
+     * @param position match position
+     * @param length match length
+     */
+    public synchronized void add(long position, long length) {
+        int chunk = size >> CHUNK_SHIFT;
+        if (chunk == positions.length) {
+            int capacity = chunk == 0 ? INITIAL_CAPACITY : CHUNK_SIZE;
+            positions = Arrays.copyOf(positions, chunk + 1);
+            lengths = Arrays.copyOf(lengths, chunk + 1);
+            positions[chunk] = new long[capacity];
+            lengths[chunk] = new int[capacity];
+        } else if (chunk == 0 && size == positions[0].length) {
+            int capacity = Math.min(size * 2, CHUNK_SIZE);
+            positions[0] = Arrays.copyOf(positions[0], capacity);
+            lengths[0] = Arrays.copyOf(lengths[0], capacity);
+        }
+        positions[chunk][size & CHUNK_MASK] = position;
+        lengths[chunk][size & CHUNK_MASK] = (int) length;
+        size++;
+    }
+
+    public synchronized int size() {
+        return size;
+    }
+
+    public synchronized boolean isEmpty() {
+        return size == 0;
+    }
+
+    public synchronized long getPosition(int index) {
+        int physicalIndex = toPhysicalIndex(index);
+        return positions[physicalIndex >> CHUNK_SHIFT][physicalIndex & CHUNK_MASK];
+    }
+
+    public synchronized long getLength(int index) {
+        int physicalIndex = toPhysicalIndex(index);
+        return lengths[physicalIndex >> CHUNK_SHIFT][physicalIndex & CHUNK_MASK];
+    }
+
+    /**
+     * Returns index of the first match starting at or after given position.
+     *
+     * @param position position
+     * @return match index or size if there is no such match
+     */
+    public synchronized int findIndex(long position) {
+        int low = 0;
+        int high = size;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (getPosition(middle) < position) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * Returns heap memory held by allocated chunks.
+     *
+     * @return memory usage in bytes
+     */
+    public synchronized long getMemoryUsage() {
+        if (positions.length == 0) {
+            return 0;
+        }
+
+        return ((long) (positions.length - 1) * CHUNK_SIZE + positions[0].length) * (8 + 4);
+    }
+
+    public synchronized void clear() {
+        positions = new long[0][];
+        lengths = new int[0][];
+        size = 0;
+    }
+
+    /**
+     * Materializes matches in given range of indexes.
+     *
+     * @param fromIndex first match index
+     * @param toIndex end match index (exclusive)
+     * @return list of matches
+     */
+    @Nonnull
+    public synchronized List<SearchMatch> getMatches(int fromIndex, int toIndex) {
+        List<SearchMatch> matches = new ArrayList<>(toIndex - fromIndex);
+        for (int i = fromIndex; i < toIndex; i++) {
+            matches.add(new SearchMatch(getPosition(i), getLength(i)));
+        }
+        return matches;
+    }
+
+    private int toPhysicalIndex(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Match index out of range: " + index);
+        }
+
+        return reversed ? size - 1 - index : index;
+    }
+}
@@ -0,0 +1,93 @@
+/*
+ * Copyright (C) ExBin Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.exbin.framework.bined.search.service.impl;
+
+import java.util.Arrays;
+import javax.annotation.ParametersAreNonnullByDefault;
+
+/**
+ * Boyer-Moore-Horspool matcher for single byte pattern.
+ *
+ * @author ExBin Project (https://exbin.org)
+ */
+@ParametersAreNonnullByDefault
+public class HorspoolPatternMatcher implements PatternMatcher {
+
+    private final byte[] pattern;
+    private final int[] shiftTable = new int[256];
+
+    public HorspoolPatternMatcher(byte[] pattern) {
+        if (pattern.length == 0) {
+            throw new IllegalArgumentException("Empty pattern");
+        }
+
+        this.pattern = pattern;
+        int lastIndex = pattern.length - 1;
+        Arrays.fill(shiftTable, pattern.length);
+        for (int i = 0; i < lastIndex; i++) {
+            shiftTable[pattern[i] & 0xff] = lastIndex - i;
+        }
+    }
+
+    @Override
+    public int getPatternsCount() {
+        return 1;
+    }
+
+    @Override
+    public int getPatternLength(int patternIndex) {
+        return pattern.length;
+    }
+
+    @Override
+    public int getMinPatternLength() {
+        return pattern.length;
+    }
+
+    @Override
+    public int getMaxPatternLength() {
+        return pattern.length;
+    }
+
+    @Override
+    public boolean isOrdered() {
+        return true;
+    }
+
+    @Override
+    public boolean findMatches(byte[] buffer, int length, int startsLimit, MatchCollector collector) {
+        int lastIndex = pattern.length - 1;
+        byte lastByte = pattern[lastIndex];
+        int maxStart = Math.min(startsLimit - 1, length - pattern.length);
+        int offset = 0;
+        while (offset <= maxStart) {
+            byte value = buffer[offset + lastIndex];
+            if (value == lastByte) {
+                int index = lastIndex - 1;
+                while (index >= 0 && buffer[offset + index] == pattern[index]) {
+                    index--;
+                }
+
+                if (index < 0 && !collector.matchFound(offset, 0)) {
+                    return false;
+                }
+            }
+            offset += shiftTable[value & 0xff];
+        }
+
+        return true;
+    }
+}
@@ -0,0 +1,377 @@
+/*
+ * Copyright (C) ExBin Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.exbin.framework.bined.search.service.impl;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.Arrays;
+import java.util.List;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import javax.annotation.ParametersAreNonnullByDefault;
+
+/**
+ * Sparse index of 4-grams occurring in blocks of source file.
+ *
+ * Each block has filter of hashed 4-grams starting in it, so that blocks
+ * which cannot contain searched pattern can be skipped. Filter has 1/64 bit
+ * per byte of block and is filled up to 60 %, so that false positive rate of
+ * single 4-gram is at most 0.6 and false positive rate of block for pattern
+ * of 16 bytes with 13 4-grams is below 0.2 %.
+ *
+ * Filters are kept in index file and read for each searched block, only
+ * table of filter records is kept in heap. Index is bound to size and
+ * modification time of the source file.
+ *
+ * Blocks of compressed, encrypted or random data contain nearly as many
+ * different 4-grams as bytes, which would saturate any filter much smaller
+ * than the block itself. Such blocks are marked as dense and always
+ * searched, so the index speeds up search of structured data only.
+ *
+ * @author ExBin Project (https://exbin.org)
+ */
+@ParametersAreNonnullByDefault
+public class NgramSearchIndex {
+
+    public static final int NGRAM_LENGTH = 4;
+    public static final int BLOCK_SIZE = 1024 * 1024;
+
+    private static final int FILTER_BITS_SHIFT = 17;
+    private static final int FILTER_LONGS = (1 << FILTER_BITS_SHIFT) / 64;
+    private static final int FILTER_BYTES = FILTER_LONGS * 8;
+    private static final int DENSE_BITS_LIMIT = (1 << FILTER_BITS_SHIFT) * 3 / 5;
+    private static final int MAX_PATTERN_NGRAMS = 4096;
+    private static final int DENSE_BLOCK = -1;
+    private static final long FILE_MAGIC = 0x42494e4544494458L;
+    private static final int FILE_VERSION = 2;
+    private static final int HEADER_SIZE = 8 + 4 + 8 + 8 + 4 + 4 + 4;
+
+    private final long sourceSize;
+    private final long sourceLastModified;
+    private final int[] blockRecords;
+    private final long recordsOffset;
+    private final RandomAccessFile indexFile;
+    private final ByteBuffer recordBuffer = ByteBuffer.allocate(FILTER_BYTES);
+    private final long[] filter = new long[FILTER_LONGS];
+    private final long[] nextFilter = new long[FILTER_LONGS];
+    private int filterBlock = -1;
+    private int nextFilterBlock = -1;
+
+    private NgramSearchIndex(long sourceSize, long sourceLastModified, int[] blockRecords, RandomAccessFile indexFile) {
+        this.sourceSize = sourceSize;
+        this.sourceLastModified = sourceLastModified;
+        this.blockRecords = blockRecords;
+        this.indexFile = indexFile;
+        recordsOffset = HEADER_SIZE + blockRecords.length * 4L;
+    }
+
+    /**
+     * Builds index for given source file and writes it to index file.
+     *
+     * Index is written to temporary file first and moved to index file when
+     * finished.
+     *
+     * @param sourceFile source file
+     * @param indexFile index file
+     * @return true if index was built, false if building was interrupted
+     * @throws IOException if reading or writing of file fails
+     */
+    public static boolean build(File sourceFile, File indexFile) throws IOException {
+        File parentDirectory = indexFile.getParentFile();
+        if (parentDirectory != null && !parentDirectory.isDirectory() && !parentDirectory.mkdirs()) {
+            throw new IOException("Unable to create index directory " + parentDirectory);
+        }
+
+        long sourceLastModified = sourceFile.lastModified();
+        File tempFile = new File(indexFile.getPath() + ".tmp");
+        boolean finished = false;
+        try (RandomAccessFile file = new RandomAccessFile(sourceFile, "r"); RandomAccessFile output = new RandomAccessFile(tempFile, "rw")) {
+            long sourceSize = file.length();
+            int blocksCount = (int) ((sourceSize + BLOCK_SIZE - 1) / BLOCK_SIZE);
+            int[] blockRecords = new int[blocksCount];
+            output.setLength(0);
+            output.seek(HEADER_SIZE + blocksCount * 4L);
+
+            byte[] buffer = new byte[BLOCK_SIZE + NGRAM_LENGTH - 1];
+            long[] blockFilter = new long[FILTER_LONGS];
+            ByteBuffer recordBuffer = ByteBuffer.allocate(FILTER_BYTES);
+            int recordsCount = 0;
+            for (int block = 0; block < blocksCount; block++) {
+                if (Thread.currentThread().isInterrupted()) {
+                    return false;
+                }
+
+                long blockStart = (long) block * BLOCK_SIZE;
+                int length = (int) Math.min(buffer.length, sourceSize - blockStart);
+                file.seek(blockStart);
+                file.readFully(buffer, 0, length);
+
+                Arrays.fill(blockFilter, 0);
+                int bitsCount = 0;
+                int value = 0;
+                for (int i = 0; i < length; i++) {
+                    value = (value << 8) | (buffer[i] & 0xff);
+                    if (i >= NGRAM_LENGTH - 1) {
+                        int hash = hashNgram(value);
+                        long mask = 1L << hash;
+                        if ((blockFilter[hash >>> 6] & mask) == 0) {
+                            blockFilter[hash >>> 6] |= mask;
+                            bitsCount++;
+                            if (bitsCount > DENSE_BITS_LIMIT) {
+                                break;
+                            }
+                        }
+                    }
+                }
+
+                if (bitsCount <= DENSE_BITS_LIMIT) {
+                    blockRecords[block] = recordsCount;
+                    recordsCount++;
+                    recordBuffer.clear();
+                    recordBuffer.asLongBuffer().put(blockFilter);
+                    output.write(recordBuffer.array());
+                } else {
+                    blockRecords[block] = DENSE_BLOCK;
+                }
+            }
+
+            ByteBuffer headerBuffer = ByteBuffer.allocate(HEADER_SIZE + blocksCount * 4);
+            headerBuffer.putLong(FILE_MAGIC);
+            headerBuffer.putInt(FILE_VERSION);
+            headerBuffer.putLong(sourceSize);
+            headerBuffer.putLong(sourceLastModified);
+            headerBuffer.putInt(BLOCK_SIZE);
+            headerBuffer.putInt(FILTER_BITS_SHIFT);
+            headerBuffer.putInt(blocksCount);
+            headerBuffer.asIntBuffer().put(blockRecords);
+            output.seek(0);
+            output.write(headerBuffer.array());
+            finished = true;
+        } finally {
+            if (!finished) {
+                tempFile.delete();
+            }
+        }
+
+        Files.move(tempFile.toPath(), indexFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        return true;
+    }
+
+    /**
+     * Opens index file.
+     *
+     * Only table of filter records is loaded, filters are read on demand.
+     * Index has to be closed when no longer used.
+     *
+     * @param indexFile index file
+     * @return index or null if file is not valid index
+     * @throws IOException if reading of file fails
+     */
+    @Nullable
+    public static NgramSearchIndex open(File indexFile) throws IOException {
+        RandomAccessFile input = new RandomAccessFile(indexFile, "r");
+        boolean opened = false;
+        try {
+            if (input.length() < HEADER_SIZE || input.readLong() != FILE_MAGIC || input.readInt() != FILE_VERSION) {
+                return null;
+            }
+
+            long sourceSize = input.readLong();
+            long sourceLastModified = input.readLong();
+            if (input.readInt() != BLOCK_SIZE || input.readInt() != FILTER_BITS_SHIFT) {
+                return null;
+            }
+
+            int blocksCount = input.readInt();
+            if (blocksCount < 0 || blocksCount != (sourceSize + BLOCK_SIZE - 1) / BLOCK_SIZE) {
+                return null;
+            }
+
+            byte[] tableData = new byte[blocksCount * 4];
+            input.readFully(tableData);
+            int[] blockRecords = new int[blocksCount];
+            ByteBuffer.wrap(tableData).asIntBuffer().get(blockRecords);
+            int recordsCount = 0;
+            for (int blockRecord : blockRecords) {
+                if (blockRecord != DENSE_BLOCK) {
+                    recordsCount++;
+                }
+            }
+            if (input.length() != HEADER_SIZE + tableData.length + (long) recordsCount * FILTER_BYTES) {
+                return null;
+            }
+
+            opened = true;
+            return new NgramSearchIndex(sourceSize, sourceLastModified, blockRecords, input);
+        } finally {
+            if (!opened) {
+                input.close();
+            }
+        }
+    }
+
+    /**
+     * Closes index file.
+     */
+    public synchronized void close() {
+        try {
+            indexFile.close();
+        } catch (IOException ex) {
+            // Index file is read only
+        }
+    }
+
+    /**
+     * Returns default index file for given source file in user cache
+     * directory.
+     *
+     * @param sourceFile source file
+     * @return index file
+     */
+    @Nonnull
+    public static File getIndexFile(File sourceFile) {
+        File cacheDirectory = new File(new File(new File(System.getProperty("user.home"), ".cache"), "bined"), "search-index");
+        String sourcePath = sourceFile.getAbsolutePath();
+        return new File(cacheDirectory, sourceFile.getName() + "-" + Integer.toHexString(sourcePath.hashCode()) + ".idx");
+    }
+
+    /**
+     * Returns true if index matches current state of source file.
+     *
+     * @param sourceFile source file
+     * @return true if index is valid
+     */
+    public boolean isValidFor(File sourceFile) {
+        return sourceFile.length() == sourceSize && sourceFile.lastModified() == sourceLastModified;
+    }
+
+    public long getSourceSize() {
+        return sourceSize;
+    }
+
+    /**
+     * Returns heap memory held by table of filter records and read buffers.
+     *
+     * @return memory usage in bytes
+     */
+    public long getMemoryUsage() {
+        return blockRecords.length * 4L + FILTER_BYTES * 3L;
+    }
+
+    /**
+     * Computes hashes of 4-grams of given patterns.
+     *
+     * @param patterns patterns
+     * @return hashes of 4-grams for each pattern or null if some pattern is
+     * too short to be indexed
+     */
+    @Nullable
+    public static int[][] computePatternHashes(List<byte[]> patterns) {
+        int[][] patternHashes = new int[patterns.size()][];
+        for (int patternIndex = 0; patternIndex < patterns.size(); patternIndex++) {
+            byte[] pattern = patterns.get(patternIndex);
+            if (pattern.length < NGRAM_LENGTH) {
+                return null;
+            }
+
+            // Only n-grams within two adjacent blocks are reliable
+            int ngramsCount = Math.min(pattern.length - NGRAM_LENGTH + 1, Math.min(MAX_PATTERN_NGRAMS, BLOCK_SIZE));
+            int[] hashes = new int[ngramsCount];
+            for (int i = 0; i < ngramsCount; i++) {
+                int value = ((pattern[i] & 0xff) << 24) | ((pattern[i + 1] & 0xff) << 16) | ((pattern[i + 2] & 0xff) << 8) | (pattern[i + 3] & 0xff);
+                hashes[i] = hashNgram(value);
+            }
+            patternHashes[patternIndex] = hashes;
+        }
+        return patternHashes;
+    }
+
+    /**
+     * Returns true if match of any pattern can start in given block of source
+     * file.
+     *
+     * Filters of the last two read blocks are kept, so that blocks tested in
+     * ascending order are read from index file only once.
+     *
+     * @param block block index
+     * @param patternHashes hashes of pattern 4-grams
+     * @return true if block has to be searched
+     * @throws IOException if reading of index file fails
+     */
+    public synchronized boolean isCandidateBlock(int block, int[][] patternHashes) throws IOException {
+        if (block < 0 || block >= blockRecords.length) {
+            return true;
+        }
+
+        boolean hasNext = block + 1 < blockRecords.length;
+        if (blockRecords[block] == DENSE_BLOCK || (hasNext && blockRecords[block + 1] == DENSE_BLOCK)) {
+            return true;
+        }
+
+        loadFilters(block, hasNext);
+        for (int[] hashes : patternHashes) {
+            boolean allPresent = true;
+            for (int hash : hashes) {
+                long mask = 1L << hash;
+                if ((filter[hash >>> 6] & mask) == 0 && (!hasNext || (nextFilter[hash >>> 6] & mask) == 0)) {
+                    allPresent = false;
+                    break;
+                }
+            }
+            if (allPresent) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void loadFilters(int block, boolean hasNext) throws IOException {
+        if (filterBlock != block) {
+            if (nextFilterBlock == block) {
+                System.arraycopy(nextFilter, 0, filter, 0, FILTER_LONGS);
+            } else {
+                readFilter(block, filter);
+            }
+            filterBlock = block;
+        }
+        if (hasNext && nextFilterBlock != block + 1) {
+            readFilter(block + 1, nextFilter);
+            nextFilterBlock = block + 1;
+        }
+    }
+
+    private void readFilter(int block, long[] target) throws IOException {
+        FileChannel channel = indexFile.getChannel();
+        long recordPosition = recordsOffset + (long) blockRecords[block] * FILTER_BYTES;
+        recordBuffer.clear();
+        while (recordBuffer.hasRemaining()) {
+            if (channel.read(recordBuffer, recordPosition + recordBuffer.position()) < 0) {
+                throw new IOException("Unexpected end of index file");
+            }
+        }
+        recordBuffer.flip();
+        recordBuffer.asLongBuffer().get(target);
+    }
+
+    private static int hashNgram(int value) {
+        return (value * 0x9e3779b1) >>> (32 - FILTER_BITS_SHIFT);
+    }
+}
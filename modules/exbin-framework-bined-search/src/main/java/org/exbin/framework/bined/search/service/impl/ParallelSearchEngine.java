@@ -0,0 +1,173 @@
+/*
+ * Copyright (C) ExBin Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.exbin.framework.bined.search.service.impl;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import javax.annotation.Nonnull;
+import javax.annotation.ParametersAreNonnullByDefault;
+import org.exbin.auxiliary.binary_data.BinaryData;
+
+/**
+ * Search engine scanning blocks of data in parallel on fork-join pool.
+ *
+ * Data are split into blocks overlapping by maximal pattern length - 1 bytes.
+ * Blocks are read by calling thread only, as binary data implementations are
+ * not safe for concurrent access, and matched concurrently. Matches and
+ * progress are passed to listener in calling thread in the order of blocks.
+ *
+ * @author ExBin Project (https://exbin.org)
+ */
+@ParametersAreNonnullByDefault
+public class ParallelSearchEngine {
+
+    private final BinaryDataSearchEngine searchEngine;
+    private final ForkJoinPool pool;
+    private final int maxPendingBlocks;
+
+    public ParallelSearchEngine(BinaryDataSearchEngine searchEngine) {
+        this(searchEngine, ForkJoinPool.commonPool());
+    }
+
+    public ParallelSearchEngine(BinaryDataSearchEngine searchEngine, ForkJoinPool pool) {
+        this.searchEngine = searchEngine;
+        this.pool = pool;
+        maxPendingBlocks = pool.getParallelism() * 2;
+    }
+
+    @Nonnull
+    public BinaryDataSearchEngine getSearchEngine() {
+        return searchEngine;
+    }
+
+    /**
+     * Searches for matches starting in given range in ascending order.
+     *
+     * @param data data to search in
+     * @param rangeStart first allowed match start position
+     * @param rangeEnd end of allowed match start positions (exclusive)
+     * @param listener search listener
+     * @return true if whole range was processed, false if stopped by listener
+     */
+    public boolean searchForward(BinaryData data, long rangeStart, long rangeEnd, BinaryDataSearchEngine.SearchListener listener) {
+        return search(data, rangeStart, rangeEnd, listener, true);
+    }
+
+    /**
+     * Searches for matches starting in given range in descending order.
+     *
+     * @param data data to search in
+     * @param rangeStart first allowed match start position
+     * @param rangeEnd end of allowed match start positions (exclusive)
+     * @param listener search listener
+     * @return true if whole range was processed, false if stopped by listener
+     */
+    public boolean searchBackward(BinaryData data, long rangeStart, long rangeEnd, BinaryDataSearchEngine.SearchListener listener) {
+        return search(data, rangeStart, rangeEnd, listener, false);
+    }
+
+    private boolean search(BinaryData data, long rangeStart, long rangeEnd, BinaryDataSearchEngine.SearchListener listener, boolean forward) {
+        PatternMatcher matcher = searchEngine.getMatcher();
+        int blockSize = searchEngine.getBlockSize();
+        long dataSize = data.getDataSize();
+        rangeEnd = Math.min(rangeEnd, dataSize - matcher.getMinPatternLength() + 1);
+        if (rangeStart < 0) {
+            rangeStart = 0;
+        }
+        if (rangeStart >= rangeEnd) {
+            return true;
+        }
+
+        int bufferSize = blockSize + matcher.getMaxPatternLength() - 1;
+        Deque<BlockTask> pendingTasks = new ArrayDeque<>();
+        Deque<byte[]> freeBuffers = new ArrayDeque<>();
+        long nextPosition = forward ? rangeStart : rangeEnd;
+        try {
+            while (true) {
+                while (pendingTasks.size() < maxPendingBlocks && (forward ? nextPosition < rangeEnd : nextPosition > rangeStart)) {
+                    long blockStart;
+                    int ownLength;
+                    if (forward) {
+                        blockStart = nextPosition;
+                        ownLength = (int) Math.min(blockSize, rangeEnd - blockStart);
+                        nextPosition += ownLength;
+                    } else {
+                        ownLength = (int) Math.min(blockSize, nextPosition - rangeStart);
+                        blockStart = nextPosition - ownLength;
+                        nextPosition = blockStart;
+                    }
+
+                    byte[] buffer = freeBuffers.isEmpty() ? new byte[bufferSize] : freeBuffers.pop();
+                    int readLength = (int) Math.min(ownLength + matcher.getMaxPatternLength() - 1, dataSize - blockStart);
+                    data.copyToArray(blockStart, buffer, 0, readLength);
+                    BlockTask task = new BlockTask(matcher, buffer, readLength, ownLength, blockStart);
+                    pool.execute(task);
+                    pendingTasks.add(task);
+                }
+
+                BlockTask task = pendingTasks.poll();
+                if (task == null) {
+                    return true;
+                }
+
+                BinaryDataSearchEngine.BlockMatches blockMatches = task.join();
+                freeBuffers.push(task.buffer);
+                if (!blockMatches.deliver(task.blockStart, forward, listener)) {
+                    return false;
+                }
+
+                if (!listener.blockProcessed(forward ? task.blockStart + task.ownLength : task.blockStart)) {
+                    return false;
+                }
+            }
+        } finally {
+            for (BlockTask pendingTask : pendingTasks) {
+                pendingTask.cancel(false);
+            }
+        }
+    }
+
+    /**
+     * Task for matching of single block of data.
+     */
+    @ParametersAreNonnullByDefault
+    private static class BlockTask extends RecursiveTask<BinaryDataSearchEngine.BlockMatches> {
+
+        private final PatternMatcher matcher;
+        private final byte[] buffer;
+        private final int length;
+        private final int ownLength;
+        private final long blockStart;
+
+        public BlockTask(PatternMatcher matcher, byte[] buffer, int length, int ownLength, long blockStart) {
+            this.matcher = matcher;
+            this.buffer = buffer;
+            this.length = length;
+            this.ownLength = ownLength;
+            this.blockStart = blockStart;
+        }
+
+        @Nonnull
+        @Override
+        protected BinaryDataSearchEngine.BlockMatches compute() {
+            BinaryDataSearchEngine.BlockMatches blockMatches = new BinaryDataSearchEngine.BlockMatches();
+            blockMatches.collect(matcher, buffer, length, ownLength);
+            return blockMatches;
+        }
+    }
+}
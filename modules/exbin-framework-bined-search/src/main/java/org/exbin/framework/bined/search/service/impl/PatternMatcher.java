@@ -0,0 +1,92 @@
+/*
+ * Copyright (C) ExBin Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.exbin.framework.bined.search.service.impl;
+
+import javax.annotation.ParametersAreNonnullByDefault;
+
+/**
+ * Matcher of byte patterns in block of data.
+ *
+ * @author ExBin Project (https://exbin.org)
+ */
+@ParametersAreNonnullByDefault
+public interface PatternMatcher {
+
+    /**
+     * Returns number of patterns.
+     *
+     * @return patterns count
+     */
+    int getPatternsCount();
+
+    /**
+     * Returns length of pattern in bytes.
+     *
+     * @param patternIndex pattern index
+     * @return pattern length
+     */
+    int getPatternLength(int patternIndex);
+
+    /**
+     * Returns length of the shortest pattern.
+     *
+     * @return minimal pattern length
+     */
+    int getMinPatternLength();
+
+    /**
+     * Returns length of the longest pattern.
+     *
+     * @return maximal pattern length
+     */
+    int getMaxPatternLength();
+
+    /**
+     * Returns true if matches are reported in order of their start offsets.
+     *
+     * @return true if ordered
+     */
+    boolean isOrdered();
+
+    /**
+     * Finds all matches in given buffer.
+     *
+     * Only matches starting before startsLimit and fully contained in first
+     * length bytes of the buffer are reported.
+     *
+     * @param buffer data buffer
+     * @param length length of valid data in buffer
+     * @param startsLimit limit for match start offsets
+     * @param collector matches collector
+     * @return false if search was stopped by collector
+     */
+    boolean findMatches(byte[] buffer, int length, int startsLimit, MatchCollector collector);
+
+    /**
+     * Collector of found matches.
+     */
+    public interface MatchCollector {
+
+        /**
+         * Reports found match.
+         *
+         * @param offset match offset in buffer
+         * @param patternIndex index of matched pattern
+         * @return true to continue search
+         */
+        boolean matchFound(int offset, int patternIndex);
+    }
+}
@@ -0,0 +1,257 @@
+/*
+ * Copyright (C) ExBin Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.exbin.framework.bined.search.service.impl;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import javax.annotation.Nullable;
+import javax.annotation.ParametersAreNonnullByDefault;
+import org.exbin.auxiliary.binary_data.BinaryData;
+import org.exbin.auxiliary.binary_data.delta.DataSegment;
+import org.exbin.auxiliary.binary_data.delta.DeltaDocument;
+import org.exbin.auxiliary.binary_data.delta.SourceSegment;
+import org.exbin.auxiliary.binary_data.delta.file.FileDataSource;
+
+/**
+ * Manager of n-gram search index for file backed delta documents.
+ *
+ * Index is opened from cache directory or built into it in background thread
+ * for source file of the document. Index covers source file only, so ranges of
+ * document which were modified are stored in memory segments and are always
+ * searched, while source segments are searched in candidate blocks only.
+ *
+ * @author ExBin Project (https://exbin.org)
+ */
+@ParametersAreNonnullByDefault
+public class SearchIndexManager {
+
+    /**
+     * Minimal size of source file for which index is built.
+     */
+    public static final long MIN_INDEXED_SIZE = 64L * 1024 * 1024;
+
+    private File sourceFile = null;
+    private NgramSearchIndex index = null;
+    private IndexBuildThread buildThread = null;
+
+    /**
+     * Computes ranges of allowed match start positions which have to be
+     * searched.
+     *
+     * Starts building of index if index is not available yet.
+     *
+     * @param data searched data
+     * @param patterns searched patterns
+     * @return list of ranges as start and end (exclusive) pairs in ascending
+     * order or null if whole data has to be searched
+     */
+    @Nullable
+    public List<long[]> computeCandidateRanges(BinaryData data, List<byte[]> patterns) {
+        if (!(data instanceof DeltaDocument)) {
+            return null;
+        }
+
+        DeltaDocument document = (DeltaDocument) data;
+        if (!(document.getDataSource() instanceof FileDataSource)) {
+            return null;
+        }
+
+        File documentFile = ((FileDataSource) document.getDataSource()).getFile();
+        NgramSearchIndex currentIndex = getIndex(documentFile);
+        if (currentIndex == null) {
+            return null;
+        }
+
+        int[][] patternHashes = NgramSearchIndex.computePatternHashes(patterns);
+        if (patternHashes == null) {
+            return null;
+        }
+
+        int maxPatternLength = 0;
+        for (byte[] pattern : patterns) {
+            maxPatternLength = Math.max(maxPatternLength, pattern.length);
+        }
+
+        List<long[]> ranges = new ArrayList<>();
+        long documentPosition = 0;
+        DataSegment segment = document.getSegments().first();
+        while (segment != null) {
+            long segmentLength = segment.getLength();
+            if (segment instanceof SourceSegment) {
+                long sourceStart = ((SourceSegment) segment).getStartPosition();
+                long sourceEnd = sourceStart + segmentLength;
+                if (sourceEnd > currentIndex.getSourceSize()) {
+                    return null;
+                }
+
+                for (long block = sourceStart / NgramSearchIndex.BLOCK_SIZE; block * NgramSearchIndex.BLOCK_SIZE < sourceEnd; block++) {
+                    boolean candidateBlock;
+                    try {
+                        candidateBlock = currentIndex.isCandidateBlock((int) block, patternHashes);
+                    } catch (IOException ex) {
+                        Logger.getLogger(SearchIndexManager.class.getName()).log(Level.SEVERE, null, ex);
+                        return null;
+                    }
+                    if (candidateBlock) {
+                        long blockStart = Math.max(sourceStart, block * NgramSearchIndex.BLOCK_SIZE);
+                        long blockEnd = Math.min(sourceEnd, (block + 1) * NgramSearchIndex.BLOCK_SIZE);
+                        addRange(ranges, documentPosition + blockStart - sourceStart, documentPosition + blockEnd - sourceStart);
+                    }
+                }
+
+                // Matches can continue to following segment
+                long segmentEnd = documentPosition + segmentLength;
+                addRange(ranges, Math.max(documentPosition, segmentEnd - maxPatternLength + 1), segmentEnd);
+            } else {
+                addRange(ranges, documentPosition, documentPosition + segmentLength);
+            }
+
+            documentPosition += segmentLength;
+            segment = segment.getNext();
+        }
+        return ranges;
+    }
+
+    /**
+     * Returns index valid for given source file, starts loading or building
+     * of index otherwise.
+     *
+     * @param file source file
+     * @return index or null if not available yet
+     */
+    @Nullable
+    public synchronized NgramSearchIndex getIndex(File file) {
+        if (file.equals(sourceFile)) {
+            if (index != null && index.isValidFor(file)) {
+                return index;
+            }
+
+            if (buildThread != null && buildThread.isAlive()) {
+                return null;
+            }
+        }
+
+        closeIndex();
+        sourceFile = file;
+        if (buildThread != null) {
+            buildThread.interrupt();
+            buildThread = null;
+        }
+        if (file.length() >= MIN_INDEXED_SIZE) {
+            buildThread = new IndexBuildThread(file);
+            buildThread.start();
+        }
+        return null;
+    }
+
+    /**
+     * Returns heap memory held by opened index.
+     *
+     * @return memory usage in bytes
+     */
+    public synchronized long getMemoryUsage() {
+        return index == null ? 0 : index.getMemoryUsage();
+    }
+
+    public synchronized void dispose() {
+        if (buildThread != null) {
+            buildThread.interrupt();
+            buildThread = null;
+        }
+        closeIndex();
+        sourceFile = null;
+    }
+
+    private void closeIndex() {
+        if (index != null) {
+            index.close();
+            index = null;
+        }
+    }
+
+    private synchronized boolean indexBuilt(File file, NgramSearchIndex builtIndex) {
+        if (file.equals(sourceFile) && index == null) {
+            index = builtIndex;
+            return true;
+        }
+        return false;
+    }
+
+    private static void addRange(List<long[]> ranges, long start, long end) {
+        if (start >= end) {
+            return;
+        }
+
+        if (!ranges.isEmpty()) {
+            long[] lastRange = ranges.get(ranges.size() - 1);
+            if (start <= lastRange[1]) {
+                lastRange[1] = Math.max(lastRange[1], end);
+                return;
+            }
+        }
+        ranges.add(new long[]{start, end});
+    }
+
+    /**
+     * Thread loading index from cache or building it.
+     */
+    private class IndexBuildThread extends Thread {
+
+        private final File file;
+
+        public IndexBuildThread(File file) {
+            super("SearchIndexThread");
+            this.file = file;
+            setDaemon(true);
+            setPriority(Thread.MIN_PRIORITY);
+        }
+
+        @Override
+        public void run() {
+            File indexFile = NgramSearchIndex.getIndexFile(file);
+            try {
+                if (indexFile.isFile()) {
+                    if (openIndex(indexFile, true)) {
+                        return;
+                    }
+                }
+
+                if (NgramSearchIndex.build(file, indexFile)) {
+                    openIndex(indexFile, false);
+                }
+            } catch (IOException ex) {
+                Logger.getLogger(SearchIndexManager.class.getName()).log(Level.SEVERE, null, ex);
+            }
+        }
+
+        private boolean openIndex(File indexFile, boolean validate) throws IOException {
+            NgramSearchIndex openedIndex = NgramSearchIndex.open(indexFile);
+            if (openedIndex == null) {
+                return false;
+            }
+
+            if ((validate && !openedIndex.isValidFor(file)) || isInterrupted() || !indexBuilt(file, openedIndex)) {
+                openedIndex.close();
+                return false;
+            }
+            return true;
+        }
+    }
+}
@@ -0,0 +1,107 @@
+/*
+ * Copyright (C) ExBin Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.exbin.framework.bined.search.service.impl;
+
+import javax.annotation.Nonnull;
+import javax.annotation.ParametersAreNonnullByDefault;
+import javax.annotation.concurrent.Immutable;
+import org.exbin.framework.bined.ChangedDataRange;
+
+/**
+ * Update of searched range after data change.
+ *
+ * Only data which can contain matches overlapping changed range are searched
+ * again, matches outside of it are kept and shifted.
+ *
+ * @author ExBin Project (https://exbin.org)
+ */
+@Immutable
+@ParametersAreNonnullByDefault
+public final class SearchRangeUpdate {
+
+    private final long affectedStart;
+    private final long searchedRangeStart;
+    private final long searchedRangeEnd;
+    private final long rescanStart;
+    private final long rescanEnd;
+
+    private SearchRangeUpdate(long affectedStart, long searchedRangeStart, long searchedRangeEnd, long rescanStart, long rescanEnd) {
+        this.affectedStart = affectedStart;
+        this.searchedRangeStart = searchedRangeStart;
+        this.searchedRangeEnd = searchedRangeEnd;
+        this.rescanStart = rescanStart;
+        this.rescanEnd = rescanEnd;
+    }
+
+    /**
+     * Computes update of searched range.
+     *
+     * @param change changed range
+     * @param searchedRangeStart start of searched range before change
+     * @param searchedRangeEnd end of searched range before change or
+     * Long.MAX_VALUE for end of data
+     * @param maxPatternLength maximum length of match
+     * @return update
+     */
+    @Nonnull
+    public static SearchRangeUpdate compute(ChangedDataRange change, long searchedRangeStart, long searchedRangeEnd, int maxPatternLength) {
+        long changeStart = change.getPosition();
+        long previousChangeEnd = changeStart + change.getPreviousLength();
+        long currentChangeEnd = changeStart + change.getCurrentLength();
+        long shift = change.getShift();
+        // Matches starting from this position can overlap changed range
+        long affectedStart = changeStart - maxPatternLength + 1;
+        long updatedRangeStart = searchedRangeStart <= changeStart ? searchedRangeStart : (searchedRangeStart >= previousChangeEnd ? searchedRangeStart + shift : changeStart);
+        long updatedRangeEnd = searchedRangeEnd == Long.MAX_VALUE || searchedRangeEnd <= changeStart ? searchedRangeEnd : (searchedRangeEnd >= previousChangeEnd ? searchedRangeEnd + shift : currentChangeEnd);
+        long rescanStart = Math.max(updatedRangeStart, affectedStart);
+        long rescanEnd = Math.min(updatedRangeEnd, currentChangeEnd);
+        return new SearchRangeUpdate(affectedStart, updatedRangeStart, updatedRangeEnd, rescanStart, rescanEnd);
+    }
+
+    /**
+     * Returns position from which matches can overlap changed range.
+     *
+     * @return position
+     */
+    public long getAffectedStart() {
+        return affectedStart;
+    }
+
+    public long getSearchedRangeStart() {
+        return searchedRangeStart;
+    }
+
+    public long getSearchedRangeEnd() {
+        return searchedRangeEnd;
+    }
+
+    public long getRescanStart() {
+        return rescanStart;
+    }
+
+    public long getRescanEnd() {
+        return rescanEnd;
+    }
+
+    /**
+     * Returns length of data which has to be searched again.
+     *
+     * @return length
+     */
+    public long getRescanLength() {
+        return Math.max(0, rescanEnd - rescanStart);
+    }
+}
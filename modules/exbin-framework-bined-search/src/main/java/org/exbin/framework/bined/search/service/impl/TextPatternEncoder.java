@@ -0,0 +1,135 @@
+/*
+ * Copyright (C) ExBin Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.exbin.framework.bined.search.service.impl;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetEncoder;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import javax.annotation.Nullable;
+import javax.annotation.ParametersAreNonnullByDefault;
+
+/**
+ * Encoder of searched text to byte patterns.
+ *
+ * @author ExBin Project (https://exbin.org)
+ */
+@ParametersAreNonnullByDefault
+public class TextPatternEncoder {
+
+    private static final String[] STATEFUL_CHARSET_PREFIXES = {"ISO-2022", "x-ISO-2022", "UTF-7", "x-IBM93", "x-IBM1364", "x-IBM1371", "x-IBM1388", "x-IBM1390", "x-IBM1399", "x-JISAutoDetect"};
+
+    private TextPatternEncoder() {
+    }
+
+    /**
+     * Returns true if text cannot be searched as byte patterns in given
+     * charset, because encoding of characters depends on shift state or text
+     * is not encodable.
+     *
+     * @param text text
+     * @param charset charset
+     * @return true if text has to be searched by decoding data
+     */
+    public static boolean isStatefulEncoding(String text, Charset charset) {
+        String charsetName = charset.name();
+        for (String prefix : STATEFUL_CHARSET_PREFIXES) {
+            if (charsetName.startsWith(prefix)) {
+                return true;
+            }
+        }
+
+        if (!charset.canEncode() || !charset.newEncoder().canEncode(text)) {
+            return true;
+        }
+
+        ByteArrayOutputStream characters = new ByteArrayOutputStream();
+        int offset = 0;
+        while (offset < text.length()) {
+            int codePoint = text.codePointAt(offset);
+            byte[] encoded = ByteRegexCompiler.encodeText(new String(Character.toChars(codePoint)), charset);
+            characters.write(encoded, 0, encoded.length);
+            offset += Character.charCount(codePoint);
+        }
+
+        return !Arrays.equals(characters.toByteArray(), ByteRegexCompiler.encodeText(text, charset));
+    }
+
+    /**
+     * Encodes text to all byte forms matching it.
+     *
+     * @param text text
+     * @param charset charset
+     * @param matchCase false to include all case variants
+     * @param maxVariants maximum number of produced variants
+     * @return list of encoded variants or null if there are more than maximum
+     * variants
+     */
+    @Nullable
+    public static List<byte[]> encodeVariants(String text, Charset charset, boolean matchCase, int maxVariants) {
+        List<byte[]> variants = new ArrayList<>();
+        variants.add(new byte[0]);
+        int offset = 0;
+        while (offset < text.length()) {
+            int codePoint = text.codePointAt(offset);
+            offset += Character.charCount(codePoint);
+            List<byte[]> characterVariants = encodeCharacterVariants(codePoint, charset, matchCase);
+            if ((long) variants.size() * characterVariants.size() > maxVariants) {
+                return null;
+            }
+
+            List<byte[]> extendedVariants = new ArrayList<>(variants.size() * characterVariants.size());
+            for (byte[] variant : variants) {
+                for (byte[] characterVariant : characterVariants) {
+                    byte[] extendedVariant = Arrays.copyOf(variant, variant.length + characterVariant.length);
+                    System.arraycopy(characterVariant, 0, extendedVariant, variant.length, characterVariant.length);
+                    extendedVariants.add(extendedVariant);
+                }
+            }
+            variants = extendedVariants;
+        }
+        return variants;
+    }
+
+    private static List<byte[]> encodeCharacterVariants(int codePoint, Charset charset, boolean matchCase) {
+        int[] codePoints = matchCase
+                ? new int[]{codePoint}
+                : new int[]{codePoint, Character.toLowerCase(codePoint), Character.toUpperCase(codePoint), Character.toTitleCase(codePoint)};
+        List<byte[]> characterVariants = new ArrayList<>(codePoints.length);
+        CharsetEncoder encoder = charset.newEncoder();
+        for (int variantCodePoint : codePoints) {
+            String variantText = new String(Character.toChars(variantCodePoint));
+            if (variantCodePoint != codePoint && !encoder.canEncode(variantText)) {
+                continue;
+            }
+
+            byte[] encoded = ByteRegexCompiler.encodeText(variantText, charset);
+            boolean duplicate = false;
+            for (byte[] characterVariant : characterVariants) {
+                if (Arrays.equals(characterVariant, encoded)) {
+                    duplicate = true;
+                    break;
+                }
+            }
+            if (!duplicate) {
+                characterVariants.add(encoded);
+            }
+        }
+        return characterVariants;
+    }
+}
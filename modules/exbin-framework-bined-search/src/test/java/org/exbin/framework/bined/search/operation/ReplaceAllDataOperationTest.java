@@ -0,0 +1,234 @@
+/*
+ * Copyright (C) ExBin Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.exbin.framework.bined.search.operation;
+
+import java.io.ByteArrayOutputStream;
+import java.io.InterruptedIOException;
+import java.util.Random;
+import javax.annotation.Nonnull;
+import javax.annotation.ParametersAreNonnullByDefault;
+import org.exbin.auxiliary.binary_data.BinaryData;
+import org.exbin.auxiliary.binary_data.array.ByteArrayEditableData;
+import org.exbin.bined.operation.BinaryDataUndoableOperation;
+import org.exbin.framework.bined.BinEdFileOperation;
+import org.exbin.framework.bined.ChangedDataRange;
+import org.exbin.framework.bined.UndoDataStorage;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Tests for ReplaceAllDataOperation class.
+ *
+ * @author ExBin Project (https://exbin.org)
+ */
+@ParametersAreNonnullByDefault
+public class ReplaceAllDataOperationTest {
+
+    private UndoDataStorage storage;
+
+    @Before
+    public void setUp() {
+        storage = new UndoDataStorage();
+    }
+
+    @After
+    public void tearDown() {
+        storage.dispose();
+    }
+
+    @Test
+    public void testManyMatchesModifyDocumentOnce() {
+        byte[] original = createData(100000);
+        int matchesCount = 5000;
+        long[] positions = new long[matchesCount];
+        long[] lengths = new long[matchesCount];
+        for (int i = 0; i < matchesCount; i++) {
+            // Both short and long unchanged runs between matches
+            positions[i] = i * 20L + (i % 2 == 0 ? 0 : 3);
+            lengths[i] = 1 + i % 3;
+        }
+        byte[] replacement = new byte[]{(byte) 0xAA, (byte) 0xBB};
+        CountingData data = new CountingData(original.clone());
+        ReplaceAllDataOperation operation = new ReplaceAllDataOperation(positions, lengths, new ByteArrayEditableData(replacement), storage);
+
+        BinaryDataUndoableOperation undoOperation = operation.executeWithUndo(data);
+        Assert.assertEquals(1, data.removeCount);
+        Assert.assertEquals(1, data.insertCount);
+        Assert.assertArrayEquals(replaceMatches(original, positions, lengths, replacement), toArray(data));
+
+        long originalLength = 0;
+        for (long length : lengths) {
+            originalLength += length;
+        }
+        Assert.assertEquals(originalLength, storage.getMemoryUsage(data));
+
+        undoOperation.execute(data);
+        undoOperation.dispose();
+        Assert.assertEquals(2, data.removeCount);
+        Assert.assertEquals(2, data.insertCount);
+        Assert.assertArrayEquals(original, toArray(data));
+        Assert.assertEquals(0, storage.getMemoryUsage());
+    }
+
+    @Test
+    public void testUndoFromSpilledData() {
+        storage.setSpillThreshold(1);
+        byte[] original = createData(5000);
+        long[] positions = new long[]{0, 1000, 4990};
+        long[] lengths = new long[]{10, 500, 10};
+        ByteArrayEditableData data = new ByteArrayEditableData(original.clone());
+        ReplaceAllDataOperation operation = new ReplaceAllDataOperation(positions, lengths, new ByteArrayEditableData(new byte[]{1}), storage);
+
+        BinaryDataUndoableOperation undoOperation = operation.executeWithUndo(data);
+        Assert.assertEquals(4483, data.getDataSize());
+        Assert.assertEquals(0, storage.getMemoryUsage());
+        Assert.assertTrue(((RestoreMatchesDataOperation) undoOperation).isRestorable());
+        undoOperation.execute(data);
+        Assert.assertArrayEquals(original, toArray(data));
+    }
+
+    @Test
+    public void testSameLengthOverwritesInPlace() {
+        byte[] original = createData(1000);
+        long[] positions = new long[]{10, 20, 990};
+        long[] lengths = new long[]{2, 2, 2};
+        byte[] replacement = new byte[]{5, 6};
+        CountingData data = new CountingData(original.clone());
+        ReplaceAllDataOperation operation = new ReplaceAllDataOperation(positions, lengths, new ByteArrayEditableData(replacement), storage);
+
+        BinaryDataUndoableOperation undoOperation = operation.executeWithUndo(data);
+        Assert.assertEquals(0, data.removeCount);
+        Assert.assertEquals(0, data.insertCount);
+        Assert.assertArrayEquals(replaceMatches(original, positions, lengths, replacement), toArray(data));
+
+        undoOperation.execute(data);
+        Assert.assertArrayEquals(original, toArray(data));
+    }
+
+    @Test
+    public void testChangedRange() {
+        ReplaceAllDataOperation operation = new ReplaceAllDataOperation(new long[]{10, 50}, new long[]{5, 10}, new ByteArrayEditableData(new byte[3]), storage);
+        ChangedDataRange changedRange = operation.getChangedRange();
+        Assert.assertNotNull(changedRange);
+        Assert.assertEquals(10, changedRange.getPosition());
+        Assert.assertEquals(50, changedRange.getPreviousLength());
+        Assert.assertEquals(41, changedRange.getCurrentLength());
+        Assert.assertEquals(50, operation.getRangeLength());
+    }
+
+    @Test
+    public void testPreparedDataReused() throws Exception {
+        byte[] original = createData(1000);
+        long[] positions = new long[]{100, 500};
+        long[] lengths = new long[]{1, 1};
+        CountingData data = new CountingData(original.clone());
+        ReplaceAllDataOperation operation = new ReplaceAllDataOperation(positions, lengths, new ByteArrayEditableData(new byte[0]), storage);
+        BinEdFileOperation progress = new BinEdFileOperation(BinEdFileOperation.OperationType.CONVERT, operation.getRangeLength());
+        operation.prepare(data, true, progress);
+        Assert.assertEquals(operation.getRangeLength(), progress.getProcessedSize());
+        Assert.assertArrayEquals(original, toArray(data));
+
+        operation.executeWithUndo(data);
+        Assert.assertEquals(998, data.getDataSize());
+        Assert.assertEquals(1, data.removeCount);
+        Assert.assertEquals(1, data.insertCount);
+    }
+
+    @Test
+    public void testPrepareCancelled() throws Exception {
+        byte[] original = createData(1000);
+        CountingData data = new CountingData(original.clone());
+        ReplaceAllDataOperation operation = new ReplaceAllDataOperation(new long[]{10}, new long[]{5}, new ByteArrayEditableData(new byte[1]), storage);
+        BinEdFileOperation progress = new BinEdFileOperation(BinEdFileOperation.OperationType.CONVERT, operation.getRangeLength());
+        progress.cancel();
+        try {
+            operation.prepare(data, true, progress);
+            Assert.fail("Cancelled preparation must fail");
+        } catch (InterruptedIOException ex) {
+            // Expected
+        }
+        Assert.assertArrayEquals(original, toArray(data));
+        Assert.assertEquals(0, storage.getMemoryUsage());
+    }
+
+    @Test
+    public void testOverlappingMatches() {
+        ByteArrayEditableData data = new ByteArrayEditableData(createData(100));
+        ReplaceAllDataOperation operation = new ReplaceAllDataOperation(new long[]{10, 12}, new long[]{5, 5}, new ByteArrayEditableData(new byte[1]), storage);
+        try {
+            operation.executeWithUndo(data);
+            Assert.fail("Overlapping matches must not be replaced");
+        } catch (IllegalStateException ex) {
+            // Expected
+        }
+        Assert.assertEquals(100, data.getDataSize());
+    }
+
+    @Nonnull
+    private static byte[] replaceMatches(byte[] data, long[] positions, long[] lengths, byte[] replacement) {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        int position = 0;
+        for (int i = 0; i < positions.length; i++) {
+            output.write(data, position, (int) positions[i] - position);
+            output.write(replacement, 0, replacement.length);
+            position = (int) (positions[i] + lengths[i]);
+        }
+        output.write(data, position, data.length - position);
+        return output.toByteArray();
+    }
+
+    @Nonnull
+    private static byte[] toArray(BinaryData data) {
+        byte[] result = new byte[(int) data.getDataSize()];
+        data.copyToArray(0, result, 0, result.length);
+        return result;
+    }
+
+    @Nonnull
+    private static byte[] createData(int length) {
+        byte[] data = new byte[length];
+        new Random(length).nextBytes(data);
+        return data;
+    }
+
+    /**
+     * Data counting operations which change their length.
+     */
+    @ParametersAreNonnullByDefault
+    private static class CountingData extends ByteArrayEditableData {
+
+        private int removeCount = 0;
+        private int insertCount = 0;
+
+        public CountingData(byte[] data) {
+            super(data);
+        }
+
+        @Override
+        public void remove(long startFrom, long length) {
+            removeCount++;
+            super.remove(startFrom, length);
+        }
+
+        @Override
+        public void insert(long startFrom, BinaryData insertedData) {
+            insertCount++;
+            super.insert(startFrom, insertedData);
+        }
+    }
+}
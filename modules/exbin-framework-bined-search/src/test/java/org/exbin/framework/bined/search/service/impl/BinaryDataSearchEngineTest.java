@@ -0,0 +1,235 @@
+/*
+ * Copyright (C) ExBin Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.exbin.framework.bined.search.service.impl;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import javax.annotation.Nonnull;
+import javax.annotation.ParametersAreNonnullByDefault;
+import org.exbin.auxiliary.binary_data.BinaryData;
+import org.exbin.auxiliary.binary_data.array.ByteArrayEditableData;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Tests for BinaryDataSearchEngine class.
+ *
+ * @author ExBin Project (https://exbin.org)
+ */
+@ParametersAreNonnullByDefault
+public class BinaryDataSearchEngineTest {
+
+    private static final int[] BLOCK_SIZES = {1, 2, 3, 5, 16, 1000, BinaryDataSearchEngine.DEFAULT_BLOCK_SIZE};
+
+    @Test
+    public void testHorspoolAcrossBlocks() {
+        byte[] data = createData(3000, 3);
+        List<byte[]> patterns = Arrays.asList(new byte[]{0, 1, 2, 0});
+        checkSearch(data, patterns);
+    }
+
+    @Test
+    public void testHorspoolOverlappingMatches() {
+        byte[] data = new byte[]{1, 1, 1, 1, 1};
+        BinaryDataSearchEngine engine = new BinaryDataSearchEngine(BinaryDataSearchEngine.createMatcher(new byte[]{1, 1}), 2);
+        Assert.assertEquals(Arrays.asList(0L, 1L, 2L, 3L), searchForward(engine, data, 0, data.length));
+        Assert.assertEquals(Arrays.asList(3L, 2L, 1L, 0L), searchBackward(engine, data, 0, data.length));
+    }
+
+    @Test
+    public void testAhoCorasickSameLengthAcrossBlocks() {
+        byte[] data = createData(3000, 3);
+        List<byte[]> patterns = Arrays.asList(new byte[]{0, 1, 2}, new byte[]{2, 2, 1}, new byte[]{1, 1, 1});
+        checkSearch(data, patterns);
+    }
+
+    @Test
+    public void testAhoCorasickDifferentLengthsAcrossBlocks() {
+        byte[] data = createData(3000, 3);
+        List<byte[]> patterns = Arrays.asList(new byte[]{0, 1, 2, 0, 1}, new byte[]{2}, new byte[]{1, 0}, new byte[]{0, 1, 2});
+        checkSearch(data, patterns);
+    }
+
+    @Test
+    public void testRangeLimits() {
+        byte[] data = createData(500, 2);
+        byte[] pattern = new byte[]{0, 1, 1};
+        BinaryDataSearchEngine engine = new BinaryDataSearchEngine(BinaryDataSearchEngine.createMatcher(pattern), 7);
+        List<Long> expected = new ArrayList<>();
+        for (long position : findAll(data, Arrays.asList(pattern))) {
+            if (position >= 100 && position < 400) {
+                expected.add(position);
+            }
+        }
+        Assert.assertEquals(expected, searchForward(engine, data, 100, 400));
+    }
+
+    @Test
+    public void testEmptyData() {
+        BinaryDataSearchEngine engine = new BinaryDataSearchEngine(BinaryDataSearchEngine.createMatcher(new byte[]{1}), 4);
+        Assert.assertEquals(new ArrayList<Long>(), searchForward(engine, new byte[0], 0, 0));
+        Assert.assertEquals(new ArrayList<Long>(), searchBackward(engine, new byte[0], 0, 0));
+    }
+
+    @Test
+    public void testSingleByteData() {
+        byte[] data = new byte[]{7};
+        BinaryDataSearchEngine engine = new BinaryDataSearchEngine(BinaryDataSearchEngine.createMatcher(new byte[]{7}), 4);
+        Assert.assertEquals(Arrays.asList(0L), searchForward(engine, data, 0, 1));
+        Assert.assertEquals(Arrays.asList(0L), searchBackward(engine, data, 0, 1));
+
+        BinaryDataSearchEngine longerEngine = new BinaryDataSearchEngine(BinaryDataSearchEngine.createMatcher(new byte[]{7, 7}), 4);
+        Assert.assertEquals(new ArrayList<Long>(), searchForward(longerEngine, data, 0, 1));
+        Assert.assertEquals(new ArrayList<Long>(), searchBackward(longerEngine, data, 0, 1));
+    }
+
+    @Test
+    public void testCancelledByMatch() {
+        byte[] data = new byte[100];
+        BinaryDataSearchEngine engine = new BinaryDataSearchEngine(BinaryDataSearchEngine.createMatcher(new byte[]{0}), 8);
+        List<Long> matches = new ArrayList<>();
+        boolean completed = engine.searchForward(new ByteArrayEditableData(data), 0, data.length, new BinaryDataSearchEngine.SearchListener() {
+            @Override
+            public boolean matchFound(long position, int patternIndex) {
+                matches.add(position);
+                return matches.size() < 3;
+            }
+
+            @Override
+            public boolean blockProcessed(long position) {
+                return true;
+            }
+        });
+        Assert.assertFalse(completed);
+        Assert.assertEquals(Arrays.asList(0L, 1L, 2L), matches);
+    }
+
+    @Test
+    public void testCancelledByProgress() {
+        byte[] data = new byte[100];
+        BinaryDataSearchEngine engine = new BinaryDataSearchEngine(BinaryDataSearchEngine.createMatcher(new byte[]{1}), 8);
+        List<Long> processed = new ArrayList<>();
+        boolean completed = engine.searchBackward(new ByteArrayEditableData(data), 0, data.length, new BinaryDataSearchEngine.SearchListener() {
+            @Override
+            public boolean matchFound(long position, int patternIndex) {
+                return true;
+            }
+
+            @Override
+            public boolean blockProcessed(long position) {
+                processed.add(position);
+                return false;
+            }
+        });
+        Assert.assertFalse(completed);
+        Assert.assertEquals(Arrays.asList(92L), processed);
+    }
+
+    private static void checkSearch(byte[] data, List<byte[]> patterns) {
+        List<Long> expected = findAll(data, patterns);
+        List<Long> expectedBackward = new ArrayList<>(expected);
+        Collections.reverse(expectedBackward);
+        for (int blockSize : BLOCK_SIZES) {
+            BinaryDataSearchEngine engine = new BinaryDataSearchEngine(BinaryDataSearchEngine.createMatcher(patterns), blockSize);
+            Assert.assertEquals("Block size " + blockSize, expected, searchForward(engine, data, 0, data.length));
+            Assert.assertEquals("Block size " + blockSize, expectedBackward, searchBackward(engine, data, 0, data.length));
+        }
+    }
+
+    /**
+     * Finds all match positions using naive search.
+     *
+     * @param data data
+     * @param patterns patterns
+     * @return positions in ascending order
+     */
+    @Nonnull
+    static List<Long> findAll(byte[] data, List<byte[]> patterns) {
+        List<Long> positions = new ArrayList<>();
+        for (int position = 0; position < data.length; position++) {
+            for (byte[] pattern : patterns) {
+                if (matchesAt(data, position, pattern)) {
+                    positions.add((long) position);
+                    break;
+                }
+            }
+        }
+        return positions;
+    }
+
+    private static boolean matchesAt(byte[] data, int position, byte[] pattern) {
+        if (position + pattern.length > data.length) {
+            return false;
+        }
+        for (int i = 0; i < pattern.length; i++) {
+            if (data[position + i] != pattern[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Nonnull
+    static byte[] createData(int length, int alphabetSize) {
+        Random random = new Random(length);
+        byte[] data = new byte[length];
+        for (int i = 0; i < length; i++) {
+            data[i] = (byte) random.nextInt(alphabetSize);
+        }
+        return data;
+    }
+
+    @Nonnull
+    private static List<Long> searchForward(BinaryDataSearchEngine engine, byte[] data, long rangeStart, long rangeEnd) {
+        MatchesCollector collector = new MatchesCollector();
+        Assert.assertTrue(engine.searchForward(createBinaryData(data), rangeStart, rangeEnd, collector));
+        return collector.positions;
+    }
+
+    @Nonnull
+    private static List<Long> searchBackward(BinaryDataSearchEngine engine, byte[] data, long rangeStart, long rangeEnd) {
+        MatchesCollector collector = new MatchesCollector();
+        Assert.assertTrue(engine.searchBackward(createBinaryData(data), rangeStart, rangeEnd, collector));
+        return collector.positions;
+    }
+
+    @Nonnull
+    static BinaryData createBinaryData(byte[] data) {
+        return new ByteArrayEditableData(data);
+    }
+
+    /**
+     * Search listener collecting positions of matches.
+     */
+    static class MatchesCollector implements BinaryDataSearchEngine.SearchListener {
+
+        final List<Long> positions = new ArrayList<>();
+
+        @Override
+        public boolean matchFound(long position, int patternIndex) {
+            positions.add(position);
+            return true;
+        }
+
+        @Override
+        public boolean blockProcessed(long position) {
+            return true;
+        }
+    }
+}
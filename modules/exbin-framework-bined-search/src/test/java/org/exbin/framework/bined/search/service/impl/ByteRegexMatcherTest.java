@@ -0,0 +1,239 @@
+/*
+ * Copyright (C) ExBin Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.exbin.framework.bined.search.service.impl;
+
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.regex.PatternSyntaxException;
+import javax.annotation.Nonnull;
+import javax.annotation.ParametersAreNonnullByDefault;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Tests for byte regular expression virtual machine.
+ *
+ * Matches are compared with matches of java.util.regex over the same data
+ * decoded as ISO-8859-1, empty matches are not reported by byte matcher.
+ *
+ * @author ExBin Project (https://exbin.org)
+ */
+@ParametersAreNonnullByDefault
+public class ByteRegexMatcherTest {
+
+    private static final String[] EXPRESSIONS = {
+        "abc",
+        "a|bc|cab",
+        "(ab)+c",
+        "a.c",
+        "[a-c]{2,3}",
+        "[^ab]+",
+        "a+?b",
+        "ca*",
+        "b*",
+        "\\d+",
+        "\\w\\s",
+        "(a|ab)(c|bcd)",
+        "^ab",
+        "c$",
+        "\\x61[\\x62\\x63]"
+    };
+
+    @Test
+    public void testMatchesAsJavaRegex() {
+        byte[] data = createData(2000, "abc 1\n");
+        for (String expression : EXPRESSIONS) {
+            Assert.assertEquals(expression, findJavaMatches(expression, data, 0), findMatches(expression, data, true));
+        }
+    }
+
+    @Test
+    public void testCaseInsensitive() {
+        byte[] data = "xAbC abc ABC aBx".getBytes(StandardCharsets.ISO_8859_1);
+        Assert.assertEquals(Arrays.asList(1L, 3L, 5L, 3L, 9L, 3L), findMatches("abc", data, false));
+        Assert.assertEquals(Arrays.asList(5L, 3L), findMatches("abc", data, true));
+    }
+
+    @Test
+    public void testLiteral() {
+        byte[] data = "a.c abc a.c".getBytes(StandardCharsets.ISO_8859_1);
+        ByteRegexProgram program = ByteRegexCompiler.compileLiteral("a.c", StandardCharsets.ISO_8859_1, true);
+        Assert.assertEquals(Arrays.asList(0L, 3L, 8L, 3L), search(program, data, 0));
+    }
+
+    @Test
+    public void testMultiByteCharset() {
+        Charset charset = StandardCharsets.UTF_16BE;
+        byte[] data = "x\u00e9y\u00e9".getBytes(charset);
+        Assert.assertEquals(Arrays.asList(2L, 2L, 6L, 2L), search(ByteRegexCompiler.compile("\u00e9", charset, true), data, 0));
+    }
+
+    @Test
+    public void testStartPosition() {
+        byte[] data = createData(500, "ab");
+        for (long startPosition : new long[]{0, 1, 17, 499, 500}) {
+            Assert.assertEquals(findJavaMatches("ab+", data, (int) startPosition), search(ByteRegexCompiler.compile("ab+", StandardCharsets.ISO_8859_1, true), data, startPosition));
+        }
+    }
+
+    @Test
+    public void testMatchAcrossWindow() {
+        byte[] data = new byte[BinaryDataWindow.DEFAULT_WINDOW_SIZE + 100];
+        int matchPosition = BinaryDataWindow.DEFAULT_WINDOW_SIZE - 2;
+        data[matchPosition] = 'x';
+        data[matchPosition + 1] = 'y';
+        data[matchPosition + 2] = 'y';
+        data[matchPosition + 3] = 'z';
+        Assert.assertEquals(Arrays.asList((long) matchPosition, 4L), findMatches("xy+z", data, true));
+    }
+
+    @Test
+    public void testBackward() {
+        byte[] data = createData(1000, "abc ");
+        ByteRegexProgram program = ByteRegexCompiler.compile("(a|b)+c", StandardCharsets.ISO_8859_1, true);
+        List<Long> forward = search(program, data, 0);
+        List<Long> expected = new ArrayList<>();
+        for (int i = forward.size() - 2; i >= 0; i -= 2) {
+            if (forward.get(i) <= 600) {
+                expected.add(forward.get(i));
+                expected.add(forward.get(i + 1));
+            }
+        }
+
+        List<Long> matches = new ArrayList<>();
+        Assert.assertTrue(new ByteRegexMatcher(program).searchBackward(BinaryDataSearchEngineTest.createBinaryData(data), 600, new CollectingListener(matches)));
+        Assert.assertEquals(expected, matches);
+    }
+
+    @Test
+    public void testEmptyData() {
+        Assert.assertEquals(Collections.emptyList(), findMatches("a", new byte[0], true));
+        Assert.assertEquals(Collections.emptyList(), findMatches("a*", new byte[0], true));
+        Assert.assertEquals(Collections.emptyList(), findMatches("^$", new byte[0], true));
+    }
+
+    @Test
+    public void testSingleByteData() {
+        byte[] data = new byte[]{'a'};
+        Assert.assertEquals(Arrays.asList(0L, 1L), findMatches("a", data, true));
+        Assert.assertEquals(Arrays.asList(0L, 1L), findMatches("^.$", data, true));
+        Assert.assertEquals(Collections.emptyList(), findMatches("ab", data, true));
+        List<Long> matches = new ArrayList<>();
+        Assert.assertTrue(new ByteRegexMatcher(ByteRegexCompiler.compile("a", StandardCharsets.ISO_8859_1, true)).searchBackward(BinaryDataSearchEngineTest.createBinaryData(data), 0, new CollectingListener(matches)));
+        Assert.assertEquals(Arrays.asList(0L, 1L), matches);
+    }
+
+    @Test
+    public void testCancelled() {
+        byte[] data = createData(100, "a");
+        ByteRegexProgram program = ByteRegexCompiler.compile("a", StandardCharsets.ISO_8859_1, true);
+        List<Long> matches = new ArrayList<>();
+        boolean completed = new ByteRegexMatcher(program).searchForward(BinaryDataSearchEngineTest.createBinaryData(data), 0, new ByteRegexMatcher.SearchListener() {
+            @Override
+            public boolean matchFound(long position, long length) {
+                matches.add(position);
+                return matches.size() < 5;
+            }
+
+            @Override
+            public boolean blockProcessed(long position) {
+                return true;
+            }
+        });
+        Assert.assertFalse(completed);
+        Assert.assertEquals(Arrays.asList(0L, 1L, 2L, 3L, 4L), matches);
+    }
+
+    @Test(expected = PatternSyntaxException.class)
+    public void testUnsupportedBackReference() {
+        ByteRegexCompiler.compile("(a)\\1", StandardCharsets.ISO_8859_1, true);
+    }
+
+    @Test(expected = PatternSyntaxException.class)
+    public void testUnclosedGroup() {
+        ByteRegexCompiler.compile("(ab", StandardCharsets.ISO_8859_1, true);
+    }
+
+    @Nonnull
+    private static List<Long> findMatches(String expression, byte[] data, boolean matchCase) {
+        return search(ByteRegexCompiler.compile(expression, StandardCharsets.ISO_8859_1, matchCase), data, 0);
+    }
+
+    @Nonnull
+    private static List<Long> search(ByteRegexProgram program, byte[] data, long startPosition) {
+        List<Long> matches = new ArrayList<>();
+        Assert.assertTrue(new ByteRegexMatcher(program).searchForward(BinaryDataSearchEngineTest.createBinaryData(data), startPosition, new CollectingListener(matches)));
+        return matches;
+    }
+
+    @Nonnull
+    private static List<Long> findJavaMatches(String expression, byte[] data, int startPosition) {
+        List<Long> matches = new ArrayList<>();
+        Matcher matcher = Pattern.compile(expression, Pattern.DOTALL).matcher(new String(data, StandardCharsets.ISO_8859_1));
+        int position = startPosition;
+        while (position <= data.length && matcher.find(position)) {
+            if (matcher.end() > matcher.start()) {
+                matches.add((long) matcher.start());
+                matches.add((long) (matcher.end() - matcher.start()));
+                position = matcher.end();
+            } else {
+                position = matcher.start() + 1;
+            }
+        }
+        return matches;
+    }
+
+    @Nonnull
+    private static byte[] createData(int length, String alphabet) {
+        Random random = new Random(length);
+        byte[] data = new byte[length];
+        for (int i = 0; i < length; i++) {
+            data[i] = (byte) alphabet.charAt(random.nextInt(alphabet.length()));
+        }
+        return data;
+    }
+
+    /**
+     * Listener collecting match positions and lengths.
+     */
+    private static class CollectingListener implements ByteRegexMatcher.SearchListener {
+
+        private final List<Long> matches;
+
+        public CollectingListener(List<Long> matches) {
+            this.matches = matches;
+        }
+
+        @Override
+        public boolean matchFound(long position, long length) {
+            matches.add(position);
+            matches.add(length);
+            return true;
+        }
+
+        @Override
+        public boolean blockProcessed(long position) {
+            return true;
+        }
+    }
+}
@@ -0,0 +1,129 @@
+/*
+ * Copyright (C) ExBin Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.exbin.framework.bined.search.service.impl;
+
+import java.util.List;
+import javax.annotation.ParametersAreNonnullByDefault;
+import org.exbin.bined.highlight.swing.SearchMatch;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Tests for CompactSearchMatches class.
+ *
+ * @author ExBin Project (https://exbin.org)
+ */
+@ParametersAreNonnullByDefault
+public class CompactSearchMatchesTest {
+
+    @Test
+    public void testEmpty() {
+        CompactSearchMatches matches = new CompactSearchMatches();
+        Assert.assertTrue(matches.isEmpty());
+        Assert.assertEquals(0, matches.size());
+        Assert.assertEquals(0, matches.findIndex(0));
+        Assert.assertEquals(0, matches.getMemoryUsage());
+        Assert.assertTrue(matches.getMatches(0, 0).isEmpty());
+    }
+
+    @Test
+    public void testSingleMatch() {
+        CompactSearchMatches matches = new CompactSearchMatches();
+        matches.add(10, 1);
+        Assert.assertEquals(1, matches.size());
+        Assert.assertEquals(10, matches.getPosition(0));
+        Assert.assertEquals(1, matches.getLength(0));
+        Assert.assertEquals(0, matches.findIndex(5));
+        Assert.assertEquals(0, matches.findIndex(10));
+        Assert.assertEquals(1, matches.findIndex(11));
+    }
+
+    @Test
+    public void testAcrossChunks() {
+        int count = 200000;
+        CompactSearchMatches matches = new CompactSearchMatches();
+        for (int i = 0; i < count; i++) {
+            matches.add(i * 3L, 2);
+        }
+        Assert.assertEquals(count, matches.size());
+        Assert.assertEquals(65536 * 3L, matches.getPosition(65536));
+        Assert.assertEquals((count - 1) * 3L, matches.getPosition(count - 1));
+        Assert.assertEquals(65536, matches.findIndex(65536 * 3L));
+        Assert.assertEquals(65537, matches.findIndex(65536 * 3L + 1));
+        Assert.assertEquals(count, matches.findIndex(count * 3L));
+        Assert.assertTrue(matches.getMemoryUsage() > 0);
+    }
+
+    @Test
+    public void testReversed() {
+        CompactSearchMatches matches = new CompactSearchMatches(true);
+        for (int i = 9; i >= 0; i--) {
+            matches.add(i * 10L, i + 1);
+        }
+        for (int i = 0; i < 10; i++) {
+            Assert.assertEquals(i * 10L, matches.getPosition(i));
+            Assert.assertEquals(i + 1, matches.getLength(i));
+        }
+        Assert.assertEquals(5, matches.findIndex(45));
+    }
+
+    @Test
+    public void testFirstChunkGrows() {
+        CompactSearchMatches matches = new CompactSearchMatches();
+        matches.add(0, 1);
+        long initialUsage = matches.getMemoryUsage();
+        Assert.assertTrue(initialUsage > 0);
+        Assert.assertTrue(initialUsage < 65536L * (8 + 4));
+
+        for (int i = 1; i < 1000; i++) {
+            matches.add(i, 1);
+        }
+        Assert.assertTrue(matches.getMemoryUsage() > initialUsage);
+        Assert.assertTrue(matches.getMemoryUsage() < 65536L * (8 + 4));
+        for (int i = 0; i < 1000; i++) {
+            Assert.assertEquals(i, matches.getPosition(i));
+        }
+    }
+
+    @Test
+    public void testGetMatches() {
+        CompactSearchMatches matches = new CompactSearchMatches();
+        for (int i = 0; i < 5; i++) {
+            matches.add(i * 4L, 2);
+        }
+        List<SearchMatch> materialized = matches.getMatches(1, 3);
+        Assert.assertEquals(2, materialized.size());
+        Assert.assertEquals(4, materialized.get(0).getPosition());
+        Assert.assertEquals(8, materialized.get(1).getPosition());
+        Assert.assertEquals(2, materialized.get(1).getLength());
+    }
+
+    @Test
+    public void testClear() {
+        CompactSearchMatches matches = new CompactSearchMatches();
+        matches.add(1, 1);
+        matches.clear();
+        Assert.assertTrue(matches.isEmpty());
+        Assert.assertEquals(0, matches.getMemoryUsage());
+    }
+
+    @Test(expected = IndexOutOfBoundsException.class)
+    public void testIndexOutOfRange() {
+        CompactSearchMatches matches = new CompactSearchMatches();
+        matches.add(1, 1);
+        matches.getPosition(1);
+    }
+}
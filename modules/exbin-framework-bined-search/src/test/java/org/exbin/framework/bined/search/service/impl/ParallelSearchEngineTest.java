@@ -0,0 +1,161 @@
+/*
+ * Copyright (C) ExBin Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.exbin.framework.bined.search.service.impl;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import javax.annotation.Nonnull;
+import javax.annotation.ParametersAreNonnullByDefault;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Tests for ParallelSearchEngine class.
+ *
+ * @author ExBin Project (https://exbin.org)
+ */
+@ParametersAreNonnullByDefault
+public class ParallelSearchEngineTest {
+
+    private ForkJoinPool pool;
+
+    @Before
+    public void setUp() {
+        pool = new ForkJoinPool(4);
+    }
+
+    @After
+    public void tearDown() {
+        pool.shutdown();
+    }
+
+    @Test
+    public void testSingleSearchPattern() {
+        byte[] data = BinaryDataSearchEngineTest.createData(20000, 3);
+        checkSearch(data, Arrays.asList(new byte[]{2, 1, 0, 2}));
+    }
+
+    @Test
+    public void testMultipleSearchPatterns() {
+        byte[] data = BinaryDataSearchEngineTest.createData(20000, 3);
+        checkSearch(data, Arrays.asList(new byte[]{2, 1, 0, 2, 1}, new byte[]{0, 0}, new byte[]{1, 2, 1}));
+    }
+
+    @Test
+    public void testMorePendingBlocksThanThreads() {
+        byte[] data = BinaryDataSearchEngineTest.createData(5000, 2);
+        List<byte[]> patterns = Arrays.asList(new byte[]{1, 0, 1, 1, 0});
+        ForkJoinPool singleThreadPool = new ForkJoinPool(1);
+        try {
+            ParallelSearchEngine engine = new ParallelSearchEngine(new BinaryDataSearchEngine(BinaryDataSearchEngine.createMatcher(patterns), 3), singleThreadPool);
+            Assert.assertEquals(BinaryDataSearchEngineTest.findAll(data, patterns), search(engine, data, true));
+        } finally {
+            singleThreadPool.shutdown();
+        }
+    }
+
+    @Test
+    public void testMatchReachingOverRangeEnd() {
+        byte[] data = new byte[]{0, 0, 1, 2, 3, 0, 1, 2, 3};
+        ParallelSearchEngine engine = new ParallelSearchEngine(new BinaryDataSearchEngine(BinaryDataSearchEngine.createMatcher(new byte[]{1, 2, 3}), 2), pool);
+        BinaryDataSearchEngineTest.MatchesCollector collector = new BinaryDataSearchEngineTest.MatchesCollector();
+        Assert.assertTrue(engine.searchForward(BinaryDataSearchEngineTest.createBinaryData(data), 1, 7, collector));
+        Assert.assertEquals(Arrays.asList(2L, 6L), collector.positions);
+
+        collector = new BinaryDataSearchEngineTest.MatchesCollector();
+        Assert.assertTrue(engine.searchBackward(BinaryDataSearchEngineTest.createBinaryData(data), 3, 9, collector));
+        Assert.assertEquals(Arrays.asList(6L), collector.positions);
+    }
+
+    @Test
+    public void testDataShorterThanPattern() {
+        checkSearch(new byte[0], Arrays.asList(new byte[]{0}));
+        checkSearch(new byte[]{5}, Arrays.asList(new byte[]{5}));
+        checkSearch(new byte[]{5}, Arrays.asList(new byte[]{5, 5}));
+        checkSearch(new byte[]{5, 5}, Arrays.asList(new byte[]{5, 5, 5}, new byte[]{5, 5, 5, 5}));
+    }
+
+    @Test
+    public void testStoppedByProgress() {
+        byte[] data = new byte[10000];
+        ParallelSearchEngine engine = new ParallelSearchEngine(new BinaryDataSearchEngine(BinaryDataSearchEngine.createMatcher(new byte[]{0, 0}), 100), pool);
+        List<Long> matches = new ArrayList<>();
+        boolean completed = engine.searchForward(BinaryDataSearchEngineTest.createBinaryData(data), 0, data.length, new BinaryDataSearchEngine.SearchListener() {
+            @Override
+            public boolean matchFound(long position, int patternIndex) {
+                matches.add(position);
+                return true;
+            }
+
+            @Override
+            public boolean blockProcessed(long position) {
+                return position < 300;
+            }
+        });
+        Assert.assertFalse(completed);
+        Assert.assertEquals(300, matches.size());
+        Assert.assertEquals(Long.valueOf(299), matches.get(299));
+    }
+
+    @Test
+    public void testStoppedByMatchBackward() {
+        byte[] data = new byte[10000];
+        ParallelSearchEngine engine = new ParallelSearchEngine(new BinaryDataSearchEngine(BinaryDataSearchEngine.createMatcher(new byte[]{0}), 64), pool);
+        List<Long> matches = new ArrayList<>();
+        boolean completed = engine.searchBackward(BinaryDataSearchEngineTest.createBinaryData(data), 0, data.length, new BinaryDataSearchEngine.SearchListener() {
+            @Override
+            public boolean matchFound(long position, int patternIndex) {
+                matches.add(position);
+                return matches.size() < 100;
+            }
+
+            @Override
+            public boolean blockProcessed(long position) {
+                return true;
+            }
+        });
+        Assert.assertFalse(completed);
+        Assert.assertEquals(100, matches.size());
+        Assert.assertEquals(Long.valueOf(9999), matches.get(0));
+        Assert.assertEquals(Long.valueOf(9900), matches.get(99));
+    }
+
+    private void checkSearch(byte[] data, List<byte[]> patterns) {
+        List<Long> expected = BinaryDataSearchEngineTest.findAll(data, patterns);
+        List<Long> expectedBackward = new ArrayList<>(expected);
+        Collections.reverse(expectedBackward);
+        for (int blockSize : new int[]{1, 7, 256, BinaryDataSearchEngine.DEFAULT_BLOCK_SIZE}) {
+            ParallelSearchEngine engine = new ParallelSearchEngine(new BinaryDataSearchEngine(BinaryDataSearchEngine.createMatcher(patterns), blockSize), pool);
+            Assert.assertEquals("Block size " + blockSize, expected, search(engine, data, true));
+            Assert.assertEquals("Block size " + blockSize, expectedBackward, search(engine, data, false));
+        }
+    }
+
+    @Nonnull
+    private static List<Long> search(ParallelSearchEngine engine, byte[] data, boolean forward) {
+        BinaryDataSearchEngineTest.MatchesCollector collector = new BinaryDataSearchEngineTest.MatchesCollector();
+        boolean completed = forward
+                ? engine.searchForward(BinaryDataSearchEngineTest.createBinaryData(data), 0, data.length, collector)
+                : engine.searchBackward(BinaryDataSearchEngineTest.createBinaryData(data), 0, data.length, collector);
+        Assert.assertTrue(completed);
+        return collector.positions;
+    }
+}
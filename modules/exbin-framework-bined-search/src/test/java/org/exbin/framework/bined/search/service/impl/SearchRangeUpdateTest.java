@@ -0,0 +1,81 @@
+/*
+ * Copyright (C) ExBin Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.exbin.framework.bined.search.service.impl;
+
+import javax.annotation.ParametersAreNonnullByDefault;
+import org.exbin.framework.bined.ChangedDataRange;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Tests for SearchRangeUpdate class.
+ *
+ * @author ExBin Project (https://exbin.org)
+ */
+@ParametersAreNonnullByDefault
+public class SearchRangeUpdateTest {
+
+    private static final long DATA_SIZE = 16 * 1024 * 1024;
+
+    @Test
+    public void testKeystrokeRescansOnlyAroundCursor() {
+        int patternLength = 4;
+        long position = DATA_SIZE / 2;
+        ChangedDataRange change = ChangedDataRange.fromLocalEdit(DATA_SIZE, position, position, position, DATA_SIZE + 1, position + 1);
+        Assert.assertNotNull(change);
+        SearchRangeUpdate update = SearchRangeUpdate.compute(change, 0, Long.MAX_VALUE, patternLength);
+        Assert.assertEquals(0, update.getSearchedRangeStart());
+        Assert.assertEquals(Long.MAX_VALUE, update.getSearchedRangeEnd());
+        Assert.assertTrue(update.getRescanStart() >= position - patternLength);
+        Assert.assertTrue(update.getRescanLength() <= patternLength + 3);
+    }
+
+    @Test
+    public void testBackspaceRescansOnlyAroundCursor() {
+        int patternLength = 16;
+        long position = 1000;
+        ChangedDataRange change = ChangedDataRange.fromLocalEdit(DATA_SIZE, position, position, position, DATA_SIZE - 1, position - 1);
+        Assert.assertNotNull(change);
+        SearchRangeUpdate update = SearchRangeUpdate.compute(change, 0, DATA_SIZE, patternLength);
+        Assert.assertEquals(DATA_SIZE - 1, update.getSearchedRangeEnd());
+        Assert.assertTrue(update.getRescanLength() <= patternLength + 3);
+    }
+
+    @Test
+    public void testChangeBeforeSearchedRange() {
+        SearchRangeUpdate update = SearchRangeUpdate.compute(new ChangedDataRange(10, 0, 5), 100, 200, 4);
+        Assert.assertEquals(105, update.getSearchedRangeStart());
+        Assert.assertEquals(205, update.getSearchedRangeEnd());
+        Assert.assertEquals(0, update.getRescanLength());
+    }
+
+    @Test
+    public void testChangeAfterSearchedRange() {
+        SearchRangeUpdate update = SearchRangeUpdate.compute(new ChangedDataRange(500, 10, 0), 100, 200, 4);
+        Assert.assertEquals(100, update.getSearchedRangeStart());
+        Assert.assertEquals(200, update.getSearchedRangeEnd());
+        Assert.assertEquals(0, update.getRescanLength());
+    }
+
+    @Test
+    public void testChangeOverSearchedRangeStart() {
+        SearchRangeUpdate update = SearchRangeUpdate.compute(new ChangedDataRange(90, 20, 30), 100, 200, 4);
+        Assert.assertEquals(90, update.getSearchedRangeStart());
+        Assert.assertEquals(210, update.getSearchedRangeEnd());
+        Assert.assertEquals(90, update.getRescanStart());
+        Assert.assertEquals(120, update.getRescanEnd());
+    }
+}
@@ -611,7 +611,7 @@ public class BinedViewerModule implements Module {
     }
 
     @ParametersAreNonnullByDefault
-    private class BinaryStatusController implements BinaryStatusPanel.Controller, BinaryStatusPanel.EncodingsController, BinaryStatusPanel.MemoryModeController {
+    private class BinaryStatusController implements BinaryStatusPanel.Controller, BinaryStatusPanel.EncodingsController, BinaryStatusPanel.MemoryModeController, BinaryStatusPanel.FileOperationController {
 
         private final EditorProvider editorProvider;
 
@@ -661,7 +661,17 @@ public class BinedViewerModule implements Module {
             if (activeFile.isPresent()) {
                 BinEdFileHandler fileHandler = (BinEdFileHandler) activeFile.get();
                 FileHandlingMode fileHandlingMode = fileHandler.getFileHandlingMode();
-                FileHandlingMode newHandlingMode = memoryMode == BinaryStatusApi.MemoryMode.DELTA_MODE ? FileHandlingMode.DELTA : FileHandlingMode.MEMORY;
+                FileHandlingMode newHandlingMode;
+                switch (memoryMode) {
+                    case DELTA_MODE:
+                        newHandlingMode = FileHandlingMode.DELTA;
+                        break;
+                    case DIRECT_MODE:
+                        newHandlingMode = FileHandlingMode.DIRECT;
+                        break;
+                    default:
+                        newHandlingMode = FileHandlingMode.MEMORY;
+                }
                 if (newHandlingMode != fileHandlingMode) {
                     PreferencesModuleApi preferencesModule = App.getModule(PreferencesModuleApi.class);
                     BinaryViewerOptions preferences = new BinaryViewerOptions(preferencesModule.getAppPreferences());
@@ -673,5 +683,13 @@ public class BinedViewerModule implements Module {
                 }
             }
         }
+
+        @Override
+        public void cancelFileOperation() {
+            Optional<FileHandler> activeFile = editorProvider.getActiveFile();
+            if (activeFile.isPresent()) {
+                ((BinEdFileHandler) activeFile.get()).cancelFileOperation();
+            }
+        }
     }
 }
@@ -0,0 +1,163 @@
+/*
+ * Copyright (C) ExBin Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.exbin.framework.bined;
+
+import java.awt.Component;
+import java.awt.Dialog;
+import java.awt.event.WindowAdapter;
+import java.awt.event.WindowEvent;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import javax.annotation.Nullable;
+import javax.annotation.ParametersAreNonnullByDefault;
+import org.exbin.auxiliary.binary_data.BinaryData;
+import org.exbin.framework.App;
+import org.exbin.framework.bined.gui.ConvertDataProgressPanel;
+import org.exbin.framework.window.api.WindowHandler;
+import org.exbin.framework.window.api.WindowModuleApi;
+
+/**
+ * Conversion of data performed in background.
+ *
+ * Conversion runs as file operation in worker thread while modal dialog shows
+ * its progress and allows to cancel it. Source data are registered as read
+ * by their file handler during conversion, so that they are not compacted.
+ *
+ * @author ExBin Project (https://exbin.org)
+ */
+@ParametersAreNonnullByDefault
+public class BackgroundConversion {
+
+    private BackgroundConversion() {
+    }
+
+    /**
+     * Performs conversion task and waits for its result.
+     *
+     * @param parentComponent parent component for progress dialog
+     * @param sourceData source data read by conversion
+     * @param totalSize size of processed data or -1 if unknown
+     * @param task conversion task
+     * @return true if conversion finished, false if it was cancelled
+     * @throws IllegalStateException if conversion failed
+     */
+    public static boolean perform(Component parentComponent, BinaryData sourceData, long totalSize, Task task) {
+        BinEdFileOperation operation = new BinEdFileOperation(BinEdFileOperation.OperationType.CONVERT, totalSize);
+        ConvertDataProgressPanel progressPanel = new ConvertDataProgressPanel();
+        WindowModuleApi windowModule = App.getModule(WindowModuleApi.class);
+        final WindowHandler dialog = windowModule.createWindow(progressPanel, parentComponent, progressPanel.getResourceBundle().getString("dialog.title"), Dialog.ModalityType.APPLICATION_MODAL);
+        Runnable cancelListener = () -> {
+            operation.cancel();
+            progressPanel.setCancelled();
+        };
+        progressPanel.setCancelListener(cancelListener);
+        dialog.getWindow().addWindowListener(new WindowAdapter() {
+            @Override
+            public void windowClosing(WindowEvent e) {
+                cancelListener.run();
+            }
+        });
+        operation.setProgressListener(new BinEdFileOperation.ProgressListener() {
+            @Override
+            public void progressChanged(BinEdFileOperation fileOperation) {
+                progressPanel.setProgress(fileOperation.getProgress());
+            }
+
+            @Override
+            public void operationFinished(BinEdFileOperation fileOperation) {
+                dialog.close();
+                dialog.dispose();
+            }
+        });
+
+        BinEdFileManager fileManager = App.getModule(BinedModule.class).getFileManager();
+        ConversionThread conversionThread = new ConversionThread(operation, fileManager.findFileHandler(sourceData).orElse(null), task);
+        conversionThread.start();
+        // Dialog is closed by finish notification which cannot be dispatched before dialog is shown
+        dialog.showCentered(parentComponent);
+        operation.awaitFinished();
+
+        if (conversionThread.runtimeException != null) {
+            throw conversionThread.runtimeException;
+        }
+        if (conversionThread.error != null) {
+            throw conversionThread.error;
+        }
+        if (conversionThread.ioException instanceof InterruptedIOException) {
+            return false;
+        }
+        if (conversionThread.ioException != null) {
+            throw new IllegalStateException("Conversion failed", conversionThread.ioException);
+        }
+        return conversionThread.finished;
+    }
+
+    /**
+     * Conversion task.
+     */
+    public interface Task {
+
+        /**
+         * Performs conversion reporting progress to given operation.
+         *
+         * @param operation operation
+         * @return true if conversion finished, false if it was cancelled
+         * @throws IOException if conversion failed or was cancelled
+         */
+        boolean run(BinEdFileOperation operation) throws IOException;
+    }
+
+    @ParametersAreNonnullByDefault
+    private static class ConversionThread extends Thread {
+
+        private final BinEdFileOperation operation;
+        private final BinEdFileHandler sourceFileHandler;
+        private final Task task;
+        private volatile boolean finished = false;
+        private volatile IOException ioException = null;
+        private volatile RuntimeException runtimeException = null;
+        private volatile Error error = null;
+
+        public ConversionThread(BinEdFileOperation operation, @Nullable BinEdFileHandler sourceFileHandler, Task task) {
+            super("ConvertDataThread");
+            this.operation = operation;
+            this.sourceFileHandler = sourceFileHandler;
+            this.task = task;
+        }
+
+        @Override
+        public void run() {
+            if (sourceFileHandler != null) {
+                sourceFileHandler.startReading();
+            }
+            try {
+                operation.perform(() -> {
+                    finished = task.run(operation);
+                });
+            } catch (IOException ex) {
+                ioException = ex;
+            } catch (RuntimeException ex) {
+                runtimeException = ex;
+            } catch (Error ex) {
+                error = ex;
+            } finally {
+                if (sourceFileHandler != null) {
+                    sourceFileHandler.finishReading();
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,187 @@
+/*
+ * Copyright (C) ExBin Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.exbin.framework.bined;
+
+import java.awt.event.KeyEvent;
+import java.util.Map;
+import java.util.Optional;
+import java.util.WeakHashMap;
+import javax.annotation.Nonnull;
+import javax.annotation.ParametersAreNonnullByDefault;
+import org.exbin.bined.DataChangedListener;
+import org.exbin.bined.SelectionRange;
+import org.exbin.bined.capability.CaretCapable;
+import org.exbin.bined.capability.SelectionCapable;
+import org.exbin.bined.operation.command.BinaryDataCommand;
+import org.exbin.bined.operation.command.BinaryDataUndoRedo;
+import org.exbin.bined.operation.swing.CodeAreaOperationCommandHandler;
+import org.exbin.bined.swing.CodeAreaCore;
+
+/**
+ * Command handler reporting range of data changed by editing.
+ *
+ * Data change of typing, deleting, cutting or pasting is notified again with
+ * range around cursor and selection, so that listeners such as search don't
+ * have to process whole data after each keystroke.
+ *
+ * Commands created by editing keep removed and overwritten data for undo in
+ * heap, their size is estimated from changed range and reported to memory
+ * budget as undo memory of the document.
+ *
+ * @author ExBin Project (https://exbin.org)
+ */
+@ParametersAreNonnullByDefault
+public class BinEdCommandHandler extends CodeAreaOperationCommandHandler implements BinEdMemoryBudget.MemoryConsumer {
+
+    private final Map<BinaryDataCommand, Long> undoDataSizes = new WeakHashMap<>();
+    private boolean editPerformed = false;
+    private boolean dataChanged = false;
+
+    public BinEdCommandHandler(CodeAreaCore codeArea, BinaryDataUndoRedo undoRedo) {
+        super(codeArea, undoRedo);
+    }
+
+    @Override
+    public void keyTyped(KeyEvent keyEvent) {
+        performEdit(() -> super.keyTyped(keyEvent));
+    }
+
+    @Override
+    public void enterPressed() {
+        performEdit(super::enterPressed);
+    }
+
+    @Override
+    public void backSpacePressed() {
+        performEdit(super::backSpacePressed);
+    }
+
+    @Override
+    public void deletePressed() {
+        performEdit(super::deletePressed);
+    }
+
+    @Override
+    public void delete() {
+        performEdit(super::delete);
+    }
+
+    @Override
+    public void cut() {
+        performEdit(super::cut);
+    }
+
+    @Override
+    public void paste() {
+        performEdit(super::paste);
+    }
+
+    @Override
+    public void pasteFromCode() {
+        performEdit(super::pasteFromCode);
+    }
+
+    private void performEdit(Runnable edit) {
+        if (editPerformed) {
+            edit.run();
+            return;
+        }
+
+        long previousSize = codeArea.getDataSize();
+        long previousPosition = ((CaretCapable) codeArea).getActiveCaretPosition().getDataPosition();
+        SelectionRange selection = ((SelectionCapable) codeArea).getSelection();
+        long selectionStart = selection.isEmpty() ? previousPosition : selection.getFirst();
+        long selectionEnd = selection.isEmpty() ? previousPosition : selection.getFirst() + selection.getLength();
+        DataChangedListener dataChangedListener = () -> dataChanged = true;
+        editPerformed = true;
+        dataChanged = false;
+        codeArea.addDataChangedListener(dataChangedListener);
+        ChangedDataRange.setNotificationDeferred(codeArea, true);
+        try {
+            edit.run();
+        } finally {
+            ChangedDataRange.setNotificationDeferred(codeArea, false);
+            codeArea.removeDataChangedListener(dataChangedListener);
+            editPerformed = false;
+            if (dataChanged) {
+                long currentPosition = ((CaretCapable) codeArea).getActiveCaretPosition().getDataPosition();
+                ChangedDataRange changedRange = ChangedDataRange.fromLocalEdit(previousSize, previousPosition, selectionStart, selectionEnd, codeArea.getDataSize(), currentPosition);
+                addUndoDataSize(previousSize, selectionEnd - selectionStart);
+                if (changedRange == null) {
+                    codeArea.notifyDataChanged();
+                } else {
+                    ChangedDataRange.notifyDataChanged(codeArea, changedRange);
+                }
+            }
+        }
+    }
+
+    @Nonnull
+    @Override
+    public BinEdMemoryBudget.MemoryCategory getCategory() {
+        return BinEdMemoryBudget.MemoryCategory.UNDO;
+    }
+
+    @Override
+    public long getMemoryUsage() {
+        if (undoDataSizes.isEmpty()) {
+            return 0;
+        }
+
+        // Commands dropped from undo history are no longer counted
+        long memoryUsage = 0;
+        for (BinaryDataCommand command : getUndoRedo().getCommandList()) {
+            Long undoDataSize = undoDataSizes.get(command);
+            if (undoDataSize != null) {
+                memoryUsage += undoDataSize;
+            }
+        }
+        return memoryUsage;
+    }
+
+    /**
+     * Undo data of editing can be released only by clearing undo history,
+     * which is left to user.
+     *
+     * @return always 0
+     */
+    @Override
+    public long releaseMemory() {
+        return 0;
+    }
+
+    /**
+     * Records size of data removed or overwritten by edit, which command keeps
+     * for undo.
+     *
+     * @param previousSize data size before edit
+     * @param selectionLength length of selection replaced by edit
+     */
+    private void addUndoDataSize(long previousSize, long selectionLength) {
+        long currentSize = codeArea.getDataSize();
+        // Edit keeping size without selection overwrites single byte
+        long length = previousSize == currentSize && selectionLength == 0 ? 1 : Math.max(selectionLength, previousSize - currentSize);
+        if (length <= 0) {
+            return;
+        }
+
+        // Consecutive typing is merged into the same command
+        Optional<BinaryDataCommand> topUndoCommand = getUndoRedo().getTopUndoCommand();
+        if (topUndoCommand.isPresent()) {
+            undoDataSizes.merge(topUndoCommand.get(), length, Long::sum);
+        }
+    }
+}
@@ -0,0 +1,329 @@
+/*
+ * Copyright (C) ExBin Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.exbin.framework.bined;
+
+import java.util.ArrayList;
+import java.util.Map;
+import java.util.WeakHashMap;
+import javax.annotation.Nonnull;
+import javax.annotation.ParametersAreNonnullByDefault;
+import javax.swing.Timer;
+import org.exbin.auxiliary.binary_data.BinaryData;
+import org.exbin.auxiliary.binary_data.delta.DataSegment;
+import org.exbin.auxiliary.binary_data.delta.DeltaDocument;
+import org.exbin.auxiliary.binary_data.delta.SegmentsRepository;
+import org.exbin.auxiliary.binary_data.delta.SourceSegment;
+import org.exbin.auxiliary.binary_data.delta.file.FileDataSource;
+
+/**
+ * Idle time compaction of segments of delta documents.
+ *
+ * Runs of adjacent small memory segments are merged into single segment and
+ * runs of source segments which became contiguous again are replaced by
+ * single source segment. Compaction keeps content of the document unchanged,
+ * so that positions and data kept by undo operations stay valid, and it is
+ * performed in small steps on event dispatch thread only when document was
+ * not modified for a while.
+ *
+ * Compaction changes segments of the document, so threads reading document in
+ * background have to register as readers of its file handler using
+ * {@link BinEdFileHandler#startReading()} and
+ * {@link BinEdFileHandler#finishReading()}. Documents with active readers or
+ * file operation in progress are not compacted.
+ *
+ * @author ExBin Project (https://exbin.org)
+ */
+@ParametersAreNonnullByDefault
+public class BinEdDocumentCompactor {
+
+    public static final int SMALL_SEGMENT_LENGTH = 64 * 1024;
+    public static final int MAX_MERGED_LENGTH = 1024 * 1024;
+
+    private static final int CHECK_INTERVAL = 1000;
+    private static final long IDLE_DELAY = 2000;
+    private static final int MAX_RUNS_PER_STEP = 64;
+
+    private final SegmentsRepository segmentsRepository;
+    private final Map<BinEdFileHandler, CompactionState> compactionStates = new WeakHashMap<>();
+    private final Map<FileDataSource, Boolean> sourceCoalescingSupported = new WeakHashMap<>();
+    private final Timer checkTimer;
+
+    public BinEdDocumentCompactor(SegmentsRepository segmentsRepository) {
+        this.segmentsRepository = segmentsRepository;
+        checkTimer = new Timer(CHECK_INTERVAL, (event) -> performIdleCompaction());
+    }
+
+    public void registerFileHandler(BinEdFileHandler fileHandler) {
+        CompactionState compactionState = new CompactionState();
+        compactionStates.put(fileHandler, compactionState);
+        fileHandler.getCodeArea().addDataChangedListener(compactionState::dataChanged);
+        if (!checkTimer.isRunning()) {
+            checkTimer.start();
+        }
+    }
+
+    public void unregisterFileHandler(BinEdFileHandler fileHandler) {
+        compactionStates.remove(fileHandler);
+        if (compactionStates.isEmpty()) {
+            checkTimer.stop();
+        }
+    }
+
+    public void dispose() {
+        checkTimer.stop();
+        compactionStates.clear();
+        sourceCoalescingSupported.clear();
+    }
+
+    /**
+     * Measures fragmentation of given document.
+     *
+     * @param document delta document
+     * @return fragmentation
+     */
+    @Nonnull
+    public static Fragmentation measureFragmentation(DeltaDocument document) {
+        int segmentsCount = 0;
+        int compactedCount = 0;
+        DataSegment previous = null;
+        long mergedLength = 0;
+        DataSegment segment = document.getSegments().first();
+        while (segment != null) {
+            segmentsCount++;
+            if (previous != null && canMerge(previous, segment, mergedLength)) {
+                mergedLength += segment.getLength();
+            } else {
+                compactedCount++;
+                mergedLength = segment.getLength();
+            }
+            previous = segment;
+            segment = segment.getNext();
+        }
+        return new Fragmentation(segmentsCount, compactedCount);
+    }
+
+    private void performIdleCompaction() {
+        long currentTime = System.currentTimeMillis();
+        for (Map.Entry<BinEdFileHandler, CompactionState> entry : new ArrayList<>(compactionStates.entrySet())) {
+            BinEdFileHandler fileHandler = entry.getKey();
+            CompactionState compactionState = entry.getValue();
+            if (fileHandler == null || fileHandler.isClosed() || compactionState.compacted || currentTime - compactionState.lastChangeTime < IDLE_DELAY) {
+                continue;
+            }
+
+            BinaryData contentData = fileHandler.getCodeArea().getContentData();
+            if (!(contentData instanceof DeltaDocument)) {
+                compactionState.compacted = true;
+                continue;
+            }
+
+            DeltaDocument document = (DeltaDocument) contentData;
+            if (!fileHandler.startCompaction()) {
+                // Document is compacted later when background readers or file operation finish
+                continue;
+            }
+
+            try {
+                if (compactStep(document, compactionState)) {
+                    // Single document is processed per step to keep event dispatch thread responsive
+                    return;
+                }
+            } finally {
+                fileHandler.finishCompaction();
+            }
+            compactionState.compacted = true;
+        }
+    }
+
+    /**
+     * Performs bounded compaction step.
+     *
+     * Segments are walked only once per step, starting from position where
+     * previous step stopped. Compaction doesn't change content of the
+     * document, so that positions of segment boundaries stay valid between
+     * steps until document is modified.
+     *
+     * @param document delta document
+     * @param compactionState compaction state of the document
+     * @return true if compaction should continue with next step
+     */
+    private boolean compactStep(DeltaDocument document, CompactionState compactionState) {
+        boolean coalesceSource = isSourceCoalescingSupported(document);
+        long resumePosition = compactionState.resumePosition;
+        long[] runPositions = new long[MAX_RUNS_PER_STEP];
+        long[] runLengths = new long[MAX_RUNS_PER_STEP];
+        DataSegment[] runFirstSegments = new DataSegment[MAX_RUNS_PER_STEP];
+        int runsCount = 0;
+
+        long position = 0;
+        long runPosition = -1;
+        int runCount = 0;
+        long runLength = 0;
+        DataSegment runFirst = null;
+        DataSegment previous = null;
+        DataSegment segment = document.getSegments().first();
+        while (segment != null && runsCount < MAX_RUNS_PER_STEP) {
+            if (position >= resumePosition) {
+                if (runFirst != null && canMerge(previous, segment, runLength) && (coalesceSource || !(segment instanceof SourceSegment))) {
+                    runCount++;
+                    runLength += segment.getLength();
+                } else {
+                    if (runCount > 1) {
+                        runPositions[runsCount] = runPosition;
+                        runLengths[runsCount] = runLength;
+                        runFirstSegments[runsCount] = runFirst;
+                        runsCount++;
+                    }
+                    runFirst = segment;
+                    runPosition = position;
+                    runCount = 1;
+                    runLength = segment.getLength();
+                }
+            }
+            position += segment.getLength();
+            previous = segment;
+            segment = segment.getNext();
+        }
+
+        boolean finished = segment == null;
+        if (finished && runCount > 1 && runsCount < MAX_RUNS_PER_STEP) {
+            runPositions[runsCount] = runPosition;
+            runLengths[runsCount] = runLength;
+            runFirstSegments[runsCount] = runFirst;
+            runsCount++;
+        }
+
+        if (runsCount == 0) {
+            compactionState.resumePosition = 0;
+            return false;
+        }
+
+        // Start positions of source segments have to be read before segments are replaced
+        long[] sourcePositions = new long[runsCount];
+        for (int i = 0; i < runsCount; i++) {
+            sourcePositions[i] = runFirstSegments[i] instanceof SourceSegment ? ((SourceSegment) runFirstSegments[i]).getStartPosition() : -1;
+        }
+        for (int i = runsCount - 1; i >= 0; i--) {
+            if (sourcePositions[i] >= 0) {
+                coalesceSourceRun(document, runPositions[i], sourcePositions[i], runLengths[i]);
+            } else {
+                mergeMemoryRun(document, runPositions[i], runLengths[i]);
+            }
+        }
+
+        // Next step continues after last merged run or repeats pass to verify document is compacted
+        compactionState.resumePosition = finished ? 0 : runPositions[runsCount - 1] + runLengths[runsCount - 1];
+        return true;
+    }
+
+    private static boolean canMerge(DataSegment previous, DataSegment segment, long mergedLength) {
+        if (previous instanceof SourceSegment && segment instanceof SourceSegment) {
+            return ((SourceSegment) previous).getStartPosition() + previous.getLength() == ((SourceSegment) segment).getStartPosition();
+        }
+
+        return !(previous instanceof SourceSegment) && !(segment instanceof SourceSegment)
+                && segment.getLength() < SMALL_SEGMENT_LENGTH
+                && mergedLength + segment.getLength() <= MAX_MERGED_LENGTH;
+    }
+
+    private static void mergeMemoryRun(DeltaDocument document, long position, long length) {
+        byte[] data = new byte[(int) length];
+        document.copyToArray(position, data, 0, data.length);
+        document.remove(position, length);
+        document.insert(position, data);
+    }
+
+    private void coalesceSourceRun(DeltaDocument document, long position, long sourcePosition, long length) {
+        FileDataSource dataSource = (FileDataSource) document.getDataSource();
+        DeltaDocument sourceDocument = segmentsRepository.createDocument(dataSource);
+        BinaryData sourceRange = sourceDocument.copy(sourcePosition, length);
+        document.remove(position, length);
+        document.insert(position, sourceRange);
+        sourceRange.dispose();
+        segmentsRepository.dropDocument(sourceDocument);
+    }
+
+    private boolean isSourceCoalescingSupported(DeltaDocument document) {
+        if (!(document.getDataSource() instanceof FileDataSource) || document.getDataSize() == 0) {
+            return false;
+        }
+
+        FileDataSource dataSource = (FileDataSource) document.getDataSource();
+        Boolean supported = sourceCoalescingSupported.get(dataSource);
+        if (supported == null) {
+            // Inserted source range has to stay backed by file, otherwise it would be loaded into memory
+            DeltaDocument sourceDocument = segmentsRepository.createDocument(dataSource);
+            DeltaDocument probeDocument = segmentsRepository.createDocument();
+            BinaryData sourceRange = sourceDocument.copy(0, 1);
+            probeDocument.insert(0, sourceRange);
+            supported = probeDocument.getSegments().first() instanceof SourceSegment;
+            sourceRange.dispose();
+            segmentsRepository.dropDocument(probeDocument);
+            segmentsRepository.dropDocument(sourceDocument);
+            sourceCoalescingSupported.put(dataSource, supported);
+        }
+        return supported;
+    }
+
+    private static class CompactionState {
+
+        private long lastChangeTime = System.currentTimeMillis();
+        private boolean compacted = false;
+        private long resumePosition = 0;
+
+        private void dataChanged() {
+            lastChangeTime = System.currentTimeMillis();
+            compacted = false;
+            resumePosition = 0;
+        }
+    }
+
+    /**
+     * Fragmentation of delta document.
+     */
+    public static class Fragmentation {
+
+        private final int segmentsCount;
+        private final int compactedSegmentsCount;
+
+        public Fragmentation(int segmentsCount, int compactedSegmentsCount) {
+            this.segmentsCount = segmentsCount;
+            this.compactedSegmentsCount = compactedSegmentsCount;
+        }
+
+        public int getSegmentsCount() {
+            return segmentsCount;
+        }
+
+        /**
+         * Returns count of segments after full compaction.
+         *
+         * @return segments count
+         */
+        public int getCompactedSegmentsCount() {
+            return compactedSegmentsCount;
+        }
+
+        /**
+         * Returns ratio of segments which would be removed by compaction.
+         *
+         * @return fragmentation level in range 0 to 1
+         */
+        public double getLevel() {
+            return segmentsCount == 0 ? 0 : (double) (segmentsCount - compactedSegmentsCount) / segmentsCount;
+        }
+    }
+}
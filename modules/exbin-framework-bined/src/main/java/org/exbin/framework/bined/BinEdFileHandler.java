@@ -17,12 +17,13 @@ package org.exbin.framework.bined;
 
 import java.awt.Component;
 import java.io.File;
-import java.io.FileInputStream;
-import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.InterruptedIOException;
 import java.io.OutputStream;
 import java.net.URI;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Objects;
 import java.util.Optional;
 import java.util.logging.Level;
@@ -40,11 +41,17 @@ import org.exbin.auxiliary.binary_data.delta.file.FileDataSource;
 import org.exbin.auxiliary.binary_data.delta.SegmentsRepository;
 import org.exbin.auxiliary.binary_data.paged.PagedData;
 import org.exbin.auxiliary.binary_data.array.paged.ByteArrayPagedData;
+import org.exbin.bined.EditMode;
 import org.exbin.bined.operation.swing.CodeAreaUndoRedo;
+import org.exbin.bined.operation.command.BinaryDataCommand;
 import org.exbin.bined.operation.command.BinaryDataUndoRedo;
 import org.exbin.bined.swing.section.SectCodeArea;
 import org.exbin.bined.swing.section.color.SectionCodeAreaColorProfile;
 import org.exbin.framework.action.api.ComponentActivationListener;
+import org.exbin.framework.bined.data.AtomicFileWriter;
+import org.exbin.framework.bined.data.InPlaceFileWriter;
+import org.exbin.framework.bined.data.MappedFileData;
+import org.exbin.framework.bined.data.PagedDataLoader;
 import org.exbin.framework.bined.gui.BinEdComponentPanel;
 import org.exbin.framework.file.api.EditableFileHandler;
 import org.exbin.framework.file.api.FileType;
@@ -65,6 +72,12 @@ import org.exbin.framework.text.font.TextFontController;
 @ParametersAreNonnullByDefault
 public class BinEdFileHandler implements EditableFileHandler, EditorFileHandler, UndoRedoFileHandler {
 
+    /**
+     * Minimum size of document for which discarding of undo history is offered
+     * to allow writing only changed data.
+     */
+    private static final long IN_PLACE_CONFIRM_SIZE = 64 * 1024 * 1024;
+
     private SegmentsRepository segmentsRepository;
 
     @Nonnull
@@ -79,6 +92,16 @@ public class BinEdFileHandler implements EditableFileHandler, EditorFileHandler,
     private BinEdDataComponent binaryDataComponent;
     private DialogParentComponent dialogParentComponent;
     private UndoRedo undoRedo = null;
+    private BinEdFileOperation fileOperation = null;
+    private BinEdFileOperation.ProgressListener fileOperationListener = null;
+    private int closedDataCount = 0;
+    private boolean closed = false;
+    private final List<FileDataSource> retiredSources = new ArrayList<>();
+    private FileHandlingModePolicy fileHandlingModePolicy = null;
+    private BinEdMemoryBudget memoryBudget = null;
+    private final Object readersLock = new Object();
+    private int readersCount = 0;
+    private boolean compactionInProgress = false;
 
     public BinEdFileHandler() {
         editorComponent = createEditorComponent();
@@ -120,10 +143,16 @@ public class BinEdFileHandler implements EditableFileHandler, EditorFileHandler,
 
     @Override
     public void loadFromFile(URI fileUri, FileType fileType) {
-        loadFromFile(fileUri, fileType, getFileHandlingMode());
+        FileHandlingMode fileHandlingMode = getFileHandlingMode();
+        if (fileHandlingModePolicy != null) {
+            fileHandlingMode = fileHandlingModePolicy.selectMode(new File(fileUri), fileHandlingMode);
+        }
+        loadFromFile(fileUri, fileType, fileHandlingMode);
     }
 
     private void loadFromFile(URI fileUri, FileType fileType, FileHandlingMode fileHandlingMode) {
+        checkNoFileOperation();
+
         this.fileType = fileType;
         File file = new File(fileUri);
         if (!file.isFile()) {
@@ -136,6 +165,11 @@ public class BinEdFileHandler implements EditableFileHandler, EditorFileHandler,
             return;
         }
 
+        if (fileHandlingMode == FileHandlingMode.DIRECT && !file.canWrite()) {
+            // Changes in direct mode are saved to the file
+            fileHandlingMode = FileHandlingMode.DELTA;
+        }
+
         try {
             BinaryData oldData = editorComponent.getContentData();
             if (fileHandlingMode == FileHandlingMode.DELTA) {
@@ -145,17 +179,24 @@ public class BinEdFileHandler implements EditableFileHandler, EditorFileHandler,
                 editorComponent.setContentData(document);
                 this.fileUri = fileUri;
                 oldData.dispose();
+            } else if (fileHandlingMode == FileHandlingMode.DIRECT) {
+                MappedFileData data = new MappedFileData(file);
+                editorComponent.setContentData(data);
+                this.fileUri = fileUri;
+                oldData.dispose();
             } else {
-                try (FileInputStream fileStream = new FileInputStream(file)) {
-                    BinaryData data = oldData;
-                    if (!(data instanceof PagedData)) {
-                        data = new ByteArrayPagedData();
-                        oldData.dispose();
-                    }
-                    ((EditableBinaryData) data).loadFromStream(fileStream);
-                    editorComponent.setContentData(data);
-                    this.fileUri = fileUri;
+                // Data are loaded separately so that cancelled loading keeps previous content
+                ByteArrayPagedData data = new ByteArrayPagedData(PagedDataLoader.PAGE_SIZE);
+                BinEdFileOperation operation = new BinEdFileOperation(BinEdFileOperation.OperationType.LOAD, file.length());
+                try {
+                    performFileOperation(operation, () -> new PagedDataLoader(operation).load(data, file));
+                } catch (InterruptedIOException ex) {
+                    data.dispose();
+                    return;
                 }
+                editorComponent.setContentData(data);
+                this.fileUri = fileUri;
+                oldData.dispose();
             }
         } catch (IOException ex) {
             Logger.getLogger(BinEdFileHandler.class.getName()).log(Level.SEVERE, null, ex);
@@ -164,6 +205,8 @@ public class BinEdFileHandler implements EditableFileHandler, EditorFileHandler,
         if (undoRedo != null) {
             undoRedo.clear();
         }
+        closeRetiredSources();
+        updateEditMode();
         fileSync();
     }
 
@@ -174,6 +217,8 @@ public class BinEdFileHandler implements EditableFileHandler, EditorFileHandler,
 
     @Override
     public void saveToFile(URI fileUri, FileType fileType) {
+        checkNoFileOperation();
+
         File file = new File(fileUri);
         try {
             BinaryData contentData = editorComponent.getContentData();
@@ -182,33 +227,333 @@ public class BinEdFileHandler implements EditableFileHandler, EditorFileHandler,
                 contentData = editorComponent.getContentData();
             }
             if (contentData instanceof DeltaDocument) {
-                // TODO freezes window / replace with progress bar
                 DeltaDocument document = (DeltaDocument) contentData;
-                FileDataSource fileSource = (FileDataSource) document.getDataSource();
-                if (fileSource == null || !file.equals(fileSource.getFile())) {
-                    fileSource = new FileDataSource(file);
-                    segmentsRepository.addDataSource(fileSource);
-                    document.setDataSource(fileSource);
+                // Undo data referring source file would change with in place write
+                if (InPlaceFileWriter.isApplicable(document, file) && (isUndoSourceIndependent() || confirmUndoDiscard(document))) {
+                    BinEdFileOperation operation = new BinEdFileOperation(BinEdFileOperation.OperationType.SAVE, InPlaceFileWriter.getChangedLength(document));
+                    // Partially written changes cannot be reverted
+                    operation.setCancellable(false);
+                    performFileOperation(operation, () -> new InPlaceFileWriter(file, operation).writeDocument(document));
+                    reopenDocument(document, file);
+                } else {
+                    BinEdFileOperation operation = new BinEdFileOperation(BinEdFileOperation.OperationType.SAVE, document.getDataSize());
+                    AtomicFileWriter fileWriter = new AtomicFileWriter(file, operation);
+                    try {
+                        performFileOperation(operation, () -> fileWriter.prepareDocument(document));
+                    } catch (IOException ex) {
+                        fileWriter.discard();
+                        throw ex;
+                    }
+                    replaceDocumentFile(document, file, fileWriter);
                 }
-                segmentsRepository.saveDocument(document);
                 this.fileUri = fileUri;
-            } else {
-                try (FileOutputStream outputStream = new FileOutputStream(file)) {
-                    Objects.requireNonNull(contentData).saveToStream(outputStream);
-                    this.fileUri = fileUri;
+            } else if (contentData instanceof MappedFileData) {
+                MappedFileData mappedData = (MappedFileData) contentData;
+                if (file.equals(mappedData.getFile())) {
+                    BinEdFileOperation operation = new BinEdFileOperation(BinEdFileOperation.OperationType.SAVE, -1);
+                    operation.setCancellable(false);
+                    performFileOperation(operation, mappedData::flush);
+                } else {
+                    saveDataToFile(mappedData, file);
+                    // Continue direct editing of the new file
+                    editorComponent.setContentData(new MappedFileData(file));
+                    mappedData.dispose();
                 }
+                this.fileUri = fileUri;
+            } else {
+                saveDataToFile(Objects.requireNonNull(contentData), file);
+                this.fileUri = fileUri;
             }
             // TODO
 //            documentOriginalSize = codeArea.getDataSize();
 //            updateCurrentDocumentSize();
 //            updateCurrentMemoryMode();
+        } catch (InterruptedIOException ex) {
+            // Saving was cancelled, document stays modified
+            return;
         } catch (IOException ex) {
             Logger.getLogger(BinEdFileHandler.class.getName()).log(Level.SEVERE, null, ex);
         }
 
+        if (memoryBudget != null) {
+            // Saved changes are not held in memory anymore
+            memoryBudget.notifyContentChanged(this);
+        }
+        updateEditMode();
         fileSync();
     }
 
+    private void saveDataToFile(BinaryData data, File file) throws IOException {
+        BinEdFileOperation operation = new BinEdFileOperation(BinEdFileOperation.OperationType.SAVE, data.getDataSize());
+        performFileOperation(operation, () -> new AtomicFileWriter(file, operation).writeData(data));
+    }
+
+    /**
+     * Replaces document with document backed by saved file.
+     *
+     * Source segments and data source of the document still refer to
+     * previous content of the file.
+     *
+     * @param document saved document
+     * @param file saved file
+     * @throws IOException if input/output error
+     */
+    private void reopenDocument(DeltaDocument document, File file) throws IOException {
+        FileDataSource fileSource = new FileDataSource(file);
+        segmentsRepository.addDataSource(fileSource);
+        editorComponent.setContentData(segmentsRepository.createDocument(fileSource));
+
+        FileDataSource previousSource = (FileDataSource) document.getDataSource();
+        document.dispose();
+        if (previousSource != null) {
+            segmentsRepository.detachFileSource(previousSource);
+            previousSource.close();
+        }
+    }
+
+    /**
+     * Replaces target file with prepared content of the document and switches
+     * to document backed by the new file.
+     *
+     * Previous source is kept open, as undo data can still refer to its
+     * content. If platform doesn't allow to replace open file, all sources of
+     * the file are closed first and undo history is dropped with them.
+     *
+     * @param document saved document
+     * @param file saved file
+     * @param fileWriter file writer with prepared content
+     * @throws IOException if input/output error
+     */
+    private void replaceDocumentFile(DeltaDocument document, File file, AtomicFileWriter fileWriter) throws IOException {
+        FileDataSource previousSource = (FileDataSource) document.getDataSource();
+        if (!AtomicFileWriter.isOpenFileReplaceable() && isFileOpen(file)) {
+            if (undoRedo != null) {
+                undoRedo.clear();
+            }
+            closeRetiredSources();
+            if (previousSource != null) {
+                segmentsRepository.detachFileSource(previousSource);
+                previousSource.close();
+            }
+            try {
+                fileWriter.commit();
+            } catch (IOException ex) {
+                if (previousSource != null) {
+                    // File was not replaced, document continues to use it
+                    FileDataSource restoredSource = new FileDataSource(previousSource.getFile());
+                    segmentsRepository.addDataSource(restoredSource);
+                    document.setDataSource(restoredSource);
+                }
+                throw ex;
+            }
+            previousSource = null;
+        } else {
+            fileWriter.commit();
+        }
+
+        FileDataSource fileSource = new FileDataSource(file);
+        segmentsRepository.addDataSource(fileSource);
+        editorComponent.setContentData(segmentsRepository.createDocument(fileSource));
+        document.dispose();
+        if (previousSource != null) {
+            retiredSources.add(previousSource);
+        }
+    }
+
+    /**
+     * Returns true if undo history contains only commands with data not
+     * referring source file of the document.
+     */
+    private boolean isUndoSourceIndependent() {
+        BinaryDataUndoRedo binaryUndoRedo = undoRedo instanceof UndoRedoWrapper ? ((UndoRedoWrapper) undoRedo).getUndoRedo() : null;
+        if (binaryUndoRedo == null) {
+            return true;
+        }
+
+        for (BinaryDataCommand command : binaryUndoRedo.getCommandList()) {
+            if (!(command instanceof SourceIndependentCommand)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Asks whether to discard undo history to allow writing only changed data
+     * of large document into its source file and discards it if confirmed.
+     *
+     * @param document document
+     * @return true if undo history was discarded
+     */
+    private boolean confirmUndoDiscard(DeltaDocument document) {
+        if (document.getDataSize() < IN_PLACE_CONFIRM_SIZE) {
+            return false;
+        }
+
+        int result = JOptionPane.showConfirmDialog(editorComponent.getComponent(),
+                "Undo history refers original content of the file. Clear undo history and write only changed data?\nOtherwise whole file is rewritten.",
+                "Save Changed Data Only",
+                JOptionPane.YES_NO_OPTION,
+                JOptionPane.QUESTION_MESSAGE);
+        if (result != JOptionPane.YES_OPTION) {
+            return false;
+        }
+
+        undoRedo.clear();
+        return true;
+    }
+
+    private boolean isFileOpen(File file) {
+        if (editorComponent.getContentData() instanceof DeltaDocument) {
+            FileDataSource source = (FileDataSource) ((DeltaDocument) editorComponent.getContentData()).getDataSource();
+            if (source != null && file.equals(source.getFile())) {
+                return true;
+            }
+        }
+        for (FileDataSource retiredSource : retiredSources) {
+            if (file.equals(retiredSource.getFile())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void closeRetiredSources() {
+        for (FileDataSource retiredSource : retiredSources) {
+            segmentsRepository.detachFileSource(retiredSource);
+            try {
+                retiredSource.close();
+            } catch (IOException ex) {
+                Logger.getLogger(BinEdFileHandler.class.getName()).log(Level.SEVERE, null, ex);
+            }
+        }
+        retiredSources.clear();
+    }
+
+    /**
+     * Performs file operation in background while editor is read only.
+     *
+     * @param operation file operation
+     * @param task operation task
+     * @throws IOException if input/output error or operation was cancelled
+     * @throws InterruptedIOException if data were closed during operation
+     */
+    private void performFileOperation(BinEdFileOperation operation, BinEdFileOperation.Task task) throws IOException {
+        SectCodeArea codeArea = getCodeArea();
+        EditMode editMode = codeArea.getEditMode();
+        codeArea.setEditMode(EditMode.READ_ONLY);
+        operation.setProgressListener(fileOperationListener);
+        fileOperation = operation;
+        setModificationsBlocked(true);
+        int closeCount = closedDataCount;
+        try {
+            operation.perform(task);
+        } finally {
+            fileOperation = null;
+            codeArea.setEditMode(editMode);
+            setModificationsBlocked(false);
+        }
+        if (closedDataCount != closeCount) {
+            throw new InterruptedIOException("Data were closed during file operation");
+        }
+    }
+
+    /**
+     * Blocks undo, redo and commands and updates state of actions.
+     *
+     * @param blocked true to block modifications
+     */
+    private void setModificationsBlocked(boolean blocked) {
+        if (undoRedo instanceof UndoRedoWrapper) {
+            ((UndoRedoWrapper) undoRedo).setBlocked(blocked);
+        }
+        if (componentActivationListener != null) {
+            componentActivationListener.updated(UndoRedoState.class, undoRedo);
+            componentActivationListener.updated(ActiveComponent.class, binaryDataComponent);
+        }
+    }
+
+    private void checkNoFileOperation() {
+        if (fileOperation != null) {
+            throw new IllegalStateException("Other file operation is in progress: " + fileOperation.getOperationType());
+        }
+    }
+
+    @Nonnull
+    public Optional<BinEdFileOperation> getFileOperation() {
+        return Optional.ofNullable(fileOperation);
+    }
+
+    public void cancelFileOperation() {
+        if (fileOperation != null) {
+            fileOperation.cancel();
+        }
+    }
+
+    /**
+     * Registers background reader of document data, waiting for compaction
+     * step in progress to finish.
+     *
+     * Document is not compacted while it has readers. Each call has to be
+     * paired with {@link #finishReading()}.
+     */
+    public void startReading() {
+        synchronized (readersLock) {
+            boolean interrupted = false;
+            while (compactionInProgress) {
+                try {
+                    readersLock.wait();
+                } catch (InterruptedException ex) {
+                    interrupted = true;
+                }
+            }
+            readersCount++;
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    /**
+     * Unregisters background reader of document data.
+     */
+    public void finishReading() {
+        synchronized (readersLock) {
+            if (readersCount > 0) {
+                readersCount--;
+            }
+        }
+    }
+
+    /**
+     * Starts compaction of document unless it is read in background or file
+     * operation is in progress.
+     *
+     * Each successful call has to be paired with {@link #finishCompaction()}.
+     *
+     * @return true if compaction can proceed
+     */
+    boolean startCompaction() {
+        synchronized (readersLock) {
+            if (readersCount > 0 || fileOperation != null) {
+                return false;
+            }
+            compactionInProgress = true;
+            return true;
+        }
+    }
+
+    void finishCompaction() {
+        synchronized (readersLock) {
+            compactionInProgress = false;
+            readersLock.notifyAll();
+        }
+    }
+
+    public void setFileOperationListener(@Nullable BinEdFileOperation.ProgressListener fileOperationListener) {
+        this.fileOperationListener = fileOperationListener;
+    }
+
     public void fileSync() {
         documentOriginalSize = getCodeArea().getDataSize();
         if (undoRedo != null) {
@@ -309,25 +654,7 @@ public class BinEdFileHandler implements EditableFileHandler, EditorFileHandler,
 
     @Override
     public void saveFile() {
-        SectCodeArea codeArea = editorComponent.getCodeArea();
-        BinaryData data = codeArea.getContentData();
-        if (data instanceof DeltaDocument) {
-            try {
-                segmentsRepository.saveDocument((DeltaDocument) data);
-            } catch (IOException ex) {
-                Logger.getLogger(BinEdFileHandler.class.getName()).log(Level.SEVERE, null, ex);
-            }
-        } else {
-            File file = new File(fileUri);
-            try (OutputStream stream = new FileOutputStream(file)) {
-                BinaryData contentData = codeArea.getContentData();
-                contentData.saveToStream(stream);
-                stream.flush();
-            } catch (IOException ex) {
-                Logger.getLogger(BinEdFileHandler.class.getName()).log(Level.SEVERE, null, ex);
-            }
-        }
-        fileSync();
+        saveToFile(Objects.requireNonNull(fileUri), fileType);
     }
 
     public void reloadFile() {
@@ -337,6 +664,13 @@ public class BinEdFileHandler implements EditableFileHandler, EditorFileHandler,
     }
 
     public void closeData() {
+        BinEdFileOperation operation = fileOperation;
+        if (operation != null) {
+            operation.cancel();
+            // Data cannot be released while worker thread still accesses them
+            operation.awaitFinished();
+        }
+        closedDataCount++;
         SectCodeArea codeArea = editorComponent.getCodeArea();
         BinaryData data = codeArea.getContentData();
         editorComponent.setContentData(EmptyBinaryData.getInstance());
@@ -354,17 +688,44 @@ public class BinEdFileHandler implements EditableFileHandler, EditorFileHandler,
         } else {
             data.dispose();
         }
+        closeRetiredSources();
+    }
+
+    /**
+     * Releases data and component extensions when file is closed.
+     *
+     * File handler cannot be used after closing.
+     */
+    public void close() {
+        if (closed) {
+            return;
+        }
+
+        closed = true;
+        closeData();
+        for (BinEdComponentPanel.BinEdComponentExtension extension : getComponent().getComponentExtensions()) {
+            extension.onClose();
+        }
+    }
+
+    public boolean isClosed() {
+        return closed;
     }
 
     public void switchFileHandlingMode(FileHandlingMode handlingMode) {
+        if (closed) {
+            return;
+        }
+
         FileHandlingMode oldFileHandlingMode = getFileHandlingMode();
         SectCodeArea codeArea = editorComponent.getCodeArea();
         if (handlingMode != oldFileHandlingMode) {
             if (fileUri != null) {
                 loadFromFile(fileUri, null, handlingMode);
-            } else {
+            } else if (handlingMode != FileHandlingMode.DIRECT) {
+                // Direct mode requires file
                 BinaryData oldData = codeArea.getContentData();
-                if (oldData instanceof DeltaDocument) {
+                if (handlingMode == FileHandlingMode.MEMORY) {
                     PagedData data = new ByteArrayPagedData();
                     data.insert(0, oldData);
                     editorComponent.setContentData(data);
@@ -379,13 +740,35 @@ public class BinEdFileHandler implements EditableFileHandler, EditorFileHandler,
                 }
 
                 oldData.dispose();
+                updateEditMode();
+            }
+        }
+    }
+
+    /**
+     * Limits editing of directly accessed file to overwriting, as its size
+     * cannot be changed.
+     */
+    private void updateEditMode() {
+        SectCodeArea codeArea = getCodeArea();
+        EditMode editMode = codeArea.getEditMode();
+        if (codeArea.getContentData() instanceof MappedFileData) {
+            if (editMode == EditMode.EXPANDING || editMode == EditMode.CAPPED) {
+                codeArea.setEditMode(EditMode.INPLACE);
             }
+        } else if (editMode == EditMode.INPLACE) {
+            codeArea.setEditMode(EditMode.EXPANDING);
         }
     }
 
     @Nonnull
     public FileHandlingMode getFileHandlingMode() {
-        return getCodeArea().getContentData() instanceof DeltaDocument ? FileHandlingMode.DELTA : FileHandlingMode.MEMORY;
+        BinaryData contentData = getCodeArea().getContentData();
+        if (contentData instanceof DeltaDocument) {
+            return FileHandlingMode.DELTA;
+        }
+
+        return contentData instanceof MappedFileData ? FileHandlingMode.DIRECT : FileHandlingMode.MEMORY;
     }
 
     @Nonnull
@@ -422,6 +805,7 @@ public class BinEdFileHandler implements EditableFileHandler, EditorFileHandler,
         if (fileHandlingMode == FileHandlingMode.DELTA) {
             editorComponent.setContentData(segmentsRepository.createDocument());
         } else {
+            // New data without file are kept in memory also for direct mode
             editorComponent.setContentData(new ByteArrayPagedData());
         }
     }
@@ -430,6 +814,14 @@ public class BinEdFileHandler implements EditableFileHandler, EditorFileHandler,
         this.segmentsRepository = segmentsRepository;
     }
 
+    public void setFileHandlingModePolicy(@Nullable FileHandlingModePolicy fileHandlingModePolicy) {
+        this.fileHandlingModePolicy = fileHandlingModePolicy;
+    }
+
+    public void setMemoryBudget(@Nullable BinEdMemoryBudget memoryBudget) {
+        this.memoryBudget = memoryBudget;
+    }
+
     public void requestFocus() {
         editorComponent.getCodeArea().requestFocus();
     }
@@ -467,6 +859,9 @@ public class BinEdFileHandler implements EditableFileHandler, EditorFileHandler,
     @Override
     public void componentActivated(ComponentActivationListener componentActivationListener) {
         this.componentActivationListener = componentActivationListener;
+        if (memoryBudget != null) {
+            memoryBudget.notifyActivated(this);
+        }
         componentActivationListener.updated(TextFontController.class, binaryDataComponent);
         componentActivationListener.updated(TextEncodingController.class, binaryDataComponent);
         componentActivationListener.updated(UndoRedoState.class, undoRedo);
@@ -483,6 +878,9 @@ public class BinEdFileHandler implements EditableFileHandler, EditorFileHandler,
     @Override
     public void componentDeactivated(ComponentActivationListener componentActivationListener) {
         this.componentActivationListener = null;
+        if (memoryBudget != null) {
+            memoryBudget.notifyDeactivated(this);
+        }
         componentActivationListener.updated(TextFontController.class, null);
         componentActivationListener.updated(TextEncodingController.class, null);
         componentActivationListener.updated(UndoRedoState.class, null);
@@ -18,9 +18,11 @@ package org.exbin.framework.bined;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.CopyOnWriteArrayList;
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
 import javax.annotation.ParametersAreNonnullByDefault;
+import org.exbin.auxiliary.binary_data.BinaryData;
 import org.exbin.auxiliary.binary_data.array.ByteArrayEditableData;
 import org.exbin.auxiliary.binary_data.delta.SegmentsRepository;
 import org.exbin.bined.operation.swing.CodeAreaOperationCommandHandler;
@@ -53,8 +55,14 @@ public class BinEdFileManager {
     private final List<CodeAreaColorAssessor> painterPositionColorModifiers = new ArrayList<>();
     private final List<CodeAreaColorAssessor> painterPriorityPositionColorModifiers = new ArrayList<>();
     private CodeAreaCommandHandlerProvider commandHandlerProvider = null;
+    private final FileHandlingModePolicy fileHandlingModePolicy = new FileHandlingModePolicy();
+    private final BinEdMemoryBudget memoryBudget = new BinEdMemoryBudget();
+    private final BinEdDocumentCompactor documentCompactor = new BinEdDocumentCompactor(segmentsRepository);
+    private final UndoDataStorage undoDataStorage = new UndoDataStorage();
+    private final List<BinEdFileHandler> fileHandlers = new CopyOnWriteArrayList<>();
 
     public BinEdFileManager() {
+        memoryBudget.addMemoryConsumer(undoDataStorage);
     }
 
     public void setEditorProvider(EditorProvider editorProvider) {
@@ -63,10 +71,46 @@ public class BinEdFileManager {
 
     public void initFileHandler(BinEdFileHandler fileHandler) {
         fileHandler.setSegmentsRepository(segmentsRepository);
+        fileHandler.setFileHandlingModePolicy(fileHandlingModePolicy);
+        fileHandler.setMemoryBudget(memoryBudget);
+        memoryBudget.registerFileHandler(fileHandler);
+        documentCompactor.registerFileHandler(fileHandler);
+        fileHandlers.add(fileHandler);
         BinEdComponentPanel componentPanel = fileHandler.getComponent();
         initComponentPanel(componentPanel);
     }
 
+    /**
+     * Closes file handler and stops its background processing.
+     *
+     * @param fileHandler file handler
+     */
+    public void releaseFileHandler(BinEdFileHandler fileHandler) {
+        fileHandlers.remove(fileHandler);
+        memoryBudget.unregisterFileHandler(fileHandler);
+        documentCompactor.unregisterFileHandler(fileHandler);
+        fileHandler.close();
+    }
+
+    /**
+     * Returns file handler of document with given content data.
+     *
+     * Can be called from background thread to register reader of the
+     * document.
+     *
+     * @param contentData content data
+     * @return file handler or empty if data are not content of any document
+     */
+    @Nonnull
+    public Optional<BinEdFileHandler> findFileHandler(BinaryData contentData) {
+        for (BinEdFileHandler fileHandler : fileHandlers) {
+            if (fileHandler.getCodeArea().getContentData() == contentData) {
+                return Optional.of(fileHandler);
+            }
+        }
+        return Optional.empty();
+    }
+
     public void initComponentPanel(BinEdComponentPanel componentPanel) {
         for (BinEdFileExtension fileExtension : binEdComponentExtensions) {
             Optional<BinEdComponentPanel.BinEdComponentExtension> componentExtension = fileExtension.createComponentExtension(componentPanel);
@@ -92,7 +136,7 @@ public class BinEdFileManager {
         if (commandHandlerProvider != null) {
             commandHandler = commandHandlerProvider.createCommandHandler(codeArea, componentPanel.getUndoRedo().orElse(null));
         } else {
-            commandHandler = new CodeAreaOperationCommandHandler(codeArea, componentPanel.getUndoRedo().orElse(null));
+            commandHandler = new BinEdCommandHandler(codeArea, componentPanel.getUndoRedo().orElse(null));
         }
         codeArea.setCommandHandler(commandHandler);
     }
@@ -158,6 +202,32 @@ public class BinEdFileManager {
         }
     }
 
+    @Nonnull
+    public FileHandlingModePolicy getFileHandlingModePolicy() {
+        return fileHandlingModePolicy;
+    }
+
+    @Nonnull
+    public BinEdMemoryBudget getMemoryBudget() {
+        return memoryBudget;
+    }
+
+    @Nonnull
+    public BinEdDocumentCompactor getDocumentCompactor() {
+        return documentCompactor;
+    }
+
+    /**
+     * Returns storage of data kept for undo operations shared by all
+     * documents.
+     *
+     * @return undo data storage
+     */
+    @Nonnull
+    public UndoDataStorage getUndoDataStorage() {
+        return undoDataStorage;
+    }
+
     @Nonnull
     public Iterable<BinEdFileExtension> getBinEdComponentExtensions() {
         return binEdComponentExtensions;
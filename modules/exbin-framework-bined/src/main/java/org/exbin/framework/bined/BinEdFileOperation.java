@@ -0,0 +1,312 @@
+/*
+ * Copyright (C) ExBin Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.exbin.framework.bined;
+
+import java.awt.SecondaryLoop;
+import java.awt.Toolkit;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicLong;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import javax.annotation.ParametersAreNonnullByDefault;
+import javax.swing.SwingUtilities;
+
+/**
+ * Load, save or conversion operation performed in background.
+ *
+ * Operation runs in worker thread. When performed from event dispatch thread,
+ * events are dispatched in secondary loop until operation finishes, so that
+ * user interface stays responsive and operation can be cancelled, while
+ * caller still receives result of the operation synchronously.
+ *
+ * @author ExBin Project (https://exbin.org)
+ */
+@ParametersAreNonnullByDefault
+public class BinEdFileOperation {
+
+    private static final long PROGRESS_INTERVAL = 100;
+
+    private final OperationType operationType;
+    private final long totalSize;
+    private final long startTime = System.currentTimeMillis();
+    private final AtomicLong processedSize = new AtomicLong();
+    private final CountDownLatch finishedLatch = new CountDownLatch(1);
+    private volatile boolean cancellable = true;
+    private volatile boolean cancelled = false;
+    private volatile long lastProgressTime = 0;
+    private ProgressListener progressListener = null;
+
+    /**
+     * Creates file operation.
+     *
+     * @param operationType operation type
+     * @param totalSize total size of processed data or -1 if unknown
+     */
+    public BinEdFileOperation(OperationType operationType, long totalSize) {
+        this.operationType = operationType;
+        this.totalSize = totalSize;
+    }
+
+    @Nonnull
+    public OperationType getOperationType() {
+        return operationType;
+    }
+
+    public long getTotalSize() {
+        return totalSize;
+    }
+
+    public long getProcessedSize() {
+        return processedSize.get();
+    }
+
+    /**
+     * Returns progress in range 0 to 1000 or -1 if progress is not known.
+     *
+     * @return progress
+     */
+    public int getProgress() {
+        if (totalSize <= 0) {
+            return -1;
+        }
+
+        return (int) (Math.min(processedSize.get(), totalSize) * 1000 / totalSize);
+    }
+
+    /**
+     * Returns average throughput since start of the operation.
+     *
+     * @return bytes per second
+     */
+    public long getBytesPerSecond() {
+        long duration = System.currentTimeMillis() - startTime;
+        return duration > 0 ? processedSize.get() * 1000 / duration : 0;
+    }
+
+    public boolean isCancellable() {
+        return cancellable;
+    }
+
+    public void setCancellable(boolean cancellable) {
+        this.cancellable = cancellable;
+        notifyProgress(true);
+    }
+
+    public boolean isCancelled() {
+        return cancelled;
+    }
+
+    /**
+     * Requests cancellation of the operation if operation is cancellable.
+     */
+    public void cancel() {
+        if (cancellable) {
+            cancelled = true;
+        }
+    }
+
+    public void setProgressListener(@Nullable ProgressListener progressListener) {
+        this.progressListener = progressListener;
+    }
+
+    /**
+     * Reports processed data and checks for cancellation.
+     *
+     * Can be called from multiple threads.
+     *
+     * @param count count of processed bytes
+     * @throws InterruptedIOException if operation was cancelled
+     */
+    public void addProcessed(long count) throws InterruptedIOException {
+        if (cancelled) {
+            throw new InterruptedIOException("Operation cancelled");
+        }
+
+        processedSize.addAndGet(count);
+        notifyProgress(false);
+    }
+
+    /**
+     * Reports total size of processed data and checks for cancellation.
+     *
+     * @param processedSize size of data processed so far
+     * @throws InterruptedIOException if operation was cancelled
+     */
+    public void setProcessed(long processedSize) throws InterruptedIOException {
+        if (cancelled) {
+            throw new InterruptedIOException("Operation cancelled");
+        }
+
+        this.processedSize.set(processedSize);
+        notifyProgress(false);
+    }
+
+    /**
+     * Performs operation task.
+     *
+     * @param task task
+     * @throws IOException if input/output error or operation was cancelled
+     */
+    public void perform(Task task) throws IOException {
+        if (!SwingUtilities.isEventDispatchThread()) {
+            try {
+                task.run();
+            } finally {
+                finishedLatch.countDown();
+                notifyFinished();
+            }
+            return;
+        }
+
+        SecondaryLoop secondaryLoop = Toolkit.getDefaultToolkit().getSystemEventQueue().createSecondaryLoop();
+        TaskThread taskThread = new TaskThread(task, secondaryLoop, finishedLatch);
+        notifyProgress(true);
+        taskThread.start();
+        secondaryLoop.enter();
+        notifyFinished();
+        if (taskThread.ioException != null) {
+            throw taskThread.ioException;
+        }
+        if (taskThread.runtimeException != null) {
+            throw taskThread.runtimeException;
+        }
+        if (taskThread.error != null) {
+            throw taskThread.error;
+        }
+    }
+
+    /**
+     * Waits until task of the operation finishes.
+     *
+     * When called from event dispatch thread, events are dispatched while
+     * waiting.
+     */
+    public void awaitFinished() {
+        if (finishedLatch.getCount() == 0) {
+            return;
+        }
+
+        if (!SwingUtilities.isEventDispatchThread()) {
+            awaitLatch(finishedLatch);
+            return;
+        }
+
+        SecondaryLoop secondaryLoop = Toolkit.getDefaultToolkit().getSystemEventQueue().createSecondaryLoop();
+        Thread waitThread = new Thread(() -> {
+            awaitLatch(finishedLatch);
+            SwingUtilities.invokeLater(secondaryLoop::exit);
+        }, "FileOperationWaitThread");
+        waitThread.start();
+        secondaryLoop.enter();
+    }
+
+    private static void awaitLatch(CountDownLatch latch) {
+        boolean interrupted = false;
+        while (true) {
+            try {
+                latch.await();
+                break;
+            } catch (InterruptedException ex) {
+                interrupted = true;
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void notifyProgress(boolean force) {
+        if (progressListener == null) {
+            return;
+        }
+
+        long currentTime = System.currentTimeMillis();
+        if (force || currentTime - lastProgressTime >= PROGRESS_INTERVAL) {
+            lastProgressTime = currentTime;
+            ProgressListener listener = progressListener;
+            SwingUtilities.invokeLater(() -> listener.progressChanged(this));
+        }
+    }
+
+    private void notifyFinished() {
+        if (progressListener != null) {
+            ProgressListener listener = progressListener;
+            SwingUtilities.invokeLater(() -> listener.operationFinished(this));
+        }
+    }
+
+    public enum OperationType {
+        LOAD,
+        SAVE,
+        CONVERT
+    }
+
+    /**
+     * Task performing operation.
+     */
+    public interface Task {
+
+        void run() throws IOException;
+    }
+
+    /**
+     * Listener for operation progress invoked in event dispatch thread.
+     */
+    @ParametersAreNonnullByDefault
+    public interface ProgressListener {
+
+        void progressChanged(BinEdFileOperation fileOperation);
+
+        void operationFinished(BinEdFileOperation fileOperation);
+    }
+
+    private static class TaskThread extends Thread {
+
+        private final Task task;
+        private final SecondaryLoop secondaryLoop;
+        private final CountDownLatch finishedLatch;
+        private IOException ioException = null;
+        private RuntimeException runtimeException = null;
+        private Error error = null;
+
+        public TaskThread(Task task, SecondaryLoop secondaryLoop, CountDownLatch finishedLatch) {
+            super("FileOperationThread");
+            this.task = task;
+            this.secondaryLoop = secondaryLoop;
+            this.finishedLatch = finishedLatch;
+        }
+
+        @Override
+        public void run() {
+            try {
+                task.run();
+            } catch (IOException ex) {
+                ioException = ex;
+            } catch (RuntimeException ex) {
+                runtimeException = ex;
+            } catch (Error ex) {
+                // Operation has to finish even if it failed on error such as lack of memory
+                error = ex;
+            } finally {
+                finishedLatch.countDown();
+                // Exit is dispatched as event so that it cannot precede entering of the loop
+                SwingUtilities.invokeLater(secondaryLoop::exit);
+            }
+        }
+    }
+}
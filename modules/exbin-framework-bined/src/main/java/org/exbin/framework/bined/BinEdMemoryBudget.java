@@ -0,0 +1,454 @@
+/*
+ * Copyright (C) ExBin Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.exbin.framework.bined;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.WeakHashMap;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import javax.annotation.ParametersAreNonnullByDefault;
+import javax.swing.Timer;
+import org.exbin.auxiliary.binary_data.BinaryData;
+import org.exbin.auxiliary.binary_data.delta.DataSegment;
+import org.exbin.auxiliary.binary_data.delta.DeltaDocument;
+import org.exbin.auxiliary.binary_data.delta.SourceSegment;
+import org.exbin.bined.swing.CodeAreaCommandHandler;
+import org.exbin.framework.bined.data.MappedFileData;
+import org.exbin.framework.bined.gui.BinEdComponentPanel;
+
+/**
+ * Heap memory budget shared by all opened documents.
+ *
+ * Tracks heap memory held by each registered file handler, which consists of
+ * content data and memory reported by component extensions and command
+ * handler implementing {@link MemoryConsumer}. Memory shared by all documents is reported by
+ * consumers added to the budget directly. When total usage exceeds the
+ * budget, memory is released from least recently used documents first:
+ * search results and undo data are released, then modified pages of idle
+ * documents in direct mode are moved to temporary file and idle unmodified
+ * documents loaded in memory are switched to delta mode.
+ *
+ * Content memory usage of each document is recomputed only after its data
+ * were changed, as it requires walking all segments of delta document.
+ *
+ * @author ExBin Project (https://exbin.org)
+ */
+@ParametersAreNonnullByDefault
+public class BinEdMemoryBudget {
+
+    public static final int DEFAULT_BUDGET_HEAP_RATIO = 60;
+
+    private static final int CHECK_INTERVAL = 5000;
+    private static final long IDLE_TIME = 60000;
+    private static final MemoryCategory[] RELEASE_ORDER = {MemoryCategory.SEARCH, MemoryCategory.UNDO};
+
+    private final Map<BinEdFileHandler, FileHandlerState> fileHandlerStates = new WeakHashMap<>();
+    private final List<MemoryConsumer> sharedMemoryConsumers = new ArrayList<>();
+    private final Timer checkTimer;
+    private BinEdFileHandler activeFileHandler = null;
+    private int budgetHeapRatio = DEFAULT_BUDGET_HEAP_RATIO;
+    private boolean checkInProgress = false;
+
+    public BinEdMemoryBudget() {
+        checkTimer = new Timer(CHECK_INTERVAL, (event) -> checkBudget());
+    }
+
+    public void registerFileHandler(BinEdFileHandler fileHandler) {
+        FileHandlerState fileHandlerState = new FileHandlerState();
+        fileHandlerStates.put(fileHandler, fileHandlerState);
+        fileHandler.getCodeArea().addDataChangedListener(fileHandlerState::dataChanged);
+        if (!checkTimer.isRunning()) {
+            checkTimer.start();
+        }
+    }
+
+    public void unregisterFileHandler(BinEdFileHandler fileHandler) {
+        fileHandlerStates.remove(fileHandler);
+        if (fileHandler == activeFileHandler) {
+            activeFileHandler = null;
+        }
+        if (fileHandlerStates.isEmpty()) {
+            checkTimer.stop();
+        }
+    }
+
+    /**
+     * Notifies change of content memory usage not reported as data change.
+     *
+     * @param fileHandler file handler
+     */
+    public void notifyContentChanged(BinEdFileHandler fileHandler) {
+        FileHandlerState fileHandlerState = fileHandlerStates.get(fileHandler);
+        if (fileHandlerState != null) {
+            fileHandlerState.dataChanged();
+        }
+    }
+
+    /**
+     * Adds consumer of memory shared by all documents.
+     *
+     * @param memoryConsumer memory consumer
+     */
+    public void addMemoryConsumer(MemoryConsumer memoryConsumer) {
+        sharedMemoryConsumers.add(memoryConsumer);
+    }
+
+    public void removeMemoryConsumer(MemoryConsumer memoryConsumer) {
+        sharedMemoryConsumers.remove(memoryConsumer);
+    }
+
+    public void notifyActivated(BinEdFileHandler fileHandler) {
+        activeFileHandler = fileHandler;
+        FileHandlerState fileHandlerState = fileHandlerStates.get(fileHandler);
+        if (fileHandlerState != null) {
+            fileHandlerState.accessTime = System.currentTimeMillis();
+        }
+    }
+
+    public void notifyDeactivated(BinEdFileHandler fileHandler) {
+        if (fileHandler == activeFileHandler) {
+            activeFileHandler = null;
+        }
+        FileHandlerState fileHandlerState = fileHandlerStates.get(fileHandler);
+        if (fileHandlerState != null) {
+            fileHandlerState.accessTime = System.currentTimeMillis();
+        }
+    }
+
+    /**
+     * Returns percentage of maximum heap available to opened documents.
+     *
+     * @return heap ratio
+     */
+    public int getBudgetHeapRatio() {
+        return budgetHeapRatio;
+    }
+
+    public void setBudgetHeapRatio(int budgetHeapRatio) {
+        this.budgetHeapRatio = budgetHeapRatio;
+    }
+
+    /**
+     * Returns budget in bytes.
+     *
+     * @return budget
+     */
+    public long getBudget() {
+        return Runtime.getRuntime().maxMemory() / 100 * budgetHeapRatio;
+    }
+
+    /**
+     * Returns memory usage of given file handler.
+     *
+     * @param fileHandler file handler
+     * @return memory usage
+     */
+    @Nonnull
+    public MemoryUsage getMemoryUsage(BinEdFileHandler fileHandler) {
+        MemoryUsage memoryUsage = new MemoryUsage();
+        memoryUsage.add(MemoryCategory.CONTENT, getContentMemoryUsage(fileHandler.getCodeArea().getContentData()));
+        for (MemoryConsumer memoryConsumer : getMemoryConsumers(fileHandler)) {
+            memoryUsage.add(memoryConsumer.getCategory(), memoryConsumer.getMemoryUsage());
+        }
+        BinaryData contentData = fileHandler.getCodeArea().getContentData();
+        for (MemoryConsumer memoryConsumer : sharedMemoryConsumers) {
+            if (memoryConsumer instanceof DocumentMemoryConsumer) {
+                memoryUsage.add(memoryConsumer.getCategory(), ((DocumentMemoryConsumer) memoryConsumer).getMemoryUsage(contentData));
+            }
+        }
+        return memoryUsage;
+    }
+
+    /**
+     * Returns total memory usage of all registered file handlers including
+     * shared memory.
+     *
+     * @return memory usage in bytes
+     */
+    public long getTotalMemoryUsage() {
+        long totalUsage = 0;
+        for (Map.Entry<BinEdFileHandler, FileHandlerState> entry : new ArrayList<>(fileHandlerStates.entrySet())) {
+            BinEdFileHandler fileHandler = entry.getKey();
+            if (fileHandler == null || fileHandler.isClosed()) {
+                continue;
+            }
+
+            totalUsage += entry.getValue().getContentMemoryUsage(fileHandler.getCodeArea().getContentData());
+            for (MemoryConsumer memoryConsumer : getMemoryConsumers(fileHandler)) {
+                totalUsage += memoryConsumer.getMemoryUsage();
+            }
+        }
+        for (MemoryConsumer memoryConsumer : sharedMemoryConsumers) {
+            totalUsage += memoryConsumer.getMemoryUsage();
+        }
+        return totalUsage;
+    }
+
+    /**
+     * Releases memory if total usage exceeds budget.
+     *
+     * Must be called from event dispatch thread.
+     */
+    public void checkBudget() {
+        if (checkInProgress) {
+            return;
+        }
+
+        long budget = getBudget();
+        long totalUsage = getTotalMemoryUsage();
+        if (totalUsage <= budget) {
+            return;
+        }
+
+        checkInProgress = true;
+        try {
+            List<BinEdFileHandler> fileHandlers = getLeastRecentlyUsed();
+            for (MemoryCategory category : RELEASE_ORDER) {
+                for (BinEdFileHandler fileHandler : fileHandlers) {
+                    for (MemoryConsumer memoryConsumer : getMemoryConsumers(fileHandler)) {
+                        if (memoryConsumer.getCategory() == category) {
+                            totalUsage -= memoryConsumer.releaseMemory();
+                            if (totalUsage <= budget) {
+                                return;
+                            }
+                        }
+                    }
+                }
+                for (MemoryConsumer memoryConsumer : sharedMemoryConsumers) {
+                    if (memoryConsumer.getCategory() == category) {
+                        totalUsage -= memoryConsumer.releaseMemory();
+                        if (totalUsage <= budget) {
+                            return;
+                        }
+                    }
+                }
+            }
+
+            long currentTime = System.currentTimeMillis();
+            for (BinEdFileHandler fileHandler : fileHandlers) {
+                FileHandlerState fileHandlerState = fileHandlerStates.get(fileHandler);
+                if (fileHandler == activeFileHandler || fileHandlerState == null || currentTime - fileHandlerState.accessTime < IDLE_TIME) {
+                    continue;
+                }
+
+                BinaryData contentData = fileHandler.getCodeArea().getContentData();
+                if (contentData instanceof MappedFileData) {
+                    totalUsage -= ((MappedFileData) contentData).releaseModifiedMemory();
+                    fileHandlerState.dataChanged();
+                    if (totalUsage <= budget) {
+                        return;
+                    }
+                }
+
+                if (canSwitchToDelta(fileHandler)) {
+                    long contentUsage = fileHandlerState.getContentMemoryUsage(contentData);
+                    fileHandler.switchFileHandlingMode(FileHandlingMode.DELTA);
+                    if (fileHandler.getFileHandlingMode() == FileHandlingMode.DELTA) {
+                        totalUsage -= contentUsage;
+                        if (totalUsage <= budget) {
+                            return;
+                        }
+                    }
+                }
+            }
+        } finally {
+            checkInProgress = false;
+        }
+    }
+
+    public void dispose() {
+        checkTimer.stop();
+        fileHandlerStates.clear();
+        activeFileHandler = null;
+    }
+
+    @Nonnull
+    private List<BinEdFileHandler> getLeastRecentlyUsed() {
+        List<BinEdFileHandler> fileHandlers = new ArrayList<>();
+        for (BinEdFileHandler fileHandler : fileHandlerStates.keySet()) {
+            if (fileHandler != null && !fileHandler.isClosed()) {
+                fileHandlers.add(fileHandler);
+            }
+        }
+        fileHandlers.sort((first, second) -> {
+            if (first == activeFileHandler || second == activeFileHandler) {
+                return first == activeFileHandler ? (second == activeFileHandler ? 0 : 1) : -1;
+            }
+            return Long.compare(getAccessTime(first), getAccessTime(second));
+        });
+        return fileHandlers;
+    }
+
+    private long getAccessTime(BinEdFileHandler fileHandler) {
+        FileHandlerState fileHandlerState = fileHandlerStates.get(fileHandler);
+        return fileHandlerState == null ? 0 : fileHandlerState.accessTime;
+    }
+
+    private static boolean canSwitchToDelta(BinEdFileHandler fileHandler) {
+        // Reloading document is safe only if it matches its file
+        return !fileHandler.isClosed()
+                && fileHandler.getFileHandlingMode() == FileHandlingMode.MEMORY
+                && fileHandler.getFileUri().isPresent()
+                && !fileHandler.isModified()
+                && !fileHandler.getFileOperation().isPresent();
+    }
+
+    @Nonnull
+    private static List<MemoryConsumer> getMemoryConsumers(BinEdFileHandler fileHandler) {
+        List<MemoryConsumer> memoryConsumers = new ArrayList<>();
+        for (BinEdComponentPanel.BinEdComponentExtension extension : fileHandler.getComponent().getComponentExtensions()) {
+            if (extension instanceof MemoryConsumer) {
+                memoryConsumers.add((MemoryConsumer) extension);
+            }
+        }
+        CodeAreaCommandHandler commandHandler = fileHandler.getCodeArea().getCommandHandler();
+        if (commandHandler instanceof MemoryConsumer) {
+            memoryConsumers.add((MemoryConsumer) commandHandler);
+        }
+        return memoryConsumers;
+    }
+
+    /**
+     * Returns heap memory held by content data.
+     *
+     * @param contentData content data
+     * @return memory usage in bytes
+     */
+    public static long getContentMemoryUsage(@Nullable BinaryData contentData) {
+        if (contentData == null) {
+            return 0;
+        }
+
+        if (contentData instanceof MappedFileData) {
+            return ((MappedFileData) contentData).getModifiedMemoryUsage();
+        }
+
+        if (contentData instanceof DeltaDocument) {
+            // Only modified ranges are held in memory
+            long memoryUsage = 0;
+            DataSegment segment = ((DeltaDocument) contentData).getSegments().first();
+            while (segment != null) {
+                if (!(segment instanceof SourceSegment)) {
+                    memoryUsage += segment.getLength();
+                }
+                segment = segment.getNext();
+            }
+            return memoryUsage;
+        }
+
+        return contentData.getDataSize();
+    }
+
+    public enum MemoryCategory {
+        CONTENT,
+        UNDO,
+        SEARCH
+    }
+
+    private static class FileHandlerState {
+
+        private long accessTime = System.currentTimeMillis();
+        private BinaryData contentData = null;
+        private long contentMemoryUsage = 0;
+        private boolean contentChanged = true;
+
+        private void dataChanged() {
+            contentChanged = true;
+        }
+
+        private long getContentMemoryUsage(BinaryData currentData) {
+            // Replaced content data are not always reported as data change
+            if (contentChanged || currentData != contentData) {
+                contentData = currentData;
+                contentMemoryUsage = BinEdMemoryBudget.getContentMemoryUsage(currentData);
+                contentChanged = false;
+            }
+            return contentMemoryUsage;
+        }
+    }
+
+    /**
+     * Component extension holding releasable heap memory.
+     */
+    @ParametersAreNonnullByDefault
+    public interface MemoryConsumer {
+
+        /**
+         * Returns category of held memory.
+         *
+         * @return memory category
+         */
+        @Nonnull
+        MemoryCategory getCategory();
+
+        /**
+         * Returns size of currently held memory.
+         *
+         * @return memory usage in bytes
+         */
+        long getMemoryUsage();
+
+        /**
+         * Releases held memory if possible.
+         *
+         * @return count of released bytes
+         */
+        long releaseMemory();
+    }
+
+    /**
+     * Memory consumer shared by all documents which can attribute held memory
+     * to individual documents.
+     */
+    @ParametersAreNonnullByDefault
+    public interface DocumentMemoryConsumer extends MemoryConsumer {
+
+        /**
+         * Returns size of currently held memory related to given document.
+         *
+         * @param contentData content data of document
+         * @return memory usage in bytes
+         */
+        long getMemoryUsage(BinaryData contentData);
+    }
+
+    /**
+     * Memory usage of single document split by categories.
+     */
+    @ParametersAreNonnullByDefault
+    public static class MemoryUsage {
+
+        private final long[] usage = new long[MemoryCategory.values().length];
+
+        public void add(MemoryCategory category, long memoryUsage) {
+            usage[category.ordinal()] += memoryUsage;
+        }
+
+        public long getUsage(MemoryCategory category) {
+            return usage[category.ordinal()];
+        }
+
+        public long getTotal() {
+            long total = 0;
+            for (long categoryUsage : usage) {
+                total += categoryUsage;
+            }
+            return total;
+        }
+    }
+}
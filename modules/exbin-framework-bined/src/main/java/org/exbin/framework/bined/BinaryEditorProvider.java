@@ -46,6 +46,7 @@ import org.exbin.framework.file.api.FileType;
 import org.exbin.framework.file.api.FileTypes;
 import org.exbin.framework.file.api.FileHandler;
 import org.exbin.framework.operation.undo.api.UndoRedoFileHandler;
+import org.exbin.framework.bined.data.MappedFileData;
 import org.exbin.framework.action.api.ComponentActivationListener;
 import org.exbin.framework.editor.api.EditorFileHandler;
 import org.exbin.framework.file.api.EditableFileHandler;
@@ -153,6 +154,19 @@ public class BinaryEditorProvider implements EditorProvider, BinEdEditorProvider
             binaryStatus.setEditMode(mode, operation);
         });
 
+        activeFile.setFileOperationListener(new BinEdFileOperation.ProgressListener() {
+            @Override
+            public void progressChanged(BinEdFileOperation fileOperation) {
+                binaryStatus.setFileOperation(fileOperation);
+            }
+
+            @Override
+            public void operationFinished(BinEdFileOperation fileOperation) {
+                binaryStatus.clearFileOperation();
+                updateStatus();
+            }
+        });
+
         updateStatus();
     }
 
@@ -212,6 +226,8 @@ public class BinaryEditorProvider implements EditorProvider, BinEdEditorProvider
             newMemoryMode = BinaryStatusApi.MemoryMode.READ_ONLY;
         } else if (codeArea.getContentData() instanceof DeltaDocument) {
             newMemoryMode = BinaryStatusApi.MemoryMode.DELTA_MODE;
+        } else if (codeArea.getContentData() instanceof MappedFileData) {
+            newMemoryMode = BinaryStatusApi.MemoryMode.DIRECT_MODE;
         }
 
         binaryStatus.setMemoryMode(newMemoryMode);
@@ -300,6 +316,14 @@ public class BinaryEditorProvider implements EditorProvider, BinEdEditorProvider
         return releaseFile(activeFile);
     }
 
+    /**
+     * Releases resources of the file handler when editor is no longer used.
+     */
+    public void dispose() {
+        BinedModule binedModule = App.getModule(BinedModule.class);
+        binedModule.getFileManager().releaseFileHandler(activeFile);
+    }
+
     @Nonnull
     @Override
     public Optional<UndoRedoState> getUndoRedo() {
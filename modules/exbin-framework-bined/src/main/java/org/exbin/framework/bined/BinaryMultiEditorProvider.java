@@ -47,6 +47,8 @@ import org.exbin.bined.capability.EditModeCapable;
 import org.exbin.bined.swing.section.SectCodeArea;
 import org.exbin.framework.App;
 import org.exbin.framework.bined.handler.CodeAreaPopupMenuHandler;
+import org.exbin.framework.bined.data.MappedFileData;
+import org.exbin.framework.bined.gui.BinEdComponentPanel;
 import org.exbin.framework.action.api.clipboard.ClipboardStateListener;
 import org.exbin.framework.action.api.ActionModuleApi;
 import org.exbin.framework.action.api.ComponentActivationListener;
@@ -188,6 +190,23 @@ public class BinaryMultiEditorProvider extends DefaultMultiEditorProvider implem
             }
         });
 
+        fileHandler.setFileOperationListener(new BinEdFileOperation.ProgressListener() {
+            @Override
+            public void progressChanged(BinEdFileOperation fileOperation) {
+                if (fileHandler == activeFile && binaryStatus != null) {
+                    binaryStatus.setFileOperation(fileOperation);
+                }
+            }
+
+            @Override
+            public void operationFinished(BinEdFileOperation fileOperation) {
+                if (fileHandler == activeFile && binaryStatus != null) {
+                    binaryStatus.clearFileOperation();
+                    updateStatus();
+                }
+            }
+        });
+
         PreferencesModuleApi preferencesModule = App.getModule(PreferencesModuleApi.class);
         fileHandler.getComponent().onInitFromPreferences(preferencesModule.getAppPreferences());
 
@@ -196,6 +215,57 @@ public class BinaryMultiEditorProvider extends DefaultMultiEditorProvider implem
         return fileHandler;
     }
 
+    @Override
+    public void closeFile(FileHandler file) {
+        List<FileHandler> openedFiles = new ArrayList<>(getFileHandlers());
+        super.closeFile(file);
+        releaseClosedFiles(openedFiles);
+    }
+
+    @Override
+    public void closeOtherFiles(FileHandler exceptHandler) {
+        List<FileHandler> openedFiles = new ArrayList<>(getFileHandlers());
+        super.closeOtherFiles(exceptHandler);
+        releaseClosedFiles(openedFiles);
+    }
+
+    @Override
+    public void closeAllFiles() {
+        List<FileHandler> openedFiles = new ArrayList<>(getFileHandlers());
+        super.closeAllFiles();
+        releaseClosedFiles(openedFiles);
+    }
+
+    /**
+     * Releases file handlers which were closed.
+     *
+     * Closing can be cancelled by user for some of the files, so only handlers
+     * no longer present in editor are released.
+     *
+     * @param openedFiles file handlers opened before closing
+     */
+    private void releaseClosedFiles(List<FileHandler> openedFiles) {
+        List<FileHandler> fileHandlers = getFileHandlers();
+        BinEdFileManager fileManager = App.getModule(BinedModule.class).getFileManager();
+        for (FileHandler fileHandler : openedFiles) {
+            if (!fileHandlers.contains(fileHandler) && fileHandler instanceof BinEdFileHandler) {
+                fileManager.releaseFileHandler((BinEdFileHandler) fileHandler);
+            }
+        }
+    }
+
+    /**
+     * Releases resources of all file handlers when editor is no longer used.
+     */
+    public void dispose() {
+        BinEdFileManager fileManager = App.getModule(BinedModule.class).getFileManager();
+        for (FileHandler fileHandler : getFileHandlers()) {
+            if (fileHandler instanceof BinEdFileHandler) {
+                fileManager.releaseFileHandler((BinEdFileHandler) fileHandler);
+            }
+        }
+    }
+
     @Override
     public boolean canSave() {
         if (activeFile == null) {
@@ -218,6 +288,7 @@ public class BinaryMultiEditorProvider extends DefaultMultiEditorProvider implem
         updateCurrentSelectionRange();
         updateCurrentMemoryMode();
         updateCurrentEditMode();
+        updateCurrentFileOperation();
     }
 
     @Override
@@ -335,6 +406,8 @@ public class BinaryMultiEditorProvider extends DefaultMultiEditorProvider implem
                 newMemoryMode = BinaryStatusApi.MemoryMode.READ_ONLY;
             } else if (codeArea.getContentData() instanceof DeltaDocument) {
                 newMemoryMode = BinaryStatusApi.MemoryMode.DELTA_MODE;
+            } else if (codeArea.getContentData() instanceof MappedFileData) {
+                newMemoryMode = BinaryStatusApi.MemoryMode.DIRECT_MODE;
             }
 
             binaryStatus.setMemoryMode(newMemoryMode);
@@ -352,6 +425,19 @@ public class BinaryMultiEditorProvider extends DefaultMultiEditorProvider implem
         }
     }
 
+    private void updateCurrentFileOperation() {
+        if (binaryStatus == null) {
+            return;
+        }
+
+        Optional<BinEdFileOperation> fileOperation = activeFile instanceof BinEdFileHandler ? ((BinEdFileHandler) activeFile).getFileOperation() : Optional.empty();
+        if (fileOperation.isPresent()) {
+            binaryStatus.setFileOperation(fileOperation.get());
+        } else {
+            binaryStatus.clearFileOperation();
+        }
+    }
+
     private void updateCurrentEncoding() {
         if (textEncodingStatusApi == null) {
             return;
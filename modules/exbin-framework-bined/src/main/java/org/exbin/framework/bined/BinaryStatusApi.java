@@ -68,12 +68,25 @@ public interface BinaryStatusApi {
      */
     void setMemoryMode(MemoryMode memoryMode);
 
+    /**
+     * Reports progress of file operation in progress.
+     *
+     * @param fileOperation file operation
+     */
+    void setFileOperation(BinEdFileOperation fileOperation);
+
+    /**
+     * Clears reported file operation.
+     */
+    void clearFileOperation();
+
     @ParametersAreNonnullByDefault
     public enum MemoryMode {
 
         READ_ONLY("R", "read_only"),
         RAM_MEMORY("M", "ram"),
-        DELTA_MODE("\u0394", "delta");
+        DELTA_MODE("\u0394", "delta"),
+        DIRECT_MODE("D", "direct");
 
         private final String displayChar;
         private final String value;
@@ -0,0 +1,187 @@
+/*
+ * Copyright (C) ExBin Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.exbin.framework.bined;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import javax.annotation.ParametersAreNonnullByDefault;
+import javax.annotation.concurrent.Immutable;
+import org.exbin.bined.swing.CodeAreaCore;
+
+/**
+ * Range of data replaced by single change.
+ *
+ * Commands which know range of data they modified report it together with
+ * data change notification, so that listeners don't have to process whole
+ * data.
+ *
+ * @author ExBin Project (https://exbin.org)
+ */
+@Immutable
+@ParametersAreNonnullByDefault
+public final class ChangedDataRange {
+
+    private static final String CLIENT_PROPERTY = ChangedDataRange.class.getName();
+    private static final String DEFERRED_CLIENT_PROPERTY = CLIENT_PROPERTY + ".deferred";
+
+    private final long position;
+    private final long previousLength;
+    private final long currentLength;
+
+    /**
+     * Creates changed range.
+     *
+     * @param position start position of change
+     * @param previousLength length of range before change
+     * @param currentLength length of range after change
+     */
+    public ChangedDataRange(long position, long previousLength, long currentLength) {
+        if (position < 0 || previousLength < 0 || currentLength < 0) {
+            throw new IllegalArgumentException("Invalid changed range");
+        }
+        this.position = position;
+        this.previousLength = previousLength;
+        this.currentLength = currentLength;
+    }
+
+    public long getPosition() {
+        return position;
+    }
+
+    public long getPreviousLength() {
+        return previousLength;
+    }
+
+    public long getCurrentLength() {
+        return currentLength;
+    }
+
+    /**
+     * Returns change of data size.
+     *
+     * @return size difference
+     */
+    public long getShift() {
+        return currentLength - previousLength;
+    }
+
+    /**
+     * Returns range of change reverting this change.
+     *
+     * @return reverted range
+     */
+    @Nonnull
+    public ChangedDataRange reverse() {
+        return new ChangedDataRange(position, currentLength, previousLength);
+    }
+
+    /**
+     * Returns single range covering this change followed by given change.
+     *
+     * @param nextChange change performed after this change
+     * @return merged range
+     */
+    @Nonnull
+    public ChangedDataRange merge(ChangedDataRange nextChange) {
+        long mergedStart = Math.min(position, nextChange.position);
+        long mergedEnd = Math.max(position + currentLength, nextChange.position + nextChange.previousLength);
+        long mergedLength = mergedEnd - mergedStart;
+        return new ChangedDataRange(mergedStart, mergedLength - getShift(), mergedLength + nextChange.getShift());
+    }
+
+    /**
+     * Returns range changed by edit which modified data only around cursor
+     * and selection, such as typing, deleting or pasting.
+     *
+     * Range includes one extra byte on each side, as edit of half byte or
+     * character can modify neighbouring byte.
+     *
+     * @param previousSize data size before edit
+     * @param previousPosition cursor position before edit
+     * @param selectionStart selection start before edit or cursor position if
+     * there was no selection
+     * @param selectionEnd selection end before edit or cursor position if
+     * there was no selection
+     * @param currentSize data size after edit
+     * @param currentPosition cursor position after edit
+     * @return changed range or null if edit cannot be local
+     */
+    @Nullable
+    public static ChangedDataRange fromLocalEdit(long previousSize, long previousPosition, long selectionStart, long selectionEnd, long currentSize, long currentPosition) {
+        long shift = currentSize - previousSize;
+        long start = Math.max(0, Math.min(Math.min(previousPosition, selectionStart), currentPosition) - 1);
+        long previousEnd = Math.min(previousSize, Math.max(Math.max(previousPosition, selectionEnd), currentPosition - shift) + 1);
+        long previousLength = previousEnd - start;
+        if (previousLength < 0 || previousLength + shift < 0) {
+            return null;
+        }
+
+        return new ChangedDataRange(start, previousLength, previousLength + shift);
+    }
+
+    /**
+     * Notifies data change of code area with known changed range.
+     *
+     * Range is available to data change listeners only during the
+     * notification.
+     *
+     * @param codeArea code area
+     * @param changedRange changed range
+     */
+    public static void notifyDataChanged(CodeAreaCore codeArea, ChangedDataRange changedRange) {
+        codeArea.putClientProperty(CLIENT_PROPERTY, changedRange);
+        try {
+            codeArea.notifyDataChanged();
+        } finally {
+            codeArea.putClientProperty(CLIENT_PROPERTY, null);
+        }
+    }
+
+    /**
+     * Returns range of data change currently being notified.
+     *
+     * @param codeArea code area
+     * @return changed range or null if range of change is not known
+     */
+    @Nullable
+    public static ChangedDataRange getNotifiedRange(CodeAreaCore codeArea) {
+        Object changedRange = codeArea.getClientProperty(CLIENT_PROPERTY);
+        return changedRange instanceof ChangedDataRange ? (ChangedDataRange) changedRange : null;
+    }
+
+    /**
+     * Marks that data changes of code area are going to be notified again
+     * with their range once the edit is finished.
+     *
+     * @param codeArea code area
+     * @param deferred true if notifications are deferred
+     */
+    public static void setNotificationDeferred(CodeAreaCore codeArea, boolean deferred) {
+        codeArea.putClientProperty(DEFERRED_CLIENT_PROPERTY, deferred ? Boolean.TRUE : null);
+    }
+
+    /**
+     * Returns true if data change currently being notified is going to be
+     * notified again with its range, so that listeners which process changed
+     * range can skip it.
+     *
+     * @param codeArea code area
+     * @return true if notification is deferred
+     */
+    public static boolean isNotificationDeferred(CodeAreaCore codeArea) {
+        return codeArea.getClientProperty(DEFERRED_CLIENT_PROPERTY) == Boolean.TRUE;
+    }
+}
@@ -0,0 +1,125 @@
+/*
+ * Copyright (C) ExBin Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.exbin.framework.bined;
+
+import java.io.File;
+import javax.annotation.Nonnull;
+import javax.annotation.ParametersAreNonnullByDefault;
+
+/**
+ * Policy for selection of file handling mode for opened file.
+ *
+ * File is loaded to memory only if it is smaller than size limit and fits
+ * into given ratio of currently available heap, which already accounts for
+ * other opened documents. Larger files are handled using delta changes or
+ * optionally directly using memory mapped file.
+ *
+ * @author ExBin Project (https://exbin.org)
+ */
+@ParametersAreNonnullByDefault
+public class FileHandlingModePolicy {
+
+    public static final int DEFAULT_MEMORY_MODE_SIZE_LIMIT = 64;
+    public static final int DEFAULT_MEMORY_MODE_HEAP_RATIO = 50;
+    public static final int DEFAULT_DIRECT_MODE_SIZE_THRESHOLD = 0;
+
+    private static final long MEBIBYTE = 1024 * 1024;
+
+    private boolean automatic = false;
+    private int memoryModeSizeLimit = DEFAULT_MEMORY_MODE_SIZE_LIMIT;
+    private int memoryModeHeapRatio = DEFAULT_MEMORY_MODE_HEAP_RATIO;
+    private int directModeSizeThreshold = DEFAULT_DIRECT_MODE_SIZE_THRESHOLD;
+
+    public boolean isAutomatic() {
+        return automatic;
+    }
+
+    public void setAutomatic(boolean automatic) {
+        this.automatic = automatic;
+    }
+
+    /**
+     * Returns maximum size of file loaded to memory in mebibytes.
+     *
+     * @return size limit
+     */
+    public int getMemoryModeSizeLimit() {
+        return memoryModeSizeLimit;
+    }
+
+    public void setMemoryModeSizeLimit(int memoryModeSizeLimit) {
+        this.memoryModeSizeLimit = memoryModeSizeLimit;
+    }
+
+    /**
+     * Returns maximum percentage of available heap used by file loaded to
+     * memory.
+     *
+     * @return heap ratio
+     */
+    public int getMemoryModeHeapRatio() {
+        return memoryModeHeapRatio;
+    }
+
+    public void setMemoryModeHeapRatio(int memoryModeHeapRatio) {
+        this.memoryModeHeapRatio = memoryModeHeapRatio;
+    }
+
+    /**
+     * Returns minimum size of file in mebibytes handled directly or 0 if
+     * direct mode is not selected automatically.
+     *
+     * @return size threshold
+     */
+    public int getDirectModeSizeThreshold() {
+        return directModeSizeThreshold;
+    }
+
+    public void setDirectModeSizeThreshold(int directModeSizeThreshold) {
+        this.directModeSizeThreshold = directModeSizeThreshold;
+    }
+
+    /**
+     * Selects file handling mode for given file.
+     *
+     * @param file file
+     * @param defaultMode mode used when automatic selection is disabled
+     * @return file handling mode
+     */
+    @Nonnull
+    public FileHandlingMode selectMode(File file, FileHandlingMode defaultMode) {
+        long fileSize = file.length();
+        if (!automatic) {
+            // Memory mode is still avoided when file cannot fit into heap
+            return defaultMode == FileHandlingMode.MEMORY && fileSize > getAvailableHeap() ? FileHandlingMode.DELTA : defaultMode;
+        }
+
+        if (directModeSizeThreshold > 0 && fileSize >= directModeSizeThreshold * MEBIBYTE && file.canWrite()) {
+            return FileHandlingMode.DIRECT;
+        }
+
+        if (fileSize <= memoryModeSizeLimit * MEBIBYTE && fileSize <= getAvailableHeap() / 100 * memoryModeHeapRatio) {
+            return FileHandlingMode.MEMORY;
+        }
+
+        return FileHandlingMode.DELTA;
+    }
+
+    private static long getAvailableHeap() {
+        Runtime runtime = Runtime.getRuntime();
+        return runtime.maxMemory() - (runtime.totalMemory() - runtime.freeMemory());
+    }
+}
@@ -0,0 +1,386 @@
+/*
+ * Copyright (C) ExBin Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.exbin.framework.bined;
+
+import java.io.BufferedInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.lang.ref.WeakReference;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import javax.annotation.ParametersAreNonnullByDefault;
+import org.exbin.auxiliary.binary_data.BinaryData;
+import org.exbin.auxiliary.binary_data.EditableBinaryData;
+import org.exbin.auxiliary.binary_data.array.paged.ByteArrayPagedData;
+
+/**
+ * Storage of original data kept for undo operations.
+ *
+ * Data larger than spill threshold are written to temporary files and loaded
+ * back only when undo is performed. Smaller data are kept in heap until
+ * memory budget requests release, when they are spilled to temporary files as
+ * well. Total size of temporary files is limited by storage limit, the oldest
+ * data are discarded first and undo of such operation is no longer possible,
+ * which commands report to undo manager as {@link DiscardableUndoCommand}.
+ *
+ * Stored data are attributed to document they were copied from, so that
+ * heap memory usage can be reported per document.
+ *
+ * @author ExBin Project (https://exbin.org)
+ */
+@ParametersAreNonnullByDefault
+public class UndoDataStorage implements BinEdMemoryBudget.DocumentMemoryConsumer {
+
+    public static final long DEFAULT_SPILL_THRESHOLD = 16 * 1024 * 1024;
+    public static final long DEFAULT_STORAGE_LIMIT = 4L * 1024 * 1024 * 1024;
+
+    private static final int BUFFER_SIZE = 1024 * 1024;
+
+    private final Deque<StoredData> storedData = new ArrayDeque<>();
+    private long spillThreshold = DEFAULT_SPILL_THRESHOLD;
+    private long storageLimit = DEFAULT_STORAGE_LIMIT;
+    private long heapSize = 0;
+    private long fileSize = 0;
+
+    public UndoDataStorage() {
+    }
+
+    /**
+     * Returns minimal size of data which are stored in temporary file.
+     *
+     * @return size in bytes
+     */
+    public long getSpillThreshold() {
+        return spillThreshold;
+    }
+
+    public void setSpillThreshold(long spillThreshold) {
+        this.spillThreshold = spillThreshold;
+    }
+
+    /**
+     * Returns maximum total size of temporary files.
+     *
+     * @return size in bytes
+     */
+    public long getStorageLimit() {
+        return storageLimit;
+    }
+
+    public synchronized void setStorageLimit(long storageLimit) {
+        this.storageLimit = storageLimit;
+        discardOverLimit(null);
+    }
+
+    /**
+     * Stores copy of given range of data.
+     *
+     * @param data source data
+     * @param position start position
+     * @param length length of range
+     * @return stored data
+     */
+    @Nonnull
+    public StoredData store(BinaryData data, long position, long length) {
+        return store(data, data, position, length);
+    }
+
+    /**
+     * Stores copy of given range of data collected from document.
+     *
+     * @param contentData document data stored data are attributed to
+     * @param data source data
+     * @param position start position
+     * @param length length of range
+     * @return stored data
+     */
+    @Nonnull
+    public synchronized StoredData store(BinaryData contentData, BinaryData data, long position, long length) {
+        StoredData stored = new StoredData(contentData, length);
+        boolean spilled = false;
+        if (length >= spillThreshold) {
+            try {
+                stored.file = writeToFile(data, position, length);
+                fileSize += length;
+                spilled = true;
+            } catch (IOException ex) {
+                Logger.getLogger(UndoDataStorage.class.getName()).log(Level.SEVERE, null, ex);
+            }
+        }
+
+        if (!spilled) {
+            ByteArrayPagedData heapData = new ByteArrayPagedData();
+            heapData.insert(0, data, position, length);
+            stored.heapData = heapData;
+            heapSize += length;
+        }
+
+        storedData.addLast(stored);
+        discardOverLimit(stored);
+        return stored;
+    }
+
+    @Nonnull
+    @Override
+    public BinEdMemoryBudget.MemoryCategory getCategory() {
+        return BinEdMemoryBudget.MemoryCategory.UNDO;
+    }
+
+    @Override
+    public synchronized long getMemoryUsage() {
+        return heapSize;
+    }
+
+    @Override
+    public synchronized long getMemoryUsage(BinaryData contentData) {
+        long memoryUsage = 0;
+        for (StoredData stored : storedData) {
+            if (stored.heapData != null && stored.owner.get() == contentData) {
+                memoryUsage += stored.length;
+            }
+        }
+        return memoryUsage;
+    }
+
+    /**
+     * Spills data kept in heap to temporary files, the oldest data first.
+     *
+     * @return count of released bytes
+     */
+    @Override
+    public synchronized long releaseMemory() {
+        long released = 0;
+        for (StoredData stored : new ArrayList<>(storedData)) {
+            if (stored.heapData == null || stored.readersCount > 0) {
+                continue;
+            }
+
+            try {
+                stored.file = writeToFile(stored.heapData, 0, stored.length);
+            } catch (IOException ex) {
+                Logger.getLogger(UndoDataStorage.class.getName()).log(Level.SEVERE, null, ex);
+                break;
+            }
+            stored.heapData.dispose();
+            stored.heapData = null;
+            heapSize -= stored.length;
+            fileSize += stored.length;
+            released += stored.length;
+        }
+        discardOverLimit(null);
+        return released;
+    }
+
+    public synchronized void dispose() {
+        for (StoredData stored : new ArrayList<>(storedData)) {
+            stored.dispose();
+        }
+    }
+
+    private void discardOverLimit(@Nullable StoredData keptData) {
+        List<StoredData> discarded = new ArrayList<>();
+        for (StoredData stored : storedData) {
+            if (fileSize <= storageLimit) {
+                break;
+            }
+            if (stored != keptData && stored.file != null && stored.readersCount == 0) {
+                discarded.add(stored);
+                fileSize -= stored.length;
+            }
+        }
+
+        for (StoredData stored : discarded) {
+            stored.release();
+            stored.discarded = true;
+        }
+    }
+
+    @Nonnull
+    private static File writeToFile(BinaryData data, long position, long length) throws IOException {
+        File file = File.createTempFile("bined-undo", ".tmp");
+        file.deleteOnExit();
+        boolean finished = false;
+        try (RandomAccessFile output = new RandomAccessFile(file, "rw")) {
+            byte[] buffer = new byte[(int) Math.min(BUFFER_SIZE, Math.max(length, 1))];
+            long offset = 0;
+            while (offset < length) {
+                int blockLength = (int) Math.min(length - offset, buffer.length);
+                data.copyToArray(position + offset, buffer, 0, blockLength);
+                output.write(buffer, 0, blockLength);
+                offset += blockLength;
+            }
+            finished = true;
+        } finally {
+            if (!finished) {
+                file.delete();
+            }
+        }
+        return file;
+    }
+
+    /**
+     * Data stored for undo operation.
+     */
+    @ParametersAreNonnullByDefault
+    public class StoredData {
+
+        private final WeakReference<BinaryData> owner;
+        private final long length;
+        private BinaryData heapData = null;
+        private File file = null;
+        private boolean discarded = false;
+        private int readersCount = 0;
+
+        private StoredData(BinaryData owner, long length) {
+            this.owner = new WeakReference<>(owner);
+            this.length = length;
+        }
+
+        public long getLength() {
+            return length;
+        }
+
+        @Nonnull
+        public UndoDataStorage getStorage() {
+            return UndoDataStorage.this;
+        }
+
+        /**
+         * Returns true if data are still available.
+         *
+         * @return true if available
+         */
+        public boolean isAvailable() {
+            synchronized (UndoDataStorage.this) {
+                return !discarded;
+            }
+        }
+
+        /**
+         * Writes stored data to target data.
+         *
+         * Target is not modified if stored data are not available. Undo
+         * manager doesn't perform undo of such command, so it is not expected
+         * to happen.
+         *
+         * @param targetData target data
+         * @param position target position
+         * @param insert true to insert data, false to replace existing data
+         */
+        public void restore(EditableBinaryData targetData, long position, boolean insert) {
+            synchronized (UndoDataStorage.this) {
+                if (discarded) {
+                    throw new IllegalStateException("Undo data were discarded to limit size of undo storage");
+                }
+
+                if (heapData != null) {
+                    if (insert) {
+                        targetData.insert(position, heapData);
+                    } else {
+                        targetData.replace(position, heapData);
+                    }
+                    return;
+                }
+
+                try (RandomAccessFile input = new RandomAccessFile(file, "r")) {
+                    byte[] buffer = new byte[(int) Math.min(BUFFER_SIZE, Math.max(length, 1))];
+                    if (insert) {
+                        targetData.insertUninitialized(position, length);
+                    }
+                    long offset = 0;
+                    while (offset < length) {
+                        int blockLength = (int) Math.min(length - offset, buffer.length);
+                        input.readFully(buffer, 0, blockLength);
+                        targetData.replace(position + offset, buffer, 0, blockLength);
+                        offset += blockLength;
+                    }
+                } catch (IOException ex) {
+                    throw new IllegalStateException("Unable to load undo data", ex);
+                }
+            }
+        }
+
+        /**
+         * Opens stored data for sequential reading.
+         *
+         * Data are neither spilled nor discarded until returned stream is
+         * closed.
+         *
+         * @return input stream
+         * @throws IOException if temporary file cannot be opened
+         */
+        @Nonnull
+        public InputStream openInputStream() throws IOException {
+            synchronized (UndoDataStorage.this) {
+                if (discarded) {
+                    throw new IllegalStateException("Undo data were discarded to limit size of undo storage");
+                }
+
+                InputStream input = heapData != null ? heapData.getDataInputStream() : new BufferedInputStream(new FileInputStream(file), (int) Math.min(BUFFER_SIZE, Math.max(length, 1)));
+                readersCount++;
+                return new FilterInputStream(input) {
+                    private boolean closed = false;
+
+                    @Override
+                    public void close() throws IOException {
+                        if (closed) {
+                            return;
+                        }
+                        closed = true;
+                        super.close();
+                        synchronized (UndoDataStorage.this) {
+                            readersCount--;
+                        }
+                    }
+                };
+            }
+        }
+
+        public void dispose() {
+            synchronized (UndoDataStorage.this) {
+                if (storedData.remove(this)) {
+                    if (heapData != null) {
+                        heapSize -= length;
+                    } else if (file != null && !discarded) {
+                        fileSize -= length;
+                    }
+                    release();
+                }
+            }
+        }
+
+        private void release() {
+            if (heapData != null) {
+                heapData.dispose();
+                heapData = null;
+            }
+            if (file != null) {
+                file.delete();
+                file = null;
+            }
+        }
+    }
+}
@@ -43,6 +43,7 @@ import org.exbin.framework.operation.undo.api.UndoRedo;
 public class UndoRedoWrapper implements UndoRedo {
 
     private BinaryDataUndoRedo undoRedo;
+    private boolean blocked = false;
     private final Map<UndoRedoChangeListener, BinaryDataUndoRedoChangeListener> listenersMap = new HashMap<>();
 
     public UndoRedoWrapper() {
@@ -66,14 +67,28 @@ public class UndoRedoWrapper implements UndoRedo {
         return undoRedo;
     }
 
+    public boolean isBlocked() {
+        return blocked;
+    }
+
+    /**
+     * Blocks undo, redo and execution of commands, while document data
+     * cannot be modified, such as during file operation.
+     *
+     * @param blocked true to block
+     */
+    public void setBlocked(boolean blocked) {
+        this.blocked = blocked;
+    }
+
     @Override
     public boolean canRedo() {
-        return undoRedo != null ? undoRedo.canRedo() : false;
+        return undoRedo != null && !blocked ? undoRedo.canRedo() : false;
     }
 
     @Override
     public boolean canUndo() {
-        return undoRedo != null ? undoRedo.canUndo() : false;
+        return undoRedo != null && !blocked ? undoRedo.canUndo() && isUndoAvailable(1) : false;
     }
 
     @Override
@@ -88,6 +103,7 @@ public class UndoRedoWrapper implements UndoRedo {
 
     @Override
     public void execute(Command command) {
+        checkNotBlocked();
         undoRedo.execute(new BinaryCommandWrapper(command));
     }
 
@@ -137,21 +153,35 @@ public class UndoRedoWrapper implements UndoRedo {
 
     @Override
     public void performRedo() {
-        undoRedo.performRedo();
+        performRedo(1);
     }
 
     @Override
     public void performRedo(int count) {
+        if (blocked) {
+            return;
+        }
+
         undoRedo.performRedo(count);
     }
 
     @Override
     public void performUndo() {
-        undoRedo.performUndo();
+        performUndo(1);
     }
 
     @Override
     public void performUndo(int i) {
+        if (blocked) {
+            return;
+        }
+
+        if (!isUndoAvailable(i)) {
+            // Undo data were discarded after last update of undo state
+            notifyUndoChanged();
+            return;
+        }
+
         undoRedo.performUndo(i);
     }
 
@@ -182,6 +212,37 @@ public class UndoRedoWrapper implements UndoRedo {
         }
     }
 
+    private void checkNotBlocked() {
+        if (blocked) {
+            throw new IllegalStateException("Document cannot be modified during file operation");
+        }
+    }
+
+    /**
+     * Returns true if undo data of given count of commands preceding current
+     * command position are available.
+     *
+     * @param count count of commands
+     * @return true if undo is possible
+     */
+    private boolean isUndoAvailable(int count) {
+        List<BinaryDataCommand> commandList = undoRedo.getCommandList();
+        int position = undoRedo.getCommandPosition();
+        for (int i = position - 1; i >= 0 && i >= position - count; i--) {
+            BinaryDataCommand command = commandList.get(i);
+            if (command instanceof DiscardableUndoCommand && !((DiscardableUndoCommand) command).isUndoAvailable()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void notifyUndoChanged() {
+        for (UndoRedoChangeListener listener : new ArrayList<>(listenersMap.keySet())) {
+            listener.undoChanged();
+        }
+    }
+
     @ParametersAreNonnullByDefault
     private static class CommandWrapper implements Command {
 
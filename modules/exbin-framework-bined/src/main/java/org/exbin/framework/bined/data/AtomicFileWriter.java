@@ -0,0 +1,268 @@
+/*
+ * Copyright (C) ExBin Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.exbin.framework.bined.data;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import javax.annotation.Nullable;
+import javax.annotation.ParametersAreNonnullByDefault;
+import org.exbin.auxiliary.binary_data.BinaryData;
+import org.exbin.auxiliary.binary_data.delta.DataSegment;
+import org.exbin.auxiliary.binary_data.delta.DeltaDocument;
+import org.exbin.auxiliary.binary_data.delta.SourceSegment;
+import org.exbin.auxiliary.binary_data.delta.file.FileDataSource;
+import org.exbin.framework.bined.BinEdFileOperation;
+
+/**
+ * Crash safe writer of binary data to file.
+ *
+ * Data are written to temporary file in the same directory, synchronized to
+ * the storage device and then renamed over the target file, so that target
+ * file contains either previous or new content even if writing fails.
+ *
+ * Writing of document can be split to preparation of temporary file and
+ * replacing of target file, so that access to the target file can be closed
+ * in between on platforms, which don't allow to replace open file.
+ *
+ * @author ExBin Project (https://exbin.org)
+ */
+@ParametersAreNonnullByDefault
+public class AtomicFileWriter {
+
+    private static final int BUFFER_SIZE = 1024 * 1024;
+    private static final long TRANSFER_BLOCK_SIZE = 64 * 1024 * 1024;
+
+    private final File targetFile;
+    private final BinEdFileOperation fileOperation;
+    private Path tempFile = null;
+
+    public AtomicFileWriter(File targetFile, @Nullable BinEdFileOperation fileOperation) {
+        this.targetFile = targetFile.getAbsoluteFile();
+        this.fileOperation = fileOperation;
+    }
+
+    /**
+     * Writes binary data to target file.
+     *
+     * @param data binary data
+     * @throws IOException if input/output error or operation was cancelled
+     */
+    public void writeData(BinaryData data) throws IOException {
+        prepare(channel -> writeDataRange(channel, data, 0, data.getDataSize(), ByteBuffer.allocate(BUFFER_SIZE)));
+        commit();
+    }
+
+    /**
+     * Writes delta document to target file.
+     *
+     * Unchanged ranges of the source file are transferred between channels
+     * without passing through heap, only changed ranges are read from the
+     * document.
+     *
+     * @param document delta document
+     * @throws IOException if input/output error or operation was cancelled
+     */
+    public void writeDocument(DeltaDocument document) throws IOException {
+        prepareDocument(document);
+        commit();
+    }
+
+    /**
+     * Writes delta document to temporary file without replacing target file.
+     *
+     * Either {@link #commit()} or {@link #discard()} has to be called
+     * afterwards.
+     *
+     * @param document delta document
+     * @throws IOException if input/output error or operation was cancelled
+     */
+    public void prepareDocument(DeltaDocument document) throws IOException {
+        FileDataSource dataSource = (FileDataSource) document.getDataSource();
+        File sourceFile = dataSource == null ? null : dataSource.getFile();
+        prepare(channel -> {
+            FileChannel sourceChannel = sourceFile == null ? null : FileChannel.open(sourceFile.toPath(), StandardOpenOption.READ);
+            try {
+                ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+                long position = 0;
+                DataSegment segment = document.getSegments().first();
+                while (segment != null) {
+                    long length = segment.getLength();
+                    if (segment instanceof SourceSegment && sourceChannel != null) {
+                        transferRange(sourceChannel, ((SourceSegment) segment).getStartPosition(), length, channel);
+                    } else {
+                        writeDataRange(channel, document, position, length, buffer);
+                    }
+                    position += length;
+                    segment = segment.getNext();
+                }
+            } finally {
+                if (sourceChannel != null) {
+                    sourceChannel.close();
+                }
+            }
+        });
+    }
+
+    private void prepare(ContentWriter contentWriter) throws IOException {
+        File directory = targetFile.getParentFile();
+        Path file = File.createTempFile("." + targetFile.getName() + "-", ".tmp", directory).toPath();
+        boolean finished = false;
+        try {
+            try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+                contentWriter.write(channel);
+                channel.force(true);
+            }
+            copyPermissions(file);
+            finished = true;
+        } finally {
+            if (!finished) {
+                Files.deleteIfExists(file);
+            }
+        }
+        tempFile = file;
+    }
+
+    /**
+     * Replaces target file with prepared temporary file.
+     *
+     * Temporary file is deleted if replacing fails.
+     *
+     * @throws IOException if input/output error
+     */
+    public void commit() throws IOException {
+        if (tempFile == null) {
+            throw new IllegalStateException("No content was prepared");
+        }
+
+        try {
+            moveFile(tempFile, targetFile.toPath());
+        } finally {
+            discard();
+        }
+        syncDirectory(targetFile.getParentFile());
+    }
+
+    /**
+     * Deletes prepared temporary file if it was not used.
+     */
+    public void discard() {
+        if (tempFile != null) {
+            try {
+                Files.deleteIfExists(tempFile);
+            } catch (IOException ex) {
+                // ignore
+            }
+            tempFile = null;
+        }
+    }
+
+    /**
+     * Returns true if platform allows to replace file which is open.
+     *
+     * Previous content of replaced file then stays available through
+     * already open access to the file.
+     *
+     * @return true if open file can be replaced
+     */
+    public static boolean isOpenFileReplaceable() {
+        return !System.getProperty("os.name", "").startsWith("Windows");
+    }
+
+    private void writeDataRange(FileChannel channel, BinaryData data, long startPosition, long length, ByteBuffer buffer) throws IOException {
+        byte[] bufferArray = buffer.array();
+        long position = startPosition;
+        long remaining = length;
+        while (remaining > 0) {
+            int blockLength = (int) Math.min(remaining, bufferArray.length);
+            data.copyToArray(position, bufferArray, 0, blockLength);
+            buffer.clear();
+            buffer.limit(blockLength);
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            position += blockLength;
+            remaining -= blockLength;
+            reportProcessed(blockLength);
+        }
+    }
+
+    private void transferRange(FileChannel sourceChannel, long startPosition, long length, FileChannel channel) throws IOException {
+        long position = startPosition;
+        long remaining = length;
+        while (remaining > 0) {
+            long transferred = sourceChannel.transferTo(position, Math.min(remaining, TRANSFER_BLOCK_SIZE), channel);
+            if (transferred <= 0) {
+                throw new IOException("Unexpected end of source file");
+            }
+            position += transferred;
+            remaining -= transferred;
+            reportProcessed(transferred);
+        }
+    }
+
+    private void reportProcessed(long count) throws IOException {
+        if (fileOperation != null) {
+            fileOperation.addProcessed(count);
+        }
+    }
+
+    private void copyPermissions(Path tempFile) {
+        // Temporary file is created with restricted permissions
+        Path targetPath = targetFile.toPath();
+        if (!Files.exists(targetPath)) {
+            return;
+        }
+
+        try {
+            Files.setPosixFilePermissions(tempFile, Files.getPosixFilePermissions(targetPath));
+        } catch (UnsupportedOperationException | IOException ex) {
+            // Permissions are not supported by file system
+        }
+    }
+
+    private static void moveFile(Path source, Path target) throws IOException {
+        try {
+            Files.move(source, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (AtomicMoveNotSupportedException ex) {
+            Files.move(source, target, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    private static void syncDirectory(@Nullable File directory) {
+        if (directory == null) {
+            return;
+        }
+
+        // Persists rename, directories cannot be opened on some platforms
+        try (FileChannel channel = FileChannel.open(directory.toPath(), StandardOpenOption.READ)) {
+            channel.force(true);
+        } catch (IOException ex) {
+            // ignore
+        }
+    }
+
+    private interface ContentWriter {
+
+        void write(FileChannel channel) throws IOException;
+    }
+}
@@ -0,0 +1,144 @@
+/*
+ * Copyright (C) ExBin Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.exbin.framework.bined.data;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import javax.annotation.Nullable;
+import javax.annotation.ParametersAreNonnullByDefault;
+import org.exbin.auxiliary.binary_data.delta.DataSegment;
+import org.exbin.auxiliary.binary_data.delta.DeltaDocument;
+import org.exbin.auxiliary.binary_data.delta.SourceSegment;
+import org.exbin.auxiliary.binary_data.delta.file.FileDataSource;
+import org.exbin.framework.bined.BinEdFileOperation;
+
+/**
+ * Writer of delta document changes directly into its source file.
+ *
+ * Applicable when document keeps size of its source file and all source
+ * segments stay at their original positions, so that only memory segments
+ * have to be written back to the file.
+ *
+ * Data still referring overwritten ranges of the source file, like undo
+ * data, see the new content afterwards, so caller has to make sure there
+ * are no such data.
+ *
+ * @author ExBin Project (https://exbin.org)
+ */
+@ParametersAreNonnullByDefault
+public class InPlaceFileWriter {
+
+    private static final int BUFFER_SIZE = 1024 * 1024;
+
+    private final File targetFile;
+    private final BinEdFileOperation fileOperation;
+
+    public InPlaceFileWriter(File targetFile, @Nullable BinEdFileOperation fileOperation) {
+        this.targetFile = targetFile;
+        this.fileOperation = fileOperation;
+    }
+
+    /**
+     * Returns true if document can be saved to target file by writing only
+     * changed ranges.
+     *
+     * @param document delta document
+     * @param targetFile target file
+     * @return true if applicable
+     */
+    public static boolean isApplicable(DeltaDocument document, File targetFile) {
+        FileDataSource dataSource = (FileDataSource) document.getDataSource();
+        if (dataSource == null || !targetFile.getAbsoluteFile().equals(dataSource.getFile().getAbsoluteFile())) {
+            return false;
+        }
+
+        if (!targetFile.canWrite() || document.getDataSize() != targetFile.length()) {
+            return false;
+        }
+
+        long position = 0;
+        DataSegment segment = document.getSegments().first();
+        while (segment != null) {
+            if (segment instanceof SourceSegment && ((SourceSegment) segment).getStartPosition() != position) {
+                return false;
+            }
+            position += segment.getLength();
+            segment = segment.getNext();
+        }
+        return true;
+    }
+
+    /**
+     * Returns total length of ranges which has to be written.
+     *
+     * @param document delta document
+     * @return length of changed ranges
+     */
+    public static long getChangedLength(DeltaDocument document) {
+        long changedLength = 0;
+        DataSegment segment = document.getSegments().first();
+        while (segment != null) {
+            if (!(segment instanceof SourceSegment)) {
+                changedLength += segment.getLength();
+            }
+            segment = segment.getNext();
+        }
+        return changedLength;
+    }
+
+    /**
+     * Writes changed ranges of the document to target file.
+     *
+     * @param document delta document
+     * @throws IOException if input/output error
+     */
+    public void writeDocument(DeltaDocument document) throws IOException {
+        try (FileChannel channel = FileChannel.open(targetFile.toPath(), StandardOpenOption.WRITE)) {
+            ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+            byte[] bufferArray = buffer.array();
+            long position = 0;
+            DataSegment segment = document.getSegments().first();
+            while (segment != null) {
+                long length = segment.getLength();
+                if (!(segment instanceof SourceSegment)) {
+                    long blockPosition = position;
+                    long remaining = length;
+                    while (remaining > 0) {
+                        int blockLength = (int) Math.min(remaining, bufferArray.length);
+                        document.copyToArray(blockPosition, bufferArray, 0, blockLength);
+                        buffer.clear();
+                        buffer.limit(blockLength);
+                        long writePosition = blockPosition;
+                        while (buffer.hasRemaining()) {
+                            writePosition += channel.write(buffer, writePosition);
+                        }
+                        blockPosition += blockLength;
+                        remaining -= blockLength;
+                        if (fileOperation != null) {
+                            fileOperation.addProcessed(blockLength);
+                        }
+                    }
+                }
+                position += length;
+                segment = segment.getNext();
+            }
+            channel.force(true);
+        }
+    }
+}
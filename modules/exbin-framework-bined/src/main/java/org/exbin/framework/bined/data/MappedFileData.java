@@ -0,0 +1,710 @@
+/*
+ * Copyright (C) ExBin Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.exbin.framework.bined.data;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.io.UncheckedIOException;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import javax.annotation.Nonnull;
+import javax.annotation.ParametersAreNonnullByDefault;
+import org.exbin.auxiliary.binary_data.BinaryData;
+import org.exbin.auxiliary.binary_data.EditableBinaryData;
+import org.exbin.auxiliary.binary_data.array.paged.ByteArrayPagedData;
+
+/**
+ * Binary data directly accessing file using memory mapped windows.
+ *
+ * File is mapped read only in windows kept in least recently used cache, so
+ * that only accessed parts of the file are paged in by operating system and
+ * heap usage does not depend on the file size.
+ *
+ * Data can be only overwritten, size of the file cannot be changed. Modified
+ * pages are kept until they are written to the file by {@link #flush()}, so
+ * that changes can be discarded by disposing the data without flush. Recently
+ * modified pages are kept in heap up to modified memory limit, least recently
+ * used pages over the limit are moved to temporary file.
+ *
+ * @author ExBin Project (https://exbin.org)
+ */
+@ParametersAreNonnullByDefault
+public class MappedFileData implements EditableBinaryData {
+
+    private static final int WINDOW_SHIFT = 26;
+    private static final long WINDOW_SIZE = 1L << WINDOW_SHIFT;
+    private static final long WINDOW_MASK = WINDOW_SIZE - 1;
+    private static final int MAX_MAPPED_WINDOWS = 16;
+    private static final int PAGE_SHIFT = 12;
+    private static final int PAGE_SIZE = 1 << PAGE_SHIFT;
+    private static final long PAGE_MASK = PAGE_SIZE - 1;
+    private static final int TRANSFER_BUFFER_SIZE = 1024 * 1024;
+
+    public static final long DEFAULT_MODIFIED_MEMORY_LIMIT = 16 * 1024 * 1024;
+
+    private final File file;
+    private final boolean readOnly;
+    private final RandomAccessFile randomAccessFile;
+    private final FileChannel fileChannel;
+    private final long dataSize;
+    private final Map<Long, MappedByteBuffer> mappedWindows = new LinkedHashMap<Long, MappedByteBuffer>(MAX_MAPPED_WINDOWS, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Long, MappedByteBuffer> eldest) {
+            if (size() > MAX_MAPPED_WINDOWS) {
+                if (eldest.getValue() == lastWindow) {
+                    lastWindowIndex = -1;
+                    lastWindow = null;
+                }
+                unmap(eldest.getValue());
+                return true;
+            }
+            return false;
+        }
+    };
+    private final Map<Long, byte[]> modifiedPages = new LinkedHashMap<>(16, 0.75f, true);
+    private final Map<Long, Long> spilledPages = new HashMap<>();
+    private long modifiedMemoryLimit = DEFAULT_MODIFIED_MEMORY_LIMIT;
+    private File spillFile = null;
+    private RandomAccessFile spillAccessFile = null;
+    private long spillFileLength = 0;
+    private long lastWindowIndex = -1;
+    private MappedByteBuffer lastWindow = null;
+    private boolean disposed = false;
+
+    public MappedFileData(File file) throws IOException {
+        this(file, !file.canWrite());
+    }
+
+    public MappedFileData(File file, boolean readOnly) throws IOException {
+        this.file = file;
+        this.readOnly = readOnly;
+        randomAccessFile = new RandomAccessFile(file, readOnly ? "r" : "rw");
+        fileChannel = randomAccessFile.getChannel();
+        dataSize = fileChannel.size();
+    }
+
+    @Nonnull
+    public File getFile() {
+        return file;
+    }
+
+    public boolean isReadOnly() {
+        return readOnly;
+    }
+
+    /**
+     * Returns true if there are changes not written to the file yet.
+     *
+     * @return true if modified
+     */
+    public synchronized boolean isModified() {
+        return !modifiedPages.isEmpty() || !spilledPages.isEmpty();
+    }
+
+    /**
+     * Returns heap memory used by pages with changes not written to the file.
+     *
+     * @return memory usage in bytes
+     */
+    public synchronized long getModifiedMemoryUsage() {
+        return (long) modifiedPages.size() * PAGE_SIZE;
+    }
+
+    public synchronized long getModifiedMemoryLimit() {
+        return modifiedMemoryLimit;
+    }
+
+    /**
+     * Sets maximum heap memory used by modified pages.
+     *
+     * @param modifiedMemoryLimit limit in bytes
+     */
+    public synchronized void setModifiedMemoryLimit(long modifiedMemoryLimit) {
+        this.modifiedMemoryLimit = modifiedMemoryLimit;
+        spillOverLimit();
+    }
+
+    /**
+     * Moves all modified pages from heap to temporary file.
+     *
+     * @return released memory in bytes
+     */
+    public synchronized long releaseModifiedMemory() {
+        long released = getModifiedMemoryUsage();
+        while (!modifiedPages.isEmpty()) {
+            spillEldestPage();
+        }
+        return released;
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return dataSize == 0;
+    }
+
+    @Override
+    public long getDataSize() {
+        return dataSize;
+    }
+
+    @Override
+    public synchronized byte getByte(long position) {
+        checkRange(position, 1);
+        long pageIndex = position >> PAGE_SHIFT;
+        byte[] page = modifiedPages.get(pageIndex);
+        if (page != null) {
+            return page[(int) (position & PAGE_MASK)];
+        }
+        Long spillOffset = spilledPages.get(pageIndex);
+        if (spillOffset != null) {
+            byte[] value = new byte[1];
+            readSpilled(spillOffset + (position & PAGE_MASK), value, 0, 1);
+            return value[0];
+        }
+        return getWindow(position >> WINDOW_SHIFT).get((int) (position & WINDOW_MASK));
+    }
+
+    @Nonnull
+    @Override
+    public BinaryData copy() {
+        return copy(0, dataSize);
+    }
+
+    @Nonnull
+    @Override
+    public BinaryData copy(long startFrom, long length) {
+        checkRange(startFrom, length);
+        ByteArrayPagedData result = new ByteArrayPagedData();
+        result.insertUninitialized(0, length);
+        byte[] buffer = new byte[(int) Math.min(length, TRANSFER_BUFFER_SIZE)];
+        long offset = 0;
+        while (offset < length) {
+            int chunkLength = (int) Math.min(length - offset, buffer.length);
+            copyToArray(startFrom + offset, buffer, 0, chunkLength);
+            result.replace(offset, buffer, 0, chunkLength);
+            offset += chunkLength;
+        }
+        return result;
+    }
+
+    @Override
+    public synchronized void copyToArray(long startFrom, byte[] target, int offset, int length) {
+        checkRange(startFrom, length);
+        copyFileData(startFrom, target, offset, length);
+        if (modifiedPages.isEmpty() && spilledPages.isEmpty()) {
+            return;
+        }
+
+        long endPosition = startFrom + length;
+        for (long pageIndex = startFrom >> PAGE_SHIFT; pageIndex <= (endPosition - 1) >> PAGE_SHIFT; pageIndex++) {
+            long pageStart = pageIndex << PAGE_SHIFT;
+            long copyStart = Math.max(startFrom, pageStart);
+            int copyLength = (int) (Math.min(endPosition, pageStart + PAGE_SIZE) - copyStart);
+            byte[] page = modifiedPages.get(pageIndex);
+            if (page != null) {
+                System.arraycopy(page, (int) (copyStart - pageStart), target, offset + (int) (copyStart - startFrom), copyLength);
+                continue;
+            }
+            Long spillOffset = spilledPages.get(pageIndex);
+            if (spillOffset != null) {
+                readSpilled(spillOffset + (copyStart - pageStart), target, offset + (int) (copyStart - startFrom), copyLength);
+            }
+        }
+    }
+
+    @Override
+    public void saveToStream(OutputStream outputStream) throws IOException {
+        byte[] buffer = new byte[(int) Math.min(dataSize, TRANSFER_BUFFER_SIZE)];
+        long position = 0;
+        while (position < dataSize) {
+            int chunkLength = (int) Math.min(dataSize - position, buffer.length);
+            copyToArray(position, buffer, 0, chunkLength);
+            outputStream.write(buffer, 0, chunkLength);
+            position += chunkLength;
+        }
+    }
+
+    @Nonnull
+    @Override
+    public InputStream getDataInputStream() {
+        return new MappedDataInputStream();
+    }
+
+    @Override
+    public void setDataSize(long size) {
+        if (size != dataSize) {
+            throw createSizeChangeException();
+        }
+    }
+
+    @Override
+    public synchronized void setByte(long position, byte value) {
+        checkWritable();
+        checkRange(position, 1);
+        getModifiedPage(position >> PAGE_SHIFT)[(int) (position & PAGE_MASK)] = value;
+    }
+
+    @Override
+    public void insertUninitialized(long startFrom, long length) {
+        if (length != 0) {
+            throw createSizeChangeException();
+        }
+    }
+
+    @Override
+    public void insert(long startFrom, long length) {
+        insertUninitialized(startFrom, length);
+    }
+
+    @Override
+    public void insert(long startFrom, byte[] insertedData) {
+        insertUninitialized(startFrom, insertedData.length);
+    }
+
+    @Override
+    public void insert(long startFrom, byte[] insertedData, int insertedDataOffset, int insertedDataLength) {
+        insertUninitialized(startFrom, insertedDataLength);
+    }
+
+    @Override
+    public void insert(long startFrom, BinaryData insertedData) {
+        insertUninitialized(startFrom, insertedData.getDataSize());
+    }
+
+    @Override
+    public void insert(long startFrom, BinaryData insertedData, long insertedDataOffset, long insertedDataLength) {
+        insertUninitialized(startFrom, insertedDataLength);
+    }
+
+    @Override
+    public long insert(long startFrom, InputStream inputStream, long maximumDataSize) throws IOException {
+        throw createSizeChangeException();
+    }
+
+    @Override
+    public void replace(long targetPosition, BinaryData replacingData) {
+        replace(targetPosition, replacingData, 0, replacingData.getDataSize());
+    }
+
+    @Override
+    public void replace(long targetPosition, BinaryData replacingData, long startFrom, long length) {
+        checkWritable();
+        checkRange(targetPosition, length);
+        byte[] buffer = new byte[(int) Math.min(length, TRANSFER_BUFFER_SIZE)];
+        long offset = 0;
+        while (offset < length) {
+            int chunkLength = (int) Math.min(length - offset, buffer.length);
+            replacingData.copyToArray(startFrom + offset, buffer, 0, chunkLength);
+            replace(targetPosition + offset, buffer, 0, chunkLength);
+            offset += chunkLength;
+        }
+    }
+
+    @Override
+    public void replace(long targetPosition, byte[] replacingData) {
+        replace(targetPosition, replacingData, 0, replacingData.length);
+    }
+
+    @Override
+    public synchronized void replace(long targetPosition, byte[] replacingData, int replacingDataOffset, int length) {
+        checkWritable();
+        checkRange(targetPosition, length);
+        while (length > 0) {
+            int pageOffset = (int) (targetPosition & PAGE_MASK);
+            int copyLength = Math.min(length, PAGE_SIZE - pageOffset);
+            System.arraycopy(replacingData, replacingDataOffset, getModifiedPage(targetPosition >> PAGE_SHIFT), pageOffset, copyLength);
+            targetPosition += copyLength;
+            replacingDataOffset += copyLength;
+            length -= copyLength;
+        }
+    }
+
+    @Override
+    public void fillData(long startFrom, long length) {
+        fillData(startFrom, length, (byte) 0);
+    }
+
+    @Override
+    public void fillData(long startFrom, long length, byte fill) {
+        checkWritable();
+        checkRange(startFrom, length);
+        byte[] buffer = new byte[(int) Math.min(length, TRANSFER_BUFFER_SIZE)];
+        Arrays.fill(buffer, fill);
+        long offset = 0;
+        while (offset < length) {
+            int chunkLength = (int) Math.min(length - offset, buffer.length);
+            replace(startFrom + offset, buffer, 0, chunkLength);
+            offset += chunkLength;
+        }
+    }
+
+    @Override
+    public void remove(long startFrom, long length) {
+        if (length != 0) {
+            throw createSizeChangeException();
+        }
+    }
+
+    @Override
+    public void clear() {
+        setDataSize(0);
+    }
+
+    @Override
+    public void loadFromStream(InputStream inputStream) throws IOException {
+        throw createSizeChangeException();
+    }
+
+    @Nonnull
+    @Override
+    public OutputStream getDataOutputStream() {
+        return new MappedDataOutputStream();
+    }
+
+    /**
+     * Writes modified pages to the file.
+     *
+     * @throws IOException if input/output error
+     */
+    public synchronized void flush() throws IOException {
+        if (readOnly || !isModified()) {
+            return;
+        }
+
+        for (Map.Entry<Long, byte[]> entry : modifiedPages.entrySet()) {
+            writePage(entry.getKey(), entry.getValue());
+        }
+        byte[] page = new byte[PAGE_SIZE];
+        for (Map.Entry<Long, Long> entry : spilledPages.entrySet()) {
+            if (!modifiedPages.containsKey(entry.getKey())) {
+                readSpilled(entry.getValue(), page, 0, PAGE_SIZE);
+                writePage(entry.getKey(), page);
+            }
+        }
+        fileChannel.force(false);
+        modifiedPages.clear();
+        clearSpilledPages();
+    }
+
+    /**
+     * Drops changes not written to the file yet.
+     */
+    public synchronized void discardChanges() {
+        modifiedPages.clear();
+        clearSpilledPages();
+    }
+
+    @Override
+    public void dispose() {
+        synchronized (this) {
+            if (disposed) {
+                return;
+            }
+            disposed = true;
+            // Windows are released before closing so that file is not kept locked
+            for (MappedByteBuffer window : mappedWindows.values()) {
+                unmap(window);
+            }
+            mappedWindows.clear();
+            lastWindowIndex = -1;
+            lastWindow = null;
+            modifiedPages.clear();
+            spilledPages.clear();
+            closeSpillFile();
+        }
+        try {
+            fileChannel.close();
+            randomAccessFile.close();
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+
+    private void writePage(long pageIndex, byte[] page) throws IOException {
+        long pageStart = pageIndex << PAGE_SHIFT;
+        ByteBuffer buffer = ByteBuffer.wrap(page, 0, (int) Math.min(PAGE_SIZE, dataSize - pageStart));
+        while (buffer.hasRemaining()) {
+            fileChannel.write(buffer, pageStart + buffer.position());
+        }
+    }
+
+    private void copyFileData(long startFrom, byte[] target, int offset, int length) {
+        while (length > 0) {
+            ByteBuffer window = getWindow(startFrom >> WINDOW_SHIFT).duplicate();
+            int windowOffset = (int) (startFrom & WINDOW_MASK);
+            int copyLength = Math.min(length, window.limit() - windowOffset);
+            window.position(windowOffset);
+            window.get(target, offset, copyLength);
+            startFrom += copyLength;
+            offset += copyLength;
+            length -= copyLength;
+        }
+    }
+
+    @Nonnull
+    private byte[] getModifiedPage(long pageIndex) {
+        byte[] page = modifiedPages.get(pageIndex);
+        if (page == null) {
+            page = new byte[PAGE_SIZE];
+            Long spillOffset = spilledPages.get(pageIndex);
+            if (spillOffset != null) {
+                readSpilled(spillOffset, page, 0, PAGE_SIZE);
+            } else {
+                long pageStart = pageIndex << PAGE_SHIFT;
+                copyFileData(pageStart, page, 0, (int) Math.min(PAGE_SIZE, dataSize - pageStart));
+            }
+            modifiedPages.put(pageIndex, page);
+            spillOverLimit();
+        }
+        return page;
+    }
+
+    private void spillOverLimit() {
+        // Page being modified was accessed last, so it is never spilled here
+        while (modifiedPages.size() > 1 && (long) modifiedPages.size() * PAGE_SIZE > modifiedMemoryLimit) {
+            spillEldestPage();
+        }
+    }
+
+    /**
+     * Moves least recently used modified page to temporary file.
+     *
+     * Page keeps its slot in the file once spilled, so that repeatedly
+     * modified page doesn't grow the file.
+     */
+    private void spillEldestPage() {
+        Map.Entry<Long, byte[]> eldest = modifiedPages.entrySet().iterator().next();
+        long pageIndex = eldest.getKey();
+        try {
+            if (spillAccessFile == null) {
+                spillFile = File.createTempFile("bined-direct", ".tmp");
+                spillFile.deleteOnExit();
+                spillAccessFile = new RandomAccessFile(spillFile, "rw");
+            }
+            Long spillOffset = spilledPages.get(pageIndex);
+            if (spillOffset == null) {
+                spillOffset = spillFileLength;
+                spillFileLength += PAGE_SIZE;
+            }
+            spillAccessFile.seek(spillOffset);
+            spillAccessFile.write(eldest.getValue());
+            spilledPages.put(pageIndex, spillOffset);
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+        modifiedPages.remove(pageIndex);
+    }
+
+    private void readSpilled(long spillPosition, byte[] target, int offset, int length) {
+        try {
+            spillAccessFile.seek(spillPosition);
+            spillAccessFile.readFully(target, offset, length);
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+
+    private void clearSpilledPages() {
+        spilledPages.clear();
+        spillFileLength = 0;
+        if (spillAccessFile != null) {
+            try {
+                spillAccessFile.setLength(0);
+            } catch (IOException ex) {
+                Logger.getLogger(MappedFileData.class.getName()).log(Level.WARNING, "Unable to truncate temporary file", ex);
+            }
+        }
+    }
+
+    private void closeSpillFile() {
+        if (spillAccessFile == null) {
+            return;
+        }
+
+        try {
+            spillAccessFile.close();
+        } catch (IOException ex) {
+            Logger.getLogger(MappedFileData.class.getName()).log(Level.WARNING, "Unable to close temporary file", ex);
+        }
+        if (!spillFile.delete()) {
+            spillFile.deleteOnExit();
+        }
+        spillAccessFile = null;
+        spillFile = null;
+    }
+
+    @Nonnull
+    private MappedByteBuffer getWindow(long windowIndex) {
+        if (disposed) {
+            throw new IllegalStateException("Data were disposed: " + file.getPath());
+        }
+        if (windowIndex == lastWindowIndex) {
+            return lastWindow;
+        }
+
+        MappedByteBuffer window = mappedWindows.get(windowIndex);
+        if (window == null) {
+            long windowStart = windowIndex << WINDOW_SHIFT;
+            try {
+                window = fileChannel.map(FileChannel.MapMode.READ_ONLY, windowStart, Math.min(WINDOW_SIZE, dataSize - windowStart));
+            } catch (IOException ex) {
+                throw new UncheckedIOException(ex);
+            }
+            mappedWindows.put(windowIndex, window);
+        }
+        lastWindowIndex = windowIndex;
+        lastWindow = window;
+        return window;
+    }
+
+    /**
+     * Releases mapping of the window immediately.
+     *
+     * Windows are only accessed while holding lock of this data, so no
+     * reference to released window is used afterwards. If releasing is not
+     * supported by runtime, window is left to garbage collector.
+     */
+    private static void unmap(MappedByteBuffer window) {
+        try {
+            try {
+                // Java 9+
+                Class<?> unsafeClass = Class.forName("sun.misc.Unsafe");
+                Field unsafeField = unsafeClass.getDeclaredField("theUnsafe");
+                unsafeField.setAccessible(true);
+                Method invokeCleaner = unsafeClass.getMethod("invokeCleaner", ByteBuffer.class);
+                invokeCleaner.invoke(unsafeField.get(null), window);
+            } catch (NoSuchMethodException ex) {
+                // Java 8
+                Method cleanerMethod = window.getClass().getMethod("cleaner");
+                cleanerMethod.setAccessible(true);
+                Object cleaner = cleanerMethod.invoke(window);
+                if (cleaner != null) {
+                    cleaner.getClass().getMethod("clean").invoke(cleaner);
+                }
+            }
+        } catch (ReflectiveOperationException | RuntimeException ex) {
+            Logger.getLogger(MappedFileData.class.getName()).log(Level.FINE, "Unable to release mapped window", ex);
+        }
+    }
+
+    private void checkRange(long startFrom, long length) {
+        if (startFrom < 0 || length < 0 || startFrom + length > dataSize) {
+            throw new IndexOutOfBoundsException("Range out of data: " + startFrom + " + " + length);
+        }
+    }
+
+    private void checkWritable() {
+        if (readOnly) {
+            throw new IllegalStateException("Data are read only: " + file.getPath());
+        }
+    }
+
+    @Nonnull
+    private UnsupportedOperationException createSizeChangeException() {
+        return new UnsupportedOperationException("Size of directly edited file cannot be changed: " + file.getPath());
+    }
+
+    /**
+     * Input stream reading data from mapped windows.
+     */
+    private class MappedDataInputStream extends InputStream {
+
+        private long position = 0;
+        private long mark = 0;
+
+        @Override
+        public int read() throws IOException {
+            if (position >= dataSize) {
+                return -1;
+            }
+
+            return getByte(position++) & 0xff;
+        }
+
+        @Override
+        public int read(byte[] target, int offset, int length) throws IOException {
+            if (length == 0) {
+                return 0;
+            }
+            if (position >= dataSize) {
+                return -1;
+            }
+
+            int readLength = (int) Math.min(length, dataSize - position);
+            copyToArray(position, target, offset, readLength);
+            position += readLength;
+            return readLength;
+        }
+
+        @Override
+        public long skip(long count) throws IOException {
+            long skipped = Math.max(0, Math.min(count, dataSize - position));
+            position += skipped;
+            return skipped;
+        }
+
+        @Override
+        public int available() throws IOException {
+            return (int) Math.min(Integer.MAX_VALUE, dataSize - position);
+        }
+
+        @Override
+        public boolean markSupported() {
+            return true;
+        }
+
+        @Override
+        public synchronized void mark(int readLimit) {
+            mark = position;
+        }
+
+        @Override
+        public synchronized void reset() throws IOException {
+            position = mark;
+        }
+    }
+
+    /**
+     * Output stream overwriting data from the start.
+     */
+    private class MappedDataOutputStream extends OutputStream {
+
+        private long position = 0;
+
+        @Override
+        public void write(int value) throws IOException {
+            setByte(position++, (byte) value);
+        }
+
+        @Override
+        public void write(byte[] source, int offset, int length) throws IOException {
+            replace(position, source, offset, length);
+            position += length;
+        }
+    }
+}
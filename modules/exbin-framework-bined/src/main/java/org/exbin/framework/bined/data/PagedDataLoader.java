@@ -0,0 +1,142 @@
+/*
+ * Copyright (C) ExBin Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.exbin.framework.bined.data;
+
+import java.io.EOFException;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import javax.annotation.Nullable;
+import javax.annotation.ParametersAreNonnullByDefault;
+import org.exbin.auxiliary.binary_data.array.paged.ByteArrayPagedData;
+import org.exbin.framework.bined.BinEdFileOperation;
+
+/**
+ * Loader of file content into paged data.
+ *
+ * Paged data are sized to the file length up front and pages are filled
+ * directly by scattering reads of file channel. Large files are read in
+ * several ranges in parallel.
+ *
+ * @author ExBin Project (https://exbin.org)
+ */
+@ParametersAreNonnullByDefault
+public class PagedDataLoader {
+
+    public static final int PAGE_SIZE = 4096;
+    private static final int PAGES_PER_READ = 256;
+    private static final long PARALLEL_THRESHOLD = 256L * 1024 * 1024;
+    private static final int MAX_PARALLEL_RANGES = 4;
+
+    private final BinEdFileOperation fileOperation;
+
+    public PagedDataLoader(@Nullable BinEdFileOperation fileOperation) {
+        this.fileOperation = fileOperation;
+    }
+
+    /**
+     * Loads content of the file to paged data.
+     *
+     * @param data paged data created with page size {@link #PAGE_SIZE}
+     * @param file source file
+     * @throws IOException if input/output error or operation was cancelled
+     */
+    public void load(ByteArrayPagedData data, File file) throws IOException {
+        Path path = file.toPath();
+        long fileSize = file.length();
+        data.clear();
+        data.setDataSize(fileSize);
+        int pagesCount = (int) ((fileSize + PAGE_SIZE - 1) / PAGE_SIZE);
+
+        int rangesCount = fileSize < PARALLEL_THRESHOLD ? 1 : Math.min(MAX_PARALLEL_RANGES, Runtime.getRuntime().availableProcessors());
+        if (rangesCount <= 1) {
+            loadRange(data, path, 0, pagesCount);
+            return;
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool(rangesCount, runnable -> {
+            Thread thread = new Thread(runnable, "PagedDataLoaderThread");
+            thread.setDaemon(true);
+            return thread;
+        });
+        try {
+            List<Future<Void>> futures = new ArrayList<>();
+            int rangePages = (pagesCount + rangesCount - 1) / rangesCount;
+            for (int firstPage = 0; firstPage < pagesCount; firstPage += rangePages) {
+                int rangeStart = firstPage;
+                int rangeEnd = Math.min(firstPage + rangePages, pagesCount);
+                futures.add(executor.submit(() -> {
+                    loadRange(data, path, rangeStart, rangeEnd);
+                    return null;
+                }));
+            }
+
+            for (Future<Void> future : futures) {
+                try {
+                    future.get();
+                } catch (ExecutionException ex) {
+                    Throwable cause = ex.getCause();
+                    if (cause instanceof IOException) {
+                        throw (IOException) cause;
+                    }
+                    if (cause instanceof RuntimeException) {
+                        throw (RuntimeException) cause;
+                    }
+                    throw new IOException(cause);
+                } catch (InterruptedException ex) {
+                    Thread.currentThread().interrupt();
+                    throw new IOException(ex);
+                }
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private void loadRange(ByteArrayPagedData data, Path path, int startPage, int endPage) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            channel.position((long) startPage * PAGE_SIZE);
+            ByteBuffer[] buffers = new ByteBuffer[PAGES_PER_READ];
+            int page = startPage;
+            while (page < endPage) {
+                int count = Math.min(PAGES_PER_READ, endPage - page);
+                for (int i = 0; i < count; i++) {
+                    buffers[i] = ByteBuffer.wrap(data.getPage(page + i));
+                }
+
+                while (buffers[count - 1].hasRemaining()) {
+                    long read = channel.read(buffers, 0, count);
+                    if (read < 0) {
+                        throw new EOFException("File was truncated during loading");
+                    }
+                    if (fileOperation != null) {
+                        fileOperation.addProcessed(read);
+                    }
+                }
+                page += count;
+            }
+        }
+    }
+}
@@ -29,6 +29,7 @@ import org.exbin.bined.operation.command.EmptyBinaryDataUndoRedo;
 import org.exbin.bined.swing.section.SectCodeArea;
 import org.exbin.auxiliary.binary_data.BinaryData;
 import org.exbin.framework.bined.BinEdCodeAreaAssessor;
+import org.exbin.framework.bined.BinEdCommandHandler;
 import org.exbin.framework.utils.TestApplication;
 import org.exbin.framework.utils.WindowUtils;
 import org.exbin.bined.operation.command.BinaryDataUndoRedo;
@@ -62,7 +63,7 @@ public class BinEdComponentPanel extends javax.swing.JPanel {
         ((CharAssessorPainterCapable) painter).setCharAssessor(codeAreaAssessor);
         codeArea.setCodeFont(new Font(Font.MONOSPACED, Font.PLAIN, 12));
 
-        CodeAreaOperationCommandHandler commandHandler = new CodeAreaOperationCommandHandler(codeArea, new EmptyBinaryDataUndoRedo());
+        CodeAreaOperationCommandHandler commandHandler = new BinEdCommandHandler(codeArea, new EmptyBinaryDataUndoRedo());
         codeArea.setCommandHandler(commandHandler);
 
         add(codeArea);
@@ -150,7 +151,7 @@ public class BinEdComponentPanel extends javax.swing.JPanel {
 
     public void setUndoRedo(BinaryDataUndoRedo undoRedo) {
         this.undoRedo = undoRedo;
-        CodeAreaOperationCommandHandler commandHandler = new CodeAreaOperationCommandHandler(codeArea, undoRedo == null ? new CodeAreaUndoRedo(codeArea) : undoRedo);
+        CodeAreaOperationCommandHandler commandHandler = new BinEdCommandHandler(codeArea, undoRedo == null ? new CodeAreaUndoRedo(codeArea) : undoRedo);
         codeArea.setCommandHandler(commandHandler);
 
         for (BinEdComponentExtension extension : componentExtensions) {
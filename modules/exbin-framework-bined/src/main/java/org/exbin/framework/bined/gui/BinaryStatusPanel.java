@@ -23,6 +23,7 @@ import java.awt.Toolkit;
 import java.awt.datatransfer.Clipboard;
 import java.awt.datatransfer.StringSelection;
 import java.awt.event.MouseEvent;
+import java.util.Locale;
 import javax.annotation.Nonnull;
 import javax.annotation.ParametersAreNonnullByDefault;
 import javax.swing.GroupLayout;
@@ -38,6 +39,7 @@ import org.exbin.bined.SelectionRange;
 import org.exbin.framework.App;
 import org.exbin.framework.language.api.LanguageModuleApi;
 import org.exbin.framework.utils.WindowUtils;
+import org.exbin.framework.bined.BinEdFileOperation;
 import org.exbin.framework.bined.BinaryStatusApi;
 import org.exbin.framework.bined.options.StatusOptions;
 import org.exbin.framework.text.encoding.TextEncodingStatusApi;
@@ -169,9 +171,13 @@ public class BinaryStatusPanel extends javax.swing.JPanel implements BinaryStatu
         memoryModePopupMenu = UiUtils.createPopupMenu();
         deltaMemoryModeRadioButtonMenuItem = UiUtils.createRadioButtonMenuItem();
         ramMemoryModeRadioButtonMenuItem = UiUtils.createRadioButtonMenuItem();
+        directMemoryModeRadioButtonMenuItem = UiUtils.createRadioButtonMenuItem();
+        fileOperationPopupMenu = UiUtils.createPopupMenu();
+        cancelFileOperationMenuItem = UiUtils.createMenuItem();
         memoryModeButtonGroup = new javax.swing.ButtonGroup();
         documentSizeModeButtonGroup = new javax.swing.ButtonGroup();
         cursorPositionModeButtonGroup = new javax.swing.ButtonGroup();
+        fileOperationProgressBar = new javax.swing.JProgressBar();
         encodingLabel = createEncodingLabel();
         documentSizeLabel = createLabel();
         cursorPositionLabel = createLabel();
@@ -326,8 +332,35 @@ public class BinaryStatusPanel extends javax.swing.JPanel implements BinaryStatu
         });
         memoryModePopupMenu.add(ramMemoryModeRadioButtonMenuItem);
 
+        memoryModeButtonGroup.add(directMemoryModeRadioButtonMenuItem);
+        directMemoryModeRadioButtonMenuItem.setText(resourceBundle.getString("directMemoryModeRadioButtonMenuItem.text")); // NOI18N
+        directMemoryModeRadioButtonMenuItem.setName("directMemoryModeRadioButtonMenuItem"); // NOI18N
+        directMemoryModeRadioButtonMenuItem.addActionListener(new java.awt.event.ActionListener() {
+            public void actionPerformed(java.awt.event.ActionEvent evt) {
+                directMemoryModeRadioButtonMenuItemActionPerformed(evt);
+            }
+        });
+        memoryModePopupMenu.add(directMemoryModeRadioButtonMenuItem);
+
+        fileOperationPopupMenu.setName("fileOperationPopupMenu"); // NOI18N
+
+        cancelFileOperationMenuItem.setText(resourceBundle.getString("cancelFileOperationMenuItem.text")); // NOI18N
+        cancelFileOperationMenuItem.setName("cancelFileOperationMenuItem"); // NOI18N
+        cancelFileOperationMenuItem.addActionListener(new java.awt.event.ActionListener() {
+            public void actionPerformed(java.awt.event.ActionEvent evt) {
+                cancelFileOperationMenuItemActionPerformed(evt);
+            }
+        });
+        fileOperationPopupMenu.add(cancelFileOperationMenuItem);
+
         setName("Form"); // NOI18N
 
+        fileOperationProgressBar.setToolTipText(resourceBundle.getString("fileOperationProgressBar.toolTipText")); // NOI18N
+        fileOperationProgressBar.setComponentPopupMenu(fileOperationPopupMenu);
+        fileOperationProgressBar.setName("fileOperationProgressBar"); // NOI18N
+        fileOperationProgressBar.setStringPainted(true);
+        fileOperationProgressBar.setVisible(false);
+
         encodingLabel.setHorizontalAlignment(javax.swing.SwingConstants.CENTER);
         encodingLabel.setText(resourceBundle.getString("encodingLabel.text")); // NOI18N
         encodingLabel.setToolTipText(resourceBundle.getString("encodingLabel.toolTipText")); // NOI18N
@@ -383,6 +416,8 @@ public class BinaryStatusPanel extends javax.swing.JPanel implements BinaryStatu
             layout.createParallelGroup(javax.swing.GroupLayout.Alignment.LEADING)
             .addGroup(javax.swing.GroupLayout.Alignment.TRAILING, layout.createSequentialGroup()
                 .addContainerGap(195, Short.MAX_VALUE)
+                .addComponent(fileOperationProgressBar, javax.swing.GroupLayout.PREFERRED_SIZE, 200, javax.swing.GroupLayout.PREFERRED_SIZE)
+                .addGap(0, 0, 0)
                 .addComponent(encodingLabel, javax.swing.GroupLayout.PREFERRED_SIZE, 148, javax.swing.GroupLayout.PREFERRED_SIZE)
                 .addGap(0, 0, 0)
                 .addComponent(documentSizeLabel, javax.swing.GroupLayout.PREFERRED_SIZE, 168, javax.swing.GroupLayout.PREFERRED_SIZE)
@@ -400,6 +435,7 @@ public class BinaryStatusPanel extends javax.swing.JPanel implements BinaryStatu
             .addComponent(memoryModeLabel, javax.swing.GroupLayout.DEFAULT_SIZE, javax.swing.GroupLayout.DEFAULT_SIZE, Short.MAX_VALUE)
             .addComponent(cursorPositionLabel, javax.swing.GroupLayout.DEFAULT_SIZE, javax.swing.GroupLayout.DEFAULT_SIZE, Short.MAX_VALUE)
             .addComponent(encodingLabel, javax.swing.GroupLayout.DEFAULT_SIZE, javax.swing.GroupLayout.DEFAULT_SIZE, Short.MAX_VALUE)
+            .addComponent(fileOperationProgressBar, javax.swing.GroupLayout.DEFAULT_SIZE, javax.swing.GroupLayout.DEFAULT_SIZE, Short.MAX_VALUE)
         );
     }// </editor-fold>//GEN-END:initComponents
 
@@ -469,6 +505,16 @@ public class BinaryStatusPanel extends javax.swing.JPanel implements BinaryStatu
         ((MemoryModeController) controller).changeMemoryMode(MemoryMode.RAM_MEMORY);
     }//GEN-LAST:event_ramMemoryModeRadioButtonMenuItemActionPerformed
 
+    private void directMemoryModeRadioButtonMenuItemActionPerformed(java.awt.event.ActionEvent evt) {//GEN-FIRST:event_directMemoryModeRadioButtonMenuItemActionPerformed
+        ((MemoryModeController) controller).changeMemoryMode(MemoryMode.DIRECT_MODE);
+    }//GEN-LAST:event_directMemoryModeRadioButtonMenuItemActionPerformed
+
+    private void cancelFileOperationMenuItemActionPerformed(java.awt.event.ActionEvent evt) {//GEN-FIRST:event_cancelFileOperationMenuItemActionPerformed
+        if (controller instanceof FileOperationController) {
+            ((FileOperationController) controller).cancelFileOperation();
+        }
+    }//GEN-LAST:event_cancelFileOperationMenuItemActionPerformed
+
     private void cursorPositionShowOffsetCheckBoxMenuItemActionPerformed(java.awt.event.ActionEvent evt) {//GEN-FIRST:event_cursorPositionShowOffsetCheckBoxMenuItemActionPerformed
         cursorPositionFormat.setShowOffset(cursorPositionShowOffsetCheckBoxMenuItem.isSelected());
         updateCaretPosition();
@@ -538,6 +584,7 @@ public class BinaryStatusPanel extends javax.swing.JPanel implements BinaryStatu
     }
 
     // Variables declaration - do not modify//GEN-BEGIN:variables
+    private javax.swing.JMenuItem cancelFileOperationMenuItem;
     private javax.swing.JMenu cursorPositionCodeTypeMenu;
     private javax.swing.JLabel cursorPositionLabel;
     private javax.swing.ButtonGroup cursorPositionModeButtonGroup;
@@ -545,6 +592,7 @@ public class BinaryStatusPanel extends javax.swing.JPanel implements BinaryStatu
     private javax.swing.JRadioButtonMenuItem decimalCursorPositionModeRadioButtonMenuItem;
     private javax.swing.JRadioButtonMenuItem decimalDocumentSizeModeRadioButtonMenuItem;
     private javax.swing.JRadioButtonMenuItem deltaMemoryModeRadioButtonMenuItem;
+    private javax.swing.JRadioButtonMenuItem directMemoryModeRadioButtonMenuItem;
     private javax.swing.JMenu documentSizeCodeTypeMenu;
     private javax.swing.JMenuItem documentSizeCopyMenuItem;
     private javax.swing.JLabel documentSizeLabel;
@@ -553,6 +601,8 @@ public class BinaryStatusPanel extends javax.swing.JPanel implements BinaryStatu
     private javax.swing.JCheckBoxMenuItem documentSizeShowRelativeCheckBoxMenuItem;
     private javax.swing.JLabel editModeLabel;
     private javax.swing.JLabel encodingLabel;
+    private javax.swing.JPopupMenu fileOperationPopupMenu;
+    private javax.swing.JProgressBar fileOperationProgressBar;
     private javax.swing.JRadioButtonMenuItem hexadecimalCursorPositionModeRadioButtonMenuItem;
     private javax.swing.JRadioButtonMenuItem hexadecimalDocumentSizeModeRadioButtonMenuItem;
     private javax.swing.JPopupMenu.Separator jSeparator1;
@@ -666,7 +716,9 @@ public class BinaryStatusPanel extends javax.swing.JPanel implements BinaryStatu
         javax.swing.GroupLayout layout = new javax.swing.GroupLayout(this);
         this.setLayout(layout);
         GroupLayout.SequentialGroup horizontalGroup = layout.createSequentialGroup();
-        horizontalGroup.addContainerGap(195, Short.MAX_VALUE);
+        horizontalGroup.addContainerGap(195, Short.MAX_VALUE)
+                .addComponent(fileOperationProgressBar, javax.swing.GroupLayout.PREFERRED_SIZE, 200, javax.swing.GroupLayout.PREFERRED_SIZE)
+                .addGap(0, 0, 0);
         if (controller instanceof EncodingsController) {
             horizontalGroup.addComponent(encodingLabel, javax.swing.GroupLayout.PREFERRED_SIZE, 148, javax.swing.GroupLayout.PREFERRED_SIZE)
                     .addGap(0, 0, 0);
@@ -695,6 +747,7 @@ public class BinaryStatusPanel extends javax.swing.JPanel implements BinaryStatu
         if (controller instanceof EncodingsController) {
             verticalGroup.addComponent(encodingLabel, javax.swing.GroupLayout.DEFAULT_SIZE, javax.swing.GroupLayout.DEFAULT_SIZE, Short.MAX_VALUE);
         }
+        verticalGroup.addComponent(fileOperationProgressBar, javax.swing.GroupLayout.DEFAULT_SIZE, javax.swing.GroupLayout.DEFAULT_SIZE, Short.MAX_VALUE);
         layout.setVerticalGroup(verticalGroup);
     }
 
@@ -704,13 +757,52 @@ public class BinaryStatusPanel extends javax.swing.JPanel implements BinaryStatu
         boolean enabled = memoryMode != MemoryMode.READ_ONLY;
         deltaMemoryModeRadioButtonMenuItem.setEnabled(enabled);
         ramMemoryModeRadioButtonMenuItem.setEnabled(enabled);
+        directMemoryModeRadioButtonMenuItem.setEnabled(enabled);
         if (memoryMode == MemoryMode.DELTA_MODE) {
             deltaMemoryModeRadioButtonMenuItem.setSelected(true);
+        } else if (memoryMode == MemoryMode.DIRECT_MODE) {
+            directMemoryModeRadioButtonMenuItem.setSelected(true);
         } else {
             ramMemoryModeRadioButtonMenuItem.setSelected(true);
         }
     }
 
+    @Override
+    public void setFileOperation(BinEdFileOperation fileOperation) {
+        int progress = fileOperation.getProgress();
+        fileOperationProgressBar.setIndeterminate(progress < 0);
+        fileOperationProgressBar.setMaximum(1000);
+        fileOperationProgressBar.setValue(Math.max(progress, 0));
+        String operationText = resourceBundle.getString("fileOperation." + fileOperation.getOperationType().name().toLowerCase(Locale.ROOT));
+        if (progress < 0) {
+            fileOperationProgressBar.setString(operationText);
+        } else {
+            fileOperationProgressBar.setString(String.format(resourceBundle.getString("fileOperation.progress"), operationText, progress / 10, formatThroughput(fileOperation.getBytesPerSecond())));
+        }
+        cancelFileOperationMenuItem.setEnabled(fileOperation.isCancellable() && !fileOperation.isCancelled());
+        if (!fileOperationProgressBar.isVisible()) {
+            fileOperationProgressBar.setVisible(true);
+            revalidate();
+        }
+    }
+
+    @Override
+    public void clearFileOperation() {
+        if (fileOperationProgressBar.isVisible()) {
+            fileOperationProgressBar.setVisible(false);
+            revalidate();
+        }
+    }
+
+    @Nonnull
+    private static String formatThroughput(long bytesPerSecond) {
+        if (bytesPerSecond >= 1024 * 1024) {
+            return String.format("%.1f MB/s", bytesPerSecond / (1024d * 1024d));
+        }
+
+        return String.format("%d kB/s", bytesPerSecond / 1024);
+    }
+
     private void updateCaretPosition() {
         if (caretPosition == null) {
             cursorPositionLabel.setText("-");
@@ -916,4 +1008,13 @@ public class BinaryStatusPanel extends javax.swing.JPanel implements BinaryStatu
          */
         void changeMemoryMode(MemoryMode memoryMode);
     }
+
+    @ParametersAreNonnullByDefault
+    public interface FileOperationController {
+
+        /**
+         * Requests cancellation of file operation in progress.
+         */
+        void cancelFileOperation();
+    }
 }
@@ -0,0 +1,58 @@
+/*
+ * Copyright (C) ExBin Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.exbin.framework.bined;
+
+import javax.annotation.ParametersAreNonnullByDefault;
+import org.exbin.auxiliary.binary_data.array.ByteArrayEditableData;
+import org.exbin.bined.SelectionRange;
+import org.exbin.bined.operation.swing.CodeAreaUndoRedo;
+import org.exbin.bined.swing.section.SectCodeArea;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Tests for BinEdCommandHandler class.
+ *
+ * @author ExBin Project (https://exbin.org)
+ */
+@ParametersAreNonnullByDefault
+public class BinEdCommandHandlerTest {
+
+    public BinEdCommandHandlerTest() {
+    }
+
+    @Test
+    public void testUndoMemoryOfDeletedSelection() {
+        SectCodeArea codeArea = new SectCodeArea();
+        codeArea.setContentData(new ByteArrayEditableData(new byte[100]));
+        CodeAreaUndoRedo undoRedo = new CodeAreaUndoRedo(codeArea);
+        BinEdCommandHandler commandHandler = new BinEdCommandHandler(codeArea, undoRedo);
+        codeArea.setCommandHandler(commandHandler);
+        Assert.assertEquals(0, commandHandler.getMemoryUsage());
+
+        codeArea.setSelection(new SelectionRange(10, 30));
+        commandHandler.delete();
+        Assert.assertEquals(80, codeArea.getDataSize());
+        Assert.assertEquals(20, commandHandler.getMemoryUsage());
+
+        // Undone command is kept for redo
+        undoRedo.performUndo();
+        Assert.assertEquals(20, commandHandler.getMemoryUsage());
+
+        undoRedo.clear();
+        Assert.assertEquals(0, commandHandler.getMemoryUsage());
+    }
+}
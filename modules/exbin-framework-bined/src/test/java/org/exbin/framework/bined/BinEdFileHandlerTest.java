@@ -0,0 +1,66 @@
+/*
+ * Copyright (C) ExBin Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.exbin.framework.bined;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+import javax.annotation.ParametersAreNonnullByDefault;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Tests for BinEdFileHandler class.
+ *
+ * @author ExBin Project (https://exbin.org)
+ */
+@ParametersAreNonnullByDefault
+public class BinEdFileHandlerTest {
+
+    public BinEdFileHandlerTest() {
+    }
+
+    @Test
+    public void testCompactionBlockedByReaders() {
+        BinEdFileHandler fileHandler = new BinEdFileHandler();
+        fileHandler.startReading();
+        fileHandler.startReading();
+        Assert.assertFalse(fileHandler.startCompaction());
+        fileHandler.finishReading();
+        Assert.assertFalse(fileHandler.startCompaction());
+        fileHandler.finishReading();
+        Assert.assertTrue(fileHandler.startCompaction());
+        fileHandler.finishCompaction();
+    }
+
+    @Test(timeout = 10000)
+    public void testReaderWaitsForCompactionStep() throws InterruptedException {
+        BinEdFileHandler fileHandler = new BinEdFileHandler();
+        Assert.assertTrue(fileHandler.startCompaction());
+
+        AtomicBoolean reading = new AtomicBoolean();
+        Thread readerThread = new Thread(() -> {
+            fileHandler.startReading();
+            reading.set(true);
+            fileHandler.finishReading();
+        });
+        readerThread.start();
+        readerThread.join(200);
+        Assert.assertFalse(reading.get());
+
+        fileHandler.finishCompaction();
+        readerThread.join();
+        Assert.assertTrue(reading.get());
+    }
+}
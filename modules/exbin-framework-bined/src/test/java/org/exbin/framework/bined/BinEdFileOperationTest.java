@@ -0,0 +1,84 @@
+/*
+ * Copyright (C) ExBin Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.exbin.framework.bined;
+
+import java.io.IOException;
+import java.lang.reflect.InvocationTargetException;
+import java.util.concurrent.atomic.AtomicReference;
+import javax.annotation.ParametersAreNonnullByDefault;
+import javax.swing.SwingUtilities;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Tests for BinEdFileOperation class.
+ *
+ * @author ExBin Project (https://exbin.org)
+ */
+@ParametersAreNonnullByDefault
+public class BinEdFileOperationTest {
+
+    public BinEdFileOperationTest() {
+    }
+
+    @Test(timeout = 10000)
+    public void testPerformErrorOnEventDispatchThread() throws InterruptedException, InvocationTargetException {
+        BinEdFileOperation operation = new BinEdFileOperation(BinEdFileOperation.OperationType.SAVE, 10);
+        AtomicReference<Throwable> thrown = new AtomicReference<>();
+        SwingUtilities.invokeAndWait(() -> {
+            try {
+                operation.perform(() -> {
+                    throw new OutOfMemoryError("test");
+                });
+            } catch (IOException | RuntimeException | Error ex) {
+                thrown.set(ex);
+            }
+        });
+        Assert.assertTrue(thrown.get() instanceof OutOfMemoryError);
+        operation.awaitFinished();
+    }
+
+    @Test(timeout = 10000)
+    public void testPerformErrorOutsideEventDispatchThread() throws IOException {
+        BinEdFileOperation operation = new BinEdFileOperation(BinEdFileOperation.OperationType.SAVE, 10);
+        try {
+            operation.perform(() -> {
+                throw new OutOfMemoryError("test");
+            });
+            Assert.fail("Error expected");
+        } catch (OutOfMemoryError ex) {
+            // expected
+        }
+        operation.awaitFinished();
+    }
+
+    @Test(timeout = 10000)
+    public void testPerformIOExceptionOnEventDispatchThread() throws InterruptedException, InvocationTargetException {
+        BinEdFileOperation operation = new BinEdFileOperation(BinEdFileOperation.OperationType.LOAD, 10);
+        AtomicReference<Throwable> thrown = new AtomicReference<>();
+        SwingUtilities.invokeAndWait(() -> {
+            try {
+                operation.perform(() -> {
+                    throw new IOException("test");
+                });
+            } catch (IOException | RuntimeException ex) {
+                thrown.set(ex);
+            }
+        });
+        Assert.assertTrue(thrown.get() instanceof IOException);
+        operation.awaitFinished();
+    }
+}
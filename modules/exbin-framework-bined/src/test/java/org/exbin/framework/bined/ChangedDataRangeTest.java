@@ -0,0 +1,100 @@
+/*
+ * Copyright (C) ExBin Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.exbin.framework.bined;
+
+import javax.annotation.ParametersAreNonnullByDefault;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Tests for ChangedDataRange class.
+ *
+ * @author ExBin Project (https://exbin.org)
+ */
+@ParametersAreNonnullByDefault
+public class ChangedDataRangeTest {
+
+    @Test
+    public void testTypingInsert() {
+        ChangedDataRange range = ChangedDataRange.fromLocalEdit(1000, 500, 500, 500, 1001, 501);
+        assertRange(499, 2, 3, range);
+    }
+
+    @Test
+    public void testTypingOverwrite() {
+        ChangedDataRange range = ChangedDataRange.fromLocalEdit(1000, 500, 500, 500, 1000, 501);
+        assertRange(499, 3, 3, range);
+    }
+
+    @Test
+    public void testTypingHalfByte() {
+        // Cursor stays on the same byte when its first half is edited
+        ChangedDataRange range = ChangedDataRange.fromLocalEdit(1000, 500, 500, 500, 1000, 500);
+        assertRange(499, 2, 2, range);
+    }
+
+    @Test
+    public void testBackspace() {
+        ChangedDataRange range = ChangedDataRange.fromLocalEdit(1000, 500, 500, 500, 999, 499);
+        assertRange(498, 3, 2, range);
+    }
+
+    @Test
+    public void testDeleteSelection() {
+        ChangedDataRange range = ChangedDataRange.fromLocalEdit(1000, 600, 400, 600, 800, 400);
+        assertRange(399, 202, 2, range);
+    }
+
+    @Test
+    public void testPasteOverSelection() {
+        ChangedDataRange range = ChangedDataRange.fromLocalEdit(1000, 410, 400, 410, 1090, 500);
+        assertRange(399, 12, 102, range);
+    }
+
+    @Test
+    public void testEditAtDataEdges() {
+        assertRange(0, 0, 1, ChangedDataRange.fromLocalEdit(0, 0, 0, 0, 1, 1));
+        assertRange(999, 1, 2, ChangedDataRange.fromLocalEdit(1000, 1000, 1000, 1000, 1001, 1001));
+        assertRange(0, 2, 1, ChangedDataRange.fromLocalEdit(1000, 0, 0, 0, 999, 0));
+    }
+
+    @Test
+    public void testNonLocalEdit() {
+        // Data shrank more than the range around cursor
+        Assert.assertNull(ChangedDataRange.fromLocalEdit(1000, 500, 500, 500, 10, 500));
+    }
+
+    @Test
+    public void testReverse() {
+        assertRange(10, 5, 7, new ChangedDataRange(10, 7, 5).reverse());
+    }
+
+    @Test
+    public void testMerge() {
+        ChangedDataRange first = new ChangedDataRange(100, 2, 3);
+        ChangedDataRange second = new ChangedDataRange(50, 1, 0);
+        // Data from 50 to 102 before both changes became data from 50 to 102
+        assertRange(50, 52, 52, first.merge(second));
+        assertRange(100, 2, 3, new ChangedDataRange(100, 2, 3).merge(new ChangedDataRange(101, 2, 2)));
+    }
+
+    private static void assertRange(long position, long previousLength, long currentLength, ChangedDataRange range) {
+        Assert.assertNotNull(range);
+        Assert.assertEquals(position, range.getPosition());
+        Assert.assertEquals(previousLength, range.getPreviousLength());
+        Assert.assertEquals(currentLength, range.getCurrentLength());
+    }
+}
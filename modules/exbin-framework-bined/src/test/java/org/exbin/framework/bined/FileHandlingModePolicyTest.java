@@ -0,0 +1,95 @@
+/*
+ * Copyright (C) ExBin Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.exbin.framework.bined;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import javax.annotation.Nonnull;
+import javax.annotation.ParametersAreNonnullByDefault;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Tests for FileHandlingModePolicy class.
+ *
+ * @author ExBin Project (https://exbin.org)
+ */
+@ParametersAreNonnullByDefault
+public class FileHandlingModePolicyTest {
+
+    private static final long MEBIBYTE = 1024 * 1024;
+
+    public FileHandlingModePolicyTest() {
+    }
+
+    @Test
+    public void testManualSelection() throws IOException {
+        File file = createTestFile(2 * MEBIBYTE);
+        try {
+            FileHandlingModePolicy policy = new FileHandlingModePolicy();
+            policy.setMemoryModeSizeLimit(1);
+            policy.setDirectModeSizeThreshold(1);
+            Assert.assertEquals(FileHandlingMode.MEMORY, policy.selectMode(file, FileHandlingMode.MEMORY));
+            Assert.assertEquals(FileHandlingMode.DELTA, policy.selectMode(file, FileHandlingMode.DELTA));
+            Assert.assertEquals(FileHandlingMode.DIRECT, policy.selectMode(file, FileHandlingMode.DIRECT));
+        } finally {
+            file.delete();
+        }
+    }
+
+    @Test
+    public void testAutomaticSelectionBySize() throws IOException {
+        File smallFile = createTestFile(1000);
+        File largeFile = createTestFile(2 * MEBIBYTE);
+        try {
+            FileHandlingModePolicy policy = new FileHandlingModePolicy();
+            policy.setAutomatic(true);
+            policy.setMemoryModeSizeLimit(1);
+            Assert.assertEquals(FileHandlingMode.MEMORY, policy.selectMode(smallFile, FileHandlingMode.DELTA));
+            Assert.assertEquals(FileHandlingMode.DELTA, policy.selectMode(largeFile, FileHandlingMode.MEMORY));
+
+            policy.setDirectModeSizeThreshold(2);
+            Assert.assertEquals(FileHandlingMode.MEMORY, policy.selectMode(smallFile, FileHandlingMode.DELTA));
+            Assert.assertEquals(FileHandlingMode.DIRECT, policy.selectMode(largeFile, FileHandlingMode.MEMORY));
+        } finally {
+            smallFile.delete();
+            largeFile.delete();
+        }
+    }
+
+    @Test
+    public void testAutomaticSelectionByHeap() throws IOException {
+        File file = createTestFile(1000);
+        try {
+            FileHandlingModePolicy policy = new FileHandlingModePolicy();
+            policy.setAutomatic(true);
+            policy.setMemoryModeHeapRatio(0);
+            Assert.assertEquals(FileHandlingMode.DELTA, policy.selectMode(file, FileHandlingMode.MEMORY));
+        } finally {
+            file.delete();
+        }
+    }
+
+    @Nonnull
+    private static File createTestFile(long fileSize) throws IOException {
+        File file = File.createTempFile("bined-policy", ".bin");
+        try (RandomAccessFile accessFile = new RandomAccessFile(file, "rw")) {
+            accessFile.setLength(fileSize);
+        }
+        return file;
+    }
+}
@@ -0,0 +1,201 @@
+/*
+ * Copyright (C) ExBin Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.exbin.framework.bined;
+
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Random;
+import javax.annotation.Nonnull;
+import javax.annotation.ParametersAreNonnullByDefault;
+import org.exbin.auxiliary.binary_data.BinaryData;
+import org.exbin.auxiliary.binary_data.EditableBinaryData;
+import org.exbin.auxiliary.binary_data.array.ByteArrayEditableData;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Tests for UndoDataStorage class.
+ *
+ * @author ExBin Project (https://exbin.org)
+ */
+@ParametersAreNonnullByDefault
+public class UndoDataStorageTest {
+
+    private UndoDataStorage storage;
+
+    @Before
+    public void setUp() {
+        storage = new UndoDataStorage();
+    }
+
+    @After
+    public void tearDown() {
+        storage.dispose();
+    }
+
+    @Test
+    public void testStoreInHeap() {
+        BinaryData data = createData(1000);
+        UndoDataStorage.StoredData stored = storage.store(data, 100, 500);
+        Assert.assertEquals(500, stored.getLength());
+        Assert.assertEquals(500, storage.getMemoryUsage());
+        Assert.assertEquals(500, storage.getMemoryUsage(data));
+        Assert.assertEquals(0, storage.getMemoryUsage(createData(10)));
+        assertRestored(data, 100, stored);
+    }
+
+    @Test
+    public void testSpillOverThreshold() {
+        storage.setSpillThreshold(1000);
+        BinaryData data = createData(5000);
+        UndoDataStorage.StoredData stored = storage.store(data, 10, 4000);
+        Assert.assertEquals(0, storage.getMemoryUsage());
+        Assert.assertTrue(stored.isAvailable());
+        assertRestored(data, 10, stored);
+    }
+
+    @Test
+    public void testReplaceFromFile() {
+        storage.setSpillThreshold(1);
+        BinaryData data = createData(3000);
+        UndoDataStorage.StoredData stored = storage.store(data, 0, 3000);
+        EditableBinaryData target = new ByteArrayEditableData(new byte[3000]);
+        stored.restore(target, 0, false);
+        assertEqualData(data, 0, target);
+    }
+
+    @Test
+    public void testReleaseMemory() {
+        BinaryData data = createData(2000);
+        UndoDataStorage.StoredData first = storage.store(data, 0, 1000);
+        UndoDataStorage.StoredData second = storage.store(data, 1000, 1000);
+        Assert.assertEquals(2000, storage.getMemoryUsage());
+
+        Assert.assertEquals(2000, storage.releaseMemory());
+        Assert.assertEquals(0, storage.getMemoryUsage());
+        Assert.assertEquals(0, storage.getMemoryUsage(data));
+        assertRestored(data, 0, first);
+        assertRestored(data, 1000, second);
+        Assert.assertEquals(0, storage.releaseMemory());
+    }
+
+    @Test
+    public void testOpenInputStream() throws IOException {
+        BinaryData data = createData(3000);
+        UndoDataStorage.StoredData stored = storage.store(data, 500, 2000);
+        byte[] read = new byte[2000];
+        try (InputStream input = stored.openInputStream()) {
+            // Data are not spilled while they are read
+            Assert.assertEquals(0, storage.releaseMemory());
+            new DataInputStream(input).readFully(read);
+            Assert.assertEquals(-1, input.read());
+        }
+        assertEqualData(data, 500, new ByteArrayEditableData(read));
+        Assert.assertEquals(2000, storage.releaseMemory());
+
+        try (InputStream input = stored.openInputStream()) {
+            new DataInputStream(input).readFully(read);
+        }
+        assertEqualData(data, 500, new ByteArrayEditableData(read));
+    }
+
+    @Test
+    public void testStorageLimit() {
+        storage.setSpillThreshold(100);
+        storage.setStorageLimit(1500);
+        BinaryData data = createData(3000);
+        UndoDataStorage.StoredData first = storage.store(data, 0, 1000);
+        UndoDataStorage.StoredData second = storage.store(data, 1000, 1000);
+        Assert.assertFalse(first.isAvailable());
+        Assert.assertTrue(second.isAvailable());
+        assertRestored(data, 1000, second);
+
+        try {
+            first.restore(new ByteArrayEditableData(), 0, true);
+            Assert.fail("Discarded data must not be restored");
+        } catch (IllegalStateException ex) {
+            // Expected
+        }
+    }
+
+    @Test
+    public void testStorageLimitKeepsLatestData() {
+        storage.setSpillThreshold(100);
+        storage.setStorageLimit(500);
+        BinaryData data = createData(1000);
+        UndoDataStorage.StoredData stored = storage.store(data, 0, 1000);
+        Assert.assertTrue(stored.isAvailable());
+        assertRestored(data, 0, stored);
+    }
+
+    @Test
+    public void testDispose() {
+        BinaryData data = createData(1000);
+        UndoDataStorage.StoredData first = storage.store(data, 0, 600);
+        storage.store(data, 600, 400);
+        first.dispose();
+        Assert.assertEquals(400, storage.getMemoryUsage());
+        first.dispose();
+        Assert.assertEquals(400, storage.getMemoryUsage());
+    }
+
+    @Test
+    public void testEmptyData() {
+        BinaryData data = createData(0);
+        UndoDataStorage.StoredData stored = storage.store(data, 0, 0);
+        Assert.assertEquals(0, stored.getLength());
+        assertRestored(data, 0, stored);
+
+        storage.setSpillThreshold(0);
+        UndoDataStorage.StoredData spilled = storage.store(data, 0, 0);
+        assertRestored(data, 0, spilled);
+    }
+
+    @Test
+    public void testSingleByteData() {
+        BinaryData data = createData(1);
+        assertRestored(data, 0, storage.store(data, 0, 1));
+
+        storage.setSpillThreshold(1);
+        UndoDataStorage.StoredData spilled = storage.store(data, 0, 1);
+        Assert.assertEquals(1, storage.getMemoryUsage());
+        assertRestored(data, 0, spilled);
+    }
+
+    private static void assertRestored(BinaryData data, long position, UndoDataStorage.StoredData stored) {
+        EditableBinaryData target = new ByteArrayEditableData();
+        stored.restore(target, 0, true);
+        assertEqualData(data, position, target);
+    }
+
+    private static void assertEqualData(BinaryData data, long position, BinaryData target) {
+        byte[] expected = new byte[(int) target.getDataSize()];
+        data.copyToArray(position, expected, 0, expected.length);
+        byte[] actual = new byte[(int) target.getDataSize()];
+        target.copyToArray(0, actual, 0, actual.length);
+        Assert.assertArrayEquals(expected, actual);
+    }
+
+    @Nonnull
+    private static BinaryData createData(int length) {
+        byte[] data = new byte[length];
+        new Random(length).nextBytes(data);
+        return new ByteArrayEditableData(data);
+    }
+}
@@ -0,0 +1,173 @@
+/*
+ * Copyright (C) ExBin Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.exbin.framework.bined.data;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.stream.Stream;
+import javax.annotation.Nonnull;
+import javax.annotation.ParametersAreNonnullByDefault;
+import org.exbin.auxiliary.binary_data.array.ByteArrayEditableData;
+import org.exbin.auxiliary.binary_data.delta.DeltaDocument;
+import org.exbin.auxiliary.binary_data.delta.SegmentsRepository;
+import org.exbin.auxiliary.binary_data.delta.file.FileDataSource;
+import org.exbin.framework.bined.BinEdFileOperation;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Tests for AtomicFileWriter class.
+ *
+ * @author ExBin Project (https://exbin.org)
+ */
+@ParametersAreNonnullByDefault
+public class AtomicFileWriterTest {
+
+    private static final int FILE_SIZE = 256 * 1024;
+
+    public AtomicFileWriterTest() {
+    }
+
+    @Test
+    public void testWriteData() throws IOException {
+        Path directory = Files.createTempDirectory("bined-atomic");
+        File target = directory.resolve("target.bin").toFile();
+        try {
+            Files.write(target.toPath(), new byte[]{1, 2, 3});
+            byte[] data = createTestData();
+            BinEdFileOperation operation = new BinEdFileOperation(BinEdFileOperation.OperationType.SAVE, data.length);
+            new AtomicFileWriter(target, operation).writeData(new ByteArrayEditableData(data));
+
+            Assert.assertArrayEquals(data, Files.readAllBytes(target.toPath()));
+            Assert.assertEquals(data.length, operation.getProcessedSize());
+            // Temporary file is renamed to target
+            Assert.assertEquals(1, countFiles(directory));
+        } finally {
+            deleteDirectory(directory);
+        }
+    }
+
+    @Test
+    public void testCancelledWriteKeepsTarget() throws IOException {
+        Path directory = Files.createTempDirectory("bined-atomic");
+        File target = directory.resolve("target.bin").toFile();
+        try {
+            byte[] original = new byte[]{1, 2, 3};
+            Files.write(target.toPath(), original);
+            BinEdFileOperation operation = new BinEdFileOperation(BinEdFileOperation.OperationType.SAVE, FILE_SIZE);
+            operation.cancel();
+            try {
+                new AtomicFileWriter(target, operation).writeData(new ByteArrayEditableData(createTestData()));
+                Assert.fail("Cancellation expected");
+            } catch (InterruptedIOException ex) {
+                // expected
+            }
+
+            Assert.assertArrayEquals(original, Files.readAllBytes(target.toPath()));
+            Assert.assertEquals(1, countFiles(directory));
+        } finally {
+            deleteDirectory(directory);
+        }
+    }
+
+    @Test
+    public void testWriteDocument() throws IOException {
+        Path directory = Files.createTempDirectory("bined-atomic");
+        File source = directory.resolve("source.bin").toFile();
+        File target = directory.resolve("target.bin").toFile();
+        try {
+            Files.write(source.toPath(), createTestData());
+            SegmentsRepository segmentsRepository = new SegmentsRepository(() -> new ByteArrayEditableData());
+            FileDataSource fileSource = new FileDataSource(source);
+            segmentsRepository.addDataSource(fileSource);
+            DeltaDocument document = segmentsRepository.createDocument(fileSource);
+
+            document.insert(10, new byte[]{1, 2, 3});
+            document.remove(100000, 1000);
+            byte[] expected = new byte[(int) document.getDataSize()];
+            document.copyToArray(0, expected, 0, expected.length);
+
+            BinEdFileOperation operation = new BinEdFileOperation(BinEdFileOperation.OperationType.SAVE, document.getDataSize());
+            new AtomicFileWriter(target, operation).writeDocument(document);
+            Assert.assertEquals(document.getDataSize(), operation.getProcessedSize());
+
+            document.dispose();
+            segmentsRepository.detachFileSource(fileSource);
+            fileSource.close();
+
+            Assert.assertArrayEquals(expected, Files.readAllBytes(target.toPath()));
+            Assert.assertArrayEquals(createTestData(), Files.readAllBytes(source.toPath()));
+            Assert.assertEquals(2, countFiles(directory));
+        } finally {
+            deleteDirectory(directory);
+        }
+    }
+
+    @Test
+    public void testDiscardPreparedDocument() throws IOException {
+        Path directory = Files.createTempDirectory("bined-atomic");
+        File source = directory.resolve("source.bin").toFile();
+        try {
+            Files.write(source.toPath(), createTestData());
+            SegmentsRepository segmentsRepository = new SegmentsRepository(() -> new ByteArrayEditableData());
+            FileDataSource fileSource = new FileDataSource(source);
+            segmentsRepository.addDataSource(fileSource);
+            DeltaDocument document = segmentsRepository.createDocument(fileSource);
+            document.remove(0, 10);
+
+            AtomicFileWriter writer = new AtomicFileWriter(source, null);
+            writer.prepareDocument(document);
+            Assert.assertEquals(2, countFiles(directory));
+            writer.discard();
+
+            document.dispose();
+            segmentsRepository.detachFileSource(fileSource);
+            fileSource.close();
+
+            Assert.assertArrayEquals(createTestData(), Files.readAllBytes(source.toPath()));
+            Assert.assertEquals(1, countFiles(directory));
+        } finally {
+            deleteDirectory(directory);
+        }
+    }
+
+    private static long countFiles(Path directory) throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.count();
+        }
+    }
+
+    private static void deleteDirectory(Path directory) throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            for (Path file : (Iterable<Path>) files::iterator) {
+                Files.delete(file);
+            }
+        }
+        Files.delete(directory);
+    }
+
+    @Nonnull
+    private static byte[] createTestData() {
+        byte[] data = new byte[FILE_SIZE];
+        for (int i = 0; i < FILE_SIZE; i++) {
+            data[i] = (byte) (i * 31);
+        }
+        return data;
+    }
+}
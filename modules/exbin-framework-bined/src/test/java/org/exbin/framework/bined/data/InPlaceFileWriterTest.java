@@ -0,0 +1,121 @@
+/*
+ * Copyright (C) ExBin Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.exbin.framework.bined.data;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import javax.annotation.Nonnull;
+import javax.annotation.ParametersAreNonnullByDefault;
+import org.exbin.auxiliary.binary_data.array.ByteArrayEditableData;
+import org.exbin.auxiliary.binary_data.delta.DeltaDocument;
+import org.exbin.auxiliary.binary_data.delta.SegmentsRepository;
+import org.exbin.auxiliary.binary_data.delta.file.FileDataSource;
+import org.exbin.framework.bined.BinEdFileOperation;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Tests for InPlaceFileWriter class.
+ *
+ * @author ExBin Project (https://exbin.org)
+ */
+@ParametersAreNonnullByDefault
+public class InPlaceFileWriterTest {
+
+    private static final int FILE_SIZE = 256 * 1024;
+
+    public InPlaceFileWriterTest() {
+    }
+
+    @Test
+    public void testWriteTypedPatch() throws IOException {
+        File file = createTestFile();
+        try {
+            SegmentsRepository segmentsRepository = new SegmentsRepository(() -> new ByteArrayEditableData());
+            FileDataSource fileSource = new FileDataSource(file);
+            segmentsRepository.addDataSource(fileSource);
+            DeltaDocument document = segmentsRepository.createDocument(fileSource);
+
+            // Overwrite typing modifies single bytes
+            document.setByte(100, (byte) 0x41);
+            document.setByte(101, (byte) 0x42);
+            document.setByte(200000, (byte) 0x43);
+            Assert.assertTrue(InPlaceFileWriter.isApplicable(document, file));
+            Assert.assertEquals(3, InPlaceFileWriter.getChangedLength(document));
+
+            BinEdFileOperation operation = new BinEdFileOperation(BinEdFileOperation.OperationType.SAVE, InPlaceFileWriter.getChangedLength(document));
+            new InPlaceFileWriter(file, operation).writeDocument(document);
+            Assert.assertEquals(3, operation.getProcessedSize());
+
+            document.dispose();
+            segmentsRepository.detachFileSource(fileSource);
+            fileSource.close();
+
+            byte[] expected = createTestData();
+            expected[100] = 0x41;
+            expected[101] = 0x42;
+            expected[200000] = 0x43;
+            Assert.assertArrayEquals(expected, Files.readAllBytes(file.toPath()));
+        } finally {
+            file.delete();
+        }
+    }
+
+    @Test
+    public void testNotApplicableForChangedSize() throws IOException {
+        File file = createTestFile();
+        try {
+            SegmentsRepository segmentsRepository = new SegmentsRepository(() -> new ByteArrayEditableData());
+            FileDataSource fileSource = new FileDataSource(file);
+            segmentsRepository.addDataSource(fileSource);
+            DeltaDocument document = segmentsRepository.createDocument(fileSource);
+
+            document.insert(10, new byte[]{1, 2});
+            Assert.assertFalse(InPlaceFileWriter.isApplicable(document, file));
+            document.remove(10, 2);
+            // Source segments after removed insertion stay at their positions
+            Assert.assertTrue(InPlaceFileWriter.isApplicable(document, file));
+
+            document.remove(10, 2);
+            document.insert(20, new byte[]{1, 2});
+            // Same size, but data between are shifted
+            Assert.assertFalse(InPlaceFileWriter.isApplicable(document, file));
+
+            document.dispose();
+            segmentsRepository.detachFileSource(fileSource);
+            fileSource.close();
+        } finally {
+            file.delete();
+        }
+    }
+
+    @Nonnull
+    private static File createTestFile() throws IOException {
+        File file = File.createTempFile("bined-inplace", ".bin");
+        Files.write(file.toPath(), createTestData());
+        return file;
+    }
+
+    @Nonnull
+    private static byte[] createTestData() {
+        byte[] data = new byte[FILE_SIZE];
+        for (int i = 0; i < FILE_SIZE; i++) {
+            data[i] = (byte) (i * 31);
+        }
+        return data;
+    }
+}
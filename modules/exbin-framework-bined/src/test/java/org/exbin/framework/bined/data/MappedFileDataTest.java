@@ -0,0 +1,146 @@
+/*
+ * Copyright (C) ExBin Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.exbin.framework.bined.data;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import javax.annotation.Nonnull;
+import javax.annotation.ParametersAreNonnullByDefault;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Tests for MappedFileData class.
+ *
+ * @author ExBin Project (https://exbin.org)
+ */
+@ParametersAreNonnullByDefault
+public class MappedFileDataTest {
+
+    private static final int PAGE_SIZE = 4096;
+    private static final int FILE_SIZE = 64 * PAGE_SIZE + 100;
+
+    public MappedFileDataTest() {
+    }
+
+    @Test
+    public void testSpillModifiedPages() throws IOException {
+        File file = createTestFile();
+        try {
+            MappedFileData data = new MappedFileData(file, false);
+            data.setModifiedMemoryLimit(4 * PAGE_SIZE);
+            byte[] expected = createTestData();
+            for (int page = 0; page < 64; page++) {
+                long position = (long) page * PAGE_SIZE + page;
+                data.setByte(position, (byte) 0x55);
+                expected[(int) position] = 0x55;
+            }
+            data.replace(FILE_SIZE - 10, new byte[]{1, 2, 3}, 0, 3);
+            expected[FILE_SIZE - 10] = 1;
+            expected[FILE_SIZE - 9] = 2;
+            expected[FILE_SIZE - 8] = 3;
+
+            Assert.assertTrue(data.getModifiedMemoryUsage() <= 4 * PAGE_SIZE);
+            Assert.assertTrue(data.isModified());
+            Assert.assertEquals(0x55, data.getByte(1 + PAGE_SIZE));
+            Assert.assertArrayEquals(expected, toArray(data));
+
+            // Modify spilled page again
+            data.setByte(PAGE_SIZE + 2, (byte) 0x66);
+            expected[PAGE_SIZE + 2] = 0x66;
+            Assert.assertArrayEquals(expected, toArray(data));
+
+            Assert.assertArrayEquals(createTestData(), Files.readAllBytes(file.toPath()));
+            data.flush();
+            Assert.assertFalse(data.isModified());
+            Assert.assertEquals(0, data.getModifiedMemoryUsage());
+            data.dispose();
+
+            Assert.assertArrayEquals(expected, Files.readAllBytes(file.toPath()));
+        } finally {
+            file.delete();
+        }
+    }
+
+    @Test
+    public void testReleaseModifiedMemory() throws IOException {
+        File file = createTestFile();
+        try {
+            MappedFileData data = new MappedFileData(file, false);
+            data.setByte(10, (byte) 0x11);
+            data.setByte(3 * PAGE_SIZE, (byte) 0x22);
+            Assert.assertEquals(2 * PAGE_SIZE, data.releaseModifiedMemory());
+            Assert.assertEquals(0, data.getModifiedMemoryUsage());
+            Assert.assertTrue(data.isModified());
+            Assert.assertEquals(0x11, data.getByte(10));
+            Assert.assertEquals(0x22, data.getByte(3 * PAGE_SIZE));
+
+            data.flush();
+            data.dispose();
+
+            byte[] expected = createTestData();
+            expected[10] = 0x11;
+            expected[3 * PAGE_SIZE] = 0x22;
+            Assert.assertArrayEquals(expected, Files.readAllBytes(file.toPath()));
+        } finally {
+            file.delete();
+        }
+    }
+
+    @Test
+    public void testDiscardChanges() throws IOException {
+        File file = createTestFile();
+        try {
+            MappedFileData data = new MappedFileData(file, false);
+            data.setModifiedMemoryLimit(PAGE_SIZE);
+            data.setByte(0, (byte) 0x11);
+            data.setByte(2 * PAGE_SIZE, (byte) 0x22);
+            data.discardChanges();
+            Assert.assertFalse(data.isModified());
+            Assert.assertArrayEquals(createTestData(), toArray(data));
+
+            data.setByte(5, (byte) 0x33);
+            data.dispose();
+            Assert.assertArrayEquals(createTestData(), Files.readAllBytes(file.toPath()));
+        } finally {
+            file.delete();
+        }
+    }
+
+    @Nonnull
+    private static byte[] toArray(MappedFileData data) {
+        byte[] result = new byte[(int) data.getDataSize()];
+        data.copyToArray(0, result, 0, result.length);
+        return result;
+    }
+
+    @Nonnull
+    private static File createTestFile() throws IOException {
+        File file = File.createTempFile("bined-mapped", ".bin");
+        Files.write(file.toPath(), createTestData());
+        return file;
+    }
+
+    @Nonnull
+    private static byte[] createTestData() {
+        byte[] data = new byte[FILE_SIZE];
+        for (int i = 0; i < FILE_SIZE; i++) {
+            data[i] = (byte) (i * 31);
+        }
+        return data;
+    }
+}
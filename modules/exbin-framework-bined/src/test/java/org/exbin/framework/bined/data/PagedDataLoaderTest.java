@@ -0,0 +1,116 @@
+/*
+ * Copyright (C) ExBin Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.exbin.framework.bined.data;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.file.Files;
+import javax.annotation.Nonnull;
+import javax.annotation.ParametersAreNonnullByDefault;
+import org.exbin.auxiliary.binary_data.array.paged.ByteArrayPagedData;
+import org.exbin.framework.bined.BinEdFileOperation;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Tests for PagedDataLoader class.
+ *
+ * @author ExBin Project (https://exbin.org)
+ */
+@ParametersAreNonnullByDefault
+public class PagedDataLoaderTest {
+
+    public PagedDataLoaderTest() {
+    }
+
+    @Test
+    public void testLoadFile() throws IOException {
+        // Last page is only partially filled
+        int fileSize = 300 * PagedDataLoader.PAGE_SIZE + 123;
+        File file = createTestFile(fileSize);
+        try {
+            ByteArrayPagedData data = new ByteArrayPagedData(PagedDataLoader.PAGE_SIZE);
+            data.insert(0, new byte[]{1, 2, 3});
+            BinEdFileOperation operation = new BinEdFileOperation(BinEdFileOperation.OperationType.LOAD, fileSize);
+            new PagedDataLoader(operation).load(data, file);
+
+            Assert.assertEquals(fileSize, data.getDataSize());
+            Assert.assertEquals(fileSize, operation.getProcessedSize());
+            Assert.assertArrayEquals(createTestData(fileSize), toArray(data));
+            data.dispose();
+        } finally {
+            file.delete();
+        }
+    }
+
+    @Test
+    public void testLoadEmptyFile() throws IOException {
+        File file = createTestFile(0);
+        try {
+            ByteArrayPagedData data = new ByteArrayPagedData(PagedDataLoader.PAGE_SIZE);
+            data.insert(0, new byte[]{1, 2, 3});
+            new PagedDataLoader(null).load(data, file);
+
+            Assert.assertEquals(0, data.getDataSize());
+            data.dispose();
+        } finally {
+            file.delete();
+        }
+    }
+
+    @Test
+    public void testCancelledLoad() throws IOException {
+        File file = createTestFile(10 * PagedDataLoader.PAGE_SIZE);
+        try {
+            ByteArrayPagedData data = new ByteArrayPagedData(PagedDataLoader.PAGE_SIZE);
+            BinEdFileOperation operation = new BinEdFileOperation(BinEdFileOperation.OperationType.LOAD, file.length());
+            operation.cancel();
+            try {
+                new PagedDataLoader(operation).load(data, file);
+                Assert.fail("Cancellation expected");
+            } catch (InterruptedIOException ex) {
+                // expected
+            }
+            data.dispose();
+        } finally {
+            file.delete();
+        }
+    }
+
+    @Nonnull
+    private static byte[] toArray(ByteArrayPagedData data) {
+        byte[] result = new byte[(int) data.getDataSize()];
+        data.copyToArray(0, result, 0, result.length);
+        return result;
+    }
+
+    @Nonnull
+    private static File createTestFile(int fileSize) throws IOException {
+        File file = File.createTempFile("bined-paged", ".bin");
+        Files.write(file.toPath(), createTestData(fileSize));
+        return file;
+    }
+
+    @Nonnull
+    private static byte[] createTestData(int dataSize) {
+        byte[] data = new byte[dataSize];
+        for (int i = 0; i < dataSize; i++) {
+            data[i] = (byte) (i * 31);
+        }
+        return data;
+    }
+}
@@ -18,8 +18,9 @@ package org.exbin.framework.bined.compare.action;
 import java.awt.Dialog;
 import java.awt.Dimension;
 import java.awt.event.ActionEvent;
+import java.awt.event.WindowAdapter;
+import java.awt.event.WindowEvent;
 import java.io.File;
-import java.io.FileInputStream;
 import java.io.IOException;
 import java.net.URI;
 import java.util.ArrayList;
@@ -33,8 +34,6 @@ import javax.annotation.Nullable;
 import javax.annotation.ParametersAreNonnullByDefault;
 import javax.swing.AbstractAction;
 import org.exbin.auxiliary.binary_data.BinaryData;
-import org.exbin.auxiliary.binary_data.array.paged.ByteArrayPagedData;
-import org.exbin.auxiliary.binary_data.paged.PagedData;
 import org.exbin.framework.App;
 import org.exbin.framework.action.api.ActionContextChange;
 import org.exbin.framework.action.api.ActionConsts;
@@ -44,6 +43,7 @@ import org.exbin.framework.action.api.DialogParentComponent;
 import org.exbin.framework.bined.compare.gui.CompareFilesPanel;
 import org.exbin.framework.editor.api.EditorProvider;
 import org.exbin.framework.bined.BinEdFileHandler;
+import org.exbin.framework.bined.data.MappedFileData;
 import org.exbin.framework.editor.api.MultiEditorProvider;
 import org.exbin.framework.file.api.AllFileTypes;
 import org.exbin.framework.file.api.FileHandler;
@@ -93,7 +93,17 @@ public class CompareFilesAction extends AbstractAction implements ActionContextC
         windowModule.setWindowTitle(dialog, panelResourceBundle);
         Dimension preferredSize = dialog.getWindow().getPreferredSize();
         dialog.getWindow().setSize(new Dimension(preferredSize.width, preferredSize.height + 450));
-        controlPanel.setController(dialog::close);
+        controlPanel.setController(() -> {
+            compareFilesPanel.dispose();
+            dialog.close();
+        });
+        dialog.getWindow().addWindowListener(new WindowAdapter() {
+            @Override
+            public void windowClosed(WindowEvent e) {
+                // Dialog can be closed also by window decoration
+                compareFilesPanel.dispose();
+            }
+        });
         Optional<FileHandler> activeFile = editorProvider.getActiveFile();
         if (activeFile.isPresent()) {
             compareFilesPanel.setLeftFile(((BinEdFileHandler) activeFile.get()).getCodeArea().getContentData());
@@ -130,10 +140,10 @@ public class CompareFilesAction extends AbstractAction implements ActionContextC
                     return null;
                 }
 
-                try (FileInputStream stream = new FileInputStream(result[0])) {
-                    PagedData pagedData = new ByteArrayPagedData();
-                    pagedData.loadFromStream(stream);
-                    return new CompareFilesPanel.FileRecord(result[0].getAbsolutePath(), pagedData);
+                try {
+                    // File is mapped read-only, so that its size is not limited by heap
+                    MappedFileData fileData = new MappedFileData(result[0], true);
+                    return new CompareFilesPanel.FileRecord(result[0].getAbsolutePath(), fileData);
                 } catch (IOException ex) {
                     Logger.getLogger(CompareFilesAction.class.getName()).log(Level.SEVERE, null, ex);
 
@@ -0,0 +1,241 @@
+/*
+ * Copyright (C) ExBin Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.exbin.framework.bined.compare.diff;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import javax.annotation.Nonnull;
+import javax.annotation.ParametersAreNonnullByDefault;
+import org.exbin.auxiliary.binary_data.BinaryData;
+import org.exbin.framework.bined.data.MappedFileData;
+
+/**
+ * Engine comparing two binary data byte by byte in parallel.
+ *
+ * Both data are streamed in fixed-size blocks, so that neither of them has to
+ * be loaded in memory. Blocks are read by calling thread only and compared
+ * concurrently on fork-join pool. Equal blocks are skipped using single bulk
+ * comparison and only blocks which differ are scanned for ranges of
+ * differences. Data mapped from file are read using separate file channel to
+ * not interfere with mapping used by code area.
+ *
+ * @author ExBin Project (https://exbin.org)
+ */
+@ParametersAreNonnullByDefault
+public class BinaryDiffEngine {
+
+    public static final int DEFAULT_BLOCK_SIZE = 1024 * 1024;
+
+    private static final long[] NO_DIFFERENCES = new long[0];
+
+    private final ForkJoinPool pool;
+    private final int maxPendingBlocks;
+    private int blockSize = DEFAULT_BLOCK_SIZE;
+
+    public BinaryDiffEngine() {
+        this(ForkJoinPool.commonPool());
+    }
+
+    public BinaryDiffEngine(ForkJoinPool pool) {
+        this.pool = pool;
+        maxPendingBlocks = pool.getParallelism() * 2;
+    }
+
+    public int getBlockSize() {
+        return blockSize;
+    }
+
+    public void setBlockSize(int blockSize) {
+        this.blockSize = blockSize;
+    }
+
+    /**
+     * Compares given data and collects ranges of differences.
+     *
+     * Data beyond the end of shorter data are reported as single difference.
+     *
+     * @param leftData left data
+     * @param rightData right data
+     * @param differences target ranges of differences
+     * @param listener progress listener
+     * @return true if whole data were compared, false if stopped by listener
+     * @throws IOException if data cannot be read
+     */
+    public boolean compare(BinaryData leftData, BinaryData rightData, DifferenceRanges differences, DiffListener listener) throws IOException {
+        long leftSize = leftData.getDataSize();
+        long rightSize = rightData.getDataSize();
+        long commonSize = Math.min(leftSize, rightSize);
+
+        Deque<BlockTask> pendingTasks = new ArrayDeque<>();
+        Deque<byte[]> freeBuffers = new ArrayDeque<>();
+        try (DataReader leftReader = createReader(leftData); DataReader rightReader = createReader(rightData)) {
+            long nextPosition = 0;
+            while (true) {
+                while (pendingTasks.size() < maxPendingBlocks && nextPosition < commonSize) {
+                    int length = (int) Math.min(blockSize, commonSize - nextPosition);
+                    byte[] leftBuffer = freeBuffers.isEmpty() ? new byte[blockSize] : freeBuffers.pop();
+                    byte[] rightBuffer = freeBuffers.isEmpty() ? new byte[blockSize] : freeBuffers.pop();
+                    leftReader.read(nextPosition, leftBuffer, length);
+                    rightReader.read(nextPosition, rightBuffer, length);
+                    BlockTask task = new BlockTask(leftBuffer, rightBuffer, length, nextPosition);
+                    pool.execute(task);
+                    pendingTasks.add(task);
+                    nextPosition += length;
+                }
+
+                BlockTask task = pendingTasks.poll();
+                if (task == null) {
+                    break;
+                }
+
+                long[] blockDifferences = task.join();
+                freeBuffers.push(task.leftBuffer);
+                freeBuffers.push(task.rightBuffer);
+                for (int i = 0; i < blockDifferences.length; i += 2) {
+                    differences.add(blockDifferences[i], blockDifferences[i + 1]);
+                }
+
+                if (!listener.blockProcessed(task.blockStart + task.length)) {
+                    return false;
+                }
+            }
+        } finally {
+            for (BlockTask pendingTask : pendingTasks) {
+                pendingTask.cancel(false);
+            }
+        }
+
+        differences.add(commonSize, Math.max(leftSize, rightSize));
+        return true;
+    }
+
+    @Nonnull
+    private static DataReader createReader(BinaryData data) throws IOException {
+        if (data instanceof MappedFileData && !((MappedFileData) data).isModified()) {
+            // Unsaved changes are available only through data
+            return new FileChannelReader(new RandomAccessFile(((MappedFileData) data).getFile(), "r"));
+        }
+
+        return (long position, byte[] buffer, int length) -> data.copyToArray(position, buffer, 0, length);
+    }
+
+    public interface DiffListener {
+
+        /**
+         * Reports comparison of block of data.
+         *
+         * @param position position up to which the data were compared
+         * @return true to continue comparison
+         */
+        boolean blockProcessed(long position);
+    }
+
+    private interface DataReader extends AutoCloseable {
+
+        void read(long position, byte[] buffer, int length) throws IOException;
+
+        @Override
+        default void close() throws IOException {
+        }
+    }
+
+    @ParametersAreNonnullByDefault
+    private static class FileChannelReader implements DataReader {
+
+        private final RandomAccessFile file;
+        private final FileChannel channel;
+
+        public FileChannelReader(RandomAccessFile file) {
+            this.file = file;
+            channel = file.getChannel();
+        }
+
+        @Override
+        public void read(long position, byte[] buffer, int length) throws IOException {
+            ByteBuffer byteBuffer = ByteBuffer.wrap(buffer, 0, length);
+            while (byteBuffer.hasRemaining()) {
+                int count = channel.read(byteBuffer, position + byteBuffer.position());
+                if (count < 0) {
+                    throw new IOException("Unexpected end of file");
+                }
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            file.close();
+        }
+    }
+
+    /**
+     * Task for comparison of single block of data.
+     */
+    @ParametersAreNonnullByDefault
+    private static class BlockTask extends RecursiveTask<long[]> {
+
+        private final byte[] leftBuffer;
+        private final byte[] rightBuffer;
+        private final int length;
+        private final long blockStart;
+
+        public BlockTask(byte[] leftBuffer, byte[] rightBuffer, int length, long blockStart) {
+            this.leftBuffer = leftBuffer;
+            this.rightBuffer = rightBuffer;
+            this.length = length;
+            this.blockStart = blockStart;
+        }
+
+        @Nonnull
+        @Override
+        protected long[] compute() {
+            if (length == leftBuffer.length && Arrays.equals(leftBuffer, rightBuffer)) {
+                return NO_DIFFERENCES;
+            }
+
+            long[] ranges = NO_DIFFERENCES;
+            int rangesCount = 0;
+            int offset = 0;
+            while (offset < length) {
+                while (offset < length && leftBuffer[offset] == rightBuffer[offset]) {
+                    offset++;
+                }
+                if (offset == length) {
+                    break;
+                }
+
+                int rangeStart = offset;
+                while (offset < length && leftBuffer[offset] != rightBuffer[offset]) {
+                    offset++;
+                }
+
+                if (rangesCount * 2 == ranges.length) {
+                    ranges = Arrays.copyOf(ranges, Math.max(16, ranges.length * 2));
+                }
+                ranges[rangesCount * 2] = blockStart + rangeStart;
+                ranges[rangesCount * 2 + 1] = blockStart + offset;
+                rangesCount++;
+            }
+            return rangesCount * 2 == ranges.length ? ranges : Arrays.copyOf(ranges, rangesCount * 2);
+        }
+    }
+}
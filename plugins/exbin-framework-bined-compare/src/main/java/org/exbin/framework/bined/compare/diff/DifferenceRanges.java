@@ -0,0 +1,180 @@
+/*
+ * Copyright (C) ExBin Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.exbin.framework.bined.compare.diff;
+
+import java.util.Arrays;
+import javax.annotation.ParametersAreNonnullByDefault;
+
+/**
+ * Sorted list of non-overlapping ranges of differing data.
+ *
+ * Ranges are stored as pairs of positions in primitive array, adjacent ranges
+ * are joined when added. Count of ranges is limited, when limit is reached
+ * ranges separated by short gap are joined, so that ranges cover some equal
+ * data, but count of differing bytes stays exact.
+ *
+ * @author ExBin Project (https://exbin.org)
+ */
+@ParametersAreNonnullByDefault
+public class DifferenceRanges {
+
+    public static final int DEFAULT_MAX_COUNT = 1024 * 1024;
+
+    private static final int INITIAL_CAPACITY = 64;
+
+    private final int maxCount;
+    private long[] positions = new long[INITIAL_CAPACITY * 2];
+    private int count = 0;
+    private long differentBytes = 0;
+    private long joinedGap = 0;
+
+    public DifferenceRanges() {
+        this(DEFAULT_MAX_COUNT);
+    }
+
+    /**
+     * Creates ranges with given limit of ranges count.
+     *
+     * @param maxCount maximum count of ranges
+     */
+    public DifferenceRanges(int maxCount) {
+        if (maxCount < 2) {
+            throw new IllegalArgumentException("Maximum count of ranges must be at least 2");
+        }
+        this.maxCount = maxCount;
+    }
+
+    /**
+     * Adds range which must not start before end of last range.
+     *
+     * @param start start position
+     * @param end end position (exclusive)
+     */
+    public void add(long start, long end) {
+        if (start >= end) {
+            return;
+        }
+
+        differentBytes += end - start;
+        if (count > 0 && start - positions[count * 2 - 1] <= joinedGap) {
+            positions[count * 2 - 1] = end;
+            return;
+        }
+
+        if (count == maxCount) {
+            coarsen();
+            if (start - positions[count * 2 - 1] <= joinedGap) {
+                positions[count * 2 - 1] = end;
+                return;
+            }
+        }
+
+        if (count * 2 == positions.length) {
+            positions = Arrays.copyOf(positions, Math.min(positions.length * 2, maxCount * 2));
+        }
+        positions[count * 2] = start;
+        positions[count * 2 + 1] = end;
+        count++;
+    }
+
+    /**
+     * Joins ranges separated by gaps up to doubled length until count of
+     * ranges drops at most to half of the limit.
+     */
+    private void coarsen() {
+        do {
+            joinedGap = joinedGap == 0 ? 1 : joinedGap * 2;
+            int joinedCount = 1;
+            for (int index = 1; index < count; index++) {
+                long start = positions[index * 2];
+                long end = positions[index * 2 + 1];
+                if (start - positions[joinedCount * 2 - 1] <= joinedGap) {
+                    positions[joinedCount * 2 - 1] = end;
+                } else {
+                    positions[joinedCount * 2] = start;
+                    positions[joinedCount * 2 + 1] = end;
+                    joinedCount++;
+                }
+            }
+            count = joinedCount;
+        } while (count > maxCount / 2);
+    }
+
+    public int getCount() {
+        return count;
+    }
+
+    public long getStart(int index) {
+        return positions[index * 2];
+    }
+
+    public long getEnd(int index) {
+        return positions[index * 2 + 1];
+    }
+
+    /**
+     * Returns total length of all ranges.
+     *
+     * @return count of differing bytes
+     */
+    public long getDifferentBytes() {
+        return differentBytes;
+    }
+
+    /**
+     * Returns maximum length of equal data joined into single range.
+     *
+     * @return gap length, zero if ranges contain differing data only
+     */
+    public long getJoinedGap() {
+        return joinedGap;
+    }
+
+    /**
+     * Returns index of first range starting after given position.
+     *
+     * @param position position
+     * @return range index or -1 if there is no such range
+     */
+    public int findNext(long position) {
+        int index = findFirstStartAbove(position);
+        return index < count ? index : -1;
+    }
+
+    /**
+     * Returns index of last range starting before given position.
+     *
+     * @param position position
+     * @return range index or -1 if there is no such range
+     */
+    public int findPrevious(long position) {
+        return findFirstStartAbove(position - 1) - 1;
+    }
+
+    private int findFirstStartAbove(long position) {
+        int low = 0;
+        int high = count;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (positions[middle * 2] > position) {
+                high = middle;
+            } else {
+                low = middle + 1;
+            }
+        }
+        return low;
+    }
+}
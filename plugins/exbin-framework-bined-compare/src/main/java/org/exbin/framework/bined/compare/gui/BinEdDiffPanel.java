@@ -23,12 +23,18 @@ import java.awt.event.ActionEvent;
 import java.awt.event.FocusAdapter;
 import java.awt.event.FocusEvent;
 import java.awt.event.MouseEvent;
+import java.io.IOException;
 import java.nio.charset.Charset;
+import java.util.Optional;
+import java.util.logging.Level;
+import java.util.logging.Logger;
 import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
 import javax.annotation.ParametersAreNonnullByDefault;
 import javax.swing.JPanel;
 import javax.swing.JPopupMenu;
 import javax.swing.JViewport;
+import javax.swing.SwingUtilities;
 import javax.swing.event.PopupMenuEvent;
 import javax.swing.event.PopupMenuListener;
 import org.exbin.auxiliary.binary_data.BinaryData;
@@ -51,9 +57,13 @@ import org.exbin.bined.swing.section.diff.SectCodeAreaDiffPanel;
 import org.exbin.bined.swing.section.theme.SectionCodeAreaThemeProfile;
 import org.exbin.framework.App;
 import org.exbin.framework.bined.BinEdCodeAreaAssessor;
+import org.exbin.framework.bined.BinEdFileHandler;
+import org.exbin.framework.bined.BinEdFileManager;
 import org.exbin.framework.bined.BinaryStatusApi;
 import org.exbin.framework.bined.BinedModule;
 import org.exbin.framework.bined.action.GoToPositionAction;
+import org.exbin.framework.bined.compare.diff.BinaryDiffEngine;
+import org.exbin.framework.bined.compare.diff.DifferenceRanges;
 import org.exbin.framework.bined.editor.options.BinaryEditorOptions;
 import org.exbin.framework.bined.gui.BinaryStatusPanel;
 import org.exbin.framework.bined.handler.CodeAreaPopupMenuHandler;
@@ -91,6 +101,10 @@ public class BinEdDiffPanel extends JPanel {
     private final BinaryStatusPanel rightStatusPanel;
     private EncodingsHandler encodingsHandler;
     private GoToPositionAction goToPositionAction = new GoToPositionAction();
+    private BinaryData leftContentData = null;
+    private BinaryData rightContentData = null;
+    private DifferenceRanges differences = new DifferenceRanges();
+    private DiffThread diffThread = null;
 
     public BinEdDiffPanel() {
         setLayout(new java.awt.BorderLayout());
@@ -153,6 +167,22 @@ public class BinEdDiffPanel extends JPanel {
             public void repaint() {
                 diffPanel.repaint();
             }
+
+            @Override
+            public void goToPreviousDifference() {
+                int index = differences.findPrevious(leftCodeArea.getDataPosition());
+                if (index >= 0) {
+                    goToDifference(index);
+                }
+            }
+
+            @Override
+            public void goToNextDifference() {
+                int index = differences.findNext(leftCodeArea.getDataPosition());
+                if (index >= 0) {
+                    goToDifference(index);
+                }
+            }
         });
 
         init();
@@ -342,13 +372,87 @@ public class BinEdDiffPanel extends JPanel {
     }
 
     public void setLeftContentData(BinaryData contentData) {
+        leftContentData = contentData;
         diffPanel.setLeftContentData(contentData);
         updateBinaryStatus(leftStatusPanel, diffPanel.getLeftCodeArea());
+        startComparison();
     }
 
     public void setRightContentData(BinaryData contentData) {
+        rightContentData = contentData;
         diffPanel.setRightContentData(contentData);
         updateBinaryStatus(rightStatusPanel, diffPanel.getRightCodeArea());
+        startComparison();
+    }
+
+    /**
+     * Stops running comparison of the data.
+     */
+    public void cancelComparison() {
+        if (diffThread != null) {
+            diffThread.cancelled = true;
+            diffThread = null;
+        }
+    }
+
+    /**
+     * Stops running comparison and waits for comparison thread to finish, so
+     * that compared data can be released.
+     */
+    public void stopComparison() {
+        DiffThread thread = diffThread;
+        cancelComparison();
+        if (thread != null) {
+            boolean interrupted = false;
+            while (thread.isAlive()) {
+                try {
+                    thread.join();
+                } catch (InterruptedException ex) {
+                    interrupted = true;
+                }
+            }
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    private void startComparison() {
+        cancelComparison();
+        differences = new DifferenceRanges();
+        if (leftContentData == null || rightContentData == null) {
+            toolbarPanel.updateDifferences(-1, 0, 0);
+            return;
+        }
+
+        toolbarPanel.updateDifferences(0, 0, 0);
+        BinEdFileManager fileManager = App.getModule(BinedModule.class).getFileManager();
+        diffThread = new DiffThread(leftContentData, rightContentData, fileManager.findFileHandler(leftContentData), fileManager.findFileHandler(rightContentData));
+        diffThread.start();
+    }
+
+    private void finishComparison(DiffThread thread, @Nullable DifferenceRanges ranges) {
+        if (thread != diffThread) {
+            return;
+        }
+
+        diffThread = null;
+        if (ranges != null) {
+            differences = ranges;
+            toolbarPanel.updateDifferences(-1, ranges.getCount(), ranges.getDifferentBytes());
+        } else {
+            toolbarPanel.updateDifferences(-1, 0, 0);
+        }
+    }
+
+    private void goToDifference(int index) {
+        long position = differences.getStart(index);
+        SectCodeArea leftCodeArea = diffPanel.getLeftCodeArea();
+        SectCodeArea rightCodeArea = diffPanel.getRightCodeArea();
+        leftCodeArea.setActiveCaretPosition(Math.min(position, leftCodeArea.getDataSize()));
+        leftCodeArea.centerOnCursor();
+        rightCodeArea.setActiveCaretPosition(Math.min(position, rightCodeArea.getDataSize()));
+        rightCodeArea.centerOnCursor();
     }
 
     @Nonnull
@@ -390,6 +494,70 @@ public class BinEdDiffPanel extends JPanel {
         };
     }
 
+    /**
+     * Thread comparing content of both code areas.
+     *
+     * Data of opened documents are registered as read by their file handlers,
+     * so that documents are not compacted during comparison.
+     */
+    private class DiffThread extends Thread {
+
+        private final BinaryData leftData;
+        private final BinaryData rightData;
+        private final Optional<BinEdFileHandler> leftFileHandler;
+        private final Optional<BinEdFileHandler> rightFileHandler;
+        private volatile boolean cancelled = false;
+
+        public DiffThread(BinaryData leftData, BinaryData rightData, Optional<BinEdFileHandler> leftFileHandler, Optional<BinEdFileHandler> rightFileHandler) {
+            super("BinaryDiffThread");
+            this.leftData = leftData;
+            this.rightData = rightData;
+            this.leftFileHandler = leftFileHandler;
+            this.rightFileHandler = rightFileHandler;
+            setDaemon(true);
+        }
+
+        @Override
+        public void run() {
+            leftFileHandler.ifPresent(BinEdFileHandler::startReading);
+            rightFileHandler.ifPresent(BinEdFileHandler::startReading);
+            try {
+                compare();
+            } finally {
+                rightFileHandler.ifPresent(BinEdFileHandler::finishReading);
+                leftFileHandler.ifPresent(BinEdFileHandler::finishReading);
+            }
+        }
+
+        private void compare() {
+            DifferenceRanges ranges = new DifferenceRanges();
+            long totalSize = Math.max(1, Math.min(leftData.getDataSize(), rightData.getDataSize()));
+            int[] lastProgress = {0};
+            boolean finished = false;
+            try {
+                finished = new BinaryDiffEngine().compare(leftData, rightData, ranges, (long position) -> {
+                    int progress = (int) (position * 100 / totalSize);
+                    if (progress != lastProgress[0]) {
+                        lastProgress[0] = progress;
+                        int differencesCount = ranges.getCount();
+                        long differentBytes = ranges.getDifferentBytes();
+                        SwingUtilities.invokeLater(() -> {
+                            if (DiffThread.this == diffThread) {
+                                toolbarPanel.updateDifferences(progress, differencesCount, differentBytes);
+                            }
+                        });
+                    }
+                    return !cancelled;
+                });
+            } catch (IOException ex) {
+                Logger.getLogger(BinEdDiffPanel.class.getName()).log(Level.SEVERE, null, ex);
+            }
+
+            DifferenceRanges result = finished ? ranges : null;
+            SwingUtilities.invokeLater(() -> finishComparison(this, result));
+        }
+    }
+
     @ParametersAreNonnullByDefault
     private class BinaryStatusController implements BinaryStatusPanel.Controller, BinaryStatusPanel.EncodingsController, BinaryStatusPanel.MemoryModeController {
 
@@ -136,6 +136,21 @@ public class CompareFilesPanel extends javax.swing.JPanel {
         diffPanel.setRightContentData(contentData);
     }
 
+    /**
+     * Stops comparison and releases data of loaded files.
+     */
+    public void dispose() {
+        diffPanel.stopComparison();
+        if (leftCustomFile != null) {
+            leftCustomFile.getData().dispose();
+            leftCustomFile = null;
+        }
+        if (rightCustomFile != null) {
+            rightCustomFile.getData().dispose();
+            rightCustomFile = null;
+        }
+    }
+
     /**
      * This method is called from within the constructor to initialize the form.
      * WARNING: Do NOT modify this code. The content of this method is always
@@ -219,11 +234,15 @@ public class CompareFilesPanel extends javax.swing.JPanel {
         if (controller != null) {
             FileRecord file = controller.openFile();
             if (file != null) {
+                FileRecord previousFile = rightCustomFile;
                 rightCustomFile = file;
                 rightComboBox.setSelectedIndex(0);
                 rightComboBox.removeItemAt(0);
                 rightComboBox.insertItemAt(file.getName(), 0);
                 switchToRightCustomFile();
+                if (previousFile != null) {
+                    previousFile.getData().dispose();
+                }
             }
         }
     }//GEN-LAST:event_rightOpenButtonActionPerformed
@@ -232,11 +251,15 @@ public class CompareFilesPanel extends javax.swing.JPanel {
         if (controller != null) {
             FileRecord file = controller.openFile();
             if (file != null) {
+                FileRecord previousFile = leftCustomFile;
                 leftCustomFile = file;
                 leftComboBox.setSelectedIndex(0);
                 leftComboBox.removeItemAt(0);
                 leftComboBox.insertItemAt(file.getName(), 0);
                 switchToLeftCustomFile();
+                if (previousFile != null) {
+                    previousFile.getData().dispose();
+                }
             }
         }
     }//GEN-LAST:event_leftOpenButtonActionPerformed
@@ -23,6 +23,7 @@ import javax.swing.AbstractAction;
 import javax.swing.Action;
 import javax.swing.ButtonGroup;
 import javax.swing.JComponent;
+import javax.swing.JLabel;
 import javax.swing.JPopupMenu;
 import javax.swing.JRadioButtonMenuItem;
 import javax.swing.JToolBar;
@@ -30,6 +31,7 @@ import org.exbin.auxiliary.dropdownbutton.DropDownButton;
 import org.exbin.auxiliary.dropdownbutton.DropDownButtonVariant;
 import org.exbin.bined.CodeType;
 import org.exbin.framework.App;
+import org.exbin.framework.bined.compare.BinedCompareModule;
 import org.exbin.framework.bined.viewer.options.CodeAreaOptions;
 import org.exbin.framework.language.api.LanguageModuleApi;
 import org.exbin.framework.preferences.api.OptionsStorage;
@@ -43,6 +45,7 @@ import org.exbin.framework.preferences.api.OptionsStorage;
 public class DiffToolbarPanel extends javax.swing.JPanel {
 
     private final java.util.ResourceBundle resourceBundle;
+    private final java.util.ResourceBundle compareResourceBundle;
 
     private Controller controller;
 
@@ -53,10 +56,14 @@ public class DiffToolbarPanel extends javax.swing.JPanel {
     private final JRadioButtonMenuItem hexadecimalCodeTypeMenuItem;
     private final ButtonGroup codeTypeButtonGroup;
     private DropDownButton codeTypeDropDown;
+    private final AbstractAction previousDifferenceAction;
+    private final AbstractAction nextDifferenceAction;
+    private final JLabel differencesLabel = new JLabel();
 
     public DiffToolbarPanel() {
         LanguageModuleApi languageModule = App.getModule(LanguageModuleApi.class);
         resourceBundle = languageModule.getBundle(org.exbin.framework.bined.BinedModule.class);
+        compareResourceBundle = languageModule.getBundle(BinedCompareModule.class);
         codeTypeButtonGroup = new ButtonGroup();
         Action binaryCodeTypeAction = new AbstractAction() {
             @Override
@@ -112,6 +119,24 @@ public class DiffToolbarPanel extends javax.swing.JPanel {
                 updateCycleButtonState();
             }
         };
+        previousDifferenceAction = new AbstractAction() {
+            @Override
+            public void actionPerformed(ActionEvent e) {
+                controller.goToPreviousDifference();
+            }
+        };
+        previousDifferenceAction.putValue(Action.NAME, compareResourceBundle.getString("previousDifferenceAction.text"));
+        previousDifferenceAction.putValue(Action.SHORT_DESCRIPTION, compareResourceBundle.getString("previousDifferenceAction.shortDescription"));
+        previousDifferenceAction.setEnabled(false);
+        nextDifferenceAction = new AbstractAction() {
+            @Override
+            public void actionPerformed(ActionEvent e) {
+                controller.goToNextDifference();
+            }
+        };
+        nextDifferenceAction.putValue(Action.NAME, compareResourceBundle.getString("nextDifferenceAction.text"));
+        nextDifferenceAction.putValue(Action.SHORT_DESCRIPTION, compareResourceBundle.getString("nextDifferenceAction.shortDescription"));
+        nextDifferenceAction.setEnabled(false);
 
         initComponents();
         init();
@@ -127,6 +152,11 @@ public class DiffToolbarPanel extends javax.swing.JPanel {
         codeTypeDropDown = new DropDownButton(DropDownButtonVariant.TOOL, cycleCodeTypesAction, cycleCodeTypesPopupMenu);
         codeTypeDropDown.setMaximumSize(new Dimension(codeTypeDropDown.getPreferredSize().width, Integer.MAX_VALUE));
         toolBar.add(codeTypeDropDown);
+        toolBar.addSeparator();
+        toolBar.add(previousDifferenceAction);
+        toolBar.add(nextDifferenceAction);
+        toolBar.addSeparator();
+        toolBar.add(differencesLabel);
         toolBar.setFloatable(false);
     }
 
@@ -171,6 +201,26 @@ public class DiffToolbarPanel extends javax.swing.JPanel {
         }
     }
 
+    /**
+     * Updates state of comparison of the data.
+     *
+     * @param progress progress in percents or -1 when comparison is finished
+     * @param differencesCount count of differing ranges found so far
+     * @param differentBytes count of differing bytes found so far
+     */
+    public void updateDifferences(int progress, int differencesCount, long differentBytes) {
+        if (progress >= 0) {
+            differencesLabel.setText(String.format(compareResourceBundle.getString("differences.comparing"), progress));
+        } else if (differencesCount == 0) {
+            differencesLabel.setText(compareResourceBundle.getString("differences.none"));
+        } else {
+            differencesLabel.setText(String.format(compareResourceBundle.getString("differences.format"), differencesCount, differentBytes));
+        }
+        boolean navigationEnabled = progress < 0 && differencesCount > 0;
+        previousDifferenceAction.setEnabled(navigationEnabled);
+        nextDifferenceAction.setEnabled(navigationEnabled);
+    }
+
     public void applyFromCodeArea() {
         updateCycleButtonState();
         updateNonprintables();
@@ -255,6 +305,10 @@ public class DiffToolbarPanel extends javax.swing.JPanel {
 
         void setShowNonprintables(boolean showNonprintables);
 
+        void goToPreviousDifference();
+
+        void goToNextDifference();
+
         void repaint();
     }
 }
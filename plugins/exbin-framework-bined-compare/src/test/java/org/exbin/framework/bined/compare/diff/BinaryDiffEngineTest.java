@@ -0,0 +1,199 @@
+/*
+ * Copyright (C) ExBin Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.exbin.framework.bined.compare.diff;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import javax.annotation.Nonnull;
+import javax.annotation.ParametersAreNonnullByDefault;
+import org.exbin.auxiliary.binary_data.array.ByteArrayEditableData;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Tests for BinaryDiffEngine class.
+ *
+ * @author ExBin Project (https://exbin.org)
+ */
+@ParametersAreNonnullByDefault
+public class BinaryDiffEngineTest {
+
+    private ForkJoinPool pool;
+
+    @Before
+    public void setUp() {
+        pool = new ForkJoinPool(4);
+    }
+
+    @After
+    public void tearDown() {
+        pool.shutdown();
+    }
+
+    @Test
+    public void testEqualData() throws IOException {
+        byte[] data = createData(10000);
+        DifferenceRanges differences = compare(data, data.clone(), 1000);
+        Assert.assertEquals(0, differences.getCount());
+        Assert.assertEquals(0, differences.getDifferentBytes());
+    }
+
+    @Test
+    public void testRandomDifferences() throws IOException {
+        byte[] leftData = createData(50000);
+        byte[] rightData = leftData.clone();
+        Random random = new Random(1);
+        for (int i = 0; i < 500; i++) {
+            int position = random.nextInt(rightData.length);
+            int length = 1 + random.nextInt(20);
+            for (int j = position; j < Math.min(position + length, rightData.length); j++) {
+                rightData[j] = (byte) ~rightData[j];
+            }
+        }
+
+        List<Long> expected = findDifferences(leftData, rightData);
+        for (int blockSize : new int[]{1, 7, 4096, BinaryDiffEngine.DEFAULT_BLOCK_SIZE}) {
+            Assert.assertEquals("Block size " + blockSize, expected, toList(compare(leftData, rightData, blockSize)));
+        }
+    }
+
+    @Test
+    public void testDifferenceAcrossBlocks() throws IOException {
+        byte[] leftData = new byte[300];
+        byte[] rightData = new byte[300];
+        for (int i = 90; i < 210; i++) {
+            rightData[i] = 1;
+        }
+        DifferenceRanges differences = compare(leftData, rightData, 100);
+        Assert.assertEquals(Arrays.asList(90L, 210L), toList(differences));
+        Assert.assertEquals(120, differences.getDifferentBytes());
+    }
+
+    @Test
+    public void testDifferentLength() throws IOException {
+        byte[] leftData = createData(1000);
+        byte[] rightData = Arrays.copyOf(leftData, 1500);
+        DifferenceRanges differences = compare(leftData, rightData, 64);
+        Assert.assertEquals(Arrays.asList(1000L, 1500L), toList(differences));
+
+        differences = compare(rightData, leftData, 64);
+        Assert.assertEquals(Arrays.asList(1000L, 1500L), toList(differences));
+    }
+
+    @Test
+    public void testOnlyLengthDifference() throws IOException {
+        Assert.assertEquals(0, compare(new byte[0], new byte[0], 16).getCount());
+        Assert.assertEquals(Arrays.asList(0L, 3L), toList(compare(new byte[0], new byte[3], 16)));
+        Assert.assertEquals(Arrays.asList(0L, 1L), toList(compare(new byte[]{1}, new byte[0], 16)));
+    }
+
+    @Test
+    public void testTrailingDifferenceJoinsLengthDifference() throws IOException {
+        DifferenceRanges differences = compare(new byte[]{1, 2, 3}, new byte[]{1, 2, 4, 5, 6}, 2);
+        Assert.assertEquals(Arrays.asList(2L, 5L), toList(differences));
+        Assert.assertEquals(3, differences.getDifferentBytes());
+    }
+
+    @Test
+    public void testShortLastBlockWithReusedBuffers() throws IOException {
+        // Single thread keeps two blocks pending, so the last block reuses buffers of the first block
+        byte[] leftData = createData(250);
+        byte[] rightData = leftData.clone();
+        for (int i = 60; i < 100; i++) {
+            rightData[i] = (byte) ~rightData[i];
+        }
+        ForkJoinPool singleThreadPool = new ForkJoinPool(1);
+        try {
+            BinaryDiffEngine engine = new BinaryDiffEngine(singleThreadPool);
+            engine.setBlockSize(100);
+            DifferenceRanges differences = new DifferenceRanges();
+            Assert.assertTrue(engine.compare(new ByteArrayEditableData(leftData), new ByteArrayEditableData(rightData), differences, (long position) -> true));
+            Assert.assertEquals(Arrays.asList(60L, 100L), toList(differences));
+        } finally {
+            singleThreadPool.shutdown();
+        }
+    }
+
+    @Test
+    public void testStoppedByProgress() throws IOException {
+        byte[] leftData = new byte[1000];
+        byte[] rightData = new byte[1200];
+        Arrays.fill(rightData, (byte) 1);
+        BinaryDiffEngine engine = new BinaryDiffEngine(pool);
+        engine.setBlockSize(100);
+        DifferenceRanges differences = new DifferenceRanges();
+        List<Long> processed = new ArrayList<>();
+        boolean completed = engine.compare(new ByteArrayEditableData(leftData), new ByteArrayEditableData(rightData), differences, (long position) -> {
+            processed.add(position);
+            return position < 300;
+        });
+        Assert.assertFalse(completed);
+        Assert.assertEquals(Arrays.asList(100L, 200L, 300L), processed);
+        // Difference of lengths is not reported for incomplete comparison
+        Assert.assertEquals(Arrays.asList(0L, 300L), toList(differences));
+    }
+
+    @Nonnull
+    private DifferenceRanges compare(byte[] leftData, byte[] rightData, int blockSize) throws IOException {
+        BinaryDiffEngine engine = new BinaryDiffEngine(pool);
+        engine.setBlockSize(blockSize);
+        DifferenceRanges differences = new DifferenceRanges();
+        Assert.assertTrue(engine.compare(new ByteArrayEditableData(leftData), new ByteArrayEditableData(rightData), differences, (long position) -> true));
+        return differences;
+    }
+
+    @Nonnull
+    private static List<Long> findDifferences(byte[] leftData, byte[] rightData) {
+        List<Long> ranges = new ArrayList<>();
+        int position = 0;
+        while (position < leftData.length) {
+            if (leftData[position] == rightData[position]) {
+                position++;
+                continue;
+            }
+            int start = position;
+            while (position < leftData.length && leftData[position] != rightData[position]) {
+                position++;
+            }
+            ranges.add((long) start);
+            ranges.add((long) position);
+        }
+        return ranges;
+    }
+
+    @Nonnull
+    private static List<Long> toList(DifferenceRanges differences) {
+        List<Long> ranges = new ArrayList<>();
+        for (int i = 0; i < differences.getCount(); i++) {
+            ranges.add(differences.getStart(i));
+            ranges.add(differences.getEnd(i));
+        }
+        return ranges;
+    }
+
+    @Nonnull
+    private static byte[] createData(int length) {
+        byte[] data = new byte[length];
+        new Random(length).nextBytes(data);
+        return data;
+    }
+}
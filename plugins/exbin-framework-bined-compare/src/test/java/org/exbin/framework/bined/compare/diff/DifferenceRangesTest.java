@@ -0,0 +1,82 @@
+/*
+ * Copyright (C) ExBin Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.exbin.framework.bined.compare.diff;
+
+import javax.annotation.ParametersAreNonnullByDefault;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Tests for DifferenceRanges class.
+ *
+ * @author ExBin Project (https://exbin.org)
+ */
+@ParametersAreNonnullByDefault
+public class DifferenceRangesTest {
+
+    @Test
+    public void testJoinAdjacent() {
+        DifferenceRanges ranges = new DifferenceRanges();
+        ranges.add(0, 5);
+        ranges.add(5, 8);
+        ranges.add(10, 12);
+        ranges.add(12, 12);
+        Assert.assertEquals(2, ranges.getCount());
+        Assert.assertEquals(0, ranges.getStart(0));
+        Assert.assertEquals(8, ranges.getEnd(0));
+        Assert.assertEquals(10, ranges.getStart(1));
+        Assert.assertEquals(12, ranges.getEnd(1));
+        Assert.assertEquals(10, ranges.getDifferentBytes());
+        Assert.assertEquals(0, ranges.getJoinedGap());
+    }
+
+    @Test
+    public void testCountLimit() {
+        DifferenceRanges ranges = new DifferenceRanges(16);
+        for (int i = 0; i < 1000; i++) {
+            ranges.add(i * 10L, i * 10L + 1);
+        }
+        Assert.assertTrue(ranges.getCount() <= 16);
+        Assert.assertEquals(1000, ranges.getDifferentBytes());
+        Assert.assertTrue(ranges.getJoinedGap() >= 9);
+        Assert.assertEquals(0, ranges.getStart(0));
+        Assert.assertEquals(9991, ranges.getEnd(ranges.getCount() - 1));
+        for (int i = 1; i < ranges.getCount(); i++) {
+            Assert.assertTrue(ranges.getStart(i) > ranges.getEnd(i - 1));
+        }
+    }
+
+    @Test
+    public void testFind() {
+        DifferenceRanges ranges = new DifferenceRanges();
+        Assert.assertEquals(-1, ranges.findNext(0));
+        Assert.assertEquals(-1, ranges.findPrevious(0));
+
+        ranges.add(10, 20);
+        ranges.add(30, 40);
+        Assert.assertEquals(0, ranges.findNext(0));
+        Assert.assertEquals(1, ranges.findNext(10));
+        Assert.assertEquals(-1, ranges.findNext(30));
+        Assert.assertEquals(-1, ranges.findPrevious(10));
+        Assert.assertEquals(0, ranges.findPrevious(30));
+        Assert.assertEquals(1, ranges.findPrevious(31));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testInvalidLimit() {
+        new DifferenceRanges(1);
+    }
+}
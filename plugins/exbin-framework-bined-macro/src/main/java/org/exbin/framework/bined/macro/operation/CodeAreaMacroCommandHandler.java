@@ -33,11 +33,11 @@ import org.exbin.bined.basic.SelectingMode;
 import org.exbin.bined.capability.CaretCapable;
 import org.exbin.bined.swing.CodeAreaCommandHandler;
 import org.exbin.bined.swing.CodeAreaCore;
-import org.exbin.bined.operation.swing.CodeAreaOperationCommandHandler;
 import org.exbin.bined.operation.swing.CodeAreaUndoRedo;
 import org.exbin.bined.operation.command.BinaryDataUndoRedo;
 import org.exbin.bined.swing.CodeAreaSwingUtils;
 import org.exbin.bined.swing.basic.DefaultCodeAreaCommandHandler;
+import org.exbin.framework.bined.BinEdCommandHandler;
 import org.exbin.framework.bined.macro.model.MacroRecord;
 
 /**
@@ -46,7 +46,7 @@ import org.exbin.framework.bined.macro.model.MacroRecord;
  * @author ExBin Project (https://exbin.org)
  */
 @ParametersAreNonnullByDefault
-public class CodeAreaMacroCommandHandler extends CodeAreaOperationCommandHandler {
+public class CodeAreaMacroCommandHandler extends BinEdCommandHandler {
 
     private final int metaMask = CodeAreaSwingUtils.getMetaMaskDown();
     private MacroRecord recordingMacro = null;
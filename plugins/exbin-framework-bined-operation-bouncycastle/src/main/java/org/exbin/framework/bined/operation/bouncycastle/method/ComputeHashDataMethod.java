@@ -16,16 +16,27 @@
 package org.exbin.framework.bined.operation.bouncycastle.method;
 
 import java.awt.Component;
+import java.io.InterruptedIOException;
+import java.lang.ref.WeakReference;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.concurrent.CancellationException;
+import java.util.zip.Adler32;
+import java.util.zip.CRC32;
 import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
 import javax.annotation.ParametersAreNonnullByDefault;
 import javax.swing.SwingUtilities;
 import org.bouncycastle.crypto.Digest;
+import org.bouncycastle.crypto.digests.Blake3Digest;
 import org.bouncycastle.crypto.digests.GOST3411Digest;
+import org.bouncycastle.crypto.digests.Kangaroo;
 import org.bouncycastle.crypto.digests.KeccakDigest;
 import org.bouncycastle.crypto.digests.MD2Digest;
 import org.bouncycastle.crypto.digests.MD4Digest;
@@ -48,13 +59,21 @@ import org.exbin.auxiliary.binary_data.BinaryData;
 import org.exbin.auxiliary.binary_data.array.ByteArrayEditableData;
 import org.exbin.auxiliary.binary_data.EditableBinaryData;
 import org.exbin.bined.CodeAreaUtils;
+import org.exbin.bined.DataChangedListener;
 import org.exbin.bined.SelectionRange;
 import org.exbin.bined.capability.SelectionCapable;
 import org.exbin.bined.operation.swing.command.CodeAreaCommand;
 import org.exbin.bined.swing.CodeAreaCore;
 import org.exbin.framework.App;
+import org.exbin.framework.bined.BackgroundConversion;
+import org.exbin.framework.bined.BinEdFileOperation;
+import org.exbin.framework.bined.BinEdFileHandler;
+import org.exbin.framework.bined.BinedModule;
 import org.exbin.framework.bined.operation.api.ConvertDataMethod;
 import org.exbin.framework.bined.operation.api.PreviewDataHandler;
+import org.exbin.framework.bined.operation.bouncycastle.method.checksum.ChecksumDigest;
+import org.exbin.framework.bined.operation.bouncycastle.method.checksum.Crc32cChecksum;
+import org.exbin.framework.bined.operation.bouncycastle.method.checksum.XxHash64Digest;
 import org.exbin.framework.bined.operation.bouncycastle.method.gui.ComputeHashDataPanel;
 import org.exbin.framework.bined.operation.ConversionDataProvider;
 import org.exbin.framework.bined.operation.ConvertDataOperation;
@@ -74,7 +93,10 @@ public class ComputeHashDataMethod implements ConvertDataMethod {
     private PreviewDataHandler previewDataHandler;
     private long previewLengthLimit = 0;
     private HashType lastHashType = null;
-    private static final int BUFFER_SIZE = 4096;
+    private PreviewThread previewThread = null;
+    private PreviewResult previewResult = null;
+    private WeakReference<CodeAreaCore> previewSourceCodeArea = null;
+    private final DataChangedListener previewSourceChangedListener = () -> previewResult = null;
 
     @Nonnull
     @Override
@@ -106,7 +128,10 @@ public class ComputeHashDataMethod implements ConvertDataMethod {
     public CodeAreaCommand createConvertCommand(Component component, CodeAreaCore codeArea) {
         ComputeHashDataPanel panel = (ComputeHashDataPanel) component;
         Optional<HashType> hashType = panel.getHashType();
+        List<HashType> hashTypes = panel.getHashTypes();
+        boolean multipleDigests = panel.isMultipleDigests();
         int bitSize = panel.getBitSize();
+        int blockSize = panel.getBlockSize();
         long position;
         long length;
         SelectionRange selection = ((SelectionCapable) codeArea).getSelection();
@@ -118,12 +143,13 @@ public class ComputeHashDataMethod implements ConvertDataMethod {
             length = selection.getLength();
         }
 
+        // Digest is computed in background first, so that editor stays responsive
+        BinaryData convertedData = computeInBackground(codeArea, new HashParameters(codeArea.getContentData(), position, length, multipleDigests, hashType.orElse(null), hashTypes, bitSize, blockSize));
         ConversionDataProvider conversionDataProvider = (EditableBinaryData binaryData, long sourcePosition, long sourceLength, long targetPosition) -> {
-            convertData(binaryData, sourcePosition, sourceLength, hashType.get(), bitSize, binaryData, targetPosition);
+            binaryData.insert(targetPosition, convertedData);
         };
 
-        long convertedDataLength = computeDigestLength(hashType.get(), bitSize);
-        return new ConvertDataCommand(codeArea, new ConvertDataOperation(position, length, convertedDataLength, conversionDataProvider));
+        return new ConvertDataCommand(codeArea, new ConvertDataOperation(position, length, convertedData.getDataSize(), conversionDataProvider));
     }
 
     @Nonnull
@@ -132,6 +158,7 @@ public class ComputeHashDataMethod implements ConvertDataMethod {
         ComputeHashDataPanel panel = (ComputeHashDataPanel) component;
         Optional<HashType> hashType = panel.getHashType();
         int bitSize = panel.getBitSize();
+        int blockSize = panel.getBlockSize();
         long position;
         long length;
         SelectionRange selection = ((SelectionCapable) codeArea).getSelection();
@@ -143,27 +170,141 @@ public class ComputeHashDataMethod implements ConvertDataMethod {
             length = selection.getLength();
         }
 
+        return computeInBackground(codeArea, new HashParameters(codeArea.getContentData(), position, length, panel.isMultipleDigests(), hashType.orElse(null), panel.getHashTypes(), bitSize, blockSize));
+    }
+
+    /**
+     * Computes digest in background with progress dialog.
+     *
+     * Finished preview computed for the same parameters is reused instead.
+     */
+    @Nonnull
+    private EditableBinaryData computeInBackground(CodeAreaCore codeArea, HashParameters parameters) {
         EditableBinaryData binaryData = new ByteArrayEditableData();
-        convertData(codeArea.getContentData(), position, length, hashType.get(), bitSize, binaryData, 0);
+        if (previewResult != null && previewResult.parameters.equals(parameters)) {
+            binaryData.insert(0, previewResult.data);
+            previewResult = null;
+            releasePreviewSource();
+            return binaryData;
+        }
+
+        // Preview would compute the same digest concurrently
+        if (previewThread != null) {
+            previewThread.cancel();
+            previewThread = null;
+        }
+
+        BinaryData sourceData = Objects.requireNonNull(parameters.getSourceData());
+        long position = parameters.position;
+        long length = parameters.length;
+        boolean multipleDigests = parameters.multipleDigests;
+        HashType hashType = parameters.hashType;
+        List<HashType> hashTypes = parameters.hashTypes;
+        int bitSize = parameters.bitSize;
+        int blockSize = parameters.blockSize;
+        boolean finished = BackgroundConversion.perform(codeArea, sourceData, length, (BinEdFileOperation operation) -> {
+            ParallelDigestEngine.ProgressListener progressListener = (processedLength) -> {
+                try {
+                    operation.setProcessed(processedLength);
+                    return true;
+                } catch (InterruptedIOException ex) {
+                    return false;
+                }
+            };
+            if (multipleDigests) {
+                return convertData(sourceData, position, length, hashTypes, binaryData, 0, progressListener);
+            }
+
+            return convertData(sourceData, position, length, Objects.requireNonNull(hashType), bitSize, blockSize, binaryData, 0, progressListener);
+        });
+        if (!finished) {
+            binaryData.dispose();
+            throw new CancellationException("Computation cancelled");
+        }
         return binaryData;
     }
 
     public void convertData(BinaryData sourceBinaryData, long position, long length, HashType hashType, int bitSize, EditableBinaryData targetBinaryData, long targetPosition) throws IllegalStateException {
-        Digest digest = getDigest(hashType, bitSize);
-        digest.reset();
-
-        int bufferSize = length < BUFFER_SIZE ? (int) length : BUFFER_SIZE;
-        byte[] buffer = new byte[bufferSize];
-        long remaining = length;
-        while (remaining > 0) {
-            sourceBinaryData.copyToArray(position, buffer, 0, bufferSize);
-            digest.update(buffer, 0, bufferSize);
-            remaining -= bufferSize;
+        convertData(sourceBinaryData, position, length, hashType, bitSize, 0, targetBinaryData, targetPosition, null);
+    }
+
+    /**
+     * Computes digest of data or manifest of digests of data blocks.
+     *
+     * @param sourceBinaryData source binary data
+     * @param position starting position
+     * @param length data length
+     * @param hashType hash type
+     * @param bitSize bit size for hash types with variable size
+     * @param blockSize size of block for manifest or 0 for single digest
+     * @param targetBinaryData target binary data
+     * @param targetPosition target position
+     * @param progressListener progress listener or null
+     * @return true if computed, false if stopped by progress listener
+     */
+    public boolean convertData(BinaryData sourceBinaryData, long position, long length, HashType hashType, int bitSize, int blockSize, EditableBinaryData targetBinaryData, long targetPosition, @Nullable ParallelDigestEngine.ProgressListener progressListener) {
+        ParallelDigestEngine.ProgressListener listener = progressListener == null ? (processedLength) -> true : progressListener;
+        ParallelDigestEngine digestEngine = new ParallelDigestEngine();
+        byte[] output;
+        if (blockSize > 0) {
+            output = digestEngine.computeBlockDigests(sourceBinaryData, position, length, blockSize, () -> getDigest(hashType, bitSize), listener);
+            if (output == null) {
+                return false;
+            }
+        } else {
+            Digest digest = getDigest(hashType, bitSize);
+            if (!digestEngine.updateDigest(sourceBinaryData, position, length, digest, listener)) {
+                return false;
+            }
+            output = new byte[digest.getDigestSize()];
+            digest.doFinal(output, 0);
         }
-        int digestSize = digest.getDigestSize();
-        byte[] output = new byte[digestSize];
-        digest.doFinal(output, 0);
+
         targetBinaryData.insert(targetPosition, output);
+        return true;
+    }
+
+    /**
+     * Computes digests of multiple hash types in single pass over data and
+     * stores them as text manifest with one line per hash type.
+     *
+     * Hash types with variable size use default bit size.
+     *
+     * @param sourceBinaryData source binary data
+     * @param position starting position
+     * @param length data length
+     * @param hashTypes hash types
+     * @param targetBinaryData target binary data
+     * @param targetPosition target position
+     * @param progressListener progress listener or null
+     * @return true if computed, false if stopped by progress listener
+     */
+    public boolean convertData(BinaryData sourceBinaryData, long position, long length, List<HashType> hashTypes, EditableBinaryData targetBinaryData, long targetPosition, @Nullable ParallelDigestEngine.ProgressListener progressListener) {
+        ParallelDigestEngine.ProgressListener listener = progressListener == null ? (processedLength) -> true : progressListener;
+        List<Digest> digests = new ArrayList<>();
+        for (HashType hashType : hashTypes) {
+            digests.add(getDigest(hashType, HashType.getDefaultBitSize(hashType)));
+        }
+
+        ParallelDigestEngine digestEngine = new ParallelDigestEngine();
+        if (!digestEngine.updateDigests(sourceBinaryData, position, length, digests, listener)) {
+            return false;
+        }
+
+        StringBuilder manifest = new StringBuilder();
+        for (int i = 0; i < hashTypes.size(); i++) {
+            Digest digest = digests.get(i);
+            byte[] output = new byte[digest.getDigestSize()];
+            digest.doFinal(output, 0);
+            manifest.append(getManifestName(hashTypes.get(i))).append(" = ");
+            for (byte value : output) {
+                manifest.append(Character.forDigit((value >> 4) & 0xf, 16)).append(Character.forDigit(value & 0xf, 16));
+            }
+            manifest.append("\n");
+        }
+
+        targetBinaryData.insert(targetPosition, manifest.toString().getBytes(StandardCharsets.UTF_8));
+        return true;
     }
 
     public long computeDigestLength(HashType hashType, int bitSize) {
@@ -171,6 +312,39 @@ public class ComputeHashDataMethod implements ConvertDataMethod {
         return digest.getDigestSize();
     }
 
+    /**
+     * Computes length of output for given data length.
+     *
+     * @param hashType hash type
+     * @param bitSize bit size
+     * @param length data length
+     * @param blockSize size of block for manifest or 0 for single digest
+     * @return output length
+     */
+    public long computeOutputLength(HashType hashType, int bitSize, long length, int blockSize) {
+        long digestLength = computeDigestLength(hashType, bitSize);
+        return blockSize > 0 ? ParallelDigestEngine.getBlocksCount(length, blockSize) * digestLength : digestLength;
+    }
+
+    /**
+     * Computes length of manifest of digests for given hash types.
+     *
+     * @param hashTypes hash types
+     * @return manifest length
+     */
+    public long computeManifestLength(List<HashType> hashTypes) {
+        long manifestLength = 0;
+        for (HashType hashType : hashTypes) {
+            manifestLength += getManifestName(hashType).length() + 3 + computeDigestLength(hashType, HashType.getDefaultBitSize(hashType)) * 2 + 1;
+        }
+        return manifestLength;
+    }
+
+    @Nonnull
+    private static String getManifestName(HashType hashType) {
+        return HashType.BIT_SIZES.containsKey(hashType) ? hashType.name() + "-" + HashType.getDefaultBitSize(hashType) : hashType.name();
+    }
+
     @Nonnull
     private Digest getDigest(HashType hashType, int bitSize) {
         switch (hashType) {
@@ -216,6 +390,18 @@ public class ComputeHashDataMethod implements ConvertDataMethod {
                 return new TigerDigest();
             case WHIRLPOOL:
                 return new WhirlpoolDigest();
+            case BLAKE3:
+                return new Blake3Digest();
+            case KANGAROO_TWELVE:
+                return new Kangaroo.KangarooTwelve();
+            case CRC32:
+                return new ChecksumDigest("CRC32", new CRC32());
+            case CRC32C:
+                return new ChecksumDigest("CRC32C", new Crc32cChecksum());
+            case ADLER32:
+                return new ChecksumDigest("Adler32", new Adler32());
+            case XXHASH64:
+                return new XxHash64Digest();
             default:
                 throw CodeAreaUtils.getInvalidTypeException(hashType);
         }
@@ -229,35 +415,229 @@ public class ComputeHashDataMethod implements ConvertDataMethod {
         panel.setModeChangeListener(() -> {
             fillPreviewData(panel, codeArea);
         });
+        // Preview result is valid only until data are changed
+        previewResult = null;
+        releasePreviewSource();
+        previewSourceCodeArea = new WeakReference<>(codeArea);
+        codeArea.addDataChangedListener(previewSourceChangedListener);
         fillPreviewData(panel, codeArea);
     }
 
     private void fillPreviewData(ComputeHashDataPanel panel, CodeAreaCore codeArea) {
         SwingUtilities.invokeLater(() -> {
+            if (previewThread != null) {
+                previewThread.cancel();
+                previewThread = null;
+            }
+
             Optional<HashType> hashType = panel.getHashType();
+            List<HashType> hashTypes = panel.getHashTypes();
+            boolean multipleDigests = panel.isMultipleDigests();
             int bitSize = panel.getBitSize();
+            int blockSize = panel.getBlockSize();
+
+            if (!hashType.isPresent()) {
+                panel.clearProgress();
+                previewDataHandler.setPreviewData(new ByteArrayEditableData());
+                return;
+            }
+
+            long position;
+            long length;
+            SelectionRange selection = ((SelectionCapable) codeArea).getSelection();
+            if (selection.isEmpty()) {
+                position = 0;
+                length = codeArea.getDataSize();
+            } else {
+                position = selection.getFirst();
+                length = selection.getLength();
+            }
+
+            // Digest is computed in background to keep editor responsive for large data
+            BinaryData sourceData = codeArea.getContentData();
+            HashParameters parameters = new HashParameters(sourceData, position, length, multipleDigests, hashType.get(), hashTypes, bitSize, blockSize);
+            if (previewResult != null && previewResult.parameters.equals(parameters)) {
+                panel.clearProgress();
+                previewDataHandler.setPreviewData(createPreviewData(previewResult.data));
+                return;
+            }
+
+            PreviewComputation computation = multipleDigests
+                    ? (targetData, listener) -> convertData(sourceData, position, length, hashTypes, targetData, 0, listener)
+                    : (targetData, listener) -> convertData(sourceData, position, length, hashType.get(), bitSize, blockSize, targetData, 0, listener);
+            previewThread = new PreviewThread(panel, parameters, computation);
+            previewThread.start();
+        });
+    }
+
+    /**
+     * Thread computing preview of the digest.
+     */
+    @ParametersAreNonnullByDefault
+    private class PreviewThread extends Thread {
 
+        private final ComputeHashDataPanel panel;
+        private final HashParameters parameters;
+        private final Optional<BinEdFileHandler> sourceFileHandler;
+        private final long length;
+        private final PreviewComputation computation;
+        private volatile boolean cancelled = false;
+        private int reportedProgress = -1;
+
+        public PreviewThread(ComputeHashDataPanel panel, HashParameters parameters, PreviewComputation computation) {
+            super("ComputeHashPreviewThread");
+            setDaemon(true);
+            this.panel = panel;
+            this.parameters = parameters;
+            BinaryData sourceData = Objects.requireNonNull(parameters.getSourceData());
+            sourceFileHandler = App.getModule(BinedModule.class).getFileManager().findFileHandler(sourceData);
+            this.length = parameters.length;
+            this.computation = computation;
+        }
+
+        public void cancel() {
+            cancelled = true;
+        }
+
+        @Override
+        public void run() {
             EditableBinaryData previewBinaryData = new ByteArrayEditableData();
-            previewBinaryData.clear();
-            if (hashType.isPresent()) {
-                long position;
-                long length;
-                SelectionRange selection = ((SelectionCapable) codeArea).getSelection();
-                if (selection.isEmpty()) {
-                    position = 0;
-                    length = codeArea.getDataSize();
-                } else {
-                    position = selection.getFirst();
-                    length = selection.getLength();
-                }
-                convertData(codeArea.getContentData(), position, length, hashType.get(), bitSize, previewBinaryData, 0);
-                long previewDataSize = previewBinaryData.getDataSize();
-                if (previewDataSize > previewLengthLimit) {
-                    previewBinaryData.remove(previewLengthLimit, previewDataSize - previewLengthLimit);
+            boolean finished;
+            sourceFileHandler.ifPresent(BinEdFileHandler::startReading);
+            try {
+                finished = computation.compute(previewBinaryData, (long processedLength) -> {
+                    if (cancelled || !panel.isDisplayable()) {
+                        return false;
+                    }
+
+                    int progress = (int) (processedLength * 100 / length);
+                    if (progress != reportedProgress) {
+                        reportedProgress = progress;
+                        SwingUtilities.invokeLater(() -> {
+                            if (!cancelled) {
+                                panel.setProgress(progress);
+                            }
+                        });
+                    }
+                    return true;
+                });
+            } finally {
+                sourceFileHandler.ifPresent(BinEdFileHandler::finishReading);
+            }
+            if (!finished) {
+                return;
+            }
+
+            SwingUtilities.invokeLater(() -> {
+                if (cancelled) {
+                    return;
                 }
+
+                // Complete result is kept for conversion with the same parameters
+                previewResult = new PreviewResult(parameters, previewBinaryData);
+                panel.clearProgress();
+                previewDataHandler.setPreviewData(createPreviewData(previewBinaryData));
+                previewThread = null;
+            });
+        }
+    }
+
+    private void releasePreviewSource() {
+        CodeAreaCore codeArea = previewSourceCodeArea == null ? null : previewSourceCodeArea.get();
+        if (codeArea != null) {
+            codeArea.removeDataChangedListener(previewSourceChangedListener);
+        }
+        previewSourceCodeArea = null;
+    }
+
+    @Nonnull
+    private BinaryData createPreviewData(BinaryData data) {
+        EditableBinaryData previewData = new ByteArrayEditableData();
+        previewData.insert(0, data, 0, Math.min(data.getDataSize(), previewLengthLimit));
+        return previewData;
+    }
+
+    /**
+     * Parameters of digest computation.
+     *
+     * Source data are referenced weakly, so that kept preview result doesn't
+     * hold closed document.
+     */
+    @ParametersAreNonnullByDefault
+    private static class HashParameters {
+
+        private final WeakReference<BinaryData> sourceData;
+        private final long position;
+        private final long length;
+        private final boolean multipleDigests;
+        private final HashType hashType;
+        private final List<HashType> hashTypes;
+        private final int bitSize;
+        private final int blockSize;
+
+        public HashParameters(BinaryData sourceData, long position, long length, boolean multipleDigests, @Nullable HashType hashType, List<HashType> hashTypes, int bitSize, int blockSize) {
+            this.sourceData = new WeakReference<>(sourceData);
+            this.position = position;
+            this.length = length;
+            this.multipleDigests = multipleDigests;
+            this.hashType = hashType;
+            this.hashTypes = new ArrayList<>(hashTypes);
+            this.bitSize = bitSize;
+            this.blockSize = blockSize;
+        }
+
+        @Nullable
+        public BinaryData getSourceData() {
+            return sourceData.get();
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (this == obj) {
+                return true;
             }
-            previewDataHandler.setPreviewData(previewBinaryData);
-        });
+            if (obj == null || getClass() != obj.getClass()) {
+                return false;
+            }
+            HashParameters other = (HashParameters) obj;
+            BinaryData data = sourceData.get();
+            if (data == null || data != other.sourceData.get() || position != other.position || length != other.length || multipleDigests != other.multipleDigests) {
+                return false;
+            }
+            if (multipleDigests) {
+                return hashTypes.equals(other.hashTypes);
+            }
+            return hashType == other.hashType && bitSize == other.bitSize && blockSize == other.blockSize;
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(System.identityHashCode(sourceData.get()), position, length, multipleDigests, hashType, bitSize, blockSize);
+        }
+    }
+
+    /**
+     * Finished digest computation.
+     */
+    @ParametersAreNonnullByDefault
+    private static class PreviewResult {
+
+        private final HashParameters parameters;
+        private final BinaryData data;
+
+        public PreviewResult(HashParameters parameters, BinaryData data) {
+            this.parameters = parameters;
+            this.data = data;
+        }
+    }
+
+    /**
+     * Computation of preview data.
+     */
+    @ParametersAreNonnullByDefault
+    private interface PreviewComputation {
+
+        boolean compute(EditableBinaryData targetData, ParallelDigestEngine.ProgressListener listener);
     }
 
     public enum HashType {
@@ -276,7 +656,13 @@ public class ComputeHashDataMethod implements ConvertDataMethod {
         SM3,
         TIGER,
         GOST3411,
-        WHIRLPOOL;
+        WHIRLPOOL,
+        BLAKE3,
+        KANGAROO_TWELVE,
+        CRC32,
+        CRC32C,
+        ADLER32,
+        XXHASH64;
 
         public static Map<HashType, List<Integer>> BIT_SIZES = new HashMap<HashType, List<Integer>>() {
             {
@@ -286,5 +672,19 @@ public class ComputeHashDataMethod implements ConvertDataMethod {
                 put(SHAKE, Arrays.asList(128, 256));
             }
         };
+
+        public static Map<HashType, Integer> DEFAULT_BIT_SIZES = new HashMap<HashType, Integer>() {
+            {
+                put(KECCAK, 256);
+                put(RIPEMD, 160);
+                put(SHA3, 256);
+                put(SHAKE, 256);
+            }
+        };
+
+        public static int getDefaultBitSize(HashType hashType) {
+            Integer bitSize = DEFAULT_BIT_SIZES.get(hashType);
+            return bitSize == null ? 0 : bitSize;
+        }
     }
 }
@@ -0,0 +1,227 @@
+/*
+ * Copyright (C) ExBin Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.exbin.framework.bined.operation.bouncycastle.method;
+
+import java.io.ByteArrayOutputStream;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveTask;
+import java.util.function.Supplier;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import javax.annotation.ParametersAreNonnullByDefault;
+import org.bouncycastle.crypto.Digest;
+import org.exbin.auxiliary.binary_data.BinaryData;
+
+/**
+ * Engine computing digests of binary data using fork-join pool.
+ *
+ * Data are read by calling thread only in large reused buffers. Digests of the
+ * whole range are updated by pool threads while next buffer is being read,
+ * each buffer is read once and passed to all digests concurrently.
+ * Digests of separate blocks are computed concurrently, each block by its own
+ * digest instance, and concatenated in order of blocks into manifest.
+ *
+ * @author ExBin Project (https://exbin.org)
+ */
+@ParametersAreNonnullByDefault
+public class ParallelDigestEngine {
+
+    public static final int BUFFER_SIZE = 1024 * 1024;
+
+    private final ForkJoinPool pool;
+    private final int maxPendingBlocks;
+
+    public ParallelDigestEngine() {
+        this(ForkJoinPool.commonPool());
+    }
+
+    public ParallelDigestEngine(ForkJoinPool pool) {
+        this.pool = pool;
+        maxPendingBlocks = pool.getParallelism() * 2;
+    }
+
+    /**
+     * Updates digest with given range of data.
+     *
+     * @param data source data
+     * @param position start position
+     * @param length length of range
+     * @param digest digest to update
+     * @param listener progress listener
+     * @return true if whole range was processed, false if stopped by listener
+     */
+    public boolean updateDigest(BinaryData data, long position, long length, Digest digest, ProgressListener listener) {
+        return updateDigests(data, position, length, Collections.singletonList(digest), listener);
+    }
+
+    /**
+     * Updates multiple digests with given range of data in single pass.
+     *
+     * @param data source data
+     * @param position start position
+     * @param length length of range
+     * @param digests digests to update
+     * @param listener progress listener
+     * @return true if whole range was processed, false if stopped by listener
+     */
+    public boolean updateDigests(BinaryData data, long position, long length, List<Digest> digests, ProgressListener listener) {
+        byte[] buffer = new byte[(int) Math.max(1, Math.min(BUFFER_SIZE, length))];
+        byte[] nextBuffer = length > BUFFER_SIZE ? new byte[BUFFER_SIZE] : null;
+        List<ForkJoinTask<?>> pendingTasks = new ArrayList<>();
+        try {
+            long processed = 0;
+            while (processed < length) {
+                int count = (int) Math.min(buffer.length, length - processed);
+                data.copyToArray(position + processed, buffer, 0, count);
+                joinTasks(pendingTasks);
+
+                byte[] updateBuffer = buffer;
+                for (Digest digest : digests) {
+                    pendingTasks.add(pool.submit(() -> digest.update(updateBuffer, 0, count)));
+                }
+                processed += count;
+                if (!listener.dataProcessed(processed)) {
+                    return false;
+                }
+
+                buffer = nextBuffer;
+                nextBuffer = updateBuffer;
+            }
+
+            joinTasks(pendingTasks);
+        } finally {
+            for (ForkJoinTask<?> pendingTask : pendingTasks) {
+                pendingTask.cancel(false);
+            }
+        }
+
+        return true;
+    }
+
+    private static void joinTasks(List<ForkJoinTask<?>> tasks) {
+        for (ForkJoinTask<?> task : tasks) {
+            task.join();
+        }
+        tasks.clear();
+    }
+
+    /**
+     * Computes digests of consecutive blocks of given range of data.
+     *
+     * @param data source data
+     * @param position start position
+     * @param length length of range
+     * @param blockSize size of block
+     * @param digestFactory factory for digest instances
+     * @param listener progress listener
+     * @return concatenated digests of blocks or null if stopped by listener
+     */
+    @Nullable
+    public byte[] computeBlockDigests(BinaryData data, long position, long length, int blockSize, Supplier<Digest> digestFactory, ProgressListener listener) {
+        ByteArrayOutputStream manifest = new ByteArrayOutputStream();
+        Deque<BlockTask> pendingTasks = new ArrayDeque<>();
+        Deque<byte[]> freeBuffers = new ArrayDeque<>();
+        try {
+            long nextPosition = 0;
+            long processed = 0;
+            while (true) {
+                while (pendingTasks.size() < maxPendingBlocks && nextPosition < length) {
+                    int count = (int) Math.min(blockSize, length - nextPosition);
+                    byte[] buffer = freeBuffers.isEmpty() ? new byte[blockSize] : freeBuffers.pop();
+                    data.copyToArray(position + nextPosition, buffer, 0, count);
+                    BlockTask task = new BlockTask(buffer, count, digestFactory.get());
+                    pool.execute(task);
+                    pendingTasks.add(task);
+                    nextPosition += count;
+                }
+
+                BlockTask task = pendingTasks.poll();
+                if (task == null) {
+                    break;
+                }
+
+                byte[] blockDigest = task.join();
+                freeBuffers.push(task.buffer);
+                manifest.write(blockDigest, 0, blockDigest.length);
+                processed += task.length;
+
+                if (!listener.dataProcessed(processed)) {
+                    return null;
+                }
+            }
+        } finally {
+            for (BlockTask pendingTask : pendingTasks) {
+                pendingTask.cancel(false);
+            }
+        }
+
+        return manifest.toByteArray();
+    }
+
+    /**
+     * Returns number of blocks of given range of data.
+     *
+     * @param length length of range
+     * @param blockSize size of block
+     * @return number of blocks
+     */
+    public static long getBlocksCount(long length, int blockSize) {
+        return (length + blockSize - 1) / blockSize;
+    }
+
+    public interface ProgressListener {
+
+        /**
+         * Reports processing of data.
+         *
+         * @param processedLength length of data processed so far
+         * @return true to continue processing
+         */
+        boolean dataProcessed(long processedLength);
+    }
+
+    /**
+     * Task for computing digest of single block of data.
+     */
+    @ParametersAreNonnullByDefault
+    private static class BlockTask extends RecursiveTask<byte[]> {
+
+        private final byte[] buffer;
+        private final int length;
+        private final Digest digest;
+
+        public BlockTask(byte[] buffer, int length, Digest digest) {
+            this.buffer = buffer;
+            this.length = length;
+            this.digest = digest;
+        }
+
+        @Nonnull
+        @Override
+        protected byte[] compute() {
+            digest.update(buffer, 0, length);
+            byte[] output = new byte[digest.getDigestSize()];
+            digest.doFinal(output, 0);
+            return output;
+        }
+    }
+}
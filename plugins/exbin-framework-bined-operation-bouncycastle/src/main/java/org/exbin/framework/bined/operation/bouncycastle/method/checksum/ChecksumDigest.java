@@ -0,0 +1,79 @@
+/*
+ * Copyright (C) ExBin Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.exbin.framework.bined.operation.bouncycastle.method.checksum;
+
+import java.util.zip.Checksum;
+import javax.annotation.Nonnull;
+import javax.annotation.ParametersAreNonnullByDefault;
+import org.bouncycastle.crypto.Digest;
+
+/**
+ * Digest adapter for 32-bit checksum.
+ *
+ * Value of the checksum is produced in big-endian order.
+ *
+ * @author ExBin Project (https://exbin.org)
+ */
+@ParametersAreNonnullByDefault
+public class ChecksumDigest implements Digest {
+
+    private static final int DIGEST_SIZE = 4;
+
+    private final String algorithmName;
+    private final Checksum checksum;
+
+    public ChecksumDigest(String algorithmName, Checksum checksum) {
+        this.algorithmName = algorithmName;
+        this.checksum = checksum;
+    }
+
+    @Nonnull
+    @Override
+    public String getAlgorithmName() {
+        return algorithmName;
+    }
+
+    @Override
+    public int getDigestSize() {
+        return DIGEST_SIZE;
+    }
+
+    @Override
+    public void update(byte in) {
+        checksum.update(in);
+    }
+
+    @Override
+    public void update(byte[] in, int inOff, int len) {
+        checksum.update(in, inOff, len);
+    }
+
+    @Override
+    public int doFinal(byte[] out, int outOff) {
+        long value = checksum.getValue();
+        out[outOff] = (byte) (value >> 24);
+        out[outOff + 1] = (byte) (value >> 16);
+        out[outOff + 2] = (byte) (value >> 8);
+        out[outOff + 3] = (byte) value;
+        reset();
+        return DIGEST_SIZE;
+    }
+
+    @Override
+    public void reset() {
+        checksum.reset();
+    }
+}
@@ -0,0 +1,102 @@
+/*
+ * Copyright (C) ExBin Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.exbin.framework.bined.operation.bouncycastle.method.checksum;
+
+import java.util.zip.Checksum;
+import javax.annotation.ParametersAreNonnullByDefault;
+
+/**
+ * CRC-32C (Castagnoli) checksum.
+ *
+ * Uses slicing-by-8 tables to process eight bytes per step, as the JDK
+ * implementation is not available for Java 8.
+ *
+ * @author ExBin Project (https://exbin.org)
+ */
+@ParametersAreNonnullByDefault
+public class Crc32cChecksum implements Checksum {
+
+    private static final int POLYNOMIAL = 0x82f63b78;
+    private static final int[][] TABLES = createTables();
+
+    private int crc = 0xffffffff;
+
+    public Crc32cChecksum() {
+    }
+
+    @Override
+    public void update(int value) {
+        crc = (crc >>> 8) ^ TABLES[0][(crc ^ value) & 0xff];
+    }
+
+    @Override
+    public void update(byte[] data, int offset, int length) {
+        int[] table0 = TABLES[0];
+        int[] table1 = TABLES[1];
+        int[] table2 = TABLES[2];
+        int[] table3 = TABLES[3];
+        int[] table4 = TABLES[4];
+        int[] table5 = TABLES[5];
+        int[] table6 = TABLES[6];
+        int[] table7 = TABLES[7];
+        int value = crc;
+        while (length >= 8) {
+            value ^= (data[offset] & 0xff) | (data[offset + 1] & 0xff) << 8 | (data[offset + 2] & 0xff) << 16 | (data[offset + 3] & 0xff) << 24;
+            int high = (data[offset + 4] & 0xff) | (data[offset + 5] & 0xff) << 8 | (data[offset + 6] & 0xff) << 16 | (data[offset + 7] & 0xff) << 24;
+            value = table7[value & 0xff] ^ table6[(value >>> 8) & 0xff] ^ table5[(value >>> 16) & 0xff] ^ table4[value >>> 24]
+                    ^ table3[high & 0xff] ^ table2[(high >>> 8) & 0xff] ^ table1[(high >>> 16) & 0xff] ^ table0[high >>> 24];
+            offset += 8;
+            length -= 8;
+        }
+
+        while (length > 0) {
+            value = (value >>> 8) ^ table0[(value ^ data[offset]) & 0xff];
+            offset++;
+            length--;
+        }
+        crc = value;
+    }
+
+    @Override
+    public long getValue() {
+        return ~crc & 0xffffffffL;
+    }
+
+    @Override
+    public void reset() {
+        crc = 0xffffffff;
+    }
+
+    private static int[][] createTables() {
+        int[][] tables = new int[8][256];
+        for (int n = 0; n < 256; n++) {
+            int value = n;
+            for (int bit = 0; bit < 8; bit++) {
+                value = (value & 1) != 0 ? (value >>> 1) ^ POLYNOMIAL : value >>> 1;
+            }
+            tables[0][n] = value;
+        }
+
+        for (int n = 0; n < 256; n++) {
+            int value = tables[0][n];
+            for (int table = 1; table < 8; table++) {
+                value = (value >>> 8) ^ tables[0][value & 0xff];
+                tables[table][n] = value;
+            }
+        }
+        return tables;
+    }
+}
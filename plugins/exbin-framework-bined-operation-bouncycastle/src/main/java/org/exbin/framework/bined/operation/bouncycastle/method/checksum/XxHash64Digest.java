@@ -0,0 +1,181 @@
+/*
+ * Copyright (C) ExBin Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.exbin.framework.bined.operation.bouncycastle.method.checksum;
+
+import javax.annotation.Nonnull;
+import javax.annotation.ParametersAreNonnullByDefault;
+import org.bouncycastle.crypto.Digest;
+
+/**
+ * XXH64 non-cryptographic hash with zero seed.
+ *
+ * Hash is produced in big-endian order, the same as canonical representation
+ * used by xxhsum tool.
+ *
+ * @author ExBin Project (https://exbin.org)
+ */
+@ParametersAreNonnullByDefault
+public class XxHash64Digest implements Digest {
+
+    private static final int DIGEST_SIZE = 8;
+    private static final int STRIPE_SIZE = 32;
+
+    private static final long PRIME64_1 = 0x9E3779B185EBCA87L;
+    private static final long PRIME64_2 = 0xC2B2AE3D27D4EB4FL;
+    private static final long PRIME64_3 = 0x165667B19E3779F9L;
+    private static final long PRIME64_4 = 0x85EBCA77C2B2AE63L;
+    private static final long PRIME64_5 = 0x27D4EB2F165667C5L;
+
+    private final byte[] stripe = new byte[STRIPE_SIZE];
+    private int stripeLength;
+    private long totalLength;
+    private long accumulator1;
+    private long accumulator2;
+    private long accumulator3;
+    private long accumulator4;
+
+    public XxHash64Digest() {
+        reset();
+    }
+
+    @Nonnull
+    @Override
+    public String getAlgorithmName() {
+        return "XXH64";
+    }
+
+    @Override
+    public int getDigestSize() {
+        return DIGEST_SIZE;
+    }
+
+    @Override
+    public void update(byte in) {
+        stripe[stripeLength++] = in;
+        totalLength++;
+        if (stripeLength == STRIPE_SIZE) {
+            processStripe(stripe, 0);
+            stripeLength = 0;
+        }
+    }
+
+    @Override
+    public void update(byte[] in, int inOff, int len) {
+        totalLength += len;
+        if (stripeLength > 0) {
+            int count = Math.min(len, STRIPE_SIZE - stripeLength);
+            System.arraycopy(in, inOff, stripe, stripeLength, count);
+            stripeLength += count;
+            inOff += count;
+            len -= count;
+            if (stripeLength < STRIPE_SIZE) {
+                return;
+            }
+            processStripe(stripe, 0);
+            stripeLength = 0;
+        }
+
+        while (len >= STRIPE_SIZE) {
+            processStripe(in, inOff);
+            inOff += STRIPE_SIZE;
+            len -= STRIPE_SIZE;
+        }
+
+        System.arraycopy(in, inOff, stripe, 0, len);
+        stripeLength = len;
+    }
+
+    @Override
+    public int doFinal(byte[] out, int outOff) {
+        long hash;
+        if (totalLength >= STRIPE_SIZE) {
+            hash = Long.rotateLeft(accumulator1, 1) + Long.rotateLeft(accumulator2, 7)
+                    + Long.rotateLeft(accumulator3, 12) + Long.rotateLeft(accumulator4, 18);
+            hash = mergeRound(hash, accumulator1);
+            hash = mergeRound(hash, accumulator2);
+            hash = mergeRound(hash, accumulator3);
+            hash = mergeRound(hash, accumulator4);
+        } else {
+            hash = PRIME64_5;
+        }
+        hash += totalLength;
+
+        int offset = 0;
+        while (offset + 8 <= stripeLength) {
+            hash ^= round(0, readLongLittleEndian(stripe, offset));
+            hash = Long.rotateLeft(hash, 27) * PRIME64_1 + PRIME64_4;
+            offset += 8;
+        }
+        if (offset + 4 <= stripeLength) {
+            hash ^= (readIntLittleEndian(stripe, offset) & 0xffffffffL) * PRIME64_1;
+            hash = Long.rotateLeft(hash, 23) * PRIME64_2 + PRIME64_3;
+            offset += 4;
+        }
+        while (offset < stripeLength) {
+            hash ^= (stripe[offset] & 0xff) * PRIME64_5;
+            hash = Long.rotateLeft(hash, 11) * PRIME64_1;
+            offset++;
+        }
+
+        hash ^= hash >>> 33;
+        hash *= PRIME64_2;
+        hash ^= hash >>> 29;
+        hash *= PRIME64_3;
+        hash ^= hash >>> 32;
+
+        for (int i = 0; i < DIGEST_SIZE; i++) {
+            out[outOff + i] = (byte) (hash >>> (56 - i * 8));
+        }
+        reset();
+        return DIGEST_SIZE;
+    }
+
+    @Override
+    public void reset() {
+        stripeLength = 0;
+        totalLength = 0;
+        accumulator1 = PRIME64_1 + PRIME64_2;
+        accumulator2 = PRIME64_2;
+        accumulator3 = 0;
+        accumulator4 = -PRIME64_1;
+    }
+
+    private void processStripe(byte[] data, int offset) {
+        accumulator1 = round(accumulator1, readLongLittleEndian(data, offset));
+        accumulator2 = round(accumulator2, readLongLittleEndian(data, offset + 8));
+        accumulator3 = round(accumulator3, readLongLittleEndian(data, offset + 16));
+        accumulator4 = round(accumulator4, readLongLittleEndian(data, offset + 24));
+    }
+
+    private static long round(long accumulator, long input) {
+        accumulator += input * PRIME64_2;
+        accumulator = Long.rotateLeft(accumulator, 31);
+        return accumulator * PRIME64_1;
+    }
+
+    private static long mergeRound(long hash, long accumulator) {
+        hash ^= round(0, accumulator);
+        return hash * PRIME64_1 + PRIME64_4;
+    }
+
+    private static long readLongLittleEndian(byte[] data, int offset) {
+        return (readIntLittleEndian(data, offset) & 0xffffffffL) | ((long) readIntLittleEndian(data, offset + 4) << 32);
+    }
+
+    private static int readIntLittleEndian(byte[] data, int offset) {
+        return (data[offset] & 0xff) | (data[offset + 1] & 0xff) << 8 | (data[offset + 2] & 0xff) << 16 | (data[offset + 3] & 0xff) << 24;
+    }
+}
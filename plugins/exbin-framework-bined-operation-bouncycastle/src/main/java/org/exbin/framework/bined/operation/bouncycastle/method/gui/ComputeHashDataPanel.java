@@ -15,6 +15,7 @@
  */
 package org.exbin.framework.bined.operation.bouncycastle.method.gui;
 
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
 import java.util.ResourceBundle;
@@ -44,6 +45,9 @@ public class ComputeHashDataPanel extends javax.swing.JPanel {
     private ModeChangeListener modeChangeListener = null;
     private HashTypeChangeListener hashTypeChangeListener = null;
 
+    private static final int[] BLOCK_SIZES = {64 * 1024, 256 * 1024, 1024 * 1024, 4 * 1024 * 1024, 16 * 1024 * 1024};
+    private static final int DEFAULT_BLOCK_SIZE_INDEX = 2;
+
     public ComputeHashDataPanel() {
         initComponents();
         init();
@@ -56,6 +60,14 @@ public class ComputeHashDataPanel extends javax.swing.JPanel {
         }
         hashTypeList.setModel(hashTypesModel);
         hashBitSizeComboBox.setModel(new DefaultComboBoxModel<>());
+
+        DefaultComboBoxModel<String> blockSizesModel = new DefaultComboBoxModel<>();
+        for (int blockSize : BLOCK_SIZES) {
+            blockSizesModel.addElement(blockSize >= 1024 * 1024 ? (blockSize / (1024 * 1024)) + " MiB" : (blockSize / 1024) + " KiB");
+        }
+        blockSizeComboBox.setModel(blockSizesModel);
+        blockSizeComboBox.setSelectedIndex(DEFAULT_BLOCK_SIZE_INDEX);
+        progressBar.setVisible(false);
     }
 
     @Nonnull
@@ -79,8 +91,13 @@ public class ComputeHashDataPanel extends javax.swing.JPanel {
         hashTypeLabel = new javax.swing.JLabel();
         hashTypeScrollPane = new javax.swing.JScrollPane();
         hashTypeList = new javax.swing.JList<>();
+        multipleCheckBox = new javax.swing.JCheckBox();
         hashBitSizeLabel = new javax.swing.JLabel();
         hashBitSizeComboBox = new javax.swing.JComboBox<>();
+        manifestCheckBox = new javax.swing.JCheckBox();
+        blockSizeLabel = new javax.swing.JLabel();
+        blockSizeComboBox = new javax.swing.JComboBox<>();
+        progressBar = new javax.swing.JProgressBar();
 
         hashTypeLabel.setText(resourceBundle.getString("hashTypeLabel.text")); // NOI18N
 
@@ -92,6 +109,13 @@ public class ComputeHashDataPanel extends javax.swing.JPanel {
         });
         hashTypeScrollPane.setViewportView(hashTypeList);
 
+        multipleCheckBox.setText(resourceBundle.getString("multipleCheckBox.text")); // NOI18N
+        multipleCheckBox.addItemListener(new java.awt.event.ItemListener() {
+            public void itemStateChanged(java.awt.event.ItemEvent evt) {
+                multipleCheckBoxItemStateChanged(evt);
+            }
+        });
+
         hashBitSizeLabel.setText(resourceBundle.getString("hashBitSizeLabel.text")); // NOI18N
 
         hashBitSizeComboBox.setEnabled(false);
@@ -101,6 +125,24 @@ public class ComputeHashDataPanel extends javax.swing.JPanel {
             }
         });
 
+        manifestCheckBox.setText(resourceBundle.getString("manifestCheckBox.text")); // NOI18N
+        manifestCheckBox.addItemListener(new java.awt.event.ItemListener() {
+            public void itemStateChanged(java.awt.event.ItemEvent evt) {
+                manifestCheckBoxItemStateChanged(evt);
+            }
+        });
+
+        blockSizeLabel.setText(resourceBundle.getString("blockSizeLabel.text")); // NOI18N
+
+        blockSizeComboBox.setEnabled(false);
+        blockSizeComboBox.addItemListener(new java.awt.event.ItemListener() {
+            public void itemStateChanged(java.awt.event.ItemEvent evt) {
+                blockSizeComboBoxItemStateChanged(evt);
+            }
+        });
+
+        progressBar.setStringPainted(true);
+
         javax.swing.GroupLayout layout = new javax.swing.GroupLayout(this);
         this.setLayout(layout);
         layout.setHorizontalGroup(
@@ -110,10 +152,15 @@ public class ComputeHashDataPanel extends javax.swing.JPanel {
                 .addGroup(layout.createParallelGroup(javax.swing.GroupLayout.Alignment.TRAILING)
                     .addComponent(hashTypeScrollPane)
                     .addComponent(hashBitSizeComboBox, javax.swing.GroupLayout.Alignment.LEADING, 0, 405, Short.MAX_VALUE)
+                    .addComponent(blockSizeComboBox, javax.swing.GroupLayout.Alignment.LEADING, 0, javax.swing.GroupLayout.DEFAULT_SIZE, Short.MAX_VALUE)
+                    .addComponent(progressBar, javax.swing.GroupLayout.Alignment.LEADING, javax.swing.GroupLayout.DEFAULT_SIZE, javax.swing.GroupLayout.DEFAULT_SIZE, Short.MAX_VALUE)
                     .addGroup(javax.swing.GroupLayout.Alignment.LEADING, layout.createSequentialGroup()
                         .addGroup(layout.createParallelGroup(javax.swing.GroupLayout.Alignment.LEADING)
                             .addComponent(hashTypeLabel)
-                            .addComponent(hashBitSizeLabel))
+                            .addComponent(multipleCheckBox)
+                            .addComponent(hashBitSizeLabel)
+                            .addComponent(manifestCheckBox)
+                            .addComponent(blockSizeLabel))
                         .addGap(0, 0, Short.MAX_VALUE)))
                 .addContainerGap())
         );
@@ -125,9 +172,19 @@ public class ComputeHashDataPanel extends javax.swing.JPanel {
                 .addPreferredGap(javax.swing.LayoutStyle.ComponentPlacement.RELATED)
                 .addComponent(hashTypeScrollPane)
                 .addPreferredGap(javax.swing.LayoutStyle.ComponentPlacement.RELATED)
+                .addComponent(multipleCheckBox)
+                .addPreferredGap(javax.swing.LayoutStyle.ComponentPlacement.RELATED)
                 .addComponent(hashBitSizeLabel)
                 .addPreferredGap(javax.swing.LayoutStyle.ComponentPlacement.RELATED)
                 .addComponent(hashBitSizeComboBox, javax.swing.GroupLayout.PREFERRED_SIZE, javax.swing.GroupLayout.DEFAULT_SIZE, javax.swing.GroupLayout.PREFERRED_SIZE)
+                .addPreferredGap(javax.swing.LayoutStyle.ComponentPlacement.RELATED)
+                .addComponent(manifestCheckBox)
+                .addPreferredGap(javax.swing.LayoutStyle.ComponentPlacement.RELATED)
+                .addComponent(blockSizeLabel)
+                .addPreferredGap(javax.swing.LayoutStyle.ComponentPlacement.RELATED)
+                .addComponent(blockSizeComboBox, javax.swing.GroupLayout.PREFERRED_SIZE, javax.swing.GroupLayout.DEFAULT_SIZE, javax.swing.GroupLayout.PREFERRED_SIZE)
+                .addPreferredGap(javax.swing.LayoutStyle.ComponentPlacement.RELATED)
+                .addComponent(progressBar, javax.swing.GroupLayout.PREFERRED_SIZE, javax.swing.GroupLayout.DEFAULT_SIZE, javax.swing.GroupLayout.PREFERRED_SIZE)
                 .addContainerGap())
         );
     }// </editor-fold>//GEN-END:initComponents
@@ -137,10 +194,40 @@ public class ComputeHashDataPanel extends javax.swing.JPanel {
         hashTypeChanged();
     }//GEN-LAST:event_hashTypeListValueChanged
 
+    private void multipleCheckBoxItemStateChanged(java.awt.event.ItemEvent evt) {//GEN-FIRST:event_multipleCheckBoxItemStateChanged
+        boolean multiple = multipleCheckBox.isSelected();
+        if (multiple) {
+            hashTypeList.setSelectionMode(javax.swing.ListSelectionModel.MULTIPLE_INTERVAL_SELECTION);
+        } else {
+            int leadIndex = hashTypeList.getLeadSelectionIndex();
+            hashTypeList.setSelectionMode(javax.swing.ListSelectionModel.SINGLE_SELECTION);
+            if (leadIndex >= 0 && hashTypeList.isSelectedIndex(leadIndex)) {
+                hashTypeList.setSelectedIndex(leadIndex);
+            } else {
+                hashTypeList.clearSelection();
+            }
+        }
+        hashBitSizeComboBox.setEnabled(!multiple && hashBitSizeComboBox.getItemCount() > 0);
+        manifestCheckBox.setEnabled(!multiple);
+        blockSizeComboBox.setEnabled(!multiple && manifestCheckBox.isSelected());
+        modeChanged();
+    }//GEN-LAST:event_multipleCheckBoxItemStateChanged
+
     private void hashBitSizeComboBoxItemStateChanged(java.awt.event.ItemEvent evt) {//GEN-FIRST:event_hashBitSizeComboBoxItemStateChanged
         modeChanged();
     }//GEN-LAST:event_hashBitSizeComboBoxItemStateChanged
 
+    private void manifestCheckBoxItemStateChanged(java.awt.event.ItemEvent evt) {//GEN-FIRST:event_manifestCheckBoxItemStateChanged
+        blockSizeComboBox.setEnabled(manifestCheckBox.isSelected());
+        modeChanged();
+    }//GEN-LAST:event_manifestCheckBoxItemStateChanged
+
+    private void blockSizeComboBoxItemStateChanged(java.awt.event.ItemEvent evt) {//GEN-FIRST:event_blockSizeComboBoxItemStateChanged
+        if (evt.getStateChange() == java.awt.event.ItemEvent.SELECTED) {
+            modeChanged();
+        }
+    }//GEN-LAST:event_blockSizeComboBoxItemStateChanged
+
     private void modeChanged() {
         if (modeChangeListener != null) {
             modeChangeListener.modeChanged();
@@ -163,6 +250,30 @@ public class ComputeHashDataPanel extends javax.swing.JPanel {
         hashTypeList.setSelectedIndex(hashType.ordinal());
     }
 
+    /**
+     * Returns all selected hash types.
+     *
+     * @return list of hash types
+     */
+    @Nonnull
+    public List<ComputeHashDataMethod.HashType> getHashTypes() {
+        List<ComputeHashDataMethod.HashType> hashTypes = new ArrayList<>();
+        ComputeHashDataMethod.HashType[] values = ComputeHashDataMethod.HashType.values();
+        for (int selectedIndex : hashTypeList.getSelectedIndices()) {
+            hashTypes.add(values[selectedIndex]);
+        }
+        return hashTypes;
+    }
+
+    /**
+     * Returns true if multiple digests are computed in single pass.
+     *
+     * @return true for manifest of multiple digests
+     */
+    public boolean isMultipleDigests() {
+        return multipleCheckBox.isSelected();
+    }
+
     public int getBitSize() {
         int selectedIndex = hashBitSizeComboBox.getSelectedIndex();
         if (selectedIndex >= 0) {
@@ -179,12 +290,36 @@ public class ComputeHashDataPanel extends javax.swing.JPanel {
             for (Integer bitSize : bitSizes) {
                 bitSizeModel.addElement(bitSize);
             }
-            hashBitSizeComboBox.setEnabled(true);
+            hashBitSizeComboBox.setEnabled(!multipleCheckBox.isSelected());
         } else {
             hashBitSizeComboBox.setEnabled(false);
         }
     }
 
+    /**
+     * Returns size of block for manifest of block digests.
+     *
+     * @return block size or 0 if single digest of whole data is computed
+     */
+    public int getBlockSize() {
+        return manifestCheckBox.isSelected() && !multipleCheckBox.isSelected() ? BLOCK_SIZES[blockSizeComboBox.getSelectedIndex()] : 0;
+    }
+
+    public void setProgress(int progress) {
+        progressBar.setValue(progress);
+        if (!progressBar.isVisible()) {
+            progressBar.setVisible(true);
+            revalidate();
+        }
+    }
+
+    public void clearProgress() {
+        if (progressBar.isVisible()) {
+            progressBar.setVisible(false);
+            revalidate();
+        }
+    }
+
     public void setModeChangeListener(ModeChangeListener modeChangeListener) {
         this.modeChangeListener = modeChangeListener;
     }
@@ -214,11 +349,16 @@ public class ComputeHashDataPanel extends javax.swing.JPanel {
     }
 
     // Variables declaration - do not modify//GEN-BEGIN:variables
+    private javax.swing.JComboBox<String> blockSizeComboBox;
+    private javax.swing.JLabel blockSizeLabel;
     private javax.swing.JComboBox<Integer> hashBitSizeComboBox;
     private javax.swing.JLabel hashBitSizeLabel;
     private javax.swing.JLabel hashTypeLabel;
     private javax.swing.JList<String> hashTypeList;
     private javax.swing.JScrollPane hashTypeScrollPane;
+    private javax.swing.JCheckBox manifestCheckBox;
+    private javax.swing.JCheckBox multipleCheckBox;
+    private javax.swing.JProgressBar progressBar;
     // End of variables declaration//GEN-END:variables
 
     public interface Controller {
@@ -0,0 +1,217 @@
+/*
+ * Copyright (C) ExBin Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.exbin.framework.bined.operation.bouncycastle.method;
+
+import java.io.ByteArrayOutputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.zip.CRC32;
+import javax.annotation.Nonnull;
+import javax.annotation.ParametersAreNonnullByDefault;
+import org.bouncycastle.crypto.Digest;
+import org.exbin.auxiliary.binary_data.BinaryData;
+import org.exbin.auxiliary.binary_data.array.ByteArrayEditableData;
+import org.exbin.framework.bined.operation.bouncycastle.method.checksum.ChecksumDigest;
+import org.exbin.framework.bined.operation.bouncycastle.method.checksum.XxHash64Digest;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Tests for ParallelDigestEngine class.
+ *
+ * @author ExBin Project (https://exbin.org)
+ */
+@ParametersAreNonnullByDefault
+public class ParallelDigestEngineTest {
+
+    private ForkJoinPool pool;
+
+    @Before
+    public void setUp() {
+        pool = new ForkJoinPool(4);
+    }
+
+    @After
+    public void tearDown() {
+        pool.shutdown();
+    }
+
+    @Test
+    public void testUpdateDigestMultipleBuffers() {
+        byte[] data = createData(ParallelDigestEngine.BUFFER_SIZE * 2 + 12345);
+        ParallelDigestEngine engine = new ParallelDigestEngine(pool);
+        for (int[] range : new int[][]{{0, data.length}, {1, data.length - 1}, {100, ParallelDigestEngine.BUFFER_SIZE}}) {
+            Digest digest = new XxHash64Digest();
+            Assert.assertTrue(engine.updateDigest(createBinaryData(data), range[0], range[1], digest, (long processedLength) -> true));
+            Assert.assertArrayEquals(computeDigest(new XxHash64Digest(), data, range[0], range[1]), finish(digest));
+        }
+    }
+
+    @Test
+    public void testUpdateDigests() {
+        byte[] data = createData(ParallelDigestEngine.BUFFER_SIZE + 1);
+        List<Digest> digests = Arrays.asList(new XxHash64Digest(), new ChecksumDigest("CRC32", new CRC32()));
+        Assert.assertTrue(new ParallelDigestEngine(pool).updateDigests(createBinaryData(data), 0, data.length, digests, (long processedLength) -> true));
+        Assert.assertArrayEquals(computeDigest(new XxHash64Digest(), data, 0, data.length), finish(digests.get(0)));
+        Assert.assertArrayEquals(computeDigest(new ChecksumDigest("CRC32", new CRC32()), data, 0, data.length), finish(digests.get(1)));
+    }
+
+    @Test
+    public void testBlockDigests() {
+        byte[] data = createData(100000);
+        for (int blockSize : new int[]{1000, 4096, 100000, 200000}) {
+            ByteArrayOutputStream expected = new ByteArrayOutputStream();
+            for (int position = 0; position < data.length; position += blockSize) {
+                byte[] blockDigest = computeDigest(new XxHash64Digest(), data, position, Math.min(blockSize, data.length - position));
+                expected.write(blockDigest, 0, blockDigest.length);
+            }
+
+            byte[] manifest = new ParallelDigestEngine(pool).computeBlockDigests(createBinaryData(data), 0, data.length, blockSize, XxHash64Digest::new, (long processedLength) -> true);
+            Assert.assertArrayEquals("Block size " + blockSize, expected.toByteArray(), manifest);
+            Assert.assertEquals(ParallelDigestEngine.getBlocksCount(data.length, blockSize) * 8, manifest.length);
+        }
+    }
+
+    @Test
+    public void testSlowDigestSeesUnchangedBuffers() {
+        byte[] data = createData(ParallelDigestEngine.BUFFER_SIZE * 4 + 1);
+        Digest digest = new SlowDigest(new XxHash64Digest());
+        Assert.assertTrue(new ParallelDigestEngine(pool).updateDigest(createBinaryData(data), 0, data.length, digest, (long processedLength) -> true));
+        Assert.assertArrayEquals(computeDigest(new XxHash64Digest(), data, 0, data.length), finish(digest));
+    }
+
+    @Test
+    public void testRangesInsideData() {
+        byte[] data = createData(5000);
+        ParallelDigestEngine engine = new ParallelDigestEngine(pool);
+        for (int[] range : new int[][]{{2500, 0}, {4999, 1}, {0, 1}, {17, 4000}}) {
+            Digest digest = new XxHash64Digest();
+            Assert.assertTrue(engine.updateDigest(createBinaryData(data), range[0], range[1], digest, (long processedLength) -> true));
+            Assert.assertArrayEquals(computeDigest(new XxHash64Digest(), data, range[0], range[1]), finish(digest));
+        }
+        Assert.assertEquals(0, ParallelDigestEngine.getBlocksCount(0, 1024));
+        Assert.assertEquals(1, ParallelDigestEngine.getBlocksCount(1, 1024));
+        Assert.assertEquals(2, ParallelDigestEngine.getBlocksCount(1025, 1024));
+    }
+
+    @Test
+    public void testBlockDigestsWithShortLastBlock() {
+        byte[] data = createData(10000);
+        byte[] manifest = new ParallelDigestEngine(pool).computeBlockDigests(createBinaryData(data), 100, 2501, 1000, XxHash64Digest::new, (long processedLength) -> true);
+        ByteArrayOutputStream expected = new ByteArrayOutputStream();
+        for (int[] block : new int[][]{{100, 1000}, {1100, 1000}, {2100, 501}}) {
+            byte[] blockDigest = computeDigest(new XxHash64Digest(), data, block[0], block[1]);
+            expected.write(blockDigest, 0, blockDigest.length);
+        }
+        Assert.assertArrayEquals(expected.toByteArray(), manifest);
+
+        Assert.assertArrayEquals(new byte[0], new ParallelDigestEngine(pool).computeBlockDigests(createBinaryData(data), 100, 0, 1000, XxHash64Digest::new, (long processedLength) -> true));
+    }
+
+    @Test
+    public void testStoppedByProgress() {
+        byte[] data = createData(ParallelDigestEngine.BUFFER_SIZE * 3);
+        ParallelDigestEngine engine = new ParallelDigestEngine(pool);
+        List<Long> processed = new ArrayList<>();
+        Assert.assertFalse(engine.updateDigest(createBinaryData(data), 0, data.length, new XxHash64Digest(), (long processedLength) -> {
+            processed.add(processedLength);
+            return false;
+        }));
+        Assert.assertEquals(Arrays.asList((long) ParallelDigestEngine.BUFFER_SIZE), processed);
+
+        Assert.assertNull(engine.computeBlockDigests(createBinaryData(data), 0, data.length, 1024, XxHash64Digest::new, (long processedLength) -> processedLength < 10240));
+    }
+
+    @Nonnull
+    private static byte[] computeDigest(Digest digest, byte[] data, int position, int length) {
+        digest.update(data, position, length);
+        return finish(digest);
+    }
+
+    @Nonnull
+    private static byte[] finish(Digest digest) {
+        byte[] output = new byte[digest.getDigestSize()];
+        digest.doFinal(output, 0);
+        return output;
+    }
+
+    @Nonnull
+    private static BinaryData createBinaryData(byte[] data) {
+        return new ByteArrayEditableData(data);
+    }
+
+    @Nonnull
+    private static byte[] createData(int length) {
+        byte[] data = new byte[length];
+        new Random(length).nextBytes(data);
+        return data;
+    }
+
+    /**
+     * Digest delaying updates, so that reading of next buffer overlaps with
+     * them.
+     */
+    @ParametersAreNonnullByDefault
+    private static class SlowDigest implements Digest {
+
+        private final Digest digest;
+
+        public SlowDigest(Digest digest) {
+            this.digest = digest;
+        }
+
+        @Nonnull
+        @Override
+        public String getAlgorithmName() {
+            return digest.getAlgorithmName();
+        }
+
+        @Override
+        public int getDigestSize() {
+            return digest.getDigestSize();
+        }
+
+        @Override
+        public void update(byte in) {
+            digest.update(in);
+        }
+
+        @Override
+        public void update(byte[] in, int inOff, int len) {
+            try {
+                Thread.sleep(20);
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+            }
+            digest.update(in, inOff, len);
+        }
+
+        @Override
+        public int doFinal(byte[] out, int outOff) {
+            return digest.doFinal(out, outOff);
+        }
+
+        @Override
+        public void reset() {
+            digest.reset();
+        }
+    }
+}
@@ -0,0 +1,87 @@
+/*
+ * Copyright (C) ExBin Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.exbin.framework.bined.operation.bouncycastle.method.checksum;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import javax.annotation.ParametersAreNonnullByDefault;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Tests for Crc32cChecksum class.
+ *
+ * Expected values are published CRC-32C check value and test vectors of
+ * RFC 3720.
+ *
+ * @author ExBin Project (https://exbin.org)
+ */
+@ParametersAreNonnullByDefault
+public class Crc32cChecksumTest {
+
+    @Test
+    public void testEmpty() {
+        Assert.assertEquals(0x00000000L, computeChecksum(new byte[0]));
+    }
+
+    @Test
+    public void testShortInput() {
+        Assert.assertEquals(0xc1d04330L, computeChecksum("a".getBytes(StandardCharsets.US_ASCII)));
+    }
+
+    @Test
+    public void testCheckValue() {
+        Assert.assertEquals(0xe3069283L, computeChecksum("123456789".getBytes(StandardCharsets.US_ASCII)));
+    }
+
+    @Test
+    public void testRfc3720Vectors() {
+        byte[] data = new byte[32];
+        Assert.assertEquals(0x8a9136aaL, computeChecksum(data));
+
+        Arrays.fill(data, (byte) 0xff);
+        Assert.assertEquals(0x62a8ab43L, computeChecksum(data));
+
+        for (int i = 0; i < data.length; i++) {
+            data[i] = (byte) i;
+        }
+        Assert.assertEquals(0x46dd794eL, computeChecksum(data));
+
+        for (int i = 0; i < data.length; i++) {
+            data[i] = (byte) (31 - i);
+        }
+        Assert.assertEquals(0x113fdb5cL, computeChecksum(data));
+    }
+
+    @Test
+    public void testIncrementalUpdate() {
+        byte[] data = "123456789".getBytes(StandardCharsets.US_ASCII);
+        Crc32cChecksum checksum = new Crc32cChecksum();
+        checksum.update(data, 0, 4);
+        checksum.update(data[4]);
+        checksum.update(data, 5, 4);
+        Assert.assertEquals(0xe3069283L, checksum.getValue());
+
+        checksum.reset();
+        Assert.assertEquals(0x00000000L, checksum.getValue());
+    }
+
+    private static long computeChecksum(byte[] data) {
+        Crc32cChecksum checksum = new Crc32cChecksum();
+        checksum.update(data, 0, data.length);
+        return checksum.getValue();
+    }
+}
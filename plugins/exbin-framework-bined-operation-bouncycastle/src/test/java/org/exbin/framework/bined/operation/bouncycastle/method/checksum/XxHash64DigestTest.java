@@ -0,0 +1,122 @@
+/*
+ * Copyright (C) ExBin Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.exbin.framework.bined.operation.bouncycastle.method.checksum;
+
+import java.nio.charset.StandardCharsets;
+import javax.annotation.Nonnull;
+import javax.annotation.ParametersAreNonnullByDefault;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Tests for XxHash64Digest class.
+ *
+ * Expected values are published XXH64 values with zero seed, sanity buffer
+ * values come from sanity check of xxhsum tool.
+ *
+ * @author ExBin Project (https://exbin.org)
+ */
+@ParametersAreNonnullByDefault
+public class XxHash64DigestTest {
+
+    private static final int SANITY_BUFFER_SIZE = 2367;
+
+    @Test
+    public void testEmpty() {
+        Assert.assertEquals("ef46db3751d8e999", computeHash(new byte[0]));
+    }
+
+    @Test
+    public void testShortInput() {
+        Assert.assertEquals("d24ec4f1a98c6e5b", computeHash("a".getBytes(StandardCharsets.US_ASCII)));
+        Assert.assertEquals("44bc2cf5ad770999", computeHash("abc".getBytes(StandardCharsets.US_ASCII)));
+    }
+
+    @Test
+    public void testSanityBuffer() {
+        byte[] sanityBuffer = createSanityBuffer();
+        Assert.assertEquals("4fce394cc88952d8", computeHash(sanityBuffer, 1));
+        Assert.assertEquals("cffa8db881bc3a3d", computeHash(sanityBuffer, 14));
+        Assert.assertEquals("9dd507880debb03d", computeHash(sanityBuffer, 222));
+    }
+
+    @Test
+    public void testMultipleStripes() {
+        byte[] data = "Nobody inspects the spammish repetition".getBytes(StandardCharsets.US_ASCII);
+        Assert.assertEquals("fbcea83c8a378bf1", computeHash(data));
+    }
+
+    @Test
+    public void testIncrementalUpdate() {
+        byte[] sanityBuffer = createSanityBuffer();
+        String expected = computeHash(sanityBuffer, 222);
+        for (int chunkSize : new int[]{1, 3, 7, 31, 32, 33, 100}) {
+            XxHash64Digest digest = new XxHash64Digest();
+            for (int offset = 0; offset < 222; offset += chunkSize) {
+                int length = Math.min(chunkSize, 222 - offset);
+                if (length == 1) {
+                    digest.update(sanityBuffer[offset]);
+                } else {
+                    digest.update(sanityBuffer, offset, length);
+                }
+            }
+            Assert.assertEquals("Chunk size " + chunkSize, expected, finish(digest));
+        }
+    }
+
+    @Test
+    public void testResetAfterFinish() {
+        XxHash64Digest digest = new XxHash64Digest();
+        byte[] data = "abc".getBytes(StandardCharsets.US_ASCII);
+        digest.update(data, 0, data.length);
+        finish(digest);
+        Assert.assertEquals("ef46db3751d8e999", finish(digest));
+    }
+
+    @Nonnull
+    private static byte[] createSanityBuffer() {
+        byte[] buffer = new byte[SANITY_BUFFER_SIZE];
+        int byteGen = (int) 2654435761L;
+        for (int i = 0; i < SANITY_BUFFER_SIZE; i++) {
+            buffer[i] = (byte) (byteGen >>> 24);
+            byteGen *= byteGen;
+        }
+        return buffer;
+    }
+
+    @Nonnull
+    private static String computeHash(byte[] data) {
+        return computeHash(data, data.length);
+    }
+
+    @Nonnull
+    private static String computeHash(byte[] data, int length) {
+        XxHash64Digest digest = new XxHash64Digest();
+        digest.update(data, 0, length);
+        return finish(digest);
+    }
+
+    @Nonnull
+    private static String finish(XxHash64Digest digest) {
+        byte[] output = new byte[digest.getDigestSize()];
+        digest.doFinal(output, 0);
+        StringBuilder builder = new StringBuilder();
+        for (byte value : output) {
+            builder.append(Character.forDigit((value >> 4) & 0xf, 16)).append(Character.forDigit(value & 0xf, 16));
+        }
+        return builder.toString();
+    }
+}
@@ -0,0 +1,82 @@
+/*
+ * Copyright (C) ExBin Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.exbin.framework.bined.operation.compression.codec;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import javax.annotation.Nonnull;
+import javax.annotation.ParametersAreNonnullByDefault;
+import org.apache.commons.compress.compressors.bzip2.BZip2CompressorInputStream;
+import org.apache.commons.compress.compressors.bzip2.BZip2CompressorOutputStream;
+import org.exbin.framework.bined.operation.method.CompressionCodec;
+import org.exbin.framework.bined.operation.method.CompressionDataMethod;
+
+/**
+ * BZIP2 compression codec.
+ *
+ * @author ExBin Project (https://exbin.org)
+ */
+@ParametersAreNonnullByDefault
+public class Bzip2CompressionCodec implements CompressionCodec {
+
+    @Nonnull
+    @Override
+    public String getName() {
+        return "BZIP2";
+    }
+
+    @Override
+    public int getMinLevel() {
+        return 1;
+    }
+
+    @Override
+    public int getMaxLevel() {
+        return 9;
+    }
+
+    @Override
+    public int getDefaultLevel() {
+        return 9;
+    }
+
+    @Override
+    public boolean isMultithreaded() {
+        return false;
+    }
+
+    @Override
+    public boolean isDetected(byte[] header) {
+        // BZIP2 magic bytes: 0x42 0x5A 0x68 (BZh) followed by block size digit
+        return header.length >= 4 && header[0] == 0x42 && header[1] == 0x5A && header[2] == 0x68 && header[3] >= '1' && header[3] <= '9';
+    }
+
+    @Override
+    public void compress(InputStream input, OutputStream output, int level, int threads) throws IOException {
+        try (BZip2CompressorOutputStream bzip2 = new BZip2CompressorOutputStream(output, level)) {
+            CompressionDataMethod.transfer(input, bzip2);
+        }
+    }
+
+    @Override
+    public void decompress(InputStream input, OutputStream output) throws IOException {
+        // Concatenated streams are decompressed as produced by parallel compressors
+        try (BZip2CompressorInputStream bzip2 = new BZip2CompressorInputStream(input, true)) {
+            CompressionDataMethod.transfer(bzip2, output);
+        }
+    }
+}
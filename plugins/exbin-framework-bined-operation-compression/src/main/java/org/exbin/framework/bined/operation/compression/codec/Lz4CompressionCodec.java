@@ -0,0 +1,95 @@
+/*
+ * Copyright (C) ExBin Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.exbin.framework.bined.operation.compression.codec;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import javax.annotation.Nonnull;
+import javax.annotation.ParametersAreNonnullByDefault;
+import net.jpountz.lz4.LZ4Factory;
+import net.jpountz.lz4.LZ4FrameInputStream;
+import net.jpountz.lz4.LZ4FrameOutputStream;
+import net.jpountz.xxhash.XXHashFactory;
+import org.exbin.framework.bined.operation.method.CompressionCodec;
+import org.exbin.framework.bined.operation.method.CompressionDataMethod;
+
+/**
+ * LZ4 frame compression codec.
+ *
+ * @author ExBin Project (https://exbin.org)
+ */
+@ParametersAreNonnullByDefault
+public class Lz4CompressionCodec implements CompressionCodec {
+
+    @Nonnull
+    @Override
+    public String getName() {
+        return "LZ4";
+    }
+
+    @Override
+    public int getMinLevel() {
+        return 0;
+    }
+
+    @Override
+    public int getMaxLevel() {
+        return 17;
+    }
+
+    @Override
+    public int getDefaultLevel() {
+        return 0;
+    }
+
+    @Override
+    public boolean isMultithreaded() {
+        return false;
+    }
+
+    @Override
+    public boolean isDetected(byte[] header) {
+        // LZ4 frame magic bytes: 0x04 0x22 0x4D 0x18
+        return header.length >= 4 && header[0] == 0x04 && header[1] == 0x22 && header[2] == 0x4D && header[3] == 0x18;
+    }
+
+    @Override
+    public void compress(InputStream input, OutputStream output, int level, int threads) throws IOException {
+        try (LZ4FrameOutputStream lz4 = createOutputStream(output, level)) {
+            CompressionDataMethod.transfer(input, lz4);
+        }
+    }
+
+    @Override
+    public void decompress(InputStream input, OutputStream output) throws IOException {
+        try (LZ4FrameInputStream lz4 = new LZ4FrameInputStream(input)) {
+            CompressionDataMethod.transfer(lz4, output);
+        }
+    }
+
+    @Nonnull
+    private static LZ4FrameOutputStream createOutputStream(OutputStream output, int level) throws IOException {
+        if (level == 0) {
+            return new LZ4FrameOutputStream(output);
+        }
+
+        // Higher levels use high compression variant of the block compressor
+        return new LZ4FrameOutputStream(output, LZ4FrameOutputStream.BLOCKSIZE.SIZE_4MB, -1L,
+                LZ4Factory.fastestInstance().highCompressor(level), XXHashFactory.fastestInstance().hash32(),
+                LZ4FrameOutputStream.FLG.Bits.BLOCK_INDEPENDENCE);
+    }
+}
@@ -0,0 +1,82 @@
+/*
+ * Copyright (C) ExBin Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.exbin.framework.bined.operation.compression.codec;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import javax.annotation.Nonnull;
+import javax.annotation.ParametersAreNonnullByDefault;
+import org.exbin.framework.bined.operation.method.CompressionCodec;
+import org.exbin.framework.bined.operation.method.CompressionDataMethod;
+import org.tukaani.xz.LZMA2Options;
+import org.tukaani.xz.XZInputStream;
+import org.tukaani.xz.XZOutputStream;
+
+/**
+ * XZ compression codec.
+ *
+ * @author ExBin Project (https://exbin.org)
+ */
+@ParametersAreNonnullByDefault
+public class XzCompressionCodec implements CompressionCodec {
+
+    @Nonnull
+    @Override
+    public String getName() {
+        return "XZ";
+    }
+
+    @Override
+    public int getMinLevel() {
+        return 0;
+    }
+
+    @Override
+    public int getMaxLevel() {
+        return 9;
+    }
+
+    @Override
+    public int getDefaultLevel() {
+        return 6;
+    }
+
+    @Override
+    public boolean isMultithreaded() {
+        return false;
+    }
+
+    @Override
+    public boolean isDetected(byte[] header) {
+        // XZ magic bytes: 0xFD 0x37 0x7A 0x58 0x5A 0x00
+        return header.length >= 6 && header[0] == (byte) 0xFD && header[1] == 0x37 && header[2] == 0x7A && header[3] == 0x58 && header[4] == 0x5A && header[5] == 0x00;
+    }
+
+    @Override
+    public void compress(InputStream input, OutputStream output, int level, int threads) throws IOException {
+        try (XZOutputStream xz = new XZOutputStream(output, new LZMA2Options(level))) {
+            CompressionDataMethod.transfer(input, xz);
+        }
+    }
+
+    @Override
+    public void decompress(InputStream input, OutputStream output) throws IOException {
+        try (XZInputStream xz = new XZInputStream(input)) {
+            CompressionDataMethod.transfer(xz, output);
+        }
+    }
+}
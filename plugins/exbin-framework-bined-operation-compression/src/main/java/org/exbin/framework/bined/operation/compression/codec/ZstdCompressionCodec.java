@@ -0,0 +1,103 @@
+/*
+ * Copyright (C) ExBin Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.exbin.framework.bined.operation.compression.codec;
+
+import com.github.luben.zstd.ZstdInputStream;
+import com.github.luben.zstd.ZstdOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import javax.annotation.Nonnull;
+import javax.annotation.ParametersAreNonnullByDefault;
+import org.exbin.framework.bined.operation.method.CompressionCodec;
+import org.exbin.framework.bined.operation.method.CompressionDataMethod;
+
+/**
+ * Zstandard compression codec.
+ *
+ * @author ExBin Project (https://exbin.org)
+ */
+@ParametersAreNonnullByDefault
+public class ZstdCompressionCodec implements CompressionCodec {
+
+    @Nonnull
+    @Override
+    public String getName() {
+        return "Zstandard";
+    }
+
+    @Override
+    public int getMinLevel() {
+        return 1;
+    }
+
+    @Override
+    public int getMaxLevel() {
+        return 22;
+    }
+
+    @Override
+    public int getDefaultLevel() {
+        return 3;
+    }
+
+    @Override
+    public boolean isMultithreaded() {
+        return true;
+    }
+
+    @Override
+    public boolean isDetected(byte[] header) {
+        // Zstandard frame magic bytes: 0x28 0xB5 0x2F 0xFD
+        return header.length >= 4 && header[0] == 0x28 && header[1] == (byte) 0xB5 && header[2] == 0x2F && header[3] == (byte) 0xFD;
+    }
+
+    @Override
+    public void compress(InputStream input, OutputStream output, int level, int threads) throws IOException {
+        try (ZstdOutputStream zstd = createOutputStream(output, level)) {
+            if (threads > 1) {
+                zstd.setWorkers(threads);
+            }
+            CompressionDataMethod.transfer(input, zstd);
+        }
+    }
+
+    @Override
+    public void decompress(InputStream input, OutputStream output) throws IOException {
+        try (InputStream zstd = createInputStream(input)) {
+            CompressionDataMethod.transfer(zstd, output);
+        }
+    }
+
+    @Nonnull
+    private static ZstdOutputStream createOutputStream(OutputStream output, int level) throws IOException {
+        try {
+            return new ZstdOutputStream(output, level);
+        } catch (LinkageError ex) {
+            // Native library is not provided for every platform
+            throw new IOException("Zstandard is not supported on this platform", ex);
+        }
+    }
+
+    @Nonnull
+    private static InputStream createInputStream(InputStream input) throws IOException {
+        try {
+            return new ZstdInputStream(input);
+        } catch (LinkageError ex) {
+            throw new IOException("Zstandard is not supported on this platform", ex);
+        }
+    }
+}
@@ -0,0 +1,119 @@
+/*
+ * Copyright (C) ExBin Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.exbin.framework.bined.operation.compression.codec;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+import javax.annotation.Nonnull;
+import javax.annotation.ParametersAreNonnullByDefault;
+import org.exbin.framework.bined.operation.method.CompressionCodec;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Tests for compression codecs of compression plugin.
+ *
+ * @author ExBin Project (https://exbin.org)
+ */
+@ParametersAreNonnullByDefault
+public class CompressionCodecsTest {
+
+    private static final int DATA_SIZE = 100000;
+
+    public CompressionCodecsTest() {
+    }
+
+    @Test
+    public void testRoundTrip() throws IOException {
+        byte[] data = createTestData();
+        for (CompressionCodec codec : createCodecs()) {
+            for (int level : new int[]{codec.getMinLevel(), codec.getDefaultLevel(), codec.getMaxLevel()}) {
+                byte[] compressed = compress(codec, data, level, 1);
+                Assert.assertTrue(codec.getName(), compressed.length < data.length);
+                Assert.assertArrayEquals(codec.getName() + " level " + level, data, decompress(codec, compressed));
+            }
+        }
+    }
+
+    @Test
+    public void testMultithreadedCompression() throws IOException {
+        byte[] data = createTestData();
+        for (CompressionCodec codec : createCodecs()) {
+            if (codec.isMultithreaded()) {
+                byte[] compressed = compress(codec, data, codec.getDefaultLevel(), 4);
+                Assert.assertArrayEquals(codec.getName(), data, decompress(codec, compressed));
+            }
+        }
+    }
+
+    @Test
+    public void testDetection() throws IOException {
+        byte[] data = createTestData();
+        CompressionCodec[] codecs = createCodecs();
+        for (CompressionCodec codec : codecs) {
+            byte[] compressed = compress(codec, data, codec.getDefaultLevel(), 1);
+            byte[] header = Arrays.copyOf(compressed, Math.min(compressed.length, CompressionCodec.DETECTION_HEADER_SIZE));
+            for (CompressionCodec detectingCodec : codecs) {
+                Assert.assertEquals(codec.getName() + " detected by " + detectingCodec.getName(), codec == detectingCodec, detectingCodec.isDetected(header));
+            }
+        }
+    }
+
+    @Test
+    public void testUnknownHeader() {
+        byte[] header = Arrays.copyOf(createTestData(), CompressionCodec.DETECTION_HEADER_SIZE);
+        for (CompressionCodec codec : createCodecs()) {
+            Assert.assertFalse(codec.getName(), codec.isDetected(header));
+            Assert.assertFalse(codec.getName(), codec.isDetected(new byte[0]));
+        }
+
+        // Block size digit is part of BZIP2 magic header
+        Assert.assertTrue(new Bzip2CompressionCodec().isDetected(new byte[]{0x42, 0x5A, 0x68, '9'}));
+        Assert.assertFalse(new Bzip2CompressionCodec().isDetected(new byte[]{0x42, 0x5A, 0x68, '0'}));
+        // Truncated XZ header is not recognized
+        Assert.assertFalse(new XzCompressionCodec().isDetected(new byte[]{(byte) 0xFD, 0x37, 0x7A, 0x58, 0x5A}));
+    }
+
+    @Nonnull
+    private static CompressionCodec[] createCodecs() {
+        return new CompressionCodec[]{new ZstdCompressionCodec(), new Lz4CompressionCodec(), new XzCompressionCodec(), new Bzip2CompressionCodec()};
+    }
+
+    @Nonnull
+    private static byte[] compress(CompressionCodec codec, byte[] data, int level, int threads) throws IOException {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        codec.compress(new ByteArrayInputStream(data), output, level, threads);
+        return output.toByteArray();
+    }
+
+    @Nonnull
+    private static byte[] decompress(CompressionCodec codec, byte[] data) throws IOException {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        codec.decompress(new ByteArrayInputStream(data), output);
+        return output.toByteArray();
+    }
+
+    @Nonnull
+    private static byte[] createTestData() {
+        byte[] data = new byte[DATA_SIZE];
+        for (int i = 0; i < DATA_SIZE; i++) {
+            data[i] = (byte) ((i / 7) * 31);
+        }
+        return data;
+    }
+}